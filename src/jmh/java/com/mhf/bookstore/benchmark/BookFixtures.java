@@ -0,0 +1,86 @@
+package com.mhf.bookstore.benchmark;
+
+import com.mhf.bookstore.model.book.Book;
+import com.mhf.bookstore.model.book.Status;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic catalog: the same seed and size always produce the same rows, so results of
+ * different runs and branches are comparable.
+ */
+public final class BookFixtures {
+
+    public static final long SEED = 42L;
+
+    private static final String[] WORDS = {
+            "Silent", "River", "Shadow", "Garden", "Empire", "Winter", "Glass", "Machine", "Ocean", "Letters",
+            "Night", "Iron", "Kingdom", "Stranger", "Paper", "Memory", "Fire", "House", "Atlas", "Crown"
+    };
+    private static final String[] FIRST_NAMES = {"Ana", "Bruno", "Chen", "Dara", "Elif", "Farid", "Grace", "Hugo", "Ines", "Jonas"};
+    private static final String[] LAST_NAMES = {"Silva", "Novak", "Okafor", "Larsen", "Moreau", "Tanaka", "Weber", "Kaya", "Rossi", "Haddad"};
+
+    private static final int INSERT_BATCH_SIZE = 10_000;
+
+    private BookFixtures() {
+    }
+
+    public static List<Book> books(int count) {
+        Random random = new Random(SEED);
+        int authors = Math.max(1, count / 20);
+        List<Book> books = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            Book book = new Book((long) i, title(random), author(random.nextInt(authors)), price(random), status(random));
+            book.setVersion(0L);
+            books.add(book);
+        }
+        return books;
+    }
+
+    /**
+     * Inserts {@code count} rows with ids 1..count and moves the id sequence past them.
+     */
+    public static void seed(JdbcTemplate jdbcTemplate, int count) {
+        List<Book> books = books(count);
+        for (int from = 0; from < count; from += INSERT_BATCH_SIZE) {
+            List<Object[]> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+            for (Book book : books.subList(from, Math.min(from + INSERT_BATCH_SIZE, count)))
+                batch.add(new Object[]{book.getId(), book.getTitle(), book.getAuthor(), book.getPrice(), book.getStatus().name()});
+            jdbcTemplate.batchUpdate("insert into book (id, title, author, price, status, version) values (?, ?, ?, ?, ?, 0)", batch);
+        }
+        // Leave room for the block the pooled optimizer hands out below the sequence value
+        jdbcTemplate.execute("alter sequence book_seq restart with " + (count + 100));
+    }
+
+    private static String title(Random random) {
+        int words = 1 + random.nextInt(4);
+        StringBuilder title = new StringBuilder("The");
+        for (int w = 0; w < words; w++)
+            title.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+        return title.toString();
+    }
+
+    private static String author(int n) {
+        return FIRST_NAMES[n % FIRST_NAMES.length] + " " + LAST_NAMES[(n / FIRST_NAMES.length) % LAST_NAMES.length] + " " + n;
+    }
+
+    // Skewed towards cheap books, rounded to cents
+    private static double price(Random random) {
+        double u = random.nextDouble();
+        return Math.round((4.99 + 75 * u * u) * 100) / 100.0;
+    }
+
+    // 80% available, 15% out of stock, 5% discontinued
+    private static Status status(Random random) {
+        int n = random.nextInt(100);
+        if (n < 80)
+            return Status.AVAILABLE;
+        if (n < 95)
+            return Status.OUT_OF_STOCK;
+        return Status.DISCONTINUED;
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.mhf.bookstore.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.mhf.bookstore.dto.book.BookDto;
+import com.mhf.bookstore.mapper.book.BookMapperImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialization and parsing of {@code BookDto} lists as JSON, CBOR and Smile, plus gzip on top of JSON as the
+ * server applies it above {@code server.compression.min-response-size}. Payload sizes are printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class BookFormatBenchmark {
+
+    private static final TypeReference<List<BookDto>> BOOK_LIST = new TypeReference<>() {
+    };
+
+    // A default page and a full export-sized list
+    @Param({"20", "10000"})
+    private int books;
+
+    private ObjectMapper json;
+    private ObjectMapper cbor;
+    private ObjectMapper smile;
+    private List<BookDto> dtos;
+    private byte[] jsonBytes;
+    private byte[] cborBytes;
+    private byte[] smileBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        json = new ObjectMapper();
+        cbor = new CBORMapper();
+        smile = new SmileMapper();
+        dtos = new BookMapperImpl().toDtoList(BookFixtures.books(books));
+        jsonBytes = json.writeValueAsBytes(dtos);
+        cborBytes = cbor.writeValueAsBytes(dtos);
+        smileBytes = smile.writeValueAsBytes(dtos);
+        System.out.printf("%n%d books: json %d B, json+gzip %d B, cbor %d B, smile %d B%n", books,
+                jsonBytes.length, gzip(jsonBytes).length, cborBytes.length, smileBytes.length);
+    }
+
+    @Benchmark
+    public byte[] writeJson() throws IOException {
+        return json.writeValueAsBytes(dtos);
+    }
+
+    @Benchmark
+    public byte[] writeJsonGzip() throws IOException {
+        return gzip(json.writeValueAsBytes(dtos));
+    }
+
+    @Benchmark
+    public byte[] writeCbor() throws IOException {
+        return cbor.writeValueAsBytes(dtos);
+    }
+
+    @Benchmark
+    public byte[] writeSmile() throws IOException {
+        return smile.writeValueAsBytes(dtos);
+    }
+
+    @Benchmark
+    public List<BookDto> readJson() throws IOException {
+        return json.readValue(jsonBytes, BOOK_LIST);
+    }
+
+    @Benchmark
+    public List<BookDto> readCbor() throws IOException {
+        return cbor.readValue(cborBytes, BOOK_LIST);
+    }
+
+    @Benchmark
+    public List<BookDto> readSmile() throws IOException {
+        return smile.readValue(smileBytes, BOOK_LIST);
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.mhf.bookstore.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mhf.bookstore.dto.book.BookDto;
+import com.mhf.bookstore.mapper.book.BookMapper;
+import com.mhf.bookstore.mapper.book.BookMapperImpl;
+import com.mhf.bookstore.model.book.Book;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MapStruct entity → DTO copies and Jackson serialization of the resulting lists, without a database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class BookMappingBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int catalogSize;
+
+    private BookMapper bookMapper;
+    private ObjectMapper objectMapper;
+    private List<Book> books;
+    private List<BookDto> dtos;
+    private Book single;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        bookMapper = new BookMapperImpl();
+        // Same defaults as the Boot-configured mapper for these types
+        objectMapper = new ObjectMapper();
+        books = BookFixtures.books(catalogSize);
+        dtos = bookMapper.toDtoList(books);
+        single = books.get(books.size() / 2);
+    }
+
+    @Benchmark
+    public BookDto toDto() {
+        return bookMapper.toDto(single);
+    }
+
+    @Benchmark
+    public List<BookDto> toDtoList() {
+        return bookMapper.toDtoList(books);
+    }
+
+    @Benchmark
+    public byte[] serializeDtoList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(dtos);
+    }
+
+    @Benchmark
+    public byte[] mapAndSerializeList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(bookMapper.toDtoList(books));
+    }
+
+}
@@ -0,0 +1,103 @@
+package com.mhf.bookstore.benchmark;
+
+import com.mhf.bookstore.BookStoreApplication;
+import com.mhf.bookstore.dao.book.BookSpecifications;
+import com.mhf.bookstore.dao.book.IBookRepository;
+import com.mhf.bookstore.dto.book.BookDto;
+import com.mhf.bookstore.dto.book.BookFilterDto;
+import com.mhf.bookstore.mapper.book.BookMapper;
+import com.mhf.bookstore.model.book.Book;
+import com.mhf.bookstore.model.book.Status;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The list and status pages read through managed entities plus MapStruct (the previous read path) against
+ * {@code BookDto} projections in a read-only transaction (the current one), at equal page sizes. The repository
+ * no longer declares entity windows, so the entity pages are scrolled through a specification.
+ * <p>
+ * Run with {@code -prof gc} to compare allocation: {@code gc.alloc.rate.norm} is bytes per page served.
+ * Statement observation is switched off so that both paths pay only for JPA.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class BookReadPathBenchmark {
+
+    @Param({"1000", "100000"})
+    private int catalogSize;
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private IBookRepository iBookRepository;
+    private BookMapper bookMapper;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(BookStoreApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "--spring.h2.console.enabled=false",
+                        "--bookstore.query.enabled=false",
+                        "--logging.level.root=WARN");
+        BookFixtures.seed(context.getBean(JdbcTemplate.class), catalogSize);
+        iBookRepository = context.getBean(IBookRepository.class);
+        bookMapper = context.getBean(BookMapper.class);
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<BookDto> listPage_entities() {
+        return readWrite.execute(status -> bookMapper.toDtoList(entityPage(new BookFilterDto(), Sort.by("price", "id"))));
+    }
+
+    @Benchmark
+    public List<BookDto> listPage_projection() {
+        return readOnly.execute(status ->
+                iBookRepository.findDtoBy(ScrollPosition.keyset(), Sort.by("price", "id"), Limit.of(pageSize)).getContent());
+    }
+
+    @Benchmark
+    public List<BookDto> statusPage_entities() {
+        return readWrite.execute(status -> bookMapper.toDtoList(
+                entityPage(new BookFilterDto(null, Status.OUT_OF_STOCK, null, null, null), Sort.by("id"))));
+    }
+
+    @Benchmark
+    public List<BookDto> statusPage_projection() {
+        return readOnly.execute(status -> iBookRepository.findDtoByStatus(Status.OUT_OF_STOCK,
+                ScrollPosition.keyset(), Sort.by("id"), Limit.of(pageSize)).getContent());
+    }
+
+    private List<Book> entityPage(BookFilterDto filter, Sort sort) {
+        return iBookRepository.findBy(BookSpecifications.matching(filter),
+                query -> query.sortBy(sort).limit(pageSize).scroll(ScrollPosition.keyset())).getContent();
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.mhf.bookstore.benchmark;
+
+import com.mhf.bookstore.BookStoreApplication;
+import com.mhf.bookstore.cache.book.BookCache;
+import com.mhf.bookstore.dto.book.BookDto;
+import com.mhf.bookstore.dto.page.CursorPage;
+import com.mhf.bookstore.dto.page.CursorPageRequest;
+import com.mhf.bookstore.model.book.Status;
+import com.mhf.bookstore.service.book.IBookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link IBookService} calls against an in-memory H2 catalog seeded with {@link BookFixtures}.
+ * <p>
+ * The application context is started without the web layer; everything below the controller
+ * (transactions, JPA, MapStruct, caches) is the production wiring. Writes grow the table during
+ * the run, which is negligible next to the larger catalog sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class BookServiceBenchmark {
+
+    private static final int HOT_IDS = 100;
+
+    @Param({"1000", "100000", "1000000"})
+    private int catalogSize;
+
+    private ConfigurableApplicationContext context;
+    private IBookService iBookService;
+    private BookCache bookCache;
+    private SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Command line arguments, default properties would lose against application.properties
+        context = new SpringApplicationBuilder(BookStoreApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.h2.console.enabled=false",
+                        "--logging.level.root=WARN");
+        BookFixtures.seed(context.getBean(JdbcTemplate.class), catalogSize);
+        iBookService = context.getBean(IBookService.class);
+        bookCache = context.getBean(BookCache.class);
+        random = new SplittableRandom(BookFixtures.SEED);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private long randomId() {
+        return 1 + random.nextInt(catalogSize);
+    }
+
+    // A small hot set that stays in the cache once warmed
+    @Benchmark
+    public BookDto getBookById_cached() {
+        return iBookService.getBookById(1L + random.nextInt(HOT_IDS));
+    }
+
+    @Benchmark
+    public BookDto getBookById_uncached() {
+        long id = randomId();
+        bookCache.invalidate(id);
+        return iBookService.getBookById(id);
+    }
+
+    @Benchmark
+    public CursorPage<BookDto> listBooks_firstPage() {
+        return iBookService.listBooks(new CursorPageRequest(null, null, null, false));
+    }
+
+    @Benchmark
+    public CursorPage<BookDto> listBooks_sortedByPrice() {
+        return iBookService.listBooks(new CursorPageRequest(null, null, "price,desc", false));
+    }
+
+    @Benchmark
+    public CursorPage<BookDto> getBooksByStatus() {
+        return iBookService.getBooksByStatus(Status.OUT_OF_STOCK, new CursorPageRequest(null, null, null, false));
+    }
+
+    @Benchmark
+    public BookDto createBook() {
+        return iBookService.createBook(new BookDto("Benchmark Book", "Benchmark Author", 19.99, Status.AVAILABLE));
+    }
+
+    @Benchmark
+    public BookDto updateBook() {
+        return iBookService.updateBook(randomId(), new BookDto("Updated Title", "Updated Author", 24.99, Status.AVAILABLE));
+    }
+
+}
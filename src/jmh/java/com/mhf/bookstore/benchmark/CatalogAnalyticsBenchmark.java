@@ -0,0 +1,96 @@
+package com.mhf.bookstore.benchmark;
+
+import com.mhf.bookstore.analytics.book.CatalogColumns;
+import com.mhf.bookstore.model.book.Book;
+import com.mhf.bookstore.model.book.Status;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Price histogram, range count and median over the whole catalog: a scan of a {@code List<Book>} against the
+ * columnar {@link CatalogColumns} the analytics endpoints use. Add {@code -prof gc} for allocations; the heap
+ * each representation needs is logged once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class CatalogAnalyticsBenchmark {
+
+    private static final int BUCKETS = 20;
+    private static final double MIN_PRICE = 0;
+    private static final double MAX_PRICE = 80;
+
+    @Param({"100000", "1000000"})
+    private int catalogSize;
+
+    private List<Book> books;
+    private CatalogColumns columns;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        long before = usedHeap();
+        books = BookFixtures.books(catalogSize);
+        long listBytes = usedHeap() - before;
+        columns = new CatalogColumns();
+        for (Book book : books)
+            columns.put(book.getId(), book.getAuthor(), book.getStatus(), book.getPrice());
+        System.out.printf("%n%d books: List<Book> ~%d MiB, columns ~%d MiB%n", catalogSize,
+                listBytes >> 20, columns.memoryBytes() >> 20);
+    }
+
+    @Benchmark
+    public long[] histogramList() {
+        long[] counts = new long[BUCKETS];
+        double width = (MAX_PRICE - MIN_PRICE) / BUCKETS;
+        for (Book book : books) {
+            Double price = book.getPrice();
+            if (book.getStatus() != Status.AVAILABLE || price == null || price < MIN_PRICE || price > MAX_PRICE)
+                continue;
+            counts[Math.min((int) ((price - MIN_PRICE) / width), BUCKETS - 1)]++;
+        }
+        return counts;
+    }
+
+    @Benchmark
+    public long[] histogramColumns() {
+        return columns.histogram(Status.AVAILABLE, null, MIN_PRICE, MAX_PRICE, BUCKETS);
+    }
+
+    @Benchmark
+    public long rangeCountList() {
+        return books.parallelStream()
+                .filter(book -> book.getPrice() != null && book.getPrice() >= 10 && book.getPrice() <= 30)
+                .count();
+    }
+
+    @Benchmark
+    public long rangeCountColumns() {
+        return columns.countInRange(null, null, 10, 30);
+    }
+
+    @Benchmark
+    public double medianList() {
+        double[] prices = books.stream().filter(book -> book.getPrice() != null).mapToDouble(Book::getPrice).sorted().toArray();
+        return prices[prices.length / 2];
+    }
+
+    @Benchmark
+    public double medianColumns() {
+        double[] prices = columns.prices(null, null);
+        Arrays.parallelSort(prices);
+        return prices[prices.length / 2];
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.mhf.bookstore.loadtest;
+
+import com.mhf.bookstore.model.book.Status;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeds the book table with a synthetic catalog that looks like a real one: a few prolific authors and
+ * a long tail, log-normally distributed prices around a typical paperback price and mostly available stock.
+ * The same size and seed always produce the same rows.
+ */
+public class CatalogGenerator {
+
+    static final String[] TITLE_WORDS = {
+            "Silent", "River", "Shadow", "Garden", "Empire", "Winter", "Glass", "Machine", "Ocean", "Letters",
+            "Night", "Iron", "Kingdom", "Stranger", "Paper", "Memory", "Fire", "House", "Atlas", "Crown",
+            "Hidden", "Last", "Broken", "Golden", "Northern", "Forgotten", "Burning", "Quiet", "Wild", "Distant",
+            "Song", "Road", "City", "Island", "Mountain", "Storm", "Dream", "Mirror", "Harbor", "Orchard"
+    };
+    private static final String[] FIRST_NAMES = {
+            "Ana", "Bruno", "Chen", "Dara", "Elif", "Farid", "Grace", "Hugo", "Ines", "Jonas",
+            "Kofi", "Lena", "Mateo", "Nadia", "Oscar", "Priya", "Quentin", "Rosa", "Sven", "Tomoko"
+    };
+    private static final String[] LAST_NAMES = {
+            "Silva", "Novak", "Okafor", "Larsen", "Moreau", "Tanaka", "Weber", "Kaya", "Rossi", "Haddad",
+            "Kowalski", "Nguyen", "Fischer", "Mendes", "Ivanova", "Byrne", "Costa", "Lindqvist", "Sato", "Adeyemi"
+    };
+
+    private static final int INSERT_BATCH_SIZE = 10_000;
+    private static final int BOOKS_PER_AUTHOR = 8;
+    private static final double MEDIAN_PRICE = 14.99;
+
+    private final int catalogSize;
+    private final long seed;
+
+    public CatalogGenerator(int catalogSize, long seed) {
+        this.catalogSize = catalogSize;
+        this.seed = seed;
+    }
+
+    public int getCatalogSize() {
+        return catalogSize;
+    }
+
+    public int authorCount() {
+        return Math.max(1, catalogSize / BOOKS_PER_AUTHOR);
+    }
+
+    /**
+     * Inserts rows with ids 1..catalogSize and moves the id sequence past them.
+     */
+    public void seed(JdbcTemplate jdbcTemplate) {
+        Random random = new Random(seed);
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+        for (long id = 1; id <= catalogSize; id++) {
+            batch.add(new Object[]{id, title(random), author(popularAuthor(random)), price(random), status(random).name()});
+            if (batch.size() == INSERT_BATCH_SIZE) {
+                insert(jdbcTemplate, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty())
+            insert(jdbcTemplate, batch);
+        // Leave room for the block the pooled optimizer hands out below the sequence value
+        jdbcTemplate.execute("alter sequence book_seq restart with " + (catalogSize + 100));
+    }
+
+    private static void insert(JdbcTemplate jdbcTemplate, List<Object[]> batch) {
+        jdbcTemplate.batchUpdate("insert into book (id, title, author, price, status, version) values (?, ?, ?, ?, ?, 0)", batch);
+    }
+
+    static String author(int n) {
+        return FIRST_NAMES[n % FIRST_NAMES.length] + " " + LAST_NAMES[(n / FIRST_NAMES.length) % LAST_NAMES.length]
+                + (n < FIRST_NAMES.length * LAST_NAMES.length ? "" : " " + n);
+    }
+
+    // Log-uniform rank, roughly Zipf: author 0 has the most books, most authors only a few
+    int popularAuthor(Random random) {
+        return (int) Math.pow(authorCount(), random.nextDouble()) - 1;
+    }
+
+    private static String title(Random random) {
+        int words = 1 + random.nextInt(4);
+        StringBuilder title = new StringBuilder(random.nextInt(3) == 0 ? "The" : TITLE_WORDS[random.nextInt(TITLE_WORDS.length)]);
+        for (int w = 0; w < words; w++)
+            title.append(' ').append(TITLE_WORDS[random.nextInt(TITLE_WORDS.length)]);
+        return title.toString();
+    }
+
+    private static double price(Random random) {
+        double price = MEDIAN_PRICE * Math.exp(0.6 * random.nextGaussian());
+        return Math.round(Math.min(250.0, Math.max(0.99, price)) * 100) / 100.0;
+    }
+
+    // 80% available, 12% out of stock, 8% discontinued
+    private static Status status(Random random) {
+        int n = random.nextInt(100);
+        if (n < 80)
+            return Status.AVAILABLE;
+        if (n < 92)
+            return Status.OUT_OF_STOCK;
+        return Status.DISCONTINUED;
+    }
+
+}
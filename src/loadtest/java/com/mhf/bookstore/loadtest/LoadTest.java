@@ -0,0 +1,203 @@
+package com.mhf.bookstore.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.mhf.bookstore.BookStoreApplication;
+import com.mhf.bookstore.analytics.book.BookCatalogSnapshot;
+import com.mhf.bookstore.changes.book.BookChangeLog;
+import com.mhf.bookstore.search.book.BookSearchIndex;
+import com.mhf.bookstore.stats.book.BookStatistics;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Boots the application on a random port, seeds a synthetic catalog and drives an open-loop mixed workload
+ * against it.
+ * <p>
+ * Requests are scheduled at a fixed arrival rate whatever the response times are, and latency is measured
+ * from the scheduled start. A slow server therefore shows up as queueing delay in the percentiles instead
+ * of silently lowering the offered load (coordinated omission).
+ * <p>
+ * Usage: {@code mvn -Ploadtest test-compile exec:exec -Dloadtest.args="catalogSize=1000000 rate=2000 concurrency=128"}
+ */
+public class LoadTest {
+
+    static final ObjectMapper REPORT_MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.parse(args);
+        Map<String, Object> report = runAgainstApplication(config);
+        writeReport(config.getOutput(), report);
+        System.out.println(REPORT_MAPPER.writeValueAsString(report.get("total")));
+    }
+
+    /**
+     * Starts the application with the configured {@code --key=value} arguments, seeds it, runs the workload
+     * and shuts the application down again.
+     */
+    static Map<String, Object> runAgainstApplication(LoadTestConfig config) throws InterruptedException {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(BookStoreApplication.class)
+                .run(applicationArgs(config));
+        try {
+            long seedStart = System.nanoTime();
+            CatalogGenerator catalog = new CatalogGenerator(config.getCatalogSize(), config.getSeed());
+            catalog.seed(context.getBean(JdbcTemplate.class));
+            // The in-memory views were built on startup from an empty table and never saw the JDBC inserts
+            context.getBean(BookSearchIndex.class).rebuild();
+            context.getBean(BookStatistics.class).rebuild();
+            context.getBean(BookCatalogSnapshot.class).rebuild();
+            context.getBean(BookChangeLog.class).indexVersions();
+            System.out.printf("Seeded %d books in %d ms%n", config.getCatalogSize(), (System.nanoTime() - seedStart) / 1_000_000);
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            Workload workload = new Workload("http://localhost:" + port + "/api/books", catalog, config.getMix(), REPORT_MAPPER);
+            return run(config, workload);
+        } finally {
+            context.close();
+        }
+    }
+
+    static void writeReport(String path, Map<String, Object> report) throws IOException {
+        File output = new File(path);
+        if (output.getParentFile() != null)
+            output.getParentFile().mkdirs();
+        REPORT_MAPPER.writeValue(output, report);
+        System.out.println("Report written to " + output.getAbsolutePath());
+    }
+
+    // Command line arguments, so they win over application.properties; --key=value arguments of the run override them
+    private static String[] applicationArgs(LoadTestConfig config) {
+        Map<String, String> args = new LinkedHashMap<>();
+        args.put("server.port", "0");
+        args.put("spring.datasource.url", "jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1");
+        args.put("bookstore.reactive.url", "r2dbc:h2:mem:///loadtest");
+        args.put("spring.jpa.show-sql", "false");
+        args.put("spring.h2.console.enabled", "false");
+        args.put("logging.level.root", "WARN");
+        for (String arg : config.getApplicationArgs()) {
+            int eq = arg.indexOf('=');
+            args.put(eq < 0 ? arg.substring(2) : arg.substring(2, eq), eq < 0 ? "true" : arg.substring(eq + 1));
+        }
+        List<String> result = new ArrayList<>();
+        for (Map.Entry<String, String> arg : args.entrySet())
+            result.add("--" + arg.getKey() + "=" + arg.getValue());
+        return result.toArray(new String[0]);
+    }
+
+    static Map<String, Object> run(LoadTestConfig config, Workload workload) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values())
+            stats.put(operation, new OperationStats());
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(config.getConcurrency(), config.getConcurrency(),
+                0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / config.getRate();
+        long maxQueueNanos = TimeUnit.MILLISECONDS.toNanos(config.getMaxQueueMillis());
+        long start = System.nanoTime();
+        long measureStart = start + TimeUnit.SECONDS.toNanos(config.getWarmupSeconds());
+        long end = measureStart + TimeUnit.SECONDS.toNanos(config.getDurationSeconds());
+        Instant startedAt = Instant.now();
+
+        for (long n = 0; ; n++) {
+            long intended = start + n * intervalNanos;
+            if (intended >= end)
+                break;
+            long wait = intended - System.nanoTime();
+            if (wait > 0)
+                LockSupport.parkNanos(wait);
+
+            Operation operation = workload.next(ThreadLocalRandom.current());
+            boolean measured = intended >= measureStart;
+            executor.execute(() -> execute(client, workload, operation, intended, maxQueueNanos,
+                    measured ? stats.get(operation) : null));
+        }
+        shutdown(executor, config.getMaxQueueMillis());
+
+        double seconds = config.getDurationSeconds();
+        Histogram total = new Histogram(3);
+        Map<String, Object> operations = new LinkedHashMap<>();
+        long dropped = 0;
+        for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+            Histogram histogram = entry.getValue().histogram();
+            Map<String, Object> summary = entry.getValue().summarize(histogram, seconds);
+            dropped += (Long) summary.get("dropped");
+            if (histogram.getTotalCount() == 0 && (Long) summary.get("dropped") == 0)
+                continue;
+            total.add(histogram);
+            operations.put(entry.getKey().name(), summary);
+        }
+
+        Map<String, Object> totalSummary = new LinkedHashMap<>();
+        totalSummary.put("requests", total.getTotalCount());
+        totalSummary.put("throughput", total.getTotalCount() / seconds);
+        totalSummary.put("offeredRate", config.getRate());
+        totalSummary.put("dropped", dropped);
+        totalSummary.put("latencyMillis", OperationStats.percentiles(total));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("startedAt", startedAt.toString());
+        report.put("config", config.describe());
+        report.put("total", totalSummary);
+        report.put("operations", operations);
+        return report;
+    }
+
+    private static void execute(HttpClient client, Workload workload, Operation operation, long intended,
+                                long maxQueueNanos, OperationStats stats) {
+        if (System.nanoTime() - intended > maxQueueNanos) {
+            if (stats != null)
+                stats.recordDropped();
+            return;
+        }
+        try {
+            HttpResponse<String> response = client.send(operation.request(workload, ThreadLocalRandom.current()),
+                    operation == Operation.EXPORT ? discardingAsString() : HttpResponse.BodyHandlers.ofString());
+            if (stats != null)
+                stats.recordResponse(response.statusCode(), System.nanoTime() - intended);
+            workload.onResponse(operation, response);
+        } catch (IOException ex) {
+            if (stats != null)
+                stats.recordFailure(System.nanoTime() - intended);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Exports are far too large to buffer as a string
+    private static HttpResponse.BodyHandler<String> discardingAsString() {
+        return HttpResponse.BodyHandlers.replacing(null);
+    }
+
+    private static void shutdown(ExecutorService executor, int maxQueueMillis) throws InterruptedException {
+        executor.shutdown();
+        // Whatever is still queued past maxQueueMillis is dropped quickly, so this bounds the drain
+        if (!executor.awaitTermination(maxQueueMillis + 60_000L, TimeUnit.MILLISECONDS))
+            executor.shutdownNow();
+    }
+
+}
@@ -0,0 +1,143 @@
+package com.mhf.bookstore.loadtest;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Load test settings, parsed from {@code key=value} arguments.
+ * Arguments starting with {@code --} are passed through to the application unchanged.
+ */
+public class LoadTestConfig {
+
+    private int catalogSize = 1_000_000;
+    private long seed = 42L;
+    // Requests started per second, independent of how fast responses come back
+    private int rate = 500;
+    // Client threads, i.e. the maximum number of requests in flight
+    private int concurrency = 64;
+    private int warmupSeconds = 10;
+    private int durationSeconds = 60;
+    // Scheduled requests that are not started after this long are counted as dropped
+    private int maxQueueMillis = 10_000;
+    private String output = "target/loadtest-result.json";
+    private Map<Operation, Integer> mix = defaultMix();
+    private List<String> applicationArgs = new ArrayList<>();
+
+    public static LoadTestConfig parse(String[] args) {
+        LoadTestConfig config = new LoadTestConfig();
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                config.applicationArgs.add(arg);
+                continue;
+            }
+            int eq = arg.indexOf('=');
+            if (eq < 0)
+                throw new IllegalArgumentException("Expected key=value but got '" + arg + "'");
+            String key = arg.substring(0, eq);
+            String value = arg.substring(eq + 1);
+            if (key.equals("catalogSize"))
+                config.catalogSize = Integer.parseInt(value);
+            else if (key.equals("seed"))
+                config.seed = Long.parseLong(value);
+            else if (key.equals("rate"))
+                config.rate = Integer.parseInt(value);
+            else if (key.equals("concurrency"))
+                config.concurrency = Integer.parseInt(value);
+            else if (key.equals("warmup"))
+                config.warmupSeconds = Integer.parseInt(value);
+            else if (key.equals("duration"))
+                config.durationSeconds = Integer.parseInt(value);
+            else if (key.equals("maxQueueMillis"))
+                config.maxQueueMillis = Integer.parseInt(value);
+            else if (key.equals("output"))
+                config.output = value;
+            else if (key.equals("mix"))
+                config.mix = parseMix(value);
+            else
+                throw new IllegalArgumentException("Unknown setting '" + key + "'");
+        }
+        if (config.rate < 1 || config.concurrency < 1 || config.durationSeconds < 1 || config.catalogSize < 1)
+            throw new IllegalArgumentException("catalogSize, rate, concurrency and duration must be positive");
+        return config;
+    }
+
+    /**
+     * Weights per operation, e.g. {@code GET_BY_ID:50,CREATE:5}. Operations not listed get weight 0.
+     */
+    static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String entry : value.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2)
+                throw new IllegalArgumentException("Invalid mix entry '" + entry + "', expected OPERATION:weight");
+            mix.put(Operation.valueOf(parts[0].trim().toUpperCase()), Integer.parseInt(parts[1].trim()));
+        }
+        return mix;
+    }
+
+    // Read-heavy, with every endpoint represented; full exports and catalog-wide rewrites are opt-in
+    private static Map<Operation, Integer> defaultMix() {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values())
+            mix.put(operation, operation.getDefaultWeight());
+        return mix;
+    }
+
+    public Map<String, Object> describe() {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("catalogSize", catalogSize);
+        description.put("seed", seed);
+        description.put("rate", rate);
+        description.put("concurrency", concurrency);
+        description.put("warmupSeconds", warmupSeconds);
+        description.put("durationSeconds", durationSeconds);
+        description.put("maxQueueMillis", maxQueueMillis);
+        description.put("mix", mix);
+        description.put("applicationArgs", applicationArgs);
+        return description;
+    }
+
+    public int getCatalogSize() {
+        return catalogSize;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getRate() {
+        return rate;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public int getWarmupSeconds() {
+        return warmupSeconds;
+    }
+
+    public int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public int getMaxQueueMillis() {
+        return maxQueueMillis;
+    }
+
+    public String getOutput() {
+        return output;
+    }
+
+    public Map<Operation, Integer> getMix() {
+        return mix;
+    }
+
+    public List<String> getApplicationArgs() {
+        return applicationArgs;
+    }
+
+}
@@ -0,0 +1,152 @@
+package com.mhf.bookstore.loadtest;
+
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * One kind of request against {@code BookController}, with its weight in the default mix.
+ */
+public enum Operation {
+
+    GET_BY_ID(40) {
+        @Override
+        HttpRequest request(Workload workload, ThreadLocalRandom random) {
+            return workload.get("/" + workload.popularId(random)).build();
+        }
+    },
+    LIST(8) {
+        @Override
+        HttpRequest request(Workload workload, ThreadLocalRandom random) {
+            String[] sorts = {"id", "title", "price,desc"};
+            return workload.get("?size=20&sort=" + sorts[random.nextInt(sorts.length)]).build();
+        }
+    },
+    LIST_BY_STATUS(8) {
+        @Override
+        HttpRequest request(Workload workload, ThreadLocalRandom random) {
+            return workload.get("/status/" + workload.randomStatus(random) + "?size=20").build();
+        }
+    },
+    SEARCH(8) {
+        @Override
+        HttpRequest request(Workload workload, ThreadLocalRandom random) {
+            String term = CatalogGenerator.TITLE_WORDS[random.nextInt(CatalogGenerator.TITLE_WORDS.length)];
+            return workload.get("/search?size=20&q=" + term).build();
+        }
+    },
+    CACHE_STATS(1) {
+        @Override
+        HttpRequest request(Workload workload, ThreadLocalRandom random) {
+            return workload.get("/cache/stats").build();
+        }
+    },
+    CATALOG_STATS(2) {
+        @Override
+        HttpRequest request(Workload workload, ThreadLocalRandom random) {
+            return workload.get("/stats").build();
+        }
+    },
+    AUTHOR_STATS(2) {
+        @Override
+        HttpRequest request(Workload workload, ThreadLocalRandom random) {
+            return workload.get("/stats/authors?name=" + workload.authorParam(random)).build();
+        }
+    },
+    PRICE_HISTOGRAM(2) {
+        @Override
+        HttpRequest request(Workload workload, ThreadLocalRandom random) {
+            return workload.get("/analytics/prices/histogram?buckets=20&status=" + workload.randomStatus(random)).build();
+        }
+    },
+    PRICE_PERCENTILES(2) {
+        @Override
+        HttpRequest request(Workload workload, ThreadLocalRandom random) {
+            return workload.get("/analytics/prices/percentiles?p=50,95,99&author=" + workload.authorParam(random)).build();
+        }
+    },
+    PRICE_RANGE_COUNT(2) {
+        @Override
+        HttpRequest request(Workload workload, ThreadLocalRandom random) {
+            double min = 5 + random.nextInt(30);
+            return workload.get("/analytics/prices/count?minPrice=" + min + "&maxPrice=" + (min + 10)).build();
+        }
+    },
+    // A mirroring consumer polling for deltas, each poll continues from the previous one's nextSince
+    CHANGES(2) {
+        @Override
+        HttpRequest request(Workload workload, ThreadLocalRandom random) {
+            return workload.get(workload.changesPath()).build();
+        }
+    },
+    // Streams the whole catalog
+    EXPORT(0) {
+        @Override
+        HttpRequest request(Workload workload, ThreadLocalRandom random) {
+            return workload.get("/export").timeout(Duration.ofMinutes(30)).build();
+        }
+    },
+    CREATE(8) {
+        @Override
+        HttpRequest request(Workload workload, ThreadLocalRandom random) {
+            return workload.send("", "POST", workload.newBook(random));
+        }
+    },
+    UPDATE(6) {
+        @Override
+        HttpRequest request(Workload workload, ThreadLocalRandom random) {
+            return workload.send("/" + workload.randomId(random), "PUT", workload.newBook(random));
+        }
+    },
+    PATCH(6) {
+        @Override
+        HttpRequest request(Workload workload, ThreadLocalRandom random) {
+            return workload.send("/" + workload.randomId(random), "PATCH", workload.pricePatch(random));
+        }
+    },
+    DISCONTINUE(4) {
+        @Override
+        HttpRequest request(Workload workload, ThreadLocalRandom random) {
+            return workload.send("/" + workload.randomId(random) + "/discontinue", "PATCH", null);
+        }
+    },
+    // Removes books created during the run, so reads of the seeded range never miss
+    DELETE(3) {
+        @Override
+        HttpRequest request(Workload workload, ThreadLocalRandom random) {
+            return workload.delete("/" + workload.createdId(random)).build();
+        }
+    },
+    BULK(2) {
+        @Override
+        HttpRequest request(Workload workload, ThreadLocalRandom random) {
+            return workload.send("/_bulk", "POST", workload.bulkOperations(random));
+        }
+    },
+    // Set-based writes invalidate the whole book cache
+    DISCONTINUE_MATCHING(0) {
+        @Override
+        HttpRequest request(Workload workload, ThreadLocalRandom random) {
+            return workload.send("/_discontinue", "POST", workload.authorCriteria(random));
+        }
+    },
+    REPRICE(0) {
+        @Override
+        HttpRequest request(Workload workload, ThreadLocalRandom random) {
+            return workload.send("/_reprice", "POST", workload.reprice(random));
+        }
+    };
+
+    private final int defaultWeight;
+
+    Operation(int defaultWeight) {
+        this.defaultWeight = defaultWeight;
+    }
+
+    int getDefaultWeight() {
+        return defaultWeight;
+    }
+
+    abstract HttpRequest request(Workload workload, ThreadLocalRandom random);
+
+}
@@ -0,0 +1,73 @@
+package com.mhf.bookstore.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram and outcome counters of one operation, safe for concurrent recording.
+ */
+public class OperationStats {
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Recorder latencies = new Recorder(SIGNIFICANT_DIGITS);
+    private final LongAdder success = new LongAdder();
+    private final LongAdder clientErrors = new LongAdder();
+    private final LongAdder serverErrors = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public void recordResponse(int status, long latencyNanos) {
+        latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+        if (status >= 500)
+            serverErrors.increment();
+        else if (status >= 400)
+            clientErrors.increment();
+        else
+            success.increment();
+    }
+
+    // No response at all (timeout, connection refused, ...), still counts towards the latency
+    public void recordFailure(long latencyNanos) {
+        latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+        failures.increment();
+    }
+
+    public void recordDropped() {
+        dropped.increment();
+    }
+
+    public Histogram histogram() {
+        return latencies.getIntervalHistogram();
+    }
+
+    public Map<String, Object> summarize(Histogram histogram, double seconds) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", histogram.getTotalCount());
+        summary.put("throughput", histogram.getTotalCount() / seconds);
+        summary.put("success", success.sum());
+        summary.put("clientErrors", clientErrors.sum());
+        summary.put("serverErrors", serverErrors.sum());
+        summary.put("failures", failures.sum());
+        summary.put("dropped", dropped.sum());
+        summary.put("latencyMillis", percentiles(histogram));
+        return summary;
+    }
+
+    static Map<String, Object> percentiles(Histogram histogram) {
+        Map<String, Object> percentiles = new LinkedHashMap<>();
+        percentiles.put("mean", histogram.getMean() / 1000.0);
+        percentiles.put("p50", histogram.getValueAtPercentile(50) / 1000.0);
+        percentiles.put("p90", histogram.getValueAtPercentile(90) / 1000.0);
+        percentiles.put("p99", histogram.getValueAtPercentile(99) / 1000.0);
+        percentiles.put("p999", histogram.getValueAtPercentile(99.9) / 1000.0);
+        percentiles.put("max", histogram.getMaxValue() / 1000.0);
+        return percentiles;
+    }
+
+}
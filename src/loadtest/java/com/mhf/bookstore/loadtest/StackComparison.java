@@ -0,0 +1,76 @@
+package com.mhf.bookstore.loadtest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the same load test against several server stacks and writes the reports side by side:
+ * <ul>
+ *     <li>{@code platform} – servlet/JPA on Tomcat's platform thread pool</li>
+ *     <li>{@code virtual} – servlet/JPA with {@code spring.threads.virtual.enabled}</li>
+ *     <li>{@code reactive} – WebFlux/R2DBC on Netty ({@code reactive} profile)</li>
+ * </ul>
+ * Takes the arguments of {@link LoadTest} plus {@code modes=platform,virtual,reactive}. Every mode starts a fresh
+ * application against its own in-memory database, so all of them see the same seeded catalog. Thread modes only
+ * differ once {@code concurrency} is above Tomcat's {@code server.tomcat.threads.max} (200 by default).
+ * <p>
+ * Usage: {@code mvn -Ploadtest test-compile exec:exec -Dloadtest.main=com.mhf.bookstore.loadtest.StackComparison
+ * -Dloadtest.args="catalogSize=100000 rate=1000 concurrency=1000"}
+ */
+public class StackComparison {
+
+    private static final String DEFAULT_MODES = "platform,virtual,reactive";
+
+    // Operations served by both stacks; cache stats and the batch endpoints exist on the servlet stack only
+    private static final String COMMON_MIX = "GET_BY_ID:40,LIST:8,LIST_BY_STATUS:8,SEARCH:8,CREATE:8,UPDATE:6,PATCH:6,DISCONTINUE:4,DELETE:3";
+
+    public static void main(String[] args) throws Exception {
+        String modes = DEFAULT_MODES;
+        List<String> loadTestArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("modes="))
+                modes = arg.substring("modes=".length());
+            else
+                loadTestArgs.add(arg);
+        }
+
+        Map<String, Object> reports = new LinkedHashMap<>();
+        String output = null;
+        for (String mode : modes.split(",")) {
+            LoadTestConfig config = LoadTestConfig.parse(modeArgs(loadTestArgs, mode.trim()));
+            output = config.getOutput();
+            System.out.println("Running " + mode.trim());
+            reports.put(mode.trim(), LoadTest.runAgainstApplication(config));
+        }
+
+        Map<String, Object> comparison = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> report : reports.entrySet())
+            comparison.put(report.getKey(), ((Map<?, ?>) report.getValue()).get("total"));
+        System.out.println(LoadTest.REPORT_MAPPER.writeValueAsString(comparison));
+
+        Map<String, Object> combined = new LinkedHashMap<>();
+        combined.put("comparison", comparison);
+        combined.put("runs", reports);
+        LoadTest.writeReport(output, combined);
+    }
+
+    // Defaults go first so that the caller's arguments override them; the mode's own settings always win
+    private static String[] modeArgs(List<String> args, String mode) {
+        List<String> result = new ArrayList<>();
+        result.add("output=target/loadtest-stacks.json");
+        result.add("mix=" + COMMON_MIX);
+        result.add("--spring.datasource.url=jdbc:h2:mem:loadtest-" + mode + ";DB_CLOSE_DELAY=-1");
+        result.add("--bookstore.reactive.url=r2dbc:h2:mem:///loadtest-" + mode);
+        result.addAll(args);
+        if (mode.equals("platform") || mode.equals("virtual"))
+            result.add("--spring.threads.virtual.enabled=" + mode.equals("virtual"));
+        else if (mode.equals("reactive"))
+            result.add("--spring.profiles.active=reactive");
+        else
+            throw new IllegalArgumentException("Unknown mode '" + mode + "', expected one of " + DEFAULT_MODES);
+        return result.toArray(new String[0]);
+    }
+
+}
@@ -0,0 +1,250 @@
+package com.mhf.bookstore.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarFile;
+
+/**
+ * Starts the packaged application repeatedly in each startup mode and measures the time from launching the process
+ * to the first successful {@code GET /api/books}, and the resident set size at that moment:
+ * <ul>
+ *     <li>{@code jvm} – {@code java -jar}, as deployed today</li>
+ *     <li>{@code aot} – the same jar with {@code -Dspring.aot.enabled=true}, needs a build with {@code -Paot}</li>
+ *     <li>{@code cds} – AOT plus the class-data sharing archive of {@code -Pcds}</li>
+ *     <li>{@code native} – the GraalVM image of {@code -Pnative native:compile}</li>
+ * </ul>
+ * Modes whose artifacts have not been built are skipped. Each mode gets one unmeasured run first, so that every
+ * mode starts from a warm file cache. RSS is read from {@code /proc} and missing on other systems.
+ * <p>
+ * Settings: {@code modes}, {@code runs}, {@code timeout} (seconds per start), {@code jar}, {@code cdsDirectory},
+ * {@code nativeImage}, {@code appJvmArgs} (comma-separated, not passed to the native image) and {@code output};
+ * {@code --key=value} arguments are passed to the application.
+ * <p>
+ * Usage: {@code mvn -Pcds package -DskipTests && mvn -Ploadtest test-compile exec:exec
+ * -Dloadtest.main=com.mhf.bookstore.loadtest.StartupBenchmark -Dloadtest.args="runs=10"}
+ */
+public class StartupBenchmark {
+
+    private static final String DEFAULT_MODES = "jvm,aot,cds,native";
+    private static final String JAR_NAME = "bookStore-0.0.1-SNAPSHOT.jar";
+    // Generated by the AOT processing, so its presence tells an AOT build from a plain one
+    private static final String AOT_INITIALIZER = "BOOT-INF/classes/com/mhf/bookstore/BookStoreApplication__ApplicationContextInitializer.class";
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(5);
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> settings = new LinkedHashMap<>();
+        settings.put("modes", DEFAULT_MODES);
+        settings.put("runs", "5");
+        settings.put("timeout", "120");
+        settings.put("jar", "target/" + JAR_NAME);
+        settings.put("cdsDirectory", "target/cds");
+        settings.put("nativeImage", "target/bookStore");
+        settings.put("appJvmArgs", "");
+        settings.put("output", "target/startup-result.json");
+        List<String> applicationArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                applicationArgs.add(arg);
+                continue;
+            }
+            int eq = arg.indexOf('=');
+            if (eq < 0 || !settings.containsKey(arg.substring(0, eq)))
+                throw new IllegalArgumentException("Unknown setting '" + arg + "', expected one of " + settings.keySet());
+            settings.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+
+        int runs = Integer.parseInt(settings.get("runs"));
+        Duration timeout = Duration.ofSeconds(Long.parseLong(settings.get("timeout")));
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(1))
+                .build();
+
+        Map<String, Object> modes = new LinkedHashMap<>();
+        Double baseline = null;
+        for (String mode : settings.get("modes").split(",")) {
+            mode = mode.trim();
+            List<String> command = new ArrayList<>();
+            String missing = command(mode, settings, command);
+            if (missing != null) {
+                System.out.printf("Skipping %s: %s%n", mode, missing);
+                modes.put(mode, Map.of("skipped", missing));
+                continue;
+            }
+            System.out.printf("Starting %s %d times: %s%n", mode, runs + 1, String.join(" ", command));
+            start(client, mode, command, applicationArgs, timeout);
+            List<Sample> samples = new ArrayList<>();
+            for (int run = 0; run < runs; run++)
+                samples.add(start(client, mode, command, applicationArgs, timeout));
+            Map<String, Object> summary = summarize(samples);
+            double median = (Double) ((Map<?, ?>) summary.get("firstRequestMillis")).get("median");
+            if (mode.equals("jvm"))
+                baseline = median;
+            if (baseline != null)
+                summary.put("speedupOverJvm", baseline / median);
+            modes.put(mode, summary);
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("startedAt", Instant.now().toString());
+        report.put("java", System.getProperty("java.version"));
+        report.put("settings", settings);
+        report.put("modes", modes);
+        System.out.println(LoadTest.REPORT_MAPPER.writeValueAsString(modes));
+        LoadTest.writeReport(settings.get("output"), report);
+    }
+
+    private record Sample(long firstRequestNanos, Long rssBytes) {
+    }
+
+    // Fills the command of the mode, or returns why it cannot run
+    private static String command(String mode, Map<String, String> settings, List<String> command) throws IOException {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        List<String> jvmArgs = new ArrayList<>();
+        for (String arg : settings.get("appJvmArgs").split(","))
+            if (!arg.isBlank())
+                jvmArgs.add(arg.trim());
+        File jar = new File(settings.get("jar"));
+        File cdsJar = new File(settings.get("cdsDirectory"), JAR_NAME);
+        File archive = new File(settings.get("cdsDirectory"), "application.jsa");
+        switch (mode) {
+            case "jvm":
+                if (!jar.isFile())
+                    return jar + " not found, run mvn package";
+                command.add(java);
+                command.addAll(jvmArgs);
+                command.addAll(List.of("-jar", jar.getPath()));
+                return null;
+            case "aot":
+                if (!jar.isFile() || !containsAot(jar))
+                    return jar + " has no AOT classes, run mvn -Paot package";
+                command.add(java);
+                command.addAll(jvmArgs);
+                command.addAll(List.of("-Dspring.aot.enabled=true", "-jar", jar.getPath()));
+                return null;
+            case "cds":
+                if (!archive.isFile() || !cdsJar.isFile())
+                    return archive + " not found, run mvn -Pcds package";
+                command.add(java);
+                command.addAll(jvmArgs);
+                command.addAll(List.of("-XX:SharedArchiveFile=" + archive.getPath(), "-Dspring.aot.enabled=true",
+                        "-jar", cdsJar.getPath()));
+                return null;
+            case "native":
+                File image = new File(settings.get("nativeImage"));
+                if (!image.canExecute())
+                    return image + " not found, run mvn -Pnative native:compile with a GraalVM JDK";
+                command.add(image.getPath());
+                return null;
+            default:
+                throw new IllegalArgumentException("Unknown mode '" + mode + "', expected one of " + DEFAULT_MODES);
+        }
+    }
+
+    private static boolean containsAot(File jar) throws IOException {
+        try (JarFile file = new JarFile(jar)) {
+            return file.getEntry(AOT_INITIALIZER) != null;
+        }
+    }
+
+    private static Sample start(HttpClient client, String mode, List<String> command, List<String> applicationArgs,
+                                Duration timeout) throws IOException, InterruptedException {
+        int port = freePort();
+        List<String> full = new ArrayList<>(command);
+        full.add("--server.port=" + port);
+        full.add("--logging.level.root=WARN");
+        full.addAll(applicationArgs);
+        File log = new File("target/startup-" + mode + ".log");
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/books?size=1"))
+                .timeout(Duration.ofSeconds(5))
+                .build();
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(full)
+                .redirectErrorStream(true)
+                .redirectOutput(log)
+                .start();
+        try {
+            long deadline = start + timeout.toNanos();
+            while (true) {
+                if (!process.isAlive())
+                    throw new IllegalStateException(mode + " exited with " + process.exitValue() + ", see " + log);
+                if (System.nanoTime() > deadline)
+                    throw new IllegalStateException(mode + " did not answer within " + timeout + ", see " + log);
+                try {
+                    if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200)
+                        break;
+                } catch (IOException ex) {
+                    // Not listening yet
+                }
+                Thread.sleep(POLL_INTERVAL);
+            }
+            long elapsed = System.nanoTime() - start;
+            Sample sample = new Sample(elapsed, rss(process.pid()));
+            System.out.printf("  %s: first request after %d ms, RSS %s%n", mode, TimeUnit.NANOSECONDS.toMillis(elapsed),
+                    sample.rssBytes() == null ? "n/a" : sample.rssBytes() / (1024 * 1024) + " MiB");
+            return sample;
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS))
+                process.destroyForcibly().waitFor();
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    // VmRSS from /proc, in bytes; null where there is no /proc
+    private static Long rss(long pid) {
+        Path status = Path.of("/proc", Long.toString(pid), "status");
+        try {
+            for (String line : Files.readAllLines(status)) {
+                if (line.startsWith("VmRSS:"))
+                    return Long.parseLong(line.replaceAll("\\D", "")) * 1024;
+            }
+        } catch (IOException | NumberFormatException ex) {
+            // Not Linux
+        }
+        return null;
+    }
+
+    private static Map<String, Object> summarize(List<Sample> samples) {
+        double[] millis = samples.stream().mapToDouble(sample -> sample.firstRequestNanos() / 1e6).sorted().toArray();
+        double[] rss = samples.stream().filter(sample -> sample.rssBytes() != null)
+                .mapToDouble(sample -> sample.rssBytes() / (1024.0 * 1024.0)).sorted().toArray();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("runs", samples.size());
+        summary.put("firstRequestMillis", distribution(millis));
+        summary.put("rssMiB", rss.length == 0 ? null : distribution(rss));
+        return summary;
+    }
+
+    private static Map<String, Object> distribution(double[] sorted) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("min", sorted[0]);
+        result.put("median", sorted.length % 2 == 1 ? sorted[sorted.length / 2]
+                : (sorted[sorted.length / 2 - 1] + sorted[sorted.length / 2]) / 2);
+        result.put("max", sorted[sorted.length - 1]);
+        result.put("all", Arrays.stream(sorted).boxed().toList());
+        return result;
+    }
+
+}
@@ -0,0 +1,188 @@
+package com.mhf.bookstore.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mhf.bookstore.dto.book.BookDto;
+import com.mhf.bookstore.dto.book.BookPatchDto;
+import com.mhf.bookstore.dto.bulk.BookBulkOperationDto;
+import com.mhf.bookstore.dto.bulk.BookCriteriaDto;
+import com.mhf.bookstore.dto.bulk.BookRepriceDto;
+import com.mhf.bookstore.dto.bulk.BulkOperationType;
+import com.mhf.bookstore.model.book.Status;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Builds the requests of a mixed workload and picks operations by weight.
+ */
+public class Workload {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final int BULK_SIZE = 20;
+    private static final int CHANGES_LIMIT = 500;
+    private static final long NO_CURSOR = -1;
+
+    private final String baseUrl;
+    private final int catalogSize;
+    private final CatalogGenerator catalog;
+    private final ObjectMapper objectMapper;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+
+    // Books created by the workload, consumed by DELETE
+    private final ConcurrentLinkedQueue<Long> createdIds = new ConcurrentLinkedQueue<>();
+    // Cursor of the CHANGES poller, NO_CURSOR until the first poll answered
+    private final AtomicLong changesSince = new AtomicLong(NO_CURSOR);
+
+    public Workload(String baseUrl, CatalogGenerator catalog, Map<Operation, Integer> mix, ObjectMapper objectMapper) {
+        this.baseUrl = baseUrl;
+        this.catalog = catalog;
+        this.catalogSize = catalog.getCatalogSize();
+        this.objectMapper = objectMapper;
+
+        List<Operation> weighted = new ArrayList<>();
+        List<Integer> cumulative = new ArrayList<>();
+        int total = 0;
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            if (entry.getValue() <= 0)
+                continue;
+            total += entry.getValue();
+            weighted.add(entry.getKey());
+            cumulative.add(total);
+        }
+        if (weighted.isEmpty())
+            throw new IllegalArgumentException("The operation mix has no positive weight");
+        this.operations = weighted.toArray(new Operation[0]);
+        this.cumulativeWeights = cumulative.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    public Operation next(ThreadLocalRandom random) {
+        int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (pick < cumulativeWeights[i])
+                return operations[i];
+        }
+        return operations[operations.length - 1];
+    }
+
+    // Remembers created ids so DELETE has something to remove, and advances the CHANGES cursor
+    public void onResponse(Operation operation, HttpResponse<String> response) {
+        if (operation == Operation.CHANGES && response.statusCode() == 410) {
+            changesSince.set(NO_CURSOR);
+            return;
+        }
+        String field;
+        if (operation == Operation.CREATE && response.statusCode() == 201)
+            field = "id";
+        else if (operation == Operation.CHANGES && response.statusCode() == 200)
+            field = "nextSince";
+        else
+            return;
+        try {
+            JsonNode value = objectMapper.readTree(response.body()).get(field);
+            if (value == null)
+                return;
+            if (operation == Operation.CREATE)
+                createdIds.add(value.asLong());
+            else
+                changesSince.accumulateAndGet(value.asLong(), Math::max);
+        } catch (JsonProcessingException ignored) {
+            // Not counted against the request, the status code already says it succeeded
+        }
+    }
+
+    HttpRequest.Builder get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(REQUEST_TIMEOUT).GET();
+    }
+
+    HttpRequest.Builder delete(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(REQUEST_TIMEOUT).DELETE();
+    }
+
+    HttpRequest send(String path, String method, Object body) {
+        HttpRequest.BodyPublisher publisher = HttpRequest.BodyPublishers.noBody();
+        if (body != null) {
+            try {
+                publisher = HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body));
+            } catch (JsonProcessingException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .method(method, publisher)
+                .build();
+    }
+
+    // Reads favour a hot set of low ids, like the front page of a shop
+    long popularId(ThreadLocalRandom random) {
+        double u = random.nextDouble();
+        return 1 + (long) (catalogSize * u * u * u);
+    }
+
+    long randomId(ThreadLocalRandom random) {
+        return 1 + random.nextInt(catalogSize);
+    }
+
+    long createdId(ThreadLocalRandom random) {
+        Long id = createdIds.poll();
+        // Nothing created yet: a 404 on an id outside the seeded range
+        return id != null ? id : -1 - random.nextInt(1000);
+    }
+
+    String authorParam(ThreadLocalRandom random) {
+        return URLEncoder.encode(CatalogGenerator.author(catalog.popularAuthor(random)), StandardCharsets.UTF_8);
+    }
+
+    String changesPath() {
+        long since = changesSince.get();
+        return since == NO_CURSOR ? "/changes" : "/changes?since=" + since + "&limit=" + CHANGES_LIMIT;
+    }
+
+    Status randomStatus(ThreadLocalRandom random) {
+        return Status.values()[random.nextInt(Status.values().length)];
+    }
+
+    BookDto newBook(ThreadLocalRandom random) {
+        String title = "Load " + CatalogGenerator.TITLE_WORDS[random.nextInt(CatalogGenerator.TITLE_WORDS.length)] + " " + random.nextInt(1_000_000);
+        return new BookDto(title, CatalogGenerator.author(catalog.popularAuthor(random)),
+                Math.round((4.99 + random.nextDouble() * 40) * 100) / 100.0, Status.AVAILABLE);
+    }
+
+    BookPatchDto pricePatch(ThreadLocalRandom random) {
+        return new BookPatchDto(null, null, Math.round((4.99 + random.nextDouble() * 40) * 100) / 100.0, null);
+    }
+
+    List<BookBulkOperationDto> bulkOperations(ThreadLocalRandom random) {
+        List<BookBulkOperationDto> operations = new ArrayList<>(BULK_SIZE);
+        for (int i = 0; i < BULK_SIZE; i++) {
+            if (random.nextBoolean())
+                operations.add(new BookBulkOperationDto(BulkOperationType.CREATE, null, newBook(random)));
+            else
+                operations.add(new BookBulkOperationDto(BulkOperationType.UPDATE, randomId(random), newBook(random)));
+        }
+        return operations;
+    }
+
+    BookCriteriaDto authorCriteria(ThreadLocalRandom random) {
+        return new BookCriteriaDto(CatalogGenerator.author(random.nextInt(catalog.authorCount())), null, null, null);
+    }
+
+    BookRepriceDto reprice(ThreadLocalRandom random) {
+        return new BookRepriceDto(authorCriteria(random), random.nextBoolean() ? -10.0 : 10.0);
+    }
+
+}
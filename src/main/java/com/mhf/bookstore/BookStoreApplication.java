@@ -2,8 +2,12 @@ package com.mhf.bookstore;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
-@SpringBootApplication
+// A ConnectionFactory bean would replace the JDBC DataSource; the reactive profile builds its own pool in ReactiveConfig
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
+@ConfigurationPropertiesScan
 public class BookStoreApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,189 @@
+package com.mhf.bookstore.analytics.book;
+
+import com.mhf.bookstore.config.StatsProperties;
+import com.mhf.bookstore.dao.book.IBookRepository;
+import com.mhf.bookstore.dto.book.BookDto;
+import com.mhf.bookstore.event.book.BookChangedEvent;
+import com.mhf.bookstore.model.book.Status;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.DoubleSummaryStatistics;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Columnar copy of the catalog for analytical scans over prices.
+ * <p>
+ * Built from the table once the application is ready and kept current from committed {@link BookChangedEvent}s,
+ * like the search index; set-based updates trigger a rebuild after {@code bookstore.stats.rebuild-delay}.
+ * Scans hold the read lock, so writes wait for a running scan rather than the other way round.
+ */
+@Component
+public class BookCatalogSnapshot {
+
+    private static final Logger log = LoggerFactory.getLogger(BookCatalogSnapshot.class);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock rebuildLock = new ReentrantLock();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+
+    private IBookRepository iBookRepository;
+    private TransactionTemplate transactionTemplate;
+    private TaskScheduler taskScheduler;
+    private Duration rebuildDelay;
+
+    private CatalogColumns columns = new CatalogColumns();
+    private List<BookChangedEvent> changesDuringRebuild;
+
+    @Autowired
+    public BookCatalogSnapshot(IBookRepository iBookRepository, PlatformTransactionManager transactionManager,
+                               TaskScheduler taskScheduler, StatsProperties properties) {
+        this.iBookRepository = iBookRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.taskScheduler = taskScheduler;
+        this.rebuildDelay = properties.getRebuildDelay();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            long start = System.nanoTime();
+            lock.writeLock().lock();
+            try {
+                changesDuringRebuild = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            CatalogColumns fresh = new CatalogColumns();
+            boolean replayedBulkChange = false;
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    try (Stream<BookDto> books = iBookRepository.streamAllDtos()) {
+                        books.forEach(book -> fresh.put(book.getId(), book.getAuthor(), book.getStatus(), book.getPrice()));
+                    }
+                });
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    for (BookChangedEvent event : changesDuringRebuild)
+                        replayedBulkChange |= !apply(fresh, event);
+                    columns = fresh;
+                    changesDuringRebuild = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+            // The scan may or may not have seen a set-based update that committed meanwhile
+            if (replayedBulkChange)
+                scheduleRebuild();
+            log.info("Catalog snapshot built with {} books ({} KiB) in {} ms", fresh.size(), fresh.memoryBytes() / 1024,
+                    (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        boolean applied;
+        lock.writeLock().lock();
+        try {
+            applied = apply(columns, event);
+            if (changesDuringRebuild != null)
+                changesDuringRebuild.add(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (!applied)
+            scheduleRebuild();
+    }
+
+    public long[] histogram(Status status, String author, double min, double max, int buckets) {
+        lock.readLock().lock();
+        try {
+            return columns.histogram(status, author, min, max, buckets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long countInRange(Status status, String author, double min, double max) {
+        lock.readLock().lock();
+        try {
+            return columns.countInRange(status, author, min, max);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public DoubleSummaryStatistics priceSummary(Status status, String author) {
+        lock.readLock().lock();
+        try {
+            return columns.priceSummary(status, author);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public double[] prices(Status status, String author) {
+        lock.readLock().lock();
+        try {
+            return columns.prices(status, author);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return columns.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void scheduleRebuild() {
+        if (rebuildScheduled.compareAndSet(false, true))
+            taskScheduler.schedule(() -> {
+                rebuildScheduled.set(false);
+                rebuild();
+            }, Instant.now().plus(rebuildDelay));
+    }
+
+    // Returns false for set-based updates, which cannot be applied per book
+    private static boolean apply(CatalogColumns target, BookChangedEvent event) {
+        if (event.getId() == null)
+            return false;
+        if (event.getType() == BookChangedEvent.Type.DELETED) {
+            target.remove(event.getId());
+        } else if (event.getBook() != null) {
+            BookDto book = event.getBook();
+            target.put(book.getId(), book.getAuthor(), book.getStatus(), book.getPrice());
+        } else if (event.getStatus() != null) {
+            target.setStatus(event.getId(), event.getStatus());
+        }
+        return true;
+    }
+
+}
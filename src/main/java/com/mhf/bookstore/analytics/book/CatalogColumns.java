@@ -0,0 +1,255 @@
+package com.mhf.bookstore.analytics.book;
+
+import com.mhf.bookstore.model.book.Status;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.DoubleSummaryStatistics;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+
+/**
+ * The book table as parallel primitive arrays, one element per row: ids, prices, status ordinals and
+ * dictionary-encoded authors. About 21 bytes per book plus one copy of every distinct author, against well over
+ * 100 for a {@code Book} with boxed fields and its own strings.
+ * <p>
+ * Rows are ordered by id, so lookups are a binary search and creates, whose ids come from a sequence, append.
+ * Deleted rows are only marked and squeezed out once they make up half of the arrays. Scans over more than
+ * {@value #SEQUENTIAL_THRESHOLD} rows are split across the common fork-join pool.
+ * <p>
+ * Not thread-safe; concurrent scans are fine as long as no writer runs.
+ */
+public class CatalogColumns {
+
+    private static final byte REMOVED = -1;
+    private static final int NO_AUTHOR = -1;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int SEQUENTIAL_THRESHOLD = 1 << 14;
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    // NaN for books without a price
+    private double[] prices = new double[INITIAL_CAPACITY];
+    private byte[] statuses = new byte[INITIAL_CAPACITY];
+    private int[] authors = new int[INITIAL_CAPACITY];
+    private int rows;
+    private int removed;
+
+    private final Map<String, Integer> authorCodes = new HashMap<>();
+    private final List<String> authorNames = new ArrayList<>();
+
+    public void put(long id, String author, Status status, Double price) {
+        int row = Arrays.binarySearch(ids, 0, rows, id);
+        if (row < 0) {
+            row = -row - 1;
+            insertRow(row);
+            ids[row] = id;
+        } else if (statuses[row] == REMOVED) {
+            removed--;
+        }
+        prices[row] = price == null ? Double.NaN : price;
+        authors[row] = encode(author);
+        // A book without a status cannot be told apart from a deleted one; it matches no query either way
+        statuses[row] = status == null ? REMOVED : (byte) status.ordinal();
+        if (status == null)
+            removed++;
+    }
+
+    /**
+     * Changes the status of a known book, the other values stay; unknown ids are ignored.
+     */
+    public void setStatus(long id, Status status) {
+        int row = Arrays.binarySearch(ids, 0, rows, id);
+        if (row >= 0 && statuses[row] != REMOVED)
+            statuses[row] = (byte) status.ordinal();
+    }
+
+    public void remove(long id) {
+        int row = Arrays.binarySearch(ids, 0, rows, id);
+        if (row < 0 || statuses[row] == REMOVED)
+            return;
+        statuses[row] = REMOVED;
+        removed++;
+        if (removed > INITIAL_CAPACITY && removed * 2 > rows)
+            compact();
+    }
+
+    public int size() {
+        return rows - removed;
+    }
+
+    public long memoryBytes() {
+        long bytes = (long) ids.length * (Long.BYTES + Double.BYTES + 1 + Integer.BYTES);
+        for (String name : authorNames)
+            bytes += 40 + name.length();
+        return bytes;
+    }
+
+    /**
+     * Number of books with a price in {@code [min, max]}; {@code status} and {@code author} narrow the rows when
+     * not null.
+     */
+    public long countInRange(Status status, String author, double min, double max) {
+        return histogram(status, author, min, max, 1)[0];
+    }
+
+    /**
+     * Counts of priced books in {@code buckets} equally wide buckets over {@code [min, max]}; the last bucket
+     * includes {@code max}.
+     */
+    public long[] histogram(Status status, String author, double min, double max, int buckets) {
+        int authorCode = authorCode(author);
+        if (authorCode == NO_AUTHOR && author != null)
+            return new long[buckets];
+        byte statusCode = status == null ? REMOVED : (byte) status.ordinal();
+        HistogramTask task = new HistogramTask(this, statusCode, authorCode, min, max, buckets, 0, rows);
+        return rows < SEQUENTIAL_THRESHOLD ? task.compute() : task.invoke();
+    }
+
+    /**
+     * Count, sum, minimum and maximum over the prices of the matching books.
+     */
+    public DoubleSummaryStatistics priceSummary(Status status, String author) {
+        return matchingPrices(status, author).summaryStatistics();
+    }
+
+    /**
+     * Prices of the matching books that have one, in row order.
+     */
+    public double[] prices(Status status, String author) {
+        return matchingPrices(status, author).toArray();
+    }
+
+    private DoubleStream matchingPrices(Status status, String author) {
+        int authorCode = authorCode(author);
+        if (authorCode == NO_AUTHOR && author != null)
+            return DoubleStream.empty();
+        byte statusCode = status == null ? REMOVED : (byte) status.ordinal();
+        double[] prices = this.prices;
+        IntStream rowStream = IntStream.range(0, rows);
+        if (rows >= SEQUENTIAL_THRESHOLD)
+            rowStream = rowStream.parallel();
+        return rowStream
+                .filter(row -> matches(row, statusCode, authorCode) && !Double.isNaN(prices[row]))
+                .mapToDouble(row -> prices[row]);
+    }
+
+    // REMOVED as statusCode means any status, NO_AUTHOR as authorCode any author
+    private boolean matches(int row, byte statusCode, int authorCode) {
+        byte rowStatus = statuses[row];
+        if (rowStatus == REMOVED)
+            return false;
+        if (statusCode != REMOVED && rowStatus != statusCode)
+            return false;
+        return authorCode == NO_AUTHOR || authors[row] == authorCode;
+    }
+
+    private int authorCode(String author) {
+        if (author == null)
+            return NO_AUTHOR;
+        return authorCodes.getOrDefault(author.toLowerCase(Locale.ROOT), NO_AUTHOR);
+    }
+
+    // Case-insensitive, like the author criteria of the filter and bulk APIs
+    private int encode(String author) {
+        if (author == null)
+            return NO_AUTHOR;
+        return authorCodes.computeIfAbsent(author.toLowerCase(Locale.ROOT), name -> {
+            authorNames.add(name);
+            return authorNames.size() - 1;
+        });
+    }
+
+    private void insertRow(int row) {
+        if (rows == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+            authors = Arrays.copyOf(authors, capacity);
+        }
+        // Only ids committed out of sequence land before the end
+        if (row < rows) {
+            System.arraycopy(ids, row, ids, row + 1, rows - row);
+            System.arraycopy(prices, row, prices, row + 1, rows - row);
+            System.arraycopy(statuses, row, statuses, row + 1, rows - row);
+            System.arraycopy(authors, row, authors, row + 1, rows - row);
+        }
+        rows++;
+    }
+
+    private void compact() {
+        int target = 0;
+        for (int row = 0; row < rows; row++) {
+            if (statuses[row] == REMOVED)
+                continue;
+            ids[target] = ids[row];
+            prices[target] = prices[row];
+            statuses[target] = statuses[row];
+            authors[target] = authors[row];
+            target++;
+        }
+        rows = target;
+        removed = 0;
+    }
+
+    private static final class HistogramTask extends RecursiveTask<long[]> {
+
+        private final CatalogColumns columns;
+        private final byte statusCode;
+        private final int authorCode;
+        private final double min;
+        private final double max;
+        private final int buckets;
+        private final int from;
+        private final int to;
+
+        private HistogramTask(CatalogColumns columns, byte statusCode, int authorCode, double min, double max,
+                              int buckets, int from, int to) {
+            this.columns = columns;
+            this.statusCode = statusCode;
+            this.authorCode = authorCode;
+            this.min = min;
+            this.max = max;
+            this.buckets = buckets;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD)
+                return scan();
+            int middle = (from + to) >>> 1;
+            HistogramTask left = new HistogramTask(columns, statusCode, authorCode, min, max, buckets, from, middle);
+            HistogramTask right = new HistogramTask(columns, statusCode, authorCode, min, max, buckets, middle, to);
+            left.fork();
+            long[] counts = right.compute();
+            long[] leftCounts = left.join();
+            for (int i = 0; i < buckets; i++)
+                counts[i] += leftCounts[i];
+            return counts;
+        }
+
+        private long[] scan() {
+            long[] counts = new long[buckets];
+            double[] prices = columns.prices;
+            double width = (max - min) / buckets;
+            for (int row = from; row < to; row++) {
+                double price = prices[row];
+                // NaN fails both comparisons, so books without a price drop out here
+                if (!(price >= min && price <= max) || !columns.matches(row, statusCode, authorCode))
+                    continue;
+                int bucket = buckets == 1 || width == 0 ? 0 : (int) ((price - min) / width);
+                counts[Math.min(bucket, buckets - 1)]++;
+            }
+            return counts;
+        }
+
+    }
+
+}
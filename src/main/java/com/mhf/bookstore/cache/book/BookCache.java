@@ -0,0 +1,146 @@
+package com.mhf.bookstore.cache.book;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.mhf.bookstore.coalesce.SingleFlight;
+import com.mhf.bookstore.config.BookCacheProperties;
+import com.mhf.bookstore.dto.book.BookCacheStatsDto;
+import com.mhf.bookstore.dto.book.BookDto;
+import com.mhf.bookstore.event.book.BookChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded, time-limited read-through cache of {@link BookDto}s by id.
+ * <p>
+ * The cache holds futures: a miss installs an incomplete future and the caller loads outside of any
+ * cache lock, concurrent readers of the same id wait on that future. Loads hit the database, so running
+ * them inside Caffeine's compute would make invalidations (which run after commit, while the writer still
+ * holds its connection) wait for loads that wait for a connection. Writers invalidate only after their
+ * transaction committed and an invalidation removes an in-flight future too, so a value read before the
+ * commit is never handed to readers that arrive after it. Entries are never updated in place: two
+ * after-commit callbacks may run in either order, an invalidation is correct in both.
+ * <p>
+ * Loads and readers that joined one in flight are reported as the {@code book} flight of the
+ * {@link SingleFlight} metrics.
+ */
+@Component
+public class BookCache implements MeterBinder {
+
+    private final AsyncCache<Long, BookDto> cache;
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    @Autowired
+    public BookCache(BookCacheProperties properties) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getExpireAfterWrite())
+                .recordStats()
+                .buildAsync();
+    }
+
+    /**
+     * Returns the cached book or loads it; a {@code null} from the loader is not cached.
+     */
+    public BookDto get(Long id, Function<Long, BookDto> loader) {
+        CompletableFuture<BookDto> loading = new CompletableFuture<>();
+        CompletableFuture<BookDto> future = cache.get(id, (key, executor) -> loading);
+        if (future == loading) {
+            loads.increment();
+            // Caffeine drops the entry once the future completes with null or exceptionally
+            try {
+                loading.complete(loader.apply(id));
+            } catch (RuntimeException ex) {
+                loading.completeExceptionally(ex);
+                throw ex;
+            }
+        } else if (!future.isDone()) {
+            coalesced.increment();
+        }
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException)
+                throw (RuntimeException) ex.getCause();
+            throw ex;
+        }
+    }
+
+    /**
+     * Non-blocking variant of {@link #get} for loaders that only start I/O and return right away.
+     * Callers must not cancel the returned future, it is shared with concurrent readers.
+     */
+    public CompletableFuture<BookDto> getAsync(Long id, Function<Long, CompletableFuture<BookDto>> loader) {
+        boolean[] loaded = {false};
+        CompletableFuture<BookDto> future = cache.get(id, (key, executor) -> {
+            loaded[0] = true;
+            loads.increment();
+            return loader.apply(key);
+        });
+        if (!loaded[0] && !future.isDone())
+            coalesced.increment();
+        return future;
+    }
+
+    /**
+     * Returns the cached book without loading it or waiting for a load in flight, {@code null} if there is none.
+     */
+    public BookDto getIfPresent(Long id) {
+        CompletableFuture<BookDto> future = cache.getIfPresent(id);
+        if (future == null || !future.isDone() || future.isCompletedExceptionally())
+            return null;
+        return future.join();
+    }
+
+    public void invalidate(Long id) {
+        cache.synchronous().invalidate(id);
+    }
+
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        if (event.getId() == null)
+            invalidateAll();
+        else
+            invalidate(event.getId());
+    }
+
+    public long getLoads() {
+        return loads.sum();
+    }
+
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        SingleFlight.bindTo(registry, "book", this, BookCache::getLoads, BookCache::getCoalesced);
+    }
+
+    public BookCacheStatsDto stats() {
+        CacheStats stats = cache.synchronous().stats();
+        return new BookCacheStatsDto(
+                cache.synchronous().estimatedSize(),
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.evictionCount(),
+                stats.averageLoadPenalty() / 1_000_000.0
+        );
+    }
+
+}
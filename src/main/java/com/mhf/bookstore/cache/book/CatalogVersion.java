@@ -0,0 +1,34 @@
+package com.mhf.bookstore.cache.book;
+
+import com.mhf.bookstore.event.book.BookChangedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic version of the whole catalog, bumped after every committed write.
+ * <p>
+ * Used as the ETag of collection endpoints. It starts from the boot timestamp so versions handed out
+ * before a restart are never reused. Readers must sample it before querying: the bump happens after
+ * the commit, so a sampled version never claims more than the data that follows shows.
+ */
+@Component
+public class CatalogVersion {
+
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis() << 20);
+
+    public long current() {
+        return version.get();
+    }
+
+    public void bump() {
+        version.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        bump();
+    }
+
+}
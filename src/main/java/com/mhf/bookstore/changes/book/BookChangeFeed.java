@@ -0,0 +1,257 @@
+package com.mhf.bookstore.changes.book;
+
+import com.mhf.bookstore.config.ChangeLogProperties;
+import com.mhf.bookstore.dto.change.BookChangeDto;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Server-Sent Events stream of the {@link BookChangeLog}. Each change is sent as a {@code change} event whose id is
+ * its sequence, so a client that reconnects with {@code Last-Event-ID} resumes where it left off.
+ * <p>
+ * A dispatcher thread copies each subscriber's changes from the log into that subscriber's queue of
+ * {@code bookstore.changes.subscriber-buffer} changes, and a virtual thread per subscriber writes its queue to the
+ * socket. A slow client therefore only delays itself. Changes that do not fit stay in the log until the writer has
+ * drained half of the queue, so bursts such as a bulk insert pass through. A client whose queue is full and that has
+ * not taken a change for {@code bookstore.changes.heartbeat-interval}, or that falls below the log's floor, gets a
+ * {@code reset} event and is closed. Idle streams get a comment every heartbeat interval, which also detects clients
+ * that went away.
+ */
+@Component
+public class BookChangeFeed implements MeterBinder, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(BookChangeFeed.class);
+    private static final int BATCH_SIZE = 500;
+
+    // Queued in place of changes to end a stream: with a reset event, quietly, or on shutdown
+    private static final BookChangeDto RESET = new BookChangeDto();
+    private static final BookChangeDto CLOSE = new BookChangeDto();
+    private static final BookChangeDto COMPLETE = new BookChangeDto();
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    private BookChangeLog bookChangeLog;
+    private long heartbeatMillis;
+    private long stallNanos;
+    private int bufferSize;
+
+    // Guarded by this
+    private boolean changed;
+    private boolean running = true;
+    private Thread dispatcher;
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<BookChangeDto> queue = new ArrayBlockingQueue<>(bufferSize + 1);
+        private final AtomicBoolean closed = new AtomicBoolean();
+        // Only touched by the dispatcher
+        private long lastQueued;
+        // Set by the dispatcher when changes did not fit, the writer wakes it once there is room again
+        private volatile boolean backlogged;
+        private volatile long lastProgress = System.nanoTime();
+
+        private Subscriber(SseEmitter emitter, long lastQueued) {
+            this.emitter = emitter;
+            this.lastQueued = lastQueued;
+        }
+
+        // The extra slot guarantees room for the marker once the queue is cleared
+        private void close(BookChangeDto marker) {
+            if (!closed.compareAndSet(false, true))
+                return;
+            subscribers.remove(this);
+            queue.clear();
+            queue.offer(marker);
+        }
+
+    }
+
+    @Autowired
+    public BookChangeFeed(BookChangeLog bookChangeLog, ChangeLogProperties properties) {
+        this.bookChangeLog = bookChangeLog;
+        this.heartbeatMillis = Math.max(properties.getHeartbeatInterval().toMillis(), 1);
+        this.stallNanos = TimeUnit.MILLISECONDS.toNanos(heartbeatMillis);
+        this.bufferSize = Math.max(properties.getSubscriberBuffer(), 1);
+        bookChangeLog.addListener(this::wakeUp);
+    }
+
+    /**
+     * Streams every change after {@code since}; the caller has checked that the log still covers it.
+     */
+    public SseEmitter subscribe(long since) {
+        SseEmitter emitter = newEmitter();
+        Subscriber subscriber = new Subscriber(emitter, since);
+        emitter.onCompletion(() -> subscriber.close(CLOSE));
+        emitter.onTimeout(() -> subscriber.close(CLOSE));
+        emitter.onError(ex -> subscriber.close(CLOSE));
+        subscribers.add(subscriber);
+        Thread.ofVirtual().name("book-change-stream").start(() -> write(subscriber));
+        startDispatcher();
+        wakeUp();
+        return emitter;
+    }
+
+    /**
+     * A stream that only tells the client to resync: a {@code reset} event carrying the current sequence.
+     */
+    public SseEmitter reset() {
+        SseEmitter emitter = new SseEmitter();
+        try {
+            emitter.send(resetEvent());
+            emitter.complete();
+        } catch (IOException ex) {
+            emitter.completeWithError(ex);
+        }
+        return emitter;
+    }
+
+    public int getSubscribers() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("bookstore.changes.subscribers", this, BookChangeFeed::getSubscribers)
+                .description("Open change streams")
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        Thread current;
+        synchronized (this) {
+            running = false;
+            notifyAll();
+            current = dispatcher;
+        }
+        if (current != null)
+            current.join(1000);
+        for (Subscriber subscriber : subscribers)
+            subscriber.close(COMPLETE);
+    }
+
+    // Lets tests stand in for a slow client
+    protected SseEmitter newEmitter() {
+        return new SseEmitter();
+    }
+
+    private SseEmitter.SseEventBuilder resetEvent() {
+        return SseEmitter.event().name("reset").data(bookChangeLog.getLastSequence());
+    }
+
+    private synchronized void wakeUp() {
+        changed = true;
+        notifyAll();
+    }
+
+    private synchronized void startDispatcher() {
+        if (dispatcher == null && running)
+            dispatcher = Thread.ofPlatform().daemon().name("book-change-feed").start(this::dispatch);
+    }
+
+    private void dispatch() {
+        while (true) {
+            synchronized (this) {
+                while (!changed && running) {
+                    try {
+                        wait();
+                    } catch (InterruptedException ex) {
+                        return;
+                    }
+                }
+                if (!running)
+                    return;
+                changed = false;
+            }
+            for (Subscriber subscriber : subscribers)
+                enqueue(subscriber);
+        }
+    }
+
+    private void enqueue(Subscriber subscriber) {
+        if (!bookChangeLog.covers(subscriber.lastQueued)) {
+            subscriber.close(RESET);
+            return;
+        }
+        List<BookChangeDto> batch;
+        while (!subscriber.closed.get() && !(batch = bookChangeLog.since(subscriber.lastQueued, BATCH_SIZE)).isEmpty()) {
+            for (BookChangeDto change : batch) {
+                if (isFull(subscriber)) {
+                    if (System.nanoTime() - subscriber.lastProgress > stallNanos) {
+                        log.debug("Change stream stalled with {} changes queued, resetting it", bufferSize);
+                        subscriber.close(RESET);
+                    }
+                    return;
+                }
+                subscriber.queue.offer(change);
+                subscriber.lastQueued = change.getSequence();
+            }
+        }
+    }
+
+    // Flags the subscriber before checking again, so that a writer draining meanwhile cannot miss the flag
+    private boolean isFull(Subscriber subscriber) {
+        if (subscriber.queue.size() < bufferSize)
+            return false;
+        subscriber.backlogged = true;
+        if (subscriber.queue.size() < bufferSize) {
+            subscriber.backlogged = false;
+            return false;
+        }
+        return true;
+    }
+
+    private void write(Subscriber subscriber) {
+        try {
+            while (true) {
+                BookChangeDto change = subscriber.queue.poll(heartbeatMillis, TimeUnit.MILLISECONDS);
+                if (change == CLOSE) {
+                    return;
+                } else if (change == COMPLETE) {
+                    subscriber.emitter.complete();
+                    return;
+                } else if (change == RESET) {
+                    subscriber.emitter.send(resetEvent());
+                    subscriber.emitter.complete();
+                    return;
+                } else if (change == null) {
+                    subscriber.emitter.send(SseEmitter.event().comment("keep-alive"));
+                } else {
+                    if (subscriber.backlogged && subscriber.queue.size() <= bufferSize / 2) {
+                        subscriber.backlogged = false;
+                        wakeUp();
+                    }
+                    subscriber.emitter.send(SseEmitter.event()
+                            .id(Long.toString(change.getSequence()))
+                            .name("change")
+                            .data(change, MediaType.APPLICATION_JSON));
+                }
+                subscriber.lastProgress = System.nanoTime();
+            }
+        } catch (IOException | IllegalStateException ex) {
+            // The client went away or the stream timed out; the container reports it to the emitter
+            log.debug("Closing change stream: {}", ex.getMessage());
+            subscriber.close(CLOSE);
+        } catch (InterruptedException ex) {
+            subscriber.close(CLOSE);
+        }
+    }
+
+}
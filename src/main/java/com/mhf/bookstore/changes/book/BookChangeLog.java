@@ -0,0 +1,273 @@
+package com.mhf.bookstore.changes.book;
+
+import com.mhf.bookstore.config.ChangeLogProperties;
+import com.mhf.bookstore.dao.book.IBookRepository;
+import com.mhf.bookstore.dto.book.BookDto;
+import com.mhf.bookstore.dto.change.BookChangeDto;
+import com.mhf.bookstore.dto.change.BookChangeOp;
+import com.mhf.bookstore.event.book.BookChangedEvent;
+import com.mhf.bookstore.model.book.Status;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Monotonic log of committed book changes for consumers that mirror the catalog.
+ * <p>
+ * Every committed {@link BookChangedEvent} becomes a change with the next sequence number. After-commit listeners
+ * run on the committing threads, so two writes that commit close together may arrive in either order; a snapshot
+ * whose {@code @Version} is not above the one already logged for its book is dropped, and a scan settles whatever
+ * it carried. The log is therefore ordered by version per book, not by commit.
+ * <p>
+ * Set-based updates name no books: they trigger a scan after {@code bookstore.changes.scan-delay} that compares
+ * each row's {@code @Version} with the {@link VersionIndex} built at startup and logs an update for every row that
+ * moved.
+ * <p>
+ * Like {@link com.mhf.bookstore.cache.book.CatalogVersion}, sequences start from the boot timestamp, so a
+ * sequence from before a restart falls below the floor and its holder is told to resync.
+ */
+@Component
+public class BookChangeLog implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(BookChangeLog.class);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock scanLock = new ReentrantLock();
+    private final AtomicBoolean scanScheduled = new AtomicBoolean();
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    private IBookRepository iBookRepository;
+    private TransactionTemplate transactionTemplate;
+    private TaskScheduler taskScheduler;
+    private Duration scanDelay;
+
+    private ChangeBuffer changes;
+    private VersionIndex versions = new VersionIndex();
+
+    @Autowired
+    public BookChangeLog(IBookRepository iBookRepository, PlatformTransactionManager transactionManager,
+                         TaskScheduler taskScheduler, ChangeLogProperties changeLogProperties) {
+        this.iBookRepository = iBookRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.taskScheduler = taskScheduler;
+        this.scanDelay = changeLogProperties.getScanDelay();
+        this.changes = new ChangeBuffer(System.currentTimeMillis() << 20, changeLogProperties.getMaxEntries(),
+                changeLogProperties.getRetention());
+    }
+
+    // Versions only, the log itself starts empty
+    @EventListener(ApplicationReadyEvent.class)
+    public void indexVersions() {
+        scanLock.lock();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<BookDto> books = iBookRepository.streamAllDtos()) {
+                    books.forEach(book -> {
+                        lock.writeLock().lock();
+                        try {
+                            if (book.getVersion() != null)
+                                versions.putMax(book.getId(), book.getVersion());
+                        } finally {
+                            lock.writeLock().unlock();
+                        }
+                    });
+                }
+            });
+        } finally {
+            scanLock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        if (event.getId() == null) {
+            scheduleScan();
+            return;
+        }
+        Instant now = Instant.now();
+        boolean stale = false;
+        lock.writeLock().lock();
+        try {
+            switch (event.getType()) {
+                case CREATED:
+                    stale = isStale(event.getBook());
+                    if (!stale) {
+                        track(event.getBook());
+                        changes.append(BookChangeOp.CREATE, event.getId(), event.getBook(), null, now);
+                    }
+                    break;
+                case UPDATED:
+                    if (event.getBook() != null) {
+                        stale = isStale(event.getBook());
+                        if (!stale) {
+                            track(event.getBook());
+                            changes.append(BookChangeOp.UPDATE, event.getId(), event.getBook(), null, now);
+                        }
+                    } else {
+                        versions.increment(event.getId());
+                        changes.append(event.getStatus() == Status.DISCONTINUED ? BookChangeOp.DISCONTINUE
+                                : BookChangeOp.UPDATE, event.getId(), null, event.getStatus(), now);
+                    }
+                    break;
+                case DELETED:
+                    versions.remove(event.getId());
+                    changes.append(BookChangeOp.DELETE, event.getId(), null, null, now);
+                    break;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // A newer write was logged first; a status-only one may have overtaken it, which only the row can tell
+        if (stale) {
+            scheduleScan();
+            return;
+        }
+        notifyListeners();
+    }
+
+    /**
+     * Logs an update for every book whose version moved past the known one, e.g. after a set-based update.
+     */
+    public void scanForChanges() {
+        scanLock.lock();
+        try {
+            List<BookDto> moved = new ArrayList<>();
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<BookDto> books = iBookRepository.streamAllDtos()) {
+                    books.forEach(book -> {
+                        if (book.getVersion() != null && book.getVersion() > knownVersion(book.getId()))
+                            moved.add(book);
+                    });
+                }
+            });
+            if (moved.isEmpty())
+                return;
+            Instant now = Instant.now();
+            int logged = 0;
+            lock.writeLock().lock();
+            try {
+                // Writes that committed during the scan may have logged or deleted a book already
+                for (BookDto book : moved) {
+                    long known = versions.get(book.getId());
+                    if (known == VersionIndex.UNKNOWN || book.getVersion() <= known)
+                        continue;
+                    track(book);
+                    changes.append(BookChangeOp.UPDATE, book.getId(), book, null, now);
+                    logged++;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.debug("Logged {} books changed by set-based updates", logged);
+            notifyListeners();
+        } finally {
+            scanLock.unlock();
+        }
+    }
+
+    public boolean covers(long since) {
+        lock.readLock().lock();
+        try {
+            return changes.covers(since);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<BookChangeDto> since(long since, int limit) {
+        lock.readLock().lock();
+        try {
+            return changes.since(since, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getLastSequence() {
+        lock.readLock().lock();
+        try {
+            return changes.getLastSequence();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Runs {@code listener} after every append, on the thread that appended.
+     */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("bookstore.changes.entries", this, changeLog -> {
+                    changeLog.lock.readLock().lock();
+                    try {
+                        return changeLog.changes.size();
+                    } finally {
+                        changeLog.lock.readLock().unlock();
+                    }
+                })
+                .description("Book changes kept for delta sync")
+                .register(registry);
+    }
+
+    private long knownVersion(long id) {
+        lock.readLock().lock();
+        try {
+            long version = versions.get(id);
+            // Books the index never saw were not created through the application, nothing to compare with
+            return version == VersionIndex.UNKNOWN ? Long.MAX_VALUE : version;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean isStale(BookDto book) {
+        long known = versions.get(book.getId());
+        return book.getVersion() != null && known != VersionIndex.UNKNOWN && book.getVersion() <= known;
+    }
+
+    private void track(BookDto book) {
+        if (book.getVersion() != null)
+            versions.putMax(book.getId(), book.getVersion());
+    }
+
+    private void notifyListeners() {
+        for (Runnable listener : listeners)
+            listener.run();
+    }
+
+    private void scheduleScan() {
+        if (scanScheduled.compareAndSet(false, true))
+            taskScheduler.schedule(() -> {
+                scanScheduled.set(false);
+                scanForChanges();
+            }, Instant.now().plus(scanDelay));
+    }
+
+}
@@ -0,0 +1,146 @@
+package com.mhf.bookstore.changes.book;
+
+import com.mhf.bookstore.dto.book.BookDto;
+import com.mhf.bookstore.dto.change.BookChangeDto;
+import com.mhf.bookstore.dto.change.BookChangeOp;
+import com.mhf.bookstore.model.book.Status;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Changes in sequence order with bounded size and age.
+ * <p>
+ * Once {@code maxEntries} is exceeded the log is compacted: only the newest change of every book survives, with
+ * the book's last snapshot merged into it when it carries only a status, which still brings any consumer to the
+ * current state. If that frees less than a quarter, the oldest changes are dropped
+ * as well. Dropped changes, and those older than {@code retention}, raise the {@link #getFloor() floor}; a consumer
+ * that has not seen everything up to the floor cannot catch up from the log any more.
+ * <p>
+ * Not thread-safe.
+ */
+public class ChangeBuffer {
+
+    private final int maxEntries;
+    private final Duration retention;
+
+    // Live entries start at head; the slots before it are dropped and released once they are half of the list
+    private List<BookChangeDto> entries = new ArrayList<>();
+    private int head;
+    private long lastSequence;
+    private long floor;
+
+    public ChangeBuffer(long startSequence, int maxEntries, Duration retention) {
+        this.lastSequence = startSequence;
+        this.floor = startSequence;
+        this.maxEntries = maxEntries;
+        this.retention = retention;
+    }
+
+    public BookChangeDto append(BookChangeOp op, Long id, BookDto book, Status status, Instant now) {
+        BookChangeDto change = new BookChangeDto(++lastSequence, op, id, book, status, now);
+        entries.add(change);
+        Instant expired = now.minus(retention);
+        while (size() > 0 && entries.get(head).getChangedAt().isBefore(expired))
+            dropOldest();
+        if (size() > maxEntries) {
+            compact();
+            while (size() > maxEntries * 3 / 4)
+                dropOldest();
+        }
+        return change;
+    }
+
+    /**
+     * Whether every change after {@code since} is still known, i.e. {@code since} lies between the floor and the
+     * last sequence. Sequences handed out before a restart are below the floor.
+     */
+    public boolean covers(long since) {
+        return since >= floor && since <= lastSequence;
+    }
+
+    /**
+     * Up to {@code limit} changes with a sequence above {@code since}, oldest first.
+     */
+    public List<BookChangeDto> since(long since, int limit) {
+        int low = head;
+        int high = entries.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (entries.get(middle).getSequence() <= since)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return new ArrayList<>(entries.subList(low, Math.min(low + limit, entries.size())));
+    }
+
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    public long getFloor() {
+        return floor;
+    }
+
+    public int size() {
+        return entries.size() - head;
+    }
+
+    // Keeps the newest change per book; a delete stays so that consumers remove their copy. A newest change that
+    // carries only a status is merged into the book's last snapshot, which consumers could not rebuild without
+    private void compact() {
+        Map<Long, Integer> keptAt = new HashMap<>();
+        // Books whose kept change still lacks a snapshot, with the number of status changes since it
+        Map<Long, Integer> missingSnapshot = new HashMap<>();
+        List<BookChangeDto> kept = new ArrayList<>();
+        for (int i = entries.size() - 1; i >= head; i--) {
+            BookChangeDto change = entries.get(i);
+            Integer index = keptAt.get(change.getId());
+            if (index == null) {
+                keptAt.put(change.getId(), kept.size());
+                kept.add(change);
+                if (isStatusOnly(change))
+                    missingSnapshot.put(change.getId(), 1);
+            } else if (missingSnapshot.containsKey(change.getId())) {
+                if (change.getBook() != null)
+                    kept.set(index, withSnapshot(kept.get(index), change.getBook(), missingSnapshot.remove(change.getId())));
+                else if (isStatusOnly(change))
+                    missingSnapshot.merge(change.getId(), 1, Integer::sum);
+                else
+                    missingSnapshot.remove(change.getId());
+            }
+        }
+        Collections.reverse(kept);
+        entries = kept;
+        head = 0;
+    }
+
+    private static boolean isStatusOnly(BookChangeDto change) {
+        return change.getBook() == null && change.getOp() != BookChangeOp.DELETE;
+    }
+
+    // Every status change incremented the version once
+    private static BookChangeDto withSnapshot(BookChangeDto change, BookDto snapshot, int statusChanges) {
+        BookDto book = new BookDto(snapshot.getId(), snapshot.getTitle(), snapshot.getAuthor(), snapshot.getPrice(),
+                change.getStatus() != null ? change.getStatus() : snapshot.getStatus(),
+                snapshot.getVersion() == null ? null : snapshot.getVersion() + statusChanges);
+        return new BookChangeDto(change.getSequence(), change.getOp(), change.getId(), book, change.getStatus(),
+                change.getChangedAt());
+    }
+
+    private void dropOldest() {
+        floor = entries.get(head).getSequence();
+        entries.set(head++, null);
+        if (head > entries.size() / 2) {
+            entries = new ArrayList<>(entries.subList(head, entries.size()));
+            head = 0;
+        }
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.mhf.bookstore.changes.book;
+
+import java.util.Arrays;
+
+/**
+ * Last known {@code @Version} of every book as two parallel arrays ordered by id, 16 bytes per book. Lets a scan
+ * of the table tell which rows a set-based update has touched.
+ * <p>
+ * Removed ids are only marked and squeezed out once they make up half of the arrays. Not thread-safe.
+ */
+public class VersionIndex {
+
+    public static final long UNKNOWN = -1;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private long[] versions = new long[INITIAL_CAPACITY];
+    private int rows;
+    private int removed;
+
+    public long get(long id) {
+        int row = Arrays.binarySearch(ids, 0, rows, id);
+        return row < 0 ? UNKNOWN : versions[row];
+    }
+
+    /**
+     * Records {@code version} unless a newer one is known, so that a scan and concurrent writes can be applied in
+     * any order.
+     */
+    public void putMax(long id, long version) {
+        int row = Arrays.binarySearch(ids, 0, rows, id);
+        if (row >= 0) {
+            if (versions[row] == UNKNOWN)
+                removed--;
+            versions[row] = Math.max(versions[row], version);
+            return;
+        }
+        row = -row - 1;
+        if (rows == ids.length) {
+            ids = Arrays.copyOf(ids, rows * 2);
+            versions = Arrays.copyOf(versions, rows * 2);
+        }
+        // Ids come from a sequence, so this is nearly always an append
+        if (row < rows) {
+            System.arraycopy(ids, row, ids, row + 1, rows - row);
+            System.arraycopy(versions, row, versions, row + 1, rows - row);
+        }
+        ids[row] = id;
+        versions[row] = version;
+        rows++;
+    }
+
+    // For writes that bump the version without reading it back
+    public void increment(long id) {
+        int row = Arrays.binarySearch(ids, 0, rows, id);
+        if (row >= 0 && versions[row] != UNKNOWN)
+            versions[row]++;
+    }
+
+    public void remove(long id) {
+        int row = Arrays.binarySearch(ids, 0, rows, id);
+        if (row < 0 || versions[row] == UNKNOWN)
+            return;
+        versions[row] = UNKNOWN;
+        removed++;
+        if (removed > INITIAL_CAPACITY && removed * 2 > rows)
+            compact();
+    }
+
+    public int size() {
+        return rows - removed;
+    }
+
+    private void compact() {
+        int target = 0;
+        for (int row = 0; row < rows; row++) {
+            if (versions[row] == UNKNOWN)
+                continue;
+            ids[target] = ids[row];
+            versions[target] = versions[row];
+            target++;
+        }
+        rows = target;
+        removed = 0;
+    }
+
+}
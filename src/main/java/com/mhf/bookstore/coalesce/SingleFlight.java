@@ -0,0 +1,97 @@
+package com.mhf.bookstore.coalesce;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Collapses concurrent calls with the same key into one: the first caller runs the loader, callers arriving
+ * while it runs wait for and share its result or exception. Nothing is kept once the load finished, so a
+ * caller arriving afterwards loads again; keys must therefore capture everything the result depends on,
+ * including a data version where staleness matters.
+ * <p>
+ * Shared results are handed to every waiting caller and must not be modified.
+ */
+public class SingleFlight<K, V> {
+
+    public static final String LOADS_METRIC = "bookstore.singleflight.loads";
+    public static final String COALESCED_METRIC = "bookstore.singleflight.coalesced";
+
+    private final String name;
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public SingleFlight(String name) {
+        this.name = name;
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> loading = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, loading);
+        if (running != null) {
+            coalesced.increment();
+            return join(running);
+        }
+        loads.increment();
+        try {
+            V value = loader.get();
+            loading.complete(value);
+            return value;
+        } catch (RuntimeException | Error ex) {
+            loading.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, loading);
+        }
+    }
+
+    public long getLoads() {
+        return loads.sum();
+    }
+
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    public void bindTo(MeterRegistry registry) {
+        bindTo(registry, name, this, SingleFlight::getLoads, SingleFlight::getCoalesced);
+    }
+
+    /**
+     * Registers the loads/coalesced counter pair for a flight named {@code name}, also for coalescing
+     * implemented elsewhere.
+     */
+    public static <T> void bindTo(MeterRegistry registry, String name, T source,
+                                  ToDoubleFunction<T> loads,
+                                  ToDoubleFunction<T> coalesced) {
+        FunctionCounter.builder(LOADS_METRIC, source, loads)
+                .description("Loads that ran, one per group of concurrent identical reads")
+                .tag("flight", name)
+                .register(registry);
+        FunctionCounter.builder(COALESCED_METRIC, source, coalesced)
+                .description("Reads that waited for an identical load in flight instead of running their own")
+                .tag("flight", name)
+                .register(registry);
+    }
+
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException)
+                throw (RuntimeException) ex.getCause();
+            if (ex.getCause() instanceof Error)
+                throw (Error) ex.getCause();
+            throw ex;
+        }
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.mhf.bookstore.coalesce.book;
+
+import com.mhf.bookstore.coalesce.SingleFlight;
+import com.mhf.bookstore.dto.book.BookDto;
+import com.mhf.bookstore.dto.page.CursorPage;
+import com.mhf.bookstore.model.book.Status;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Coalescing of identical concurrent reads that are not cached. Keys include the catalog version sampled before
+ * the read, so a caller arriving after a write committed never joins a load that may have started before it.
+ * Reads by id are coalesced by {@link com.mhf.bookstore.cache.book.BookCache} itself.
+ */
+@Component
+public class BookReadFlights implements MeterBinder {
+
+    public record StatusPageKey(Status status, String cursor, String sort, int size, boolean includeTotal,
+                                long catalogVersion) {
+    }
+
+    public record SearchKey(String query, int limit, long catalogVersion) {
+    }
+
+    private final SingleFlight<StatusPageKey, CursorPage<BookDto>> statusPages = new SingleFlight<>("status");
+    private final SingleFlight<SearchKey, List<BookDto>> searches = new SingleFlight<>("search");
+
+    public SingleFlight<StatusPageKey, CursorPage<BookDto>> statusPages() {
+        return statusPages;
+    }
+
+    public SingleFlight<SearchKey, List<BookDto>> searches() {
+        return searches;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        statusPages.bindTo(registry);
+        searches.bindTo(registry);
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.mhf.bookstore.compression;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Lets {@code server.compression.min-response-size} apply to message converter bodies. The converters flush once
+ * they are done, which commits the response without a {@code Content-Length}, and Tomcat compresses every response
+ * of unknown length. With those flushes held back, a body that fits the response buffer is sent with its length
+ * and small ones stay uncompressed.
+ * <p>
+ * Streaming responses (exports, the SSE change feed) write after async processing started; their flushes go
+ * through unchanged.
+ */
+public class CompressionThresholdFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        filterChain.doFilter(request, new HeldFlushResponse(request, response));
+    }
+
+    private static class HeldFlushResponse extends HttpServletResponseWrapper {
+
+        private final HttpServletRequest request;
+        private ServletOutputStream outputStream;
+
+        private HeldFlushResponse(HttpServletRequest request, HttpServletResponse response) {
+            super(response);
+            this.request = request;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null)
+                outputStream = new HeldFlushOutputStream(super.getOutputStream());
+            return outputStream;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (request.isAsyncStarted())
+                super.flushBuffer();
+        }
+
+        private class HeldFlushOutputStream extends ServletOutputStream {
+
+            private final ServletOutputStream delegate;
+
+            private HeldFlushOutputStream(ServletOutputStream delegate) {
+                this.delegate = delegate;
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                delegate.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                delegate.write(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                if (request.isAsyncStarted())
+                    delegate.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                delegate.close();
+            }
+
+            @Override
+            public boolean isReady() {
+                return delegate.isReady();
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                delegate.setWriteListener(writeListener);
+            }
+
+        }
+
+    }
+
+}
@@ -0,0 +1,36 @@
+package com.mhf.bookstore.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "bookstore.cache.book")
+public class BookCacheProperties {
+
+    /**
+     * Maximum number of books kept in the cache.
+     */
+    private long maximumSize = 10000;
+
+    /**
+     * How long an entry may be served after it was loaded.
+     */
+    private Duration expireAfterWrite = Duration.ofMinutes(10);
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    public Duration getExpireAfterWrite() {
+        return expireAfterWrite;
+    }
+
+    public void setExpireAfterWrite(Duration expireAfterWrite) {
+        this.expireAfterWrite = expireAfterWrite;
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.mhf.bookstore.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "bookstore.bulk")
+public class BulkProperties {
+
+    /**
+     * Operations committed together in one transaction.
+     */
+    private int chunkSize = 500;
+
+    /**
+     * Upper bound for the number of operations accepted in a single request.
+     */
+    private int maxOperations = 10000;
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public int getMaxOperations() {
+        return maxOperations;
+    }
+
+    public void setMaxOperations(int maxOperations) {
+        this.maxOperations = maxOperations;
+    }
+
+}
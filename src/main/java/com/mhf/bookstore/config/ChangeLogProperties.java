@@ -0,0 +1,78 @@
+package com.mhf.bookstore.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "bookstore.changes")
+public class ChangeLogProperties {
+
+    /**
+     * Changes kept in memory; above it older changes superseded by a newer one for the same book are dropped
+     * first, then the oldest.
+     */
+    private int maxEntries = 100_000;
+
+    /**
+     * Age after which changes are dropped; consumers further behind have to resync from the full list.
+     */
+    private Duration retention = Duration.ofHours(24);
+
+    /**
+     * Interval of keep-alive comments on idle change streams.
+     */
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+    /**
+     * Changes queued for one change stream; a client whose queue stays full for a heartbeat interval is sent a reset
+     * and disconnected.
+     */
+    private int subscriberBuffer = 10_000;
+
+    /**
+     * Delay between a set-based update, or a snapshot that arrived out of order, and the scan that logs the rows it
+     * changed; writes within the delay share one scan.
+     */
+    private Duration scanDelay = Duration.ofSeconds(1);
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public Duration getRetention() {
+        return retention;
+    }
+
+    public void setRetention(Duration retention) {
+        this.retention = retention;
+    }
+
+    public Duration getHeartbeatInterval() {
+        return heartbeatInterval;
+    }
+
+    public void setHeartbeatInterval(Duration heartbeatInterval) {
+        this.heartbeatInterval = heartbeatInterval;
+    }
+
+    public int getSubscriberBuffer() {
+        return subscriberBuffer;
+    }
+
+    public void setSubscriberBuffer(int subscriberBuffer) {
+        this.subscriberBuffer = subscriberBuffer;
+    }
+
+    public Duration getScanDelay() {
+        return scanDelay;
+    }
+
+    public void setScanDelay(Duration scanDelay) {
+        this.scanDelay = scanDelay;
+    }
+
+}
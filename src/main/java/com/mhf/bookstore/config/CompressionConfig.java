@@ -0,0 +1,23 @@
+package com.mhf.bookstore.config;
+
+import com.mhf.bookstore.compression.CompressionThresholdFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Response compression is Tomcat's ({@code server.compression.*}); this only makes its size threshold effective
+ * for converter-written bodies, see {@link CompressionThresholdFilter}.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "server.compression", name = "enabled", havingValue = "true")
+public class CompressionConfig {
+
+    @Bean
+    public CompressionThresholdFilter compressionThresholdFilter() {
+        return new CompressionThresholdFilter();
+    }
+
+}
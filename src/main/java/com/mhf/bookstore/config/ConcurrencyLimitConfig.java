@@ -0,0 +1,63 @@
+package com.mhf.bookstore.config;
+
+import com.mhf.bookstore.limit.AdaptiveConcurrencyLimit;
+import com.mhf.bookstore.limit.ConcurrencyLimitInterceptor;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Puts a {@link ConcurrencyLimitInterceptor} in front of the book API, so that bursts are rejected with
+ * {@code 503} before they pile up on the connection pool and slow down every endpoint together.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "bookstore.limit", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitConfig {
+
+    @Bean
+    public ConcurrencyLimitInterceptor concurrencyLimitInterceptor(ConcurrencyLimitProperties properties) {
+        return new ConcurrencyLimitInterceptor(properties);
+    }
+
+    @Bean
+    public WebMvcConfigurer concurrencyLimitConfigurer(ConcurrencyLimitInterceptor interceptor) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(interceptor).addPathPatterns("/api/books", "/api/books/**");
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder concurrencyLimitMetrics(ConcurrencyLimitInterceptor interceptor) {
+        return registry -> {
+            bind(registry, "reads", interceptor.getReads());
+            bind(registry, "writes", interceptor.getWrites());
+        };
+    }
+
+    private static void bind(MeterRegistry registry, String budget, AdaptiveConcurrencyLimit limit) {
+        Gauge.builder("bookstore.concurrency.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                .description("Concurrent requests currently admitted")
+                .tag("budget", budget)
+                .register(registry);
+        Gauge.builder("bookstore.concurrency.in.flight", limit, AdaptiveConcurrencyLimit::getInFlight)
+                .description("Requests holding a slot")
+                .tag("budget", budget)
+                .register(registry);
+        FunctionCounter.builder("bookstore.concurrency.rejected", limit, AdaptiveConcurrencyLimit::getRejected)
+                .description("Requests rejected with 503 because the limit was reached")
+                .tag("budget", budget)
+                .register(registry);
+    }
+
+}
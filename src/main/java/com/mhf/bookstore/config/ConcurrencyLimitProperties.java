@@ -0,0 +1,115 @@
+package com.mhf.bookstore.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "bookstore.limit")
+public class ConcurrencyLimitProperties {
+
+    /**
+     * Whether requests to the book API are admitted through adaptive concurrency limits.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Value of the Retry-After header sent with rejected requests.
+     */
+    private Duration retryAfter = Duration.ofSeconds(1);
+
+    /**
+     * Share of the read limit that only single-book reads may use.
+     */
+    private double criticalReserve = 0.2;
+
+    private Budget reads = new Budget(20, 4, 200);
+
+    private Budget writes = new Budget(10, 2, 50);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    public void setRetryAfter(Duration retryAfter) {
+        this.retryAfter = retryAfter;
+    }
+
+    public double getCriticalReserve() {
+        return criticalReserve;
+    }
+
+    public void setCriticalReserve(double criticalReserve) {
+        this.criticalReserve = criticalReserve;
+    }
+
+    public Budget getReads() {
+        return reads;
+    }
+
+    public void setReads(Budget reads) {
+        this.reads = reads;
+    }
+
+    public Budget getWrites() {
+        return writes;
+    }
+
+    public void setWrites(Budget writes) {
+        this.writes = writes;
+    }
+
+    public static class Budget {
+
+        /**
+         * Concurrent requests admitted before any latency has been observed.
+         */
+        private int initialLimit;
+
+        private int minLimit;
+
+        private int maxLimit;
+
+        public Budget() {
+        }
+
+        public Budget(int initialLimit, int minLimit, int maxLimit) {
+            this.initialLimit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+        }
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public void setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public void setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+
+    }
+
+}
@@ -0,0 +1,51 @@
+package com.mhf.bookstore.config;
+
+import com.mhf.bookstore.dto.book.BookDto;
+import com.mhf.bookstore.dto.bulk.BookBulkOperationDto;
+import com.mhf.bookstore.dto.change.BookChangeDto;
+import com.mhf.bookstore.dto.query.QueryReportDto;
+import com.mhf.bookstore.exception.ApiError;
+import com.mhf.bookstore.model.book.BookRow;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+/**
+ * Reflection and proxy hints for a native image that Spring's AOT processing cannot infer. Controller and
+ * repository signatures, entities and the MapStruct mapper (a plain bean generated at compile time) are covered
+ * by the AOT processing itself.
+ */
+@Configuration(proxyBeanMethods = false)
+@ImportRuntimeHints(NativeHintsConfig.BookStoreRuntimeHints.class)
+public class NativeHintsConfig {
+
+    public static class BookStoreRuntimeHints implements RuntimeHintsRegistrar {
+
+        private final BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            // Written or read by Jackson outside a controller signature: SSE events, the journal, NDJSON export,
+            // error bodies and the actuator endpoint
+            bindingRegistrar.registerReflectionHints(hints.reflection(), BookChangeDto.class,
+                    BookBulkOperationDto.class, BookDto.class, ApiError.class, QueryReportDto.class, BookRow.class);
+            // JPQL constructor expressions
+            hints.reflection().registerType(BookDto.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+            // StatementObservingDataSource and BulkheadDataSource
+            hints.proxies().registerJdkProxy(Connection.class);
+            hints.proxies().registerJdkProxy(Statement.class);
+            hints.proxies().registerJdkProxy(PreparedStatement.class);
+            hints.proxies().registerJdkProxy(CallableStatement.class);
+        }
+
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.mhf.bookstore.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "bookstore.pagination")
+public class PaginationProperties {
+
+    /**
+     * Page size used when the client does not ask for one.
+     */
+    private int defaultPageSize = 20;
+
+    /**
+     * Upper bound for the page size a client may request.
+     */
+    private int maxPageSize = 100;
+
+    public int getDefaultPageSize() {
+        return defaultPageSize;
+    }
+
+    public void setDefaultPageSize(int defaultPageSize) {
+        this.defaultPageSize = defaultPageSize;
+    }
+
+    public int getMaxPageSize() {
+        return maxPageSize;
+    }
+
+    public void setMaxPageSize(int maxPageSize) {
+        this.maxPageSize = maxPageSize;
+    }
+
+}
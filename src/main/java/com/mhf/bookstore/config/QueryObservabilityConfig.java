@@ -0,0 +1,79 @@
+package com.mhf.bookstore.config;
+
+import com.mhf.bookstore.datasource.StatementObservingDataSource;
+import com.mhf.bookstore.observability.QueryStatistics;
+import com.mhf.bookstore.observability.RequestStatementFilter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.PriorityOrdered;
+
+import javax.sql.DataSource;
+
+/**
+ * Routes the JDBC DataSource through a {@link StatementObservingDataSource} feeding {@link QueryStatistics}.
+ * Replaces {@code spring.jpa.show-sql}: instead of printing every statement, slow ones are logged with their
+ * parameters and all of them are aggregated for {@code /actuator/queries}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "bookstore.query", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class QueryObservabilityConfig {
+
+    @Bean
+    public static StatementObserverPostProcessor statementObserver(ObjectProvider<QueryStatistics> queryStatistics) {
+        return new StatementObserverPostProcessor(queryStatistics);
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public RequestStatementFilter requestStatementFilter(QueryStatistics queryStatistics, MeterRegistry meterRegistry,
+                                                         QueryProperties queryProperties) {
+        return new RequestStatementFilter(queryStatistics, meterRegistry, queryProperties);
+    }
+
+    @Bean
+    public MeterBinder queryStatisticsMetrics(QueryStatistics queryStatistics) {
+        return registry -> {
+            FunctionCounter.builder("bookstore.db.statements", queryStatistics, QueryStatistics::getStatements)
+                    .description("JDBC statements executed")
+                    .register(registry);
+            FunctionCounter.builder("bookstore.db.statements.slow", queryStatistics, QueryStatistics::getSlowStatements)
+                    .description("JDBC statements at or above bookstore.query.slow-threshold")
+                    .register(registry);
+        };
+    }
+
+    /**
+     * Runs before the other post-processors, so that wrappers such as the virtual thread bulkhead end up outside
+     * and their wait time is not counted as statement time.
+     */
+    public static class StatementObserverPostProcessor implements BeanPostProcessor, PriorityOrdered {
+
+        private final ObjectProvider<QueryStatistics> queryStatistics;
+
+        public StatementObserverPostProcessor(ObjectProvider<QueryStatistics> queryStatistics) {
+            this.queryStatistics = queryStatistics;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource) || bean instanceof StatementObservingDataSource)
+                return bean;
+            return new StatementObservingDataSource((DataSource) bean, queryStatistics.getObject());
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+
+    }
+
+}
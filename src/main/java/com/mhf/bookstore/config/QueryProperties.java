@@ -0,0 +1,75 @@
+package com.mhf.bookstore.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "bookstore.query")
+public class QueryProperties {
+
+    /**
+     * Whether JDBC statements are timed and aggregated at all.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Statements running at least this long are logged with their bind parameters.
+     */
+    private Duration slowThreshold = Duration.ofMillis(100);
+
+    /**
+     * Fraction of slow statements that get logged, between 0 and 1. All of them are counted.
+     */
+    private double slowLogSampleRate = 1.0;
+
+    /**
+     * Requests executing more statements than this are logged as a likely N+1.
+     */
+    private int requestStatementThreshold = 20;
+
+    /**
+     * Maximum number of distinct statement shapes aggregated; further shapes are only counted.
+     */
+    private int maxShapes = 500;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Duration getSlowThreshold() {
+        return slowThreshold;
+    }
+
+    public void setSlowThreshold(Duration slowThreshold) {
+        this.slowThreshold = slowThreshold;
+    }
+
+    public double getSlowLogSampleRate() {
+        return slowLogSampleRate;
+    }
+
+    public void setSlowLogSampleRate(double slowLogSampleRate) {
+        this.slowLogSampleRate = slowLogSampleRate;
+    }
+
+    public int getRequestStatementThreshold() {
+        return requestStatementThreshold;
+    }
+
+    public void setRequestStatementThreshold(int requestStatementThreshold) {
+        this.requestStatementThreshold = requestStatementThreshold;
+    }
+
+    public int getMaxShapes() {
+        return maxShapes;
+    }
+
+    public void setMaxShapes(int maxShapes) {
+        this.maxShapes = maxShapes;
+    }
+
+}
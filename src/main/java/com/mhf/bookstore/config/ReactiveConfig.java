@@ -0,0 +1,67 @@
+package com.mhf.bookstore.config;
+
+import com.mhf.bookstore.dao.book.IBookReactiveRepository;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+/**
+ * Non-blocking stack of the {@code reactive} profile: WebFlux on Netty over an R2DBC pool.
+ * <p>
+ * The pool is deliberately not a {@code ConnectionFactory} bean. Boot would drop the JDBC DataSource, and with it
+ * JPA, which still owns the schema, the search index and the startup tasks. For the same reason the R2DBC
+ * transaction manager is only used through {@link TransactionalOperator}, so {@code @Transactional} keeps
+ * resolving to JPA.
+ */
+@Configuration
+@Profile("reactive")
+@EnableR2dbcRepositories(basePackageClasses = IBookReactiveRepository.class, entityOperationsRef = "reactiveEntityTemplate")
+public class ReactiveConfig implements DisposableBean {
+
+    private final ConnectionPool connectionPool;
+
+    @Autowired
+    public ReactiveConfig(ReactiveProperties reactiveProperties) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(reactiveProperties.getUrl()).mutate()
+                .option(ConnectionFactoryOptions.USER, reactiveProperties.getUsername())
+                .option(ConnectionFactoryOptions.PASSWORD, reactiveProperties.getPassword())
+                .build();
+        this.connectionPool = new ConnectionPool(ConnectionPoolConfiguration
+                .builder(ConnectionFactories.get(options))
+                .maxSize(reactiveProperties.getPoolSize())
+                .build());
+    }
+
+    @Bean
+    public R2dbcEntityTemplate reactiveEntityTemplate() {
+        return new R2dbcEntityTemplate(connectionPool);
+    }
+
+    @Bean
+    public TransactionalOperator reactiveTransactionalOperator() {
+        return TransactionalOperator.create(new R2dbcTransactionManager(connectionPool));
+    }
+
+    // Tomcat is on the classpath for the servlet stack and would otherwise win
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Override
+    public void destroy() {
+        connectionPool.dispose();
+    }
+
+}
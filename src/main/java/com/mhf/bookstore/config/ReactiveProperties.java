@@ -0,0 +1,54 @@
+package com.mhf.bookstore.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "bookstore.reactive")
+public class ReactiveProperties {
+
+    /**
+     * R2DBC URL of the database behind spring.datasource.url, whose schema is maintained by JPA.
+     */
+    private String url = "r2dbc:h2:mem:///bookstoredb";
+
+    private String username = "sa";
+
+    private String password = "";
+
+    /**
+     * Maximum number of pooled R2DBC connections.
+     */
+    private int poolSize = 10;
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
+}
@@ -0,0 +1,12 @@
+package com.mhf.bookstore.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Runs {@code @Scheduled} methods such as the catalog statistics reconciliation on Boot's task scheduler.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
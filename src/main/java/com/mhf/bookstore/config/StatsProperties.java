@@ -0,0 +1,36 @@
+package com.mhf.bookstore.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "bookstore.stats")
+public class StatsProperties {
+
+    /**
+     * Interval between checks of the catalog statistics against the table.
+     */
+    private Duration reconcileInterval = Duration.ofMinutes(5);
+
+    /**
+     * Delay before a set-based update triggers a rebuild, so that a burst of them costs a single scan.
+     */
+    private Duration rebuildDelay = Duration.ofSeconds(1);
+
+    public Duration getReconcileInterval() {
+        return reconcileInterval;
+    }
+
+    public void setReconcileInterval(Duration reconcileInterval) {
+        this.reconcileInterval = reconcileInterval;
+    }
+
+    public Duration getRebuildDelay() {
+        return rebuildDelay;
+    }
+
+    public void setRebuildDelay(Duration rebuildDelay) {
+        this.rebuildDelay = rebuildDelay;
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.mhf.bookstore.config;
+
+import com.mhf.bookstore.datasource.BulkheadDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Active with {@code spring.threads.virtual.enabled=true}, where Tomcat and the async task executor run every
+ * request on its own virtual thread. Puts a {@link BulkheadDataSource} sized like the Hikari pool in front of it.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    @Bean
+    public static BeanPostProcessor dataSourceBulkhead() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource) || bean instanceof BulkheadDataSource)
+                    return bean;
+                // The pool may already be wrapped, e.g. by the statement observer
+                HikariDataSource hikari = unwrapHikari((DataSource) bean);
+                if (hikari == null)
+                    return bean;
+                return new BulkheadDataSource((DataSource) bean, hikari.getMaximumPoolSize(), hikari.getConnectionTimeout());
+            }
+        };
+    }
+
+    private static HikariDataSource unwrapHikari(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException ex) {
+            return null;
+        }
+    }
+
+    @Bean
+    public MeterBinder dataSourceBulkheadMetrics(DataSource dataSource) {
+        return registry -> {
+            if (!(dataSource instanceof BulkheadDataSource))
+                return;
+            BulkheadDataSource bulkhead = (BulkheadDataSource) dataSource;
+            Gauge.builder("bookstore.datasource.bulkhead.waiting", bulkhead, BulkheadDataSource::getWaiting)
+                    .description("Threads waiting for a database connection permit")
+                    .register(registry);
+            Gauge.builder("bookstore.datasource.bulkhead.in.use", bulkhead, BulkheadDataSource::getInUse)
+                    .description("Connections currently borrowed through the bulkhead")
+                    .register(registry);
+        };
+    }
+
+}
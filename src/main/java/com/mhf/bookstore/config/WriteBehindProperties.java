@@ -0,0 +1,118 @@
+package com.mhf.bookstore.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "bookstore.write-behind")
+public class WriteBehindProperties {
+
+    /**
+     * Whether creates and updates sent with "Prefer: respond-async" are journaled and applied in the background.
+     * Requires a durable datasource: the applied-journal checkpoint is stored next to the books, and startup
+     * fails on an in-memory database.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Journal file; accepted writes that are not applied yet survive a restart here.
+     */
+    private Path journal = Path.of("data", "books.journal");
+
+    /**
+     * Longest time an accepted write waits for the fsync it shares with others.
+     */
+    private Duration flushInterval = Duration.ofMillis(5);
+
+    /**
+     * Number of waiting writes that triggers an fsync before the interval is over.
+     */
+    private int flushRecords = 256;
+
+    /**
+     * Writes applied per database transaction, at most bookstore.bulk.max-operations.
+     */
+    private int batchSize = 1000;
+
+    /**
+     * How long the background writer lets writes gather before applying a batch smaller than batch-size.
+     */
+    private Duration drainInterval = Duration.ofMillis(100);
+
+    /**
+     * Accepted but unapplied writes beyond which new ones are rejected with 503.
+     */
+    private int maxPending = 100_000;
+
+    /**
+     * Journal size above which the file is emptied once everything in it has been applied.
+     */
+    private DataSize compactThreshold = DataSize.ofMegabytes(16);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Path getJournal() {
+        return journal;
+    }
+
+    public void setJournal(Path journal) {
+        this.journal = journal;
+    }
+
+    public Duration getFlushInterval() {
+        return flushInterval;
+    }
+
+    public void setFlushInterval(Duration flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    public int getFlushRecords() {
+        return flushRecords;
+    }
+
+    public void setFlushRecords(int flushRecords) {
+        this.flushRecords = flushRecords;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public Duration getDrainInterval() {
+        return drainInterval;
+    }
+
+    public void setDrainInterval(Duration drainInterval) {
+        this.drainInterval = drainInterval;
+    }
+
+    public int getMaxPending() {
+        return maxPending;
+    }
+
+    public void setMaxPending(int maxPending) {
+        this.maxPending = maxPending;
+    }
+
+    public DataSize getCompactThreshold() {
+        return compactThreshold;
+    }
+
+    public void setCompactThreshold(DataSize compactThreshold) {
+        this.compactThreshold = compactThreshold;
+    }
+
+}
@@ -1,50 +1,262 @@
 package com.mhf.bookstore.controller.book;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.mhf.bookstore.dto.analytics.PriceHistogramDto;
+import com.mhf.bookstore.dto.analytics.PricePercentilesDto;
+import com.mhf.bookstore.dto.analytics.PriceRangeCountDto;
+import com.mhf.bookstore.dto.book.BookAuthorStatsDto;
+import com.mhf.bookstore.dto.book.BookCacheStatsDto;
+import com.mhf.bookstore.dto.book.BookCatalogStatsDto;
 import com.mhf.bookstore.dto.book.BookDto;
+import com.mhf.bookstore.dto.book.BookFilterDto;
+import com.mhf.bookstore.dto.book.BookPatchDto;
+import com.mhf.bookstore.dto.bulk.BookBulkOperationDto;
+import com.mhf.bookstore.dto.bulk.BookBulkResponseDto;
+import com.mhf.bookstore.dto.bulk.BookCriteriaDto;
+import com.mhf.bookstore.dto.bulk.BookCriteriaResultDto;
+import com.mhf.bookstore.dto.bulk.BookRepriceDto;
+import com.mhf.bookstore.dto.bulk.WriteBehindReceiptDto;
+import com.mhf.bookstore.dto.bulk.WriteBehindStatusDto;
+import com.mhf.bookstore.dto.change.BookChangesDto;
+import com.mhf.bookstore.dto.page.CursorPage;
+import com.mhf.bookstore.dto.page.CursorPageRequest;
+import com.mhf.bookstore.exception.BadRequestException;
+import com.mhf.bookstore.limit.ShedLast;
 import com.mhf.bookstore.model.book.Status;
+import com.mhf.bookstore.service.book.IBookAnalyticsService;
+import com.mhf.bookstore.service.book.IBookBulkService;
+import com.mhf.bookstore.service.book.IBookChangeService;
 import com.mhf.bookstore.service.book.IBookService;
+import com.mhf.bookstore.service.book.IBookWriteBehindService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/books")
 public class BookController {
 
+    // Rows buffered before the export pushes bytes to the client
+    private static final int EXPORT_FLUSH_INTERVAL = 500;
+
+    // RFC 7240: the client does not need the updated representation
+    private static final String RETURN_MINIMAL = "return=minimal";
+
+    // RFC 7240: the client accepts 202 and will look at the outcome later
+    private static final String RESPOND_ASYNC = "respond-async";
+
+    private static final String WRITE_BEHIND_STATUS = "/api/books/_write-behind";
+
     private IBookService iBookService;
+    private IBookBulkService iBookBulkService;
+    private IBookAnalyticsService iBookAnalyticsService;
+    private IBookWriteBehindService iBookWriteBehindService;
+    private IBookChangeService iBookChangeService;
+    private ObjectWriter exportWriter;
 
     @Autowired
-    public BookController(IBookService iBookService) {
+    public BookController(IBookService iBookService, IBookBulkService iBookBulkService,
+                          IBookAnalyticsService iBookAnalyticsService, IBookWriteBehindService iBookWriteBehindService,
+                          IBookChangeService iBookChangeService, ObjectMapper objectMapper) {
         this.iBookService = iBookService;
+        this.iBookBulkService = iBookBulkService;
+        this.iBookAnalyticsService = iBookAnalyticsService;
+        this.iBookWriteBehindService = iBookWriteBehindService;
+        this.iBookChangeService = iBookChangeService;
+        this.exportWriter = objectMapper.writerFor(BookDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
     @PostMapping
-    public ResponseEntity<BookDto> createBook(@Valid @RequestBody BookDto bookDto) {
+    public ResponseEntity<?> createBook(@Valid @RequestBody BookDto bookDto,
+                                        @RequestHeader(value = "Prefer", required = false) String prefer) {
+        if (respondAsync(prefer))
+            return accepted(iBookWriteBehindService.createBook(bookDto));
         BookDto created = iBookService.createBook(bookDto);
         return new ResponseEntity<>(created, HttpStatus.CREATED);
     }
 
+    @GetMapping("/search")
+    public ResponseEntity<List<BookDto>> searchBooks(@RequestParam("q") String query,
+                                                     @RequestParam(required = false) Integer size) {
+        List<BookDto> books = iBookService.searchBooks(query, size);
+        return ResponseEntity.ok(books);
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<BookCacheStatsDto> getCacheStats() {
+        return ResponseEntity.ok(iBookService.getCacheStats());
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<BookCatalogStatsDto> getCatalogStats() {
+        return ResponseEntity.ok(iBookService.getCatalogStats());
+    }
+
+    @GetMapping("/stats/authors")
+    public ResponseEntity<BookAuthorStatsDto> getAuthorStats(@RequestParam("name") String author) {
+        return ResponseEntity.ok(iBookService.getAuthorStats(author));
+    }
+
+    // e.g. /changes?since=123&limit=500, 410 once the log no longer reaches back to since
+    @GetMapping("/changes")
+    public ResponseEntity<BookChangesDto> getChanges(@RequestParam(required = false) Long since,
+                                                     @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(iBookChangeService.getChanges(since, limit));
+    }
+
+    // A reconnecting EventSource sends the last id it received as Last-Event-ID
+    @GetMapping(value = "/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(required = false) Long since,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return iBookChangeService.streamChanges(since != null ? since : lastEventId);
+    }
+
+    // e.g. /analytics/prices/histogram?buckets=20&status=AVAILABLE, bounds default to the cheapest and dearest book
+    @GetMapping("/analytics/prices/histogram")
+    public ResponseEntity<PriceHistogramDto> priceHistogram(@RequestParam(required = false) Status status,
+                                                            @RequestParam(required = false) String author,
+                                                            @RequestParam(required = false) Double minPrice,
+                                                            @RequestParam(required = false) Double maxPrice,
+                                                            @RequestParam(required = false) Integer buckets) {
+        return ResponseEntity.ok(iBookAnalyticsService.priceHistogram(status, author, minPrice, maxPrice, buckets));
+    }
+
+    // e.g. /analytics/prices/percentiles?p=50,95,99.9
+    @GetMapping("/analytics/prices/percentiles")
+    public ResponseEntity<PricePercentilesDto> pricePercentiles(@RequestParam(required = false) Status status,
+                                                                @RequestParam(required = false) String author,
+                                                                @RequestParam(name = "p", required = false) List<Double> percentiles) {
+        return ResponseEntity.ok(iBookAnalyticsService.pricePercentiles(status, author, percentiles));
+    }
+
+    @GetMapping("/analytics/prices/count")
+    public ResponseEntity<PriceRangeCountDto> countPriceRange(@RequestParam(required = false) Status status,
+                                                              @RequestParam(required = false) String author,
+                                                              @RequestParam(required = false) Double minPrice,
+                                                              @RequestParam(required = false) Double maxPrice) {
+        return ResponseEntity.ok(iBookAnalyticsService.countPriceRange(status, author, minPrice, maxPrice));
+    }
+
+    @PostMapping("/_bulk")
+    public ResponseEntity<BookBulkResponseDto> bulk(@RequestBody List<BookBulkOperationDto> operations) {
+        BookBulkResponseDto response = iBookBulkService.execute(operations);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/_write-behind")
+    public ResponseEntity<WriteBehindStatusDto> getWriteBehindStatus() {
+        return ResponseEntity.ok(iBookWriteBehindService.getStatus());
+    }
+
+    @PostMapping("/_discontinue")
+    public ResponseEntity<BookCriteriaResultDto> discontinueMatching(@Valid @RequestBody BookCriteriaDto criteria) {
+        return ResponseEntity.ok(iBookBulkService.discontinueMatching(criteria));
+    }
+
+    @PostMapping("/_reprice")
+    public ResponseEntity<BookCriteriaResultDto> repriceMatching(@Valid @RequestBody BookRepriceDto reprice) {
+        return ResponseEntity.ok(iBookBulkService.repriceMatching(reprice));
+    }
+
+    // Cheap and usually cached, the last reads to give up under load
+    @ShedLast
     @GetMapping("/{id}")
-    public ResponseEntity<BookDto> getBookById(@PathVariable Long id) {
+    public ResponseEntity<BookDto> getBookById(@PathVariable Long id, WebRequest request) {
+        // Revalidations look up the version only, a matching If-None-Match never loads the book
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            Long version = iBookService.getBookVersion(id);
+            if (version != null && request.checkNotModified(versionETag(version)))
+                return versioned(ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(CacheControl.noCache()),
+                        version).build();
+        }
         BookDto book = iBookService.getBookById(id);
-        return ResponseEntity.ok(book);
+        return versioned(ResponseEntity.ok().cacheControl(CacheControl.noCache()), book.getVersion()).body(book);
     }
 
     @GetMapping
-    public ResponseEntity<List<BookDto>> listAllBooks() {
-        List<BookDto> books = iBookService.listAllBooks();
-        return ResponseEntity.ok(books);
+    public ResponseEntity<CursorPage<BookDto>> listBooks(@RequestParam(required = false) String cursor,
+                                                         @RequestParam(required = false) Integer size,
+                                                         @RequestParam(required = false) String sort,
+                                                         @RequestParam(defaultValue = "false") boolean includeTotal,
+                                                         WebRequest request) {
+        if (request.checkNotModified(catalogETag()))
+            return null;
+        CursorPage<BookDto> page = iBookService.listBooks(new CursorPageRequest(cursor, size, sort, includeTotal));
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).varyBy(HttpHeaders.ACCEPT).body(page);
+    }
+
+    // e.g. /filter?author=Jane Doe&status=AVAILABLE&minPrice=10&maxPrice=30&title=the&sort=price,desc
+    @GetMapping("/filter")
+    public ResponseEntity<CursorPage<BookDto>> filterBooks(@Valid @ModelAttribute BookFilterDto filter,
+                                                           @RequestParam(required = false) String cursor,
+                                                           @RequestParam(required = false) Integer size,
+                                                           @RequestParam(required = false) String sort,
+                                                           @RequestParam(defaultValue = "false") boolean includeTotal) {
+        CursorPage<BookDto> page = iBookService.filterBooks(filter, new CursorPageRequest(cursor, size, sort, includeTotal));
+        return ResponseEntity.ok(page);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportBooks() {
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = exportWriter.createGenerator(outputStream)) {
+                int[] written = {0};
+                iBookService.exportBooks(book -> {
+                    try {
+                        exportWriter.writeValue(generator, book);
+                        generator.writeRaw('\n');
+                        // Flush the first row right away, then in batches
+                        if (written[0]++ % EXPORT_FLUSH_INTERVAL == 0)
+                            generator.flush();
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<BookDto> updateBook(@PathVariable Long id, @Valid @RequestBody BookDto bookDto) {
+    public ResponseEntity<?> updateBook(@PathVariable Long id, @Valid @RequestBody BookDto bookDto,
+                                        @RequestHeader(value = "If-Match", required = false) String ifMatch,
+                                        @RequestHeader(value = "Prefer", required = false) String prefer) {
+        // A conditional update needs the current version, which only the synchronous path checks
+        if (ifMatch == null && bookDto.getVersion() == null && respondAsync(prefer))
+            return accepted(iBookWriteBehindService.updateBook(id, bookDto));
+        Long expectedVersion = parseIfMatch(ifMatch);
+        if (expectedVersion != null)
+            bookDto.setVersion(expectedVersion);
         BookDto updated = iBookService.updateBook(id, bookDto);
-        return ResponseEntity.ok(updated);
+        return withETag(updated);
+    }
+
+    @PatchMapping("/{id}")
+    public ResponseEntity<BookDto> patchBook(@PathVariable Long id, @Valid @RequestBody BookPatchDto patch,
+                                             @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        BookDto patched = iBookService.patchBook(id, patch, parseIfMatch(ifMatch));
+        return withETag(patched);
     }
 
     @DeleteMapping("/{id}")
@@ -54,15 +266,77 @@ public class BookController {
     }
 
     @PatchMapping("/{id}/discontinue")
-    public ResponseEntity<BookDto> discontinueBook(@PathVariable Long id) {
+    public ResponseEntity<BookDto> discontinueBook(@PathVariable Long id,
+                                                   @RequestHeader(value = "Prefer", required = false) String prefer) {
+        if (prefer != null && prefer.contains(RETURN_MINIMAL)) {
+            iBookService.discontinueBook(id);
+            return ResponseEntity.noContent().header("Preference-Applied", RETURN_MINIMAL).build();
+        }
         BookDto updated = iBookService.markAsDiscontinued(id);
-        return ResponseEntity.ok(updated);
+        return withETag(updated);
     }
 
     @GetMapping("/status/{status}")
-    public ResponseEntity<List<BookDto>> getBooksByStatus(@PathVariable Status status) {
-        List<BookDto> books = iBookService.getBooksByStatus(status);
-        return ResponseEntity.ok(books);
+    public ResponseEntity<CursorPage<BookDto>> getBooksByStatus(@PathVariable Status status,
+                                                                @RequestParam(required = false) String cursor,
+                                                                @RequestParam(required = false) Integer size,
+                                                                @RequestParam(required = false) String sort,
+                                                                @RequestParam(defaultValue = "false") boolean includeTotal,
+                                                                WebRequest request) {
+        if (request.checkNotModified(catalogETag()))
+            return null;
+        CursorPage<BookDto> page = iBookService.getBooksByStatus(status, new CursorPageRequest(cursor, size, sort, includeTotal));
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).varyBy(HttpHeaders.ACCEPT).body(page);
+    }
+
+    // Honoured only when write-behind is enabled, otherwise the write is applied before answering
+    private boolean respondAsync(String prefer) {
+        return prefer != null && prefer.contains(RESPOND_ASYNC) && iBookWriteBehindService.isEnabled();
+    }
+
+    private ResponseEntity<WriteBehindReceiptDto> accepted(WriteBehindReceiptDto receipt) {
+        return ResponseEntity.accepted()
+                .header("Preference-Applied", RESPOND_ASYNC)
+                .location(URI.create(WRITE_BEHIND_STATUS))
+                .body(receipt);
+    }
+
+    private ResponseEntity<BookDto> withETag(BookDto book) {
+        return versioned(ResponseEntity.ok(), book.getVersion()).body(book);
+    }
+
+    // JSON, CBOR and Smile bodies of one version share the tag, so it is weak; Vary keeps caches from serving one
+    // format for another
+    private ResponseEntity.BodyBuilder versioned(ResponseEntity.BodyBuilder response, Long version) {
+        response.varyBy(HttpHeaders.ACCEPT);
+        if (version != null)
+            response.eTag(versionETag(version));
+        return response;
+    }
+
+    private static String versionETag(Long version) {
+        return "W/\"" + version + "\"";
+    }
+
+    // Accepts the strong or weak form of a tag issued by this controller; "*" matches any version
+    private Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*"))
+            return null;
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/"))
+            tag = tag.substring(2);
+        tag = tag.replace("\"", "");
+        try {
+            return Long.valueOf(tag);
+        } catch (NumberFormatException ex) {
+            throw new BadRequestException("Invalid If-Match header '" + ifMatch + "'");
+        }
+    }
+
+    // Sampled before the query runs, so the tag never claims data newer than the body. Weak, because pages are
+    // gzip-encoded above the compression threshold and Tomcat does not compress responses with a strong tag
+    private String catalogETag() {
+        return versionETag(iBookService.getCatalogVersion());
     }
 
 }
@@ -0,0 +1,117 @@
+package com.mhf.bookstore.controller.book;
+
+import com.mhf.bookstore.dto.book.BookDto;
+import com.mhf.bookstore.dto.book.BookPatchDto;
+import com.mhf.bookstore.exception.BadRequestException;
+import com.mhf.bookstore.model.book.Status;
+import com.mhf.bookstore.service.book.IBookReactiveService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * WebFlux counterpart of {@link BookController} for the {@code reactive} profile, on the same paths.
+ * Lists are keyset pages over the id ({@code ?after=<last id>&size=20}) streamed as they are read.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/books")
+public class BookReactiveController {
+
+    private IBookReactiveService iBookReactiveService;
+
+    @Autowired
+    public BookReactiveController(IBookReactiveService iBookReactiveService) {
+        this.iBookReactiveService = iBookReactiveService;
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<BookDto>> createBook(@Valid @RequestBody BookDto bookDto) {
+        return iBookReactiveService.createBook(bookDto)
+                .map(created -> new ResponseEntity<>(created, HttpStatus.CREATED));
+    }
+
+    @GetMapping("/search")
+    public Flux<BookDto> searchBooks(@RequestParam("q") String query,
+                                     @RequestParam(required = false) Integer size) {
+        return iBookReactiveService.searchBooks(query, size);
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<BookDto>> getBookById(@PathVariable Long id) {
+        return iBookReactiveService.getBookById(id).map(this::withETag);
+    }
+
+    @GetMapping
+    public Flux<BookDto> listBooks(@RequestParam(required = false) Long after,
+                                   @RequestParam(required = false) Integer size) {
+        return iBookReactiveService.listBooks(after, size);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BookDto> exportBooks() {
+        return iBookReactiveService.exportBooks();
+    }
+
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<BookDto>> updateBook(@PathVariable Long id, @Valid @RequestBody BookDto bookDto,
+                                                    @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        Long expectedVersion = parseIfMatch(ifMatch);
+        if (expectedVersion != null)
+            bookDto.setVersion(expectedVersion);
+        return iBookReactiveService.updateBook(id, bookDto).map(this::withETag);
+    }
+
+    @PatchMapping("/{id}")
+    public Mono<ResponseEntity<BookDto>> patchBook(@PathVariable Long id, @Valid @RequestBody BookPatchDto patch,
+                                                   @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        return iBookReactiveService.patchBook(id, patch, parseIfMatch(ifMatch)).map(this::withETag);
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deleteBook(@PathVariable Long id) {
+        return iBookReactiveService.deleteBook(id)
+                .then(Mono.just(ResponseEntity.noContent().<Void>build()));
+    }
+
+    @PatchMapping("/{id}/discontinue")
+    public Mono<ResponseEntity<BookDto>> discontinueBook(@PathVariable Long id) {
+        return iBookReactiveService.markAsDiscontinued(id).map(this::withETag);
+    }
+
+    @GetMapping("/status/{status}")
+    public Flux<BookDto> getBooksByStatus(@PathVariable Status status,
+                                          @RequestParam(required = false) Long after,
+                                          @RequestParam(required = false) Integer size) {
+        return iBookReactiveService.getBooksByStatus(status, after, size);
+    }
+
+    private ResponseEntity<BookDto> withETag(BookDto book) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (book.getVersion() != null)
+            response.eTag(book.getVersion().toString());
+        return response.body(book);
+    }
+
+    // Same rules as BookController: strong or weak tags, "*" matches any version
+    private Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*"))
+            return null;
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/"))
+            tag = tag.substring(2);
+        tag = tag.replace("\"", "");
+        try {
+            return Long.valueOf(tag);
+        } catch (NumberFormatException ex) {
+            throw new BadRequestException("Invalid If-Match header '" + ifMatch + "'");
+        }
+    }
+
+}
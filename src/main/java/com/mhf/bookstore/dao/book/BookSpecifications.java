@@ -0,0 +1,52 @@
+package com.mhf.bookstore.dao.book;
+
+import com.mhf.bookstore.dto.book.BookFilterDto;
+import com.mhf.bookstore.model.book.Book;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Dynamic WHERE clauses for {@link IBookRepository}. Every criterion is written so that it can be served by one
+ * of the indexes declared on {@link Book}: comparisons on the bare column, lower-cased values against the
+ * generated {@code *_lower} columns and title matching as a LIKE prefix.
+ */
+public final class BookSpecifications {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private BookSpecifications() {
+    }
+
+    public static Specification<Book> matching(BookFilterDto filter) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (filter.getAuthor() != null)
+                predicates.add(cb.equal(root.get("authorLower"), filter.getAuthor().toLowerCase(Locale.ROOT)));
+            if (filter.getStatus() != null)
+                predicates.add(cb.equal(root.get("status"), filter.getStatus()));
+            if (filter.getMinPrice() != null)
+                predicates.add(cb.greaterThanOrEqualTo(root.get("price"), filter.getMinPrice()));
+            if (filter.getMaxPrice() != null)
+                predicates.add(cb.lessThanOrEqualTo(root.get("price"), filter.getMaxPrice()));
+            if (filter.getTitle() != null)
+                predicates.add(cb.like(root.get("titleLower"),
+                        escapeLike(filter.getTitle().toLowerCase(Locale.ROOT)) + "%", LIKE_ESCAPE));
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    private static String escapeLike(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE)
+                escaped.append(LIKE_ESCAPE);
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+}
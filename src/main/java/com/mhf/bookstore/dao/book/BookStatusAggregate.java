@@ -0,0 +1,22 @@
+package com.mhf.bookstore.dao.book;
+
+import com.mhf.bookstore.model.book.Status;
+
+/**
+ * One row of {@link IBookRepository#aggregateByStatus()}; price aggregates are null for a group without prices.
+ */
+public interface BookStatusAggregate {
+
+    Status getStatus();
+
+    long getBooks();
+
+    long getPricedBooks();
+
+    Double getPriceSum();
+
+    Double getMinPrice();
+
+    Double getMaxPrice();
+
+}
@@ -0,0 +1,75 @@
+package com.mhf.bookstore.dao.book;
+
+import com.mhf.bookstore.model.book.BookRow;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+/**
+ * R2DBC access to the table mapped by JPA for {@code Book}, used by the {@code reactive} profile.
+ * Ids come from JPA's sequence and the version is maintained like JPA does, so every write is spelled out in SQL.
+ */
+@Repository
+public interface IBookReactiveRepository extends R2dbcRepository<BookRow, Long> {
+
+    // Hibernate stores the status as an H2 ENUM: the driver cannot decode it, and binds strings as CLOBs that
+    // H2 will not convert to it, so status goes through varchar both ways
+    String COLUMNS = "id, title, author, price, cast(status as varchar) as status, version";
+
+    @Query("select " + COLUMNS + " from book where id = :id")
+    Mono<BookRow> findBookById(Long id);
+
+    @Query("select " + COLUMNS + " from book where id in (:ids)")
+    Flux<BookRow> findBooksById(Collection<Long> ids);
+
+    // Keyset pages over the primary key, like the servlet API's default sort
+    @Query("select " + COLUMNS + " from book where id > :afterId order by id limit :limit")
+    Flux<BookRow> findPage(long afterId, int limit);
+
+    // Served by idx_book_status_price
+    @Query("select " + COLUMNS + " from book where status = cast(:status as varchar) and id > :afterId order by id limit :limit")
+    Flux<BookRow> findPageByStatus(String status, long afterId, int limit);
+
+    @Query("select " + COLUMNS + " from book order by id")
+    Flux<BookRow> streamAll();
+
+    @Query("select count(*) from book where id = :id")
+    Mono<Long> countById(Long id);
+
+    // Shares JPA's pooled sequence: every value handed out here is the upper end of a block Hibernate never uses
+    @Query("select next value for book_seq")
+    Mono<Long> nextId();
+
+    @Modifying
+    @Query("insert into book (id, title, author, price, status, version) values (:id, :title, :author, :price, cast(:status as varchar), 0)")
+    Mono<Integer> insert(Long id, String title, String author, Double price, String status);
+
+    @Modifying
+    @Query("update book set title = :title, author = :author, price = :price, status = cast(:status as varchar), version = version + 1 " +
+            "where id = :id and (cast(:version as bigint) is null or version = :version)")
+    Mono<Integer> update(Long id, Long version, String title, String author, Double price, String status);
+
+    @Modifying
+    @Query("update book set " +
+            "title = coalesce(:title, title), " +
+            "author = coalesce(:author, author), " +
+            "price = coalesce(:price, price), " +
+            "status = coalesce(cast(:status as varchar), status), " +
+            "version = version + 1 " +
+            "where id = :id and (cast(:version as bigint) is null or version = :version)")
+    Mono<Integer> patch(Long id, Long version, String title, String author, Double price, String status);
+
+    @Modifying
+    @Query("update book set status = 'DISCONTINUED', version = version + 1 where id = :id")
+    Mono<Integer> discontinue(Long id);
+
+    @Modifying
+    @Query("delete from book where id = :id")
+    Mono<Integer> deleteBookById(Long id);
+
+}
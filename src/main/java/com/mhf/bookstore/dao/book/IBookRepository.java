@@ -1,17 +1,104 @@
 package com.mhf.bookstore.dao.book;
 
+import com.mhf.bookstore.dto.book.BookDto;
 import com.mhf.bookstore.model.book.Book;
 import com.mhf.bookstore.model.book.Status;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface IBookRepository extends JpaRepository<Book, Long> {
+public interface IBookRepository extends JpaRepository<Book, Long>, JpaSpecificationExecutor<Book> {
 
-    List<Book> findByTitleContainingIgnoreCase(String title);
+    String EXPORT_FETCH_SIZE = "1000";
 
-    List<Book> findByStatus(Status status);
+    long countByStatus(Status status);
+
+    // Read path projections: rows are selected straight into BookDto through its constructor, so nothing
+    // enters the persistence context (no snapshots, no dirty checking) and no mapping is needed
+
+    Optional<BookDto> findDtoById(Long id);
+
+    // Revalidation of a cached copy only needs the version
+    @Query("select b.version from Book b where b.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    List<BookDto> findDtoByIdIn(Collection<Long> ids);
+
+    // Keyset scrolling: seeks past the position instead of counting/skipping rows
+    Window<BookDto> findDtoBy(ScrollPosition position, Sort sort, Limit limit);
+
+    // Served by idx_book_status_price, only matching rows leave the database
+    Window<BookDto> findDtoByStatus(Status status, ScrollPosition position, Sort sort, Limit limit);
+
+    // Cursor-backed stream for full exports and index rebuilds; must be consumed inside a transaction and closed.
+    // Rows become BookDtos without passing through entities
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query("select new com.mhf.bookstore.dto.book.BookDto(b.id, b.title, b.author, b.price, b.status, b.version) " +
+            "from Book b order by b.id")
+    Stream<BookDto> streamAllDtos();
+
+    // Reference numbers for the in-memory catalog statistics, one row per status
+    @Query("select b.status as status, count(b) as books, count(b.price) as pricedBooks, sum(b.price) as priceSum, " +
+            "min(b.price) as minPrice, max(b.price) as maxPrice from Book b group by b.status")
+    List<BookStatusAggregate> aggregateByStatus();
+
+    // Single-statement writes: no entity is loaded, the affected row count tells whether the book exists
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Book b set " +
+            "b.title = coalesce(:title, b.title), " +
+            "b.author = coalesce(:author, b.author), " +
+            "b.price = coalesce(:price, b.price), " +
+            "b.status = coalesce(:status, b.status), " +
+            "b.version = b.version + 1 " +
+            "where b.id = :id and (:version is null or b.version = :version)")
+    int patch(@Param("id") Long id, @Param("version") Long version, @Param("title") String title,
+              @Param("author") String author, @Param("price") Double price, @Param("status") Status status);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Book b set b.status = :status, b.version = b.version + 1 where b.id = :id")
+    int updateStatus(@Param("id") Long id, @Param("status") Status status);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Book b where b.id = :id")
+    int deleteBookById(@Param("id") Long id);
+
+    // Set-based writes over every book matching the criteria, null criteria match everything
+
+    String CRITERIA = "(:author is null or b.authorLower = lower(:author)) " +
+            "and (:status is null or b.status = :status) " +
+            "and (:minPrice is null or b.price >= :minPrice) " +
+            "and (:maxPrice is null or b.price <= :maxPrice)";
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Book b set b.status = :newStatus, b.version = b.version + 1 " +
+            "where b.status <> :newStatus and " + CRITERIA)
+    int updateStatusWhere(@Param("newStatus") Status newStatus, @Param("author") String author,
+                          @Param("status") Status status, @Param("minPrice") Double minPrice,
+                          @Param("maxPrice") Double maxPrice);
+
+    // Rounded to cents and never below one cent, so a discount cannot produce a zero price
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Book b set b.price = greatest(round(b.price * :factor, 2), 0.01), b.version = b.version + 1 " +
+            "where " + CRITERIA)
+    int scalePriceWhere(@Param("factor") double factor, @Param("author") String author,
+                        @Param("status") Status status, @Param("minPrice") Double minPrice,
+                        @Param("maxPrice") Double maxPrice);
 
 }
@@ -0,0 +1,9 @@
+package com.mhf.bookstore.dao.journal;
+
+import com.mhf.bookstore.model.journal.JournalCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface IJournalCheckpointRepository extends JpaRepository<JournalCheckpoint, String> {
+}
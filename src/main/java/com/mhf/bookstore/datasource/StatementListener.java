@@ -0,0 +1,19 @@
+package com.mhf.bookstore.datasource;
+
+import java.util.List;
+
+/**
+ * Told about every statement executed through a {@link StatementObservingDataSource}.
+ * Runs on the executing thread, right after the statement returned or failed.
+ */
+public interface StatementListener {
+
+    /**
+     * @param sql          the SQL as sent to the driver, with {@code ?} placeholders for prepared statements
+     * @param parameters   bind parameters by position, only valid during the call
+     * @param batchSize    number of parameter sets of a batch, 1 otherwise
+     * @param elapsedNanos time spent in the driver's execute call
+     */
+    void statementExecuted(String sql, List<Object> parameters, int batchSize, long elapsedNanos);
+
+}
@@ -0,0 +1,117 @@
+package com.mhf.bookstore.datasource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Times every statement executed on connections of the wrapped DataSource and reports it, with its bind
+ * parameters, to a {@link StatementListener}.
+ * <p>
+ * Works below Hibernate, so it sees the SQL that actually reaches the driver: batched inserts, bulk updates and
+ * plain JDBC alike. Parameters are kept as references until the statement executes; nothing is formatted unless
+ * the listener asks for it.
+ */
+public class StatementObservingDataSource extends DelegatingDataSource {
+
+    private final StatementListener listener;
+
+    public StatementObservingDataSource(DataSource target, StatementListener listener) {
+        super(target);
+        this.listener = listener;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return observe(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return observe(super.getConnection(username, password));
+    }
+
+    private Connection observe(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("unwrap") && ((Class<?>) args[0]).isInstance(connection))
+                        return connection;
+                    Object result = invoke(connection, method, args);
+                    if (result instanceof CallableStatement)
+                        return observe((Statement) result, CallableStatement.class, (String) args[0]);
+                    if (result instanceof PreparedStatement)
+                        return observe((Statement) result, PreparedStatement.class, (String) args[0]);
+                    if (result instanceof Statement)
+                        return observe((Statement) result, Statement.class, null);
+                    return result;
+                });
+    }
+
+    // preparedSql is null for plain statements, which carry their SQL in the execute call instead
+    private Statement observe(Statement statement, Class<? extends Statement> type, String preparedSql) {
+        List<Object> parameters = new ArrayList<>();
+        List<String> batchedSql = new ArrayList<>();
+        int[] batchSize = {0};
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                        setParameter(parameters, (Integer) args[0], name.equals("setNull") ? null : args[1]);
+                    } else if (name.equals("clearParameters")) {
+                        parameters.clear();
+                    } else if (name.equals("addBatch")) {
+                        batchSize[0]++;
+                        if (preparedSql == null && args != null)
+                            batchedSql.add((String) args[0]);
+                    } else if (name.equals("clearBatch")) {
+                        batchSize[0] = 0;
+                        batchedSql.clear();
+                    } else if (name.startsWith("execute")) {
+                        String sql = preparedSql;
+                        if (sql == null)
+                            sql = args != null && args.length > 0 ? (String) args[0] : String.join(";\n", batchedSql);
+                        boolean batch = name.startsWith("executeBatch") || name.startsWith("executeLargeBatch");
+                        long start = System.nanoTime();
+                        try {
+                            return invoke(statement, method, args);
+                        } finally {
+                            listener.statementExecuted(sql, preparedSql == null ? Collections.emptyList() : parameters,
+                                    batch ? Math.max(batchSize[0], 1) : 1, System.nanoTime() - start);
+                            if (batch) {
+                                batchSize[0] = 0;
+                                batchedSql.clear();
+                            }
+                        }
+                    } else if (name.equals("unwrap") && ((Class<?>) args[0]).isInstance(statement)) {
+                        return statement;
+                    }
+                    return invoke(statement, method, args);
+                });
+    }
+
+    private static void setParameter(List<Object> parameters, int index, Object value) {
+        while (parameters.size() < index)
+            parameters.add(null);
+        parameters.set(index - 1, value);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getTargetException();
+        }
+    }
+
+}
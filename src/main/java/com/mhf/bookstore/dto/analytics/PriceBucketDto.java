@@ -0,0 +1,43 @@
+package com.mhf.bookstore.dto.analytics;
+
+public class PriceBucketDto {
+
+    // Inclusive lower bound; the upper bound is exclusive except for the last bucket
+    private double from;
+    private double to;
+    private long books;
+
+    public PriceBucketDto() {
+    }
+
+    public PriceBucketDto(double from, double to, long books) {
+        this.from = from;
+        this.to = to;
+        this.books = books;
+    }
+
+    public double getFrom() {
+        return from;
+    }
+
+    public void setFrom(double from) {
+        this.from = from;
+    }
+
+    public double getTo() {
+        return to;
+    }
+
+    public void setTo(double to) {
+        this.to = to;
+    }
+
+    public long getBooks() {
+        return books;
+    }
+
+    public void setBooks(long books) {
+        this.books = books;
+    }
+
+}
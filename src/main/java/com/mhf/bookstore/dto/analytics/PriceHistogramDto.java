@@ -0,0 +1,57 @@
+package com.mhf.bookstore.dto.analytics;
+
+import java.util.List;
+
+/**
+ * Distribution of the prices of the matching books; bounds are null and buckets empty when none has a price.
+ */
+public class PriceHistogramDto {
+
+    private long books;
+    private Double minPrice;
+    private Double maxPrice;
+    private List<PriceBucketDto> buckets;
+
+    public PriceHistogramDto() {
+    }
+
+    public PriceHistogramDto(long books, Double minPrice, Double maxPrice, List<PriceBucketDto> buckets) {
+        this.books = books;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.buckets = buckets;
+    }
+
+    public long getBooks() {
+        return books;
+    }
+
+    public void setBooks(long books) {
+        this.books = books;
+    }
+
+    public Double getMinPrice() {
+        return minPrice;
+    }
+
+    public void setMinPrice(Double minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    public Double getMaxPrice() {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(Double maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    public List<PriceBucketDto> getBuckets() {
+        return buckets;
+    }
+
+    public void setBuckets(List<PriceBucketDto> buckets) {
+        this.buckets = buckets;
+    }
+
+}
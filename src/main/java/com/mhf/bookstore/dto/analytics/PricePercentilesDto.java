@@ -0,0 +1,38 @@
+package com.mhf.bookstore.dto.analytics;
+
+import java.util.Map;
+
+/**
+ * Prices at the requested percentiles, keyed by percentile ({@code "50"}, {@code "99.9"}); empty when no
+ * matching book has a price.
+ */
+public class PricePercentilesDto {
+
+    private long books;
+    private Map<String, Double> percentiles;
+
+    public PricePercentilesDto() {
+    }
+
+    public PricePercentilesDto(long books, Map<String, Double> percentiles) {
+        this.books = books;
+        this.percentiles = percentiles;
+    }
+
+    public long getBooks() {
+        return books;
+    }
+
+    public void setBooks(long books) {
+        this.books = books;
+    }
+
+    public Map<String, Double> getPercentiles() {
+        return percentiles;
+    }
+
+    public void setPercentiles(Map<String, Double> percentiles) {
+        this.percentiles = percentiles;
+    }
+
+}
@@ -0,0 +1,43 @@
+package com.mhf.bookstore.dto.analytics;
+
+public class PriceRangeCountDto {
+
+    // Inclusive bounds, null when open
+    private Double minPrice;
+    private Double maxPrice;
+    private long books;
+
+    public PriceRangeCountDto() {
+    }
+
+    public PriceRangeCountDto(Double minPrice, Double maxPrice, long books) {
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.books = books;
+    }
+
+    public Double getMinPrice() {
+        return minPrice;
+    }
+
+    public void setMinPrice(Double minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    public Double getMaxPrice() {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(Double maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    public long getBooks() {
+        return books;
+    }
+
+    public void setBooks(long books) {
+        this.books = books;
+    }
+
+}
@@ -0,0 +1,32 @@
+package com.mhf.bookstore.dto.book;
+
+public class BookAuthorStatsDto {
+
+    private String author;
+    private long books;
+
+    public BookAuthorStatsDto() {
+    }
+
+    public BookAuthorStatsDto(String author, long books) {
+        this.author = author;
+        this.books = books;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public void setAuthor(String author) {
+        this.author = author;
+    }
+
+    public long getBooks() {
+        return books;
+    }
+
+    public void setBooks(long books) {
+        this.books = books;
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.mhf.bookstore.dto.book;
+
+public class BookCacheStatsDto {
+
+    private long size;
+    private long hitCount;
+    private long missCount;
+    private double hitRate;
+    private long evictionCount;
+    private double averageLoadPenaltyMillis;
+
+    public BookCacheStatsDto() {
+    }
+
+    public BookCacheStatsDto(long size, long hitCount, long missCount, double hitRate, long evictionCount,
+                             double averageLoadPenaltyMillis) {
+        this.size = size;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.hitRate = hitRate;
+        this.evictionCount = evictionCount;
+        this.averageLoadPenaltyMillis = averageLoadPenaltyMillis;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public void setHitCount(long hitCount) {
+        this.hitCount = hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public void setMissCount(long missCount) {
+        this.missCount = missCount;
+    }
+
+    public double getHitRate() {
+        return hitRate;
+    }
+
+    public void setHitRate(double hitRate) {
+        this.hitRate = hitRate;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public void setEvictionCount(long evictionCount) {
+        this.evictionCount = evictionCount;
+    }
+
+    public double getAverageLoadPenaltyMillis() {
+        return averageLoadPenaltyMillis;
+    }
+
+    public void setAverageLoadPenaltyMillis(double averageLoadPenaltyMillis) {
+        this.averageLoadPenaltyMillis = averageLoadPenaltyMillis;
+    }
+
+}
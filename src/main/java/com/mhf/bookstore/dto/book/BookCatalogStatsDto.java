@@ -0,0 +1,80 @@
+package com.mhf.bookstore.dto.book;
+
+import com.mhf.bookstore.model.book.Status;
+
+import java.util.Map;
+
+/**
+ * Catalog-wide aggregates; the price fields are null while no book has a price.
+ */
+public class BookCatalogStatsDto {
+
+    private long books;
+    private Map<Status, Long> booksByStatus;
+    private long authors;
+    private Double averagePrice;
+    private Double minPrice;
+    private Double maxPrice;
+
+    public BookCatalogStatsDto() {
+    }
+
+    public BookCatalogStatsDto(long books, Map<Status, Long> booksByStatus, long authors, Double averagePrice,
+                               Double minPrice, Double maxPrice) {
+        this.books = books;
+        this.booksByStatus = booksByStatus;
+        this.authors = authors;
+        this.averagePrice = averagePrice;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+    }
+
+    public long getBooks() {
+        return books;
+    }
+
+    public void setBooks(long books) {
+        this.books = books;
+    }
+
+    public Map<Status, Long> getBooksByStatus() {
+        return booksByStatus;
+    }
+
+    public void setBooksByStatus(Map<Status, Long> booksByStatus) {
+        this.booksByStatus = booksByStatus;
+    }
+
+    public long getAuthors() {
+        return authors;
+    }
+
+    public void setAuthors(long authors) {
+        this.authors = authors;
+    }
+
+    public Double getAveragePrice() {
+        return averagePrice;
+    }
+
+    public void setAveragePrice(Double averagePrice) {
+        this.averagePrice = averagePrice;
+    }
+
+    public Double getMinPrice() {
+        return minPrice;
+    }
+
+    public void setMinPrice(Double minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    public Double getMaxPrice() {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(Double maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+}
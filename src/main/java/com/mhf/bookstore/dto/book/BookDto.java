@@ -4,6 +4,7 @@ import com.mhf.bookstore.model.book.Status;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import org.springframework.data.annotation.PersistenceCreator;
 
 public class BookDto {
 
@@ -21,6 +22,8 @@ public class BookDto {
 
     private Status status;
 
+    private Long version;
+
     public BookDto() {
     }
 
@@ -39,6 +42,13 @@ public class BookDto {
         this.status = status;
     }
 
+    // Used by the projection queries of IBookRepository, which select straight into this class
+    @PersistenceCreator
+    public BookDto(Long id, String title, String author, Double price, Status status, Long version) {
+        this(id, title, author, price, status);
+        this.version = version;
+    }
+
     public Long getId() {
         return id;
     }
@@ -79,4 +89,12 @@ public class BookDto {
         this.status = status;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
 }
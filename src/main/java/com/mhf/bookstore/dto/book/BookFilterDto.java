@@ -0,0 +1,80 @@
+package com.mhf.bookstore.dto.book;
+
+import com.mhf.bookstore.model.book.Status;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.PositiveOrZero;
+
+/**
+ * Query parameters of the filter API; absent (null) fields match every book, present ones are combined with AND.
+ */
+public class BookFilterDto {
+
+    // Exact match, case-insensitive
+    @Pattern(regexp = ".*\\S.*", message = "Author must not be blank")
+    private String author;
+
+    private Status status;
+
+    // Inclusive price bounds
+    @PositiveOrZero(message = "Minimum price must not be negative")
+    private Double minPrice;
+
+    @PositiveOrZero(message = "Maximum price must not be negative")
+    private Double maxPrice;
+
+    // Case-insensitive prefix of the title; use search for words inside titles
+    @Pattern(regexp = ".*\\S.*", message = "Title must not be blank")
+    private String title;
+
+    public BookFilterDto() {
+    }
+
+    public BookFilterDto(String author, Status status, Double minPrice, Double maxPrice, String title) {
+        this.author = author;
+        this.status = status;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.title = title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public void setAuthor(String author) {
+        this.author = author;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Double getMinPrice() {
+        return minPrice;
+    }
+
+    public void setMinPrice(Double minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    public Double getMaxPrice() {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(Double maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.mhf.bookstore.dto.book;
+
+import com.mhf.bookstore.model.book.Status;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+
+/**
+ * Partial update of a book, absent (null) fields are left unchanged.
+ */
+public class BookPatchDto {
+
+    @Pattern(regexp = ".*\\S.*", message = "Title must not be blank")
+    private String title;
+
+    @Pattern(regexp = ".*\\S.*", message = "Author must not be blank")
+    private String author;
+
+    @Positive(message = "Price must be greater than 0")
+    private Double price;
+
+    private Status status;
+
+    public BookPatchDto() {
+    }
+
+    public BookPatchDto(String title, String author, Double price, Status status) {
+        this.title = title;
+        this.author = author;
+        this.price = price;
+        this.status = status;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public void setAuthor(String author) {
+        this.author = author;
+    }
+
+    public Double getPrice() {
+        return price;
+    }
+
+    public void setPrice(Double price) {
+        this.price = price;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+}
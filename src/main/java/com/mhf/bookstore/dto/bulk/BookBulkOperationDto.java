@@ -0,0 +1,48 @@
+package com.mhf.bookstore.dto.bulk;
+
+import com.mhf.bookstore.dto.book.BookDto;
+
+public class BookBulkOperationDto {
+
+    private BulkOperationType op;
+
+    // Target of UPDATE and DELETE, must be empty for CREATE
+    private Long id;
+
+    // Payload of CREATE and UPDATE
+    private BookDto book;
+
+    public BookBulkOperationDto() {
+    }
+
+    public BookBulkOperationDto(BulkOperationType op, Long id, BookDto book) {
+        this.op = op;
+        this.id = id;
+        this.book = book;
+    }
+
+    public BulkOperationType getOp() {
+        return op;
+    }
+
+    public void setOp(BulkOperationType op) {
+        this.op = op;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public BookDto getBook() {
+        return book;
+    }
+
+    public void setBook(BookDto book) {
+        this.book = book;
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.mhf.bookstore.dto.bulk;
+
+import java.util.List;
+
+public class BookBulkResponseDto {
+
+    private int succeeded;
+
+    private int failed;
+
+    private List<BookBulkResultDto> results;
+
+    public BookBulkResponseDto() {
+    }
+
+    public BookBulkResponseDto(List<BookBulkResultDto> results) {
+        this.results = results;
+        for (BookBulkResultDto result : results) {
+            if (result.getStatus() < 400)
+                succeeded++;
+            else
+                failed++;
+        }
+    }
+
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public void setSucceeded(int succeeded) {
+        this.succeeded = succeeded;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public List<BookBulkResultDto> getResults() {
+        return results;
+    }
+
+    public void setResults(List<BookBulkResultDto> results) {
+        this.results = results;
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.mhf.bookstore.dto.bulk;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookBulkResultDto {
+
+    // Position of the operation in the request
+    private int index;
+
+    private BulkOperationType op;
+
+    private Long id;
+
+    // HTTP status the operation would have produced on its single-item endpoint
+    private int status;
+
+    private String error;
+
+    public BookBulkResultDto() {
+    }
+
+    public BookBulkResultDto(int index, BulkOperationType op, Long id, int status, String error) {
+        this.index = index;
+        this.op = op;
+        this.id = id;
+        this.status = status;
+        this.error = error;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public BulkOperationType getOp() {
+        return op;
+    }
+
+    public void setOp(BulkOperationType op) {
+        this.op = op;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+}
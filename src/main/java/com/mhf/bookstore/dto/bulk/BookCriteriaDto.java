@@ -0,0 +1,67 @@
+package com.mhf.bookstore.dto.bulk;
+
+import com.mhf.bookstore.model.book.Status;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.PositiveOrZero;
+
+/**
+ * Selects the books affected by a criteria-based mutation, absent (null) fields match every book.
+ */
+public class BookCriteriaDto {
+
+    // Exact match, case-insensitive
+    @Pattern(regexp = ".*\\S.*", message = "Author must not be blank")
+    private String author;
+
+    private Status status;
+
+    // Inclusive price bounds
+    @PositiveOrZero(message = "Minimum price must not be negative")
+    private Double minPrice;
+
+    @PositiveOrZero(message = "Maximum price must not be negative")
+    private Double maxPrice;
+
+    public BookCriteriaDto() {
+    }
+
+    public BookCriteriaDto(String author, Status status, Double minPrice, Double maxPrice) {
+        this.author = author;
+        this.status = status;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public void setAuthor(String author) {
+        this.author = author;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Double getMinPrice() {
+        return minPrice;
+    }
+
+    public void setMinPrice(Double minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    public Double getMaxPrice() {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(Double maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+}
@@ -0,0 +1,23 @@
+package com.mhf.bookstore.dto.bulk;
+
+public class BookCriteriaResultDto {
+
+    // Rows changed by the statement, books already in the target state are not counted
+    private int affected;
+
+    public BookCriteriaResultDto() {
+    }
+
+    public BookCriteriaResultDto(int affected) {
+        this.affected = affected;
+    }
+
+    public int getAffected() {
+        return affected;
+    }
+
+    public void setAffected(int affected) {
+        this.affected = affected;
+    }
+
+}
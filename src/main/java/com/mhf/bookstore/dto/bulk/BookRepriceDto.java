@@ -0,0 +1,45 @@
+package com.mhf.bookstore.dto.bulk;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Percentage price change applied to every book matching {@code criteria}.
+ */
+public class BookRepriceDto {
+
+    @NotNull(message = "Criteria are required")
+    @Valid
+    private BookCriteriaDto criteria;
+
+    // e.g. -15 for a 15% discount; a change of -100% or more would leave no positive price
+    @NotNull(message = "Percent is required")
+    @DecimalMin(value = "-100", inclusive = false, message = "Percent must be greater than -100")
+    private Double percent;
+
+    public BookRepriceDto() {
+    }
+
+    public BookRepriceDto(BookCriteriaDto criteria, Double percent) {
+        this.criteria = criteria;
+        this.percent = percent;
+    }
+
+    public BookCriteriaDto getCriteria() {
+        return criteria;
+    }
+
+    public void setCriteria(BookCriteriaDto criteria) {
+        this.criteria = criteria;
+    }
+
+    public Double getPercent() {
+        return percent;
+    }
+
+    public void setPercent(Double percent) {
+        this.percent = percent;
+    }
+
+}
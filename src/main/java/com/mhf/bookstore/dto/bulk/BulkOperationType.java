@@ -0,0 +1,9 @@
+package com.mhf.bookstore.dto.bulk;
+
+public enum BulkOperationType {
+
+    CREATE,
+    UPDATE,
+    DELETE;
+
+}
@@ -0,0 +1,23 @@
+package com.mhf.bookstore.dto.bulk;
+
+// Acknowledges a durably journaled write; it is applied once appliedSequence reaches sequence
+public class WriteBehindReceiptDto {
+
+    private long sequence;
+
+    public WriteBehindReceiptDto() {
+    }
+
+    public WriteBehindReceiptDto(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+}
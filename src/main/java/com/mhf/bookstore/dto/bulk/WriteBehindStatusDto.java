@@ -0,0 +1,96 @@
+package com.mhf.bookstore.dto.bulk;
+
+public class WriteBehindStatusDto {
+
+    private boolean enabled;
+    private long journaledSequence;
+    private long appliedSequence;
+    // Journaled but not applied yet
+    private long pending;
+    // Age of the oldest pending write
+    private long lagMillis;
+    // Writes that could not be applied, e.g. updates of books deleted in the meantime
+    private long failed;
+    private String lastError;
+    private long journalBytes;
+
+    public WriteBehindStatusDto() {
+    }
+
+    public WriteBehindStatusDto(boolean enabled, long journaledSequence, long appliedSequence, long pending,
+                                long lagMillis, long failed, String lastError, long journalBytes) {
+        this.enabled = enabled;
+        this.journaledSequence = journaledSequence;
+        this.appliedSequence = appliedSequence;
+        this.pending = pending;
+        this.lagMillis = lagMillis;
+        this.failed = failed;
+        this.lastError = lastError;
+        this.journalBytes = journalBytes;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getJournaledSequence() {
+        return journaledSequence;
+    }
+
+    public void setJournaledSequence(long journaledSequence) {
+        this.journaledSequence = journaledSequence;
+    }
+
+    public long getAppliedSequence() {
+        return appliedSequence;
+    }
+
+    public void setAppliedSequence(long appliedSequence) {
+        this.appliedSequence = appliedSequence;
+    }
+
+    public long getPending() {
+        return pending;
+    }
+
+    public void setPending(long pending) {
+        this.pending = pending;
+    }
+
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    public void setLagMillis(long lagMillis) {
+        this.lagMillis = lagMillis;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public long getJournalBytes() {
+        return journalBytes;
+    }
+
+    public void setJournalBytes(long journalBytes) {
+        this.journalBytes = journalBytes;
+    }
+
+}
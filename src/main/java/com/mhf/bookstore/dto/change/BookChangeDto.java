@@ -0,0 +1,82 @@
+package com.mhf.bookstore.dto.change;
+
+import com.mhf.bookstore.dto.book.BookDto;
+import com.mhf.bookstore.model.book.Status;
+
+import java.time.Instant;
+
+public class BookChangeDto {
+
+    private long sequence;
+    private BookChangeOp op;
+    private Long id;
+
+    // State after the change, null for DELETE and DISCONTINUE
+    private BookDto book;
+
+    // New status of a DISCONTINUE
+    private Status status;
+
+    private Instant changedAt;
+
+    public BookChangeDto() {
+    }
+
+    public BookChangeDto(long sequence, BookChangeOp op, Long id, BookDto book, Status status, Instant changedAt) {
+        this.sequence = sequence;
+        this.op = op;
+        this.id = id;
+        this.book = book;
+        this.status = status;
+        this.changedAt = changedAt;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public BookChangeOp getOp() {
+        return op;
+    }
+
+    public void setOp(BookChangeOp op) {
+        this.op = op;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public BookDto getBook() {
+        return book;
+    }
+
+    public void setBook(BookDto book) {
+        this.book = book;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Instant getChangedAt() {
+        return changedAt;
+    }
+
+    public void setChangedAt(Instant changedAt) {
+        this.changedAt = changedAt;
+    }
+
+}
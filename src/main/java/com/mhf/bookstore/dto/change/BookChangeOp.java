@@ -0,0 +1,9 @@
+package com.mhf.bookstore.dto.change;
+
+public enum BookChangeOp {
+    CREATE,
+    UPDATE,
+    DELETE,
+    // Status set to DISCONTINUED without reading the book back; the change carries the status only
+    DISCONTINUE
+}
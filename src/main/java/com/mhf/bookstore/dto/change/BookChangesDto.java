@@ -0,0 +1,47 @@
+package com.mhf.bookstore.dto.change;
+
+import java.util.List;
+
+public class BookChangesDto {
+
+    private List<BookChangeDto> changes;
+
+    // Value of since for the next request
+    private long nextSince;
+
+    private boolean hasMore;
+
+    public BookChangesDto() {
+    }
+
+    public BookChangesDto(List<BookChangeDto> changes, long nextSince, boolean hasMore) {
+        this.changes = changes;
+        this.nextSince = nextSince;
+        this.hasMore = hasMore;
+    }
+
+    public List<BookChangeDto> getChanges() {
+        return changes;
+    }
+
+    public void setChanges(List<BookChangeDto> changes) {
+        this.changes = changes;
+    }
+
+    public long getNextSince() {
+        return nextSince;
+    }
+
+    public void setNextSince(long nextSince) {
+        this.nextSince = nextSince;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+}
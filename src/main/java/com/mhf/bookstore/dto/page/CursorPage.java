@@ -0,0 +1,73 @@
+package com.mhf.bookstore.dto.page;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+public class CursorPage<T> {
+
+    private List<T> content;
+
+    private int size;
+
+    private boolean hasNext;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+
+    // Only populated when the client explicitly asks for it, as it costs a COUNT(*)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long totalElements;
+
+    public CursorPage() {
+    }
+
+    public CursorPage(List<T> content, boolean hasNext, String nextCursor, Long totalElements) {
+        this.content = content;
+        this.size = content.size();
+        this.hasNext = hasNext;
+        this.nextCursor = nextCursor;
+        this.totalElements = totalElements;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public void setContent(List<T> content) {
+        this.content = content;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public void setHasNext(boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public Long getTotalElements() {
+        return totalElements;
+    }
+
+    public void setTotalElements(Long totalElements) {
+        this.totalElements = totalElements;
+    }
+
+}
@@ -0,0 +1,52 @@
+package com.mhf.bookstore.dto.page;
+
+public class CursorPageRequest {
+
+    private String cursor;
+    private Integer size;
+    private String sort;
+    private boolean includeTotal;
+
+    public CursorPageRequest() {
+    }
+
+    public CursorPageRequest(String cursor, Integer size, String sort, boolean includeTotal) {
+        this.cursor = cursor;
+        this.size = size;
+        this.sort = sort;
+        this.includeTotal = includeTotal;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    public Integer getSize() {
+        return size;
+    }
+
+    public void setSize(Integer size) {
+        this.size = size;
+    }
+
+    public String getSort() {
+        return sort;
+    }
+
+    public void setSort(String sort) {
+        this.sort = sort;
+    }
+
+    public boolean isIncludeTotal() {
+        return includeTotal;
+    }
+
+    public void setIncludeTotal(boolean includeTotal) {
+        this.includeTotal = includeTotal;
+    }
+
+}
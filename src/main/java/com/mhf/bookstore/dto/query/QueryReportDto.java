@@ -0,0 +1,66 @@
+package com.mhf.bookstore.dto.query;
+
+import java.util.List;
+import java.util.Map;
+
+public class QueryReportDto {
+
+    private long statements;
+    private long slowStatements;
+    private long untrackedStatements;
+    private List<QueryShapeStatsDto> shapes;
+    private Map<String, Long> hibernate;
+
+    public QueryReportDto() {
+    }
+
+    public QueryReportDto(long statements, long slowStatements, long untrackedStatements, List<QueryShapeStatsDto> shapes,
+                          Map<String, Long> hibernate) {
+        this.statements = statements;
+        this.slowStatements = slowStatements;
+        this.untrackedStatements = untrackedStatements;
+        this.shapes = shapes;
+        this.hibernate = hibernate;
+    }
+
+    public long getStatements() {
+        return statements;
+    }
+
+    public void setStatements(long statements) {
+        this.statements = statements;
+    }
+
+    public long getSlowStatements() {
+        return slowStatements;
+    }
+
+    public void setSlowStatements(long slowStatements) {
+        this.slowStatements = slowStatements;
+    }
+
+    public long getUntrackedStatements() {
+        return untrackedStatements;
+    }
+
+    public void setUntrackedStatements(long untrackedStatements) {
+        this.untrackedStatements = untrackedStatements;
+    }
+
+    public List<QueryShapeStatsDto> getShapes() {
+        return shapes;
+    }
+
+    public void setShapes(List<QueryShapeStatsDto> shapes) {
+        this.shapes = shapes;
+    }
+
+    public Map<String, Long> getHibernate() {
+        return hibernate;
+    }
+
+    public void setHibernate(Map<String, Long> hibernate) {
+        this.hibernate = hibernate;
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.mhf.bookstore.dto.query;
+
+public class QueryShapeStatsDto {
+
+    private String sql;
+    private long count;
+    private long slowCount;
+    private double totalMillis;
+    private double meanMillis;
+    private double maxMillis;
+
+    public QueryShapeStatsDto() {
+    }
+
+    public QueryShapeStatsDto(String sql, long count, long slowCount, double totalMillis,
+                              double meanMillis, double maxMillis) {
+        this.sql = sql;
+        this.count = count;
+        this.slowCount = slowCount;
+        this.totalMillis = totalMillis;
+        this.meanMillis = meanMillis;
+        this.maxMillis = maxMillis;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public void setSql(String sql) {
+        this.sql = sql;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public long getSlowCount() {
+        return slowCount;
+    }
+
+    public void setSlowCount(long slowCount) {
+        this.slowCount = slowCount;
+    }
+
+    public double getTotalMillis() {
+        return totalMillis;
+    }
+
+    public void setTotalMillis(double totalMillis) {
+        this.totalMillis = totalMillis;
+    }
+
+    public double getMeanMillis() {
+        return meanMillis;
+    }
+
+    public void setMeanMillis(double meanMillis) {
+        this.meanMillis = meanMillis;
+    }
+
+    public double getMaxMillis() {
+        return maxMillis;
+    }
+
+    public void setMaxMillis(double maxMillis) {
+        this.maxMillis = maxMillis;
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.mhf.bookstore.event.book;
+
+import com.mhf.bookstore.dto.book.BookDto;
+import com.mhf.bookstore.model.book.Status;
+
+/**
+ * Published by the write paths for every book that was created, updated or deleted.
+ * Set-based updates publish a single {@link #updatedMatching()} event without an id instead.
+ * <p>
+ * Listeners that keep derived state (search index, caches, ...) should use
+ * {@code @TransactionalEventListener} so they only observe committed changes.
+ */
+public class BookChangedEvent {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    private final Type type;
+    private final Long id;
+
+    // State after the change, null for DELETED and for status-only updates that did not read the row back
+    private final BookDto book;
+
+    // New status of a status-only update without a snapshot, null otherwise
+    private final Status status;
+
+    public BookChangedEvent(Type type, Long id, BookDto book) {
+        this(type, id, book, null);
+    }
+
+    public BookChangedEvent(Type type, Long id, BookDto book, Status status) {
+        this.type = type;
+        this.id = id;
+        this.book = book;
+        this.status = status;
+    }
+
+    public static BookChangedEvent created(BookDto book) {
+        return new BookChangedEvent(Type.CREATED, book.getId(), book);
+    }
+
+    public static BookChangedEvent updated(BookDto book) {
+        return new BookChangedEvent(Type.UPDATED, book.getId(), book);
+    }
+
+    public static BookChangedEvent updated(Long id, Status status) {
+        return new BookChangedEvent(Type.UPDATED, id, null, status);
+    }
+
+    // Any number of books may have changed, listeners must drop whatever they hold per id
+    public static BookChangedEvent updatedMatching() {
+        return new BookChangedEvent(Type.UPDATED, null, null);
+    }
+
+    public static BookChangedEvent deleted(Long id) {
+        return new BookChangedEvent(Type.DELETED, id, null);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public BookDto getBook() {
+        return book;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+}
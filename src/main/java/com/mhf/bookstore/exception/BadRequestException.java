@@ -0,0 +1,17 @@
+package com.mhf.bookstore.exception;
+
+public class BadRequestException extends RuntimeException {
+
+    public BadRequestException() {
+        super();
+    }
+
+    public BadRequestException(String message) {
+        super(message);
+    }
+
+    public BadRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
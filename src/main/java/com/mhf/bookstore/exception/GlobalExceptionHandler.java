@@ -1,19 +1,56 @@
 package com.mhf.bookstore.exception;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.async.AsyncRequestNotUsableException;
 
 import java.util.stream.Collectors;
 
 @RestControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class GlobalExceptionHandler {
 
+    static final String ERRORS_METER = "bookstore.api.errors";
+
+    private final Counter notFound;
+    private final Counter badRequest;
+    private final Counter conflict;
+    private final Counter gone;
+    private final Counter validation;
+    private final Counter unavailable;
+    private final Counter internal;
+
+    @Autowired
+    public GlobalExceptionHandler(MeterRegistry meterRegistry) {
+        this.notFound = errorCounter(meterRegistry, "not_found");
+        this.badRequest = errorCounter(meterRegistry, "bad_request");
+        this.conflict = errorCounter(meterRegistry, "conflict");
+        this.gone = errorCounter(meterRegistry, "gone");
+        this.validation = errorCounter(meterRegistry, "validation");
+        this.unavailable = errorCounter(meterRegistry, "unavailable");
+        this.internal = errorCounter(meterRegistry, "internal");
+    }
+
+    static Counter errorCounter(MeterRegistry meterRegistry, String type) {
+        return Counter.builder(ERRORS_METER)
+                .description("Requests answered with an error by GlobalExceptionHandler")
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+
     @ExceptionHandler(ResourceNotFoundException.class)
     public ResponseEntity<ApiError> handleResourceNotFound(ResourceNotFoundException ex, HttpServletRequest request) {
+        notFound.increment();
         ApiError error = new ApiError(
                 HttpStatus.NOT_FOUND.value(),
                 "Not Found",
@@ -23,8 +60,61 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
     }
 
+    @ExceptionHandler(BadRequestException.class)
+    public ResponseEntity<ApiError> handleBadRequest(BadRequestException ex, HttpServletRequest request) {
+        badRequest.increment();
+        ApiError error = new ApiError(
+                HttpStatus.BAD_REQUEST.value(),
+                "Bad Request",
+                ex.getMessage(),
+                request.getRequestURI()
+        );
+        return ResponseEntity.badRequest().body(error);
+    }
+
+    @ExceptionHandler({ConflictException.class, ObjectOptimisticLockingFailureException.class})
+    public ResponseEntity<ApiError> handleConflict(RuntimeException ex, HttpServletRequest request) {
+        conflict.increment();
+        ApiError error = new ApiError(
+                HttpStatus.CONFLICT.value(),
+                "Conflict",
+                ex.getMessage(),
+                request.getRequestURI()
+        );
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
+    @ExceptionHandler(GoneException.class)
+    public ResponseEntity<ApiError> handleGone(GoneException ex, HttpServletRequest request) {
+        gone.increment();
+        ApiError error = new ApiError(
+                HttpStatus.GONE.value(),
+                "Gone",
+                ex.getMessage(),
+                request.getRequestURI()
+        );
+        return ResponseEntity.status(HttpStatus.GONE).body(error);
+    }
+
+    // Retry-After in whole seconds, at least one
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ApiError> handleServiceUnavailable(ServiceUnavailableException ex, HttpServletRequest request) {
+        unavailable.increment();
+        ApiError error = new ApiError(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Service Unavailable",
+                ex.getMessage(),
+                request.getRequestURI()
+        );
+        long retryAfter = Math.max((ex.getRetryAfter().toMillis() + 999) / 1000, 1);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter))
+                .body(error);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ApiError> handleValidationErrors(MethodArgumentNotValidException ex) {
+        validation.increment();
 
         String errors = ex.getBindingResult()
                 .getFieldErrors()
@@ -41,8 +131,14 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(apiError);
     }
 
+    // The client of a stream went away, there is nobody to write an error to
+    @ExceptionHandler(AsyncRequestNotUsableException.class)
+    public void handleAsyncRequestNotUsable(AsyncRequestNotUsableException ex) {
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ApiError> handleException(Exception ex, HttpServletRequest request) {
+        internal.increment();
         ApiError error = new ApiError(
           HttpStatus.INTERNAL_SERVER_ERROR.value(),
                 "Internal Server Error",
@@ -0,0 +1,13 @@
+package com.mhf.bookstore.exception;
+
+public class GoneException extends RuntimeException {
+
+    public GoneException() {
+        super();
+    }
+
+    public GoneException(String message) {
+        super(message);
+    }
+
+}
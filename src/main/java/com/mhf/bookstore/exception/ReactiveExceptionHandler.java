@@ -0,0 +1,86 @@
+package com.mhf.bookstore.exception;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+
+import java.util.stream.Collectors;
+
+/**
+ * {@link GlobalExceptionHandler} for WebFlux: the same {@link ApiError} bodies and error counters.
+ */
+@RestControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveExceptionHandler {
+
+    private final Counter notFound;
+    private final Counter badRequest;
+    private final Counter conflict;
+    private final Counter validation;
+    private final Counter internal;
+
+    @Autowired
+    public ReactiveExceptionHandler(MeterRegistry meterRegistry) {
+        this.notFound = GlobalExceptionHandler.errorCounter(meterRegistry, "not_found");
+        this.badRequest = GlobalExceptionHandler.errorCounter(meterRegistry, "bad_request");
+        this.conflict = GlobalExceptionHandler.errorCounter(meterRegistry, "conflict");
+        this.validation = GlobalExceptionHandler.errorCounter(meterRegistry, "validation");
+        this.internal = GlobalExceptionHandler.errorCounter(meterRegistry, "internal");
+    }
+
+    @ExceptionHandler(ResourceNotFoundException.class)
+    public ResponseEntity<ApiError> handleResourceNotFound(ResourceNotFoundException ex, ServerHttpRequest request) {
+        notFound.increment();
+        return error(HttpStatus.NOT_FOUND, "Not Found", ex.getMessage(), request);
+    }
+
+    @ExceptionHandler(BadRequestException.class)
+    public ResponseEntity<ApiError> handleBadRequest(BadRequestException ex, ServerHttpRequest request) {
+        badRequest.increment();
+        return error(HttpStatus.BAD_REQUEST, "Bad Request", ex.getMessage(), request);
+    }
+
+    @ExceptionHandler(ConflictException.class)
+    public ResponseEntity<ApiError> handleConflict(ConflictException ex, ServerHttpRequest request) {
+        conflict.increment();
+        return error(HttpStatus.CONFLICT, "Conflict", ex.getMessage(), request);
+    }
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<ApiError> handleValidationErrors(WebExchangeBindException ex) {
+        validation.increment();
+
+        String errors = ex.getBindingResult()
+                .getFieldErrors()
+                .stream()
+                .map(err -> err.getField() + ":" + err.getDefaultMessage())
+                .collect(Collectors.joining(", "));
+
+        ApiError apiError = new ApiError(
+                HttpStatus.BAD_REQUEST.value(),
+                "Validation failed",
+                errors
+        );
+
+        return ResponseEntity.badRequest().body(apiError);
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<ApiError> handleException(Exception ex, ServerHttpRequest request) {
+        internal.increment();
+        return error(HttpStatus.INTERNAL_SERVER_ERROR, "Internal Server Error", "Something went wrong: " + ex.getMessage(), request);
+    }
+
+    private static ResponseEntity<ApiError> error(HttpStatus status, String error, String message, ServerHttpRequest request) {
+        ApiError body = new ApiError(status.value(), error, message, request.getPath().value());
+        return ResponseEntity.status(status).body(body);
+    }
+
+}
@@ -0,0 +1,284 @@
+package com.mhf.bookstore.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * An append-only file of numbered records. Every record is framed as {@code sequence, length, CRC32C, payload},
+ * so a record torn by a crash is detected and cut off when the file is opened again.
+ * <p>
+ * Appends only write to the file; a background thread makes them durable with one {@code fsync} per group, at the
+ * latest {@code flushInterval} after the first unsynced record or as soon as {@code flushRecords} are waiting.
+ * Callers that need durability wait for it with {@link #awaitDurable}. After a failed {@code fsync} the state of
+ * the file is unknown and every further call fails.
+ */
+public class Journal implements Closeable {
+
+    private static final int HEADER_BYTES = Long.BYTES + Integer.BYTES + Integer.BYTES;
+
+    private final FileChannel channel;
+    private final long flushIntervalNanos;
+    private final int flushRecords;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushNeeded = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+    private final LongAdder syncs = new LongAdder();
+    private final Thread flusher;
+
+    // Guarded by lock
+    private long lastSequence;
+    private volatile long durableSequence;
+    private volatile IOException failure;
+    private volatile boolean closed;
+
+    @FunctionalInterface
+    public interface Replay {
+
+        void accept(long sequence, byte[] payload);
+
+    }
+
+    private Journal(FileChannel channel, long lastSequence, Duration flushInterval, int flushRecords, String name) {
+        this.channel = channel;
+        this.lastSequence = lastSequence;
+        this.durableSequence = lastSequence;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.flushRecords = flushRecords;
+        this.flusher = Thread.ofPlatform().daemon().name(name + "-flusher").start(this::flushLoop);
+    }
+
+    /**
+     * Opens or creates the journal at {@code path} and hands every intact record numbered above
+     * {@code afterSequence} to {@code replay}, in order. A torn or corrupt tail is truncated. New records are
+     * numbered after both {@code afterSequence} and the last record in the file.
+     */
+    public static Journal open(Path path, long afterSequence, Duration flushInterval, int flushRecords,
+                               Replay replay) throws IOException {
+        if (path.getParent() != null)
+            Files.createDirectories(path.getParent());
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            long lastSequence = afterSequence;
+            long end = 0;
+            long size = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (end + HEADER_BYTES <= size) {
+                header.clear();
+                readFully(channel, header, end);
+                header.flip();
+                long sequence = header.getLong();
+                int length = header.getInt();
+                int checksum = header.getInt();
+                if (length < 0 || end + HEADER_BYTES + length > size)
+                    break;
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                readFully(channel, payload, end + HEADER_BYTES);
+                if (checksum(sequence, payload.array()) != checksum)
+                    break;
+                if (sequence > afterSequence)
+                    replay.accept(sequence, payload.array());
+                lastSequence = Math.max(lastSequence, sequence);
+                end += HEADER_BYTES + length;
+            }
+            if (end < size) {
+                channel.truncate(end);
+                channel.force(true);
+            }
+            channel.position(end);
+            return new Journal(channel, lastSequence, flushInterval, flushRecords, path.getFileName().toString());
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Writes a record and returns its sequence number. The record is not durable until {@link #awaitDurable}
+     * returns for it.
+     */
+    public long append(byte[] payload) throws IOException {
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        lock.lock();
+        try {
+            checkUsable();
+            long sequence = lastSequence + 1;
+            frame.putLong(sequence).putInt(payload.length).putInt(checksum(sequence, payload)).put(payload).flip();
+            long position = channel.position();
+            try {
+                while (frame.hasRemaining())
+                    channel.write(frame);
+            } catch (IOException ex) {
+                // Leave no partial frame behind for the next record to follow
+                channel.truncate(position);
+                channel.position(position);
+                throw ex;
+            }
+            lastSequence = sequence;
+            flushNeeded.signal();
+            return sequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until the record with the given sequence number has been synced to disk.
+     */
+    public void awaitDurable(long sequence) throws IOException {
+        if (durableSequence >= sequence)
+            return;
+        lock.lock();
+        try {
+            // A closing journal still syncs what was appended, only a failed sync ends the wait early
+            while (durableSequence < sequence) {
+                if (failure != null)
+                    throw new IOException("Journal failed to sync", failure);
+                flushed.await();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the journal to sync");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Empties the file once every record up to the last one has been applied elsewhere and the file has grown
+     * beyond {@code thresholdBytes}. Numbering continues where it was.
+     */
+    public boolean compact(long appliedSequence, long thresholdBytes) throws IOException {
+        lock.lock();
+        try {
+            checkUsable();
+            if (appliedSequence < lastSequence || durableSequence < lastSequence || channel.size() <= thresholdBytes)
+                return false;
+            channel.truncate(0);
+            channel.force(true);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getLastSequence() {
+        lock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getDurableSequence() {
+        return durableSequence;
+    }
+
+    public long getSyncs() {
+        return syncs.sum();
+    }
+
+    public long size() throws IOException {
+        return channel.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closed = true;
+            flushNeeded.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    private void flushLoop() {
+        while (true) {
+            long upTo;
+            lock.lock();
+            try {
+                while (lastSequence == durableSequence && !closed)
+                    flushNeeded.awaitUninterruptibly();
+                if (lastSequence == durableSequence)
+                    return;
+                // Group commit: give further records the rest of the interval to join this sync
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (lastSequence - durableSequence < flushRecords && !closed) {
+                    long left = deadline - System.nanoTime();
+                    if (left <= 0)
+                        break;
+                    try {
+                        flushNeeded.awaitNanos(left);
+                    } catch (InterruptedException ex) {
+                        break;
+                    }
+                }
+                upTo = lastSequence;
+            } finally {
+                lock.unlock();
+            }
+
+            IOException error = null;
+            try {
+                channel.force(false);
+                syncs.increment();
+            } catch (IOException ex) {
+                error = ex;
+            }
+            lock.lock();
+            try {
+                if (error == null)
+                    durableSequence = upTo;
+                else
+                    failure = error;
+                flushed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            if (error != null)
+                return;
+        }
+    }
+
+    private void checkUsable() throws IOException {
+        if (failure != null)
+            throw new IOException("Journal failed to sync and no longer accepts records", failure);
+        if (closed)
+            throw new IOException("Journal is closed");
+    }
+
+    private static int checksum(long sequence, byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(ByteBuffer.allocate(Long.BYTES).putLong(sequence).flip());
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0)
+                throw new IOException("Unexpected end of journal");
+        }
+    }
+
+}
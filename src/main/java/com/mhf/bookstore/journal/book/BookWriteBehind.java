@@ -0,0 +1,320 @@
+package com.mhf.bookstore.journal.book;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.mhf.bookstore.config.WriteBehindProperties;
+import com.mhf.bookstore.dao.journal.IJournalCheckpointRepository;
+import com.mhf.bookstore.dto.bulk.BookBulkOperationDto;
+import com.mhf.bookstore.dto.bulk.BookBulkResponseDto;
+import com.mhf.bookstore.dto.bulk.BookBulkResultDto;
+import com.mhf.bookstore.dto.bulk.WriteBehindStatusDto;
+import com.mhf.bookstore.exception.BadRequestException;
+import com.mhf.bookstore.exception.ServiceUnavailableException;
+import com.mhf.bookstore.journal.Journal;
+import com.mhf.bookstore.model.journal.JournalCheckpoint;
+import com.mhf.bookstore.service.book.IBookBulkService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind ingestion of creates and updates. A write is appended to a {@link Journal} and acknowledged once it
+ * is synced to disk; a background writer applies journaled writes in order through {@link IBookBulkService}, a
+ * batch of up to {@code bookstore.write-behind.batch-size} per transaction. The batch is not chunked: its
+ * operations and the {@link JournalCheckpoint} commit or roll back together, and on startup every record after
+ * the checkpoint is applied again, so each write is applied exactly once even if the process dies in between.
+ * <p>
+ * The checkpoint lives in the catalog's database, so only a durable database makes this work: after a crash an
+ * in-memory one has lost the applied books and the checkpoint alike, and the replay would rebuild a partial
+ * catalog from the journal. Write-behind therefore refuses to start on an in-memory datasource.
+ * <p>
+ * A batch that fails is rolled back as a whole and retried record by record. A record that fails on its own is skipped and counted; when
+ * not even the checkpoint can be written the database is down, and the writer keeps the records and retries.
+ */
+@Component
+public class BookWriteBehind implements MeterBinder, DisposableBean {
+
+    static final String JOURNAL = "books";
+
+    private static final Logger log = LoggerFactory.getLogger(BookWriteBehind.class);
+    private static final Duration RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final WriteBehindProperties properties;
+    private final IBookBulkService iBookBulkService;
+    private final IJournalCheckpointRepository checkpointRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectWriter operationWriter;
+    private final ObjectReader operationReader;
+    private final LongAdder failed = new LongAdder();
+
+    // Journaled writes in sequence order, guarded by this
+    private final ArrayDeque<Pending> pending = new ArrayDeque<>();
+    private volatile Journal journal;
+    private volatile long appliedSequence;
+    // When the oldest write of the batch being applied was accepted, 0 while idle
+    private volatile long applyingSince;
+    private volatile String lastError;
+    private volatile boolean running;
+    private Thread writer;
+
+    private record Pending(long sequence, BookBulkOperationDto operation, long acceptedAt) {
+    }
+
+    @Autowired
+    public BookWriteBehind(WriteBehindProperties properties, IBookBulkService iBookBulkService,
+                           IJournalCheckpointRepository checkpointRepository,
+                           PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+                           DataSource dataSource) {
+        if (properties.isEnabled() && EmbeddedDatabaseConnection.isEmbedded(dataSource))
+            throw new IllegalStateException("bookstore.write-behind.enabled requires a durable datasource, "
+                    + "an in-memory database loses the applied writes and the journal checkpoint in a crash");
+        this.properties = properties;
+        this.iBookBulkService = iBookBulkService;
+        this.checkpointRepository = checkpointRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.operationWriter = objectMapper.writerFor(BookBulkOperationDto.class);
+        this.operationReader = objectMapper.readerFor(BookBulkOperationDto.class);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    // Replays what the previous run journaled but did not apply, then starts the writer
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() throws IOException {
+        if (!properties.isEnabled() || journal != null)
+            return;
+        long checkpoint = transactionTemplate.execute(status -> checkpointRepository.findById(JOURNAL)
+                .map(JournalCheckpoint::getSequence)
+                .orElse(0L));
+        long now = System.currentTimeMillis();
+        journal = Journal.open(properties.getJournal(), checkpoint, properties.getFlushInterval(),
+                properties.getFlushRecords(), (sequence, payload) -> pending.add(new Pending(sequence, read(payload), now)));
+        appliedSequence = checkpoint;
+        if (!pending.isEmpty())
+            log.info("Replaying {} journaled book writes after sequence {}", pending.size(), checkpoint);
+        running = true;
+        writer = Thread.ofPlatform().daemon().name("book-write-behind").start(this::drain);
+    }
+
+    /**
+     * Journals the operation and returns its sequence number once it is durable.
+     */
+    public long accept(BookBulkOperationDto operation) {
+        if (!properties.isEnabled())
+            throw new BadRequestException("Write-behind ingestion is disabled");
+        Journal current = journal;
+        if (current == null)
+            throw new ServiceUnavailableException("The write-behind journal is not open yet", RETRY_AFTER);
+        try {
+            byte[] payload = operationWriter.writeValueAsBytes(operation);
+            long sequence;
+            synchronized (this) {
+                if (pending.size() >= properties.getMaxPending())
+                    throw new ServiceUnavailableException("Too many writes waiting to be applied", RETRY_AFTER);
+                // Appended and queued under one lock, so the queue stays in journal order
+                sequence = current.append(payload);
+                pending.add(new Pending(sequence, operation, System.currentTimeMillis()));
+                if (pending.size() >= properties.getBatchSize())
+                    notifyAll();
+            }
+            current.awaitDurable(sequence);
+            return sequence;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not journal the write", ex);
+        }
+    }
+
+    public WriteBehindStatusDto getStatus() {
+        Journal current = journal;
+        if (current == null)
+            return new WriteBehindStatusDto(properties.isEnabled(), 0, appliedSequence, 0, 0, failed.sum(), lastError, 0);
+        long oldest = applyingSince;
+        if (oldest == 0) {
+            synchronized (this) {
+                Pending head = pending.peekFirst();
+                oldest = head == null ? 0 : head.acceptedAt();
+            }
+        }
+        long applied = appliedSequence;
+        long journalBytes;
+        try {
+            journalBytes = current.size();
+        } catch (IOException ex) {
+            journalBytes = -1;
+        }
+        return new WriteBehindStatusDto(true, current.getDurableSequence(), applied,
+                Math.max(current.getLastSequence() - applied, 0), oldest == 0 ? 0 : System.currentTimeMillis() - oldest,
+                failed.sum(), lastError, journalBytes);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("bookstore.writebehind.pending", this, writeBehind -> writeBehind.getStatus().getPending())
+                .description("Journaled book writes not applied to the database yet")
+                .register(registry);
+        Gauge.builder("bookstore.writebehind.lag", this, writeBehind -> writeBehind.getStatus().getLagMillis() / 1000.0)
+                .description("Age of the oldest journaled book write not applied yet")
+                .baseUnit("seconds")
+                .register(registry);
+        FunctionCounter.builder("bookstore.writebehind.failed", failed, LongAdder::sum)
+                .description("Journaled book writes skipped because they could not be applied")
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        Journal current;
+        synchronized (this) {
+            running = false;
+            notifyAll();
+            current = journal;
+        }
+        if (writer != null)
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        if (current != null)
+            current.close();
+    }
+
+    private void drain() {
+        while (running) {
+            List<Pending> batch = nextBatch();
+            if (batch.isEmpty()) {
+                compact();
+                continue;
+            }
+            try {
+                apply(batch);
+            } catch (RuntimeException ex) {
+                log.warn("Could not apply journaled book writes, retrying in {}", properties.getDrainInterval(), ex);
+                requeueUnapplied(batch);
+                pause();
+            } finally {
+                applyingSince = 0;
+            }
+        }
+    }
+
+    // Waits for a full batch or the drain interval, then takes the synced writes at the head of the queue
+    private synchronized List<Pending> nextBatch() {
+        if (pending.size() < properties.getBatchSize() && running) {
+            try {
+                wait(Math.max(properties.getDrainInterval().toMillis(), 1));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+        }
+        long durable = journal.getDurableSequence();
+        List<Pending> batch = new ArrayList<>();
+        while (batch.size() < properties.getBatchSize() && !pending.isEmpty() && pending.peekFirst().sequence() <= durable)
+            batch.add(pending.pollFirst());
+        if (!batch.isEmpty())
+            applyingSince = batch.get(0).acceptedAt();
+        return batch;
+    }
+
+    private void apply(List<Pending> batch) {
+        if (batch.size() == 1) {
+            applyAlone(batch.get(0));
+            return;
+        }
+        try {
+            applyInTransaction(batch);
+        } catch (RuntimeException ex) {
+            log.debug("Journaled batch of {} writes failed, applying them one by one", batch.size(), ex);
+            for (Pending record : batch)
+                applyAlone(record);
+        }
+    }
+
+    private void applyAlone(Pending record) {
+        try {
+            applyInTransaction(List.of(record));
+        } catch (RuntimeException ex) {
+            // Skipped only when the database still takes the checkpoint; otherwise the writer retries later
+            transactionTemplate.executeWithoutResult(status ->
+                    checkpointRepository.save(new JournalCheckpoint(JOURNAL, record.sequence())));
+            appliedSequence = record.sequence();
+            failed.increment();
+            lastError = "Record " + record.sequence() + ": " + ex.getMessage();
+            log.warn("Skipped journaled book write {}", record.sequence(), ex);
+        }
+    }
+
+    private void applyInTransaction(List<Pending> batch) {
+        List<BookBulkOperationDto> operations = new ArrayList<>(batch.size());
+        for (Pending record : batch)
+            operations.add(record.operation());
+        long last = batch.get(batch.size() - 1).sequence();
+        BookBulkResponseDto response = transactionTemplate.execute(status -> {
+            BookBulkResponseDto result = iBookBulkService.executeInTransaction(operations);
+            checkpointRepository.save(new JournalCheckpoint(JOURNAL, last));
+            return result;
+        });
+        appliedSequence = last;
+        for (BookBulkResultDto result : response.getResults()) {
+            if (result.getStatus() < 400)
+                continue;
+            failed.increment();
+            lastError = "Record " + batch.get(result.getIndex()).sequence() + ": " + result.getError();
+        }
+    }
+
+    private synchronized void requeueUnapplied(List<Pending> batch) {
+        for (int i = batch.size() - 1; i >= 0; i--) {
+            if (batch.get(i).sequence() > appliedSequence)
+                pending.addFirst(batch.get(i));
+        }
+    }
+
+    private void compact() {
+        try {
+            if (journal.compact(appliedSequence, properties.getCompactThreshold().toBytes()))
+                log.info("Emptied the book journal, every write up to {} is applied", appliedSequence);
+        } catch (IOException ex) {
+            log.warn("Could not compact the book journal", ex);
+        }
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(properties.getDrainInterval());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private BookBulkOperationDto read(byte[] payload) {
+        try {
+            return operationReader.readValue(payload);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unreadable journal record", ex);
+        }
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.mhf.bookstore.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrency limit that follows the latency of the requests it admits, in the spirit of Netflix's gradient
+ * limiter. A short and a long moving average of the latency are kept; while the short one stays within
+ * {@value #TOLERANCE} times the long one the limit grows by about its square root per sample, beyond that it shrinks
+ * in proportion. Requests that failed on the server side cut the limit multiplicatively.
+ * <p>
+ * Only samples taken while at least half of the limit was in use move it, an idle service learns nothing about
+ * how much more it could take. Non-critical requests are admitted up to {@code 1 - criticalReserve} of the limit,
+ * the rest is kept for critical ones.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF = 0.9;
+    private static final int SHORT_WINDOW = 10;
+    private static final int LONG_WINDOW = 600;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double criticalReserve;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private volatile double limit;
+
+    // Nanoseconds, guarded by this
+    private double shortLatency;
+    private double longLatency;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double criticalReserve) {
+        if (minLimit < 1 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit)
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= initial <= max");
+        if (criticalReserve < 0 || criticalReserve >= 1)
+            throw new IllegalArgumentException("criticalReserve must be in [0, 1)");
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.criticalReserve = criticalReserve;
+    }
+
+    /**
+     * Takes a slot unless the requests in flight already reach the limit for the given priority. Every successful
+     * call must be followed by exactly one {@link #release} or {@link #cancel}.
+     */
+    public boolean tryAcquire(boolean critical) {
+        double current = limit;
+        int ceiling = Math.max((int) (critical ? current : current * (1 - criticalReserve)), 1);
+        while (true) {
+            int taken = inFlight.get();
+            if (taken >= ceiling) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(taken, taken + 1))
+                return true;
+        }
+    }
+
+    /**
+     * Frees the slot and adjusts the limit with the latency of the request; {@code failed} marks a server-side
+     * failure.
+     */
+    public void release(long latencyNanos, boolean failed) {
+        int taken = inFlight.getAndDecrement();
+        sample(latencyNanos, failed, taken);
+    }
+
+    /**
+     * Frees the slot without a sample, for requests whose latency says nothing about the backend.
+     */
+    public void cancel() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    private synchronized void sample(long latencyNanos, boolean failed, int taken) {
+        if (failed) {
+            limit = Math.max(minLimit, limit * BACKOFF);
+            return;
+        }
+        if (longLatency == 0) {
+            shortLatency = latencyNanos;
+            longLatency = latencyNanos;
+            return;
+        }
+        shortLatency += (latencyNanos - shortLatency) / SHORT_WINDOW;
+        longLatency += (latencyNanos - longLatency) / LONG_WINDOW;
+        // After a slow period the long average lags far behind; let it catch up with the recovered latency
+        if (longLatency > 2 * shortLatency)
+            longLatency *= 0.95;
+        if (taken < limit / 2)
+            return;
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longLatency / shortLatency));
+        double next = limit * gradient + Math.sqrt(limit);
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - SMOOTHING) + next * SMOOTHING));
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.mhf.bookstore.limit;
+
+import com.mhf.bookstore.config.ConcurrencyLimitProperties;
+import com.mhf.bookstore.exception.ServiceUnavailableException;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.time.Duration;
+
+/**
+ * Sheds load before it reaches the connection pool: reads ({@code GET}, {@code HEAD}) and writes each have an
+ * {@link AdaptiveConcurrencyLimit}, and a request over its budget fails right away with a
+ * {@link ServiceUnavailableException} instead of queueing. Handlers marked {@link ShedLast} may use the reserved
+ * part of their budget.
+ * <p>
+ * Streaming responses give their slot back once the handler returns; their duration depends on the client.
+ */
+public class ConcurrencyLimitInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String PERMIT_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName() + ".permit";
+
+    private final AdaptiveConcurrencyLimit reads;
+    private final AdaptiveConcurrencyLimit writes;
+    private final Duration retryAfter;
+
+    public ConcurrencyLimitInterceptor(ConcurrencyLimitProperties properties) {
+        ConcurrencyLimitProperties.Budget readBudget = properties.getReads();
+        ConcurrencyLimitProperties.Budget writeBudget = properties.getWrites();
+        this.reads = new AdaptiveConcurrencyLimit(readBudget.getInitialLimit(), readBudget.getMinLimit(),
+                readBudget.getMaxLimit(), properties.getCriticalReserve());
+        this.writes = new AdaptiveConcurrencyLimit(writeBudget.getInitialLimit(), writeBudget.getMinLimit(),
+                writeBudget.getMaxLimit(), 0);
+        this.retryAfter = properties.getRetryAfter();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // Async and error dispatches belong to a request that already holds its slot
+        if (request.getDispatcherType() != DispatcherType.REQUEST)
+            return true;
+        boolean read = HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod());
+        AdaptiveConcurrencyLimit limit = read ? reads : writes;
+        boolean critical = handler instanceof HandlerMethod method && method.hasMethodAnnotation(ShedLast.class);
+        if (!limit.tryAcquire(critical))
+            throw new ServiceUnavailableException("Too many concurrent " + (read ? "reads" : "writes")
+                    + ", retry later", retryAfter);
+        request.setAttribute(PERMIT_ATTRIBUTE, new Permit(limit, System.nanoTime()));
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Permit permit = takePermit(request);
+        if (permit != null)
+            permit.limit().cancel();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Permit permit = takePermit(request);
+        if (permit != null)
+            permit.limit().release(System.nanoTime() - permit.startNanos(), ex != null || response.getStatus() >= 500);
+    }
+
+    public AdaptiveConcurrencyLimit getReads() {
+        return reads;
+    }
+
+    public AdaptiveConcurrencyLimit getWrites() {
+        return writes;
+    }
+
+    private static Permit takePermit(HttpServletRequest request) {
+        Permit permit = (Permit) request.getAttribute(PERMIT_ATTRIBUTE);
+        request.removeAttribute(PERMIT_ATTRIBUTE);
+        return permit;
+    }
+
+    private record Permit(AdaptiveConcurrencyLimit limit, long startNanos) {
+    }
+
+}
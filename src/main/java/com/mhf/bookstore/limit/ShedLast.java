@@ -0,0 +1,17 @@
+package com.mhf.bookstore.limit;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a handler method as critical for {@link ConcurrencyLimitInterceptor}: it may use the share of the limit
+ * kept back from other requests, so it is rejected only once everything else already is.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ShedLast {
+}
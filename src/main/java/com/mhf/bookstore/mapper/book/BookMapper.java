@@ -2,6 +2,7 @@ package com.mhf.bookstore.mapper.book;
 
 import com.mhf.bookstore.dto.book.BookDto;
 import com.mhf.bookstore.model.book.Book;
+import com.mhf.bookstore.model.book.BookRow;
 import org.mapstruct.Mapper;
 
 import java.util.List;
@@ -15,4 +16,6 @@ public interface BookMapper {
 
     Book toEntity(BookDto dto);
 
+    BookDto toDto(BookRow row);
+
 }
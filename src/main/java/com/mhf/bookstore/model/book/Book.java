@@ -2,11 +2,20 @@ package com.mhf.bookstore.model.book;
 
 import jakarta.persistence.*;
 
+// One index per access pattern of the filter API: status (+ price range or order), author, title prefix, price range
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_book_status_price", columnList = "status, price"),
+        @Index(name = "idx_book_author_lower", columnList = "author_lower"),
+        @Index(name = "idx_book_title_lower", columnList = "title_lower"),
+        @Index(name = "idx_book_price", columnList = "price")
+})
 public class Book {
 
+    // Pooled sequence instead of IDENTITY: ids are known before the INSERT, which lets Hibernate batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+    @SequenceGenerator(name = "book_seq", sequenceName = "book_seq", allocationSize = 50)
     private Long id;
 
     private String title;
@@ -18,6 +27,19 @@ public class Book {
     @Enumerated(EnumType.STRING)
     private Status status;
 
+    @Version
+    private Long version;
+
+    // Lower-cased copies computed by the database for case-insensitive lookups; H2 cannot index lower(column)
+    // itself. Only referenced in queries, never read or written through the entity.
+    @Column(name = "author_lower", insertable = false, updatable = false,
+            columnDefinition = "varchar(255) generated always as (lower(author))")
+    private String authorLower;
+
+    @Column(name = "title_lower", insertable = false, updatable = false,
+            columnDefinition = "varchar(255) generated always as (lower(title))")
+    private String titleLower;
+
     public Book() {
     }
 
@@ -69,4 +91,12 @@ public class Book {
         this.status = status;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
 }
@@ -0,0 +1,79 @@
+package com.mhf.bookstore.model.book;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * A row of the {@code book} table as read over R2DBC by the {@code reactive} profile.
+ * <p>
+ * Kept apart from the {@link Book} entity: Spring Data assigns repositories of {@code @Entity} types to JPA,
+ * which rejects reactive repositories. JPA still owns the table and its schema.
+ */
+@Table("book")
+public class BookRow {
+
+    @Id
+    private Long id;
+
+    private String title;
+
+    private String author;
+
+    private Double price;
+
+    private Status status;
+
+    private Long version;
+
+    public BookRow() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public void setAuthor(String author) {
+        this.author = author;
+    }
+
+    public Double getPrice() {
+        return price;
+    }
+
+    public void setPrice(Double price) {
+        this.price = price;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+}
@@ -0,0 +1,39 @@
+package com.mhf.bookstore.model.journal;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+// Last journal record applied to the database, written in the same transaction as the records themselves
+@Entity
+public class JournalCheckpoint {
+
+    @Id
+    private String journal;
+
+    private long sequence;
+
+    public JournalCheckpoint() {
+    }
+
+    public JournalCheckpoint(String journal, long sequence) {
+        this.journal = journal;
+        this.sequence = sequence;
+    }
+
+    public String getJournal() {
+        return journal;
+    }
+
+    public void setJournal(String journal) {
+        this.journal = journal;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.mhf.bookstore.observability;
+
+import com.mhf.bookstore.dto.query.QueryReportDto;
+import com.mhf.bookstore.exception.BadRequestException;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@code /actuator/queries}: the slowest statement shapes since startup or the last reset, next to Hibernate's
+ * own session statistics. {@code DELETE} resets both.
+ */
+@Component
+@Endpoint(id = "queries")
+public class QueriesEndpoint {
+
+    private static final int DEFAULT_LIMIT = 20;
+    private static final Set<String> ORDERS = Set.of("total", "mean", "max");
+
+    private final QueryStatistics queryStatistics;
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    public QueriesEndpoint(QueryStatistics queryStatistics, EntityManagerFactory entityManagerFactory) {
+        this.queryStatistics = queryStatistics;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @ReadOperation
+    public QueryReportDto queries(@Nullable Integer limit, @Nullable String orderBy) {
+        if (limit != null && limit < 1)
+            throw new BadRequestException("limit must be positive");
+        if (orderBy != null && !ORDERS.contains(orderBy))
+            throw new BadRequestException("orderBy must be one of " + ORDERS);
+        return new QueryReportDto(queryStatistics.getStatements(), queryStatistics.getSlowStatements(),
+                queryStatistics.getUntrackedStatements(),
+                queryStatistics.top(limit != null ? limit : DEFAULT_LIMIT, orderBy != null ? orderBy : "total"),
+                hibernateStatistics());
+    }
+
+    @DeleteOperation
+    public void reset() {
+        queryStatistics.reset();
+        statistics().clear();
+    }
+
+    // Empty unless hibernate.generate_statistics is on
+    private Map<String, Long> hibernateStatistics() {
+        Statistics statistics = statistics();
+        Map<String, Long> result = new LinkedHashMap<>();
+        if (!statistics.isStatisticsEnabled())
+            return result;
+        result.put("preparedStatements", statistics.getPrepareStatementCount());
+        result.put("queryExecutions", statistics.getQueryExecutionCount());
+        result.put("queryExecutionMaxMillis", statistics.getQueryExecutionMaxTime());
+        result.put("entityLoads", statistics.getEntityLoadCount());
+        result.put("entityFetches", statistics.getEntityFetchCount());
+        result.put("collectionFetches", statistics.getCollectionFetchCount());
+        result.put("flushes", statistics.getFlushCount());
+        result.put("optimisticFailures", statistics.getOptimisticFailureCount());
+        return result;
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+}
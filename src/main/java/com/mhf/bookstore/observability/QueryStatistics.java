@@ -0,0 +1,215 @@
+package com.mhf.bookstore.observability;
+
+import com.mhf.bookstore.config.QueryProperties;
+import com.mhf.bookstore.datasource.StatementListener;
+import com.mhf.bookstore.dto.query.QueryShapeStatsDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Aggregates the statements reported by the JDBC layer by shape, logs a sample of the slow ones with their bind
+ * parameters and counts statements per request.
+ * <p>
+ * A shape is the SQL with literals replaced by {@code ?} and {@code IN} lists collapsed, so that
+ * {@code findAllById} with 3 and with 50 ids lands in the same bucket. At most {@code maxShapes} shapes are kept;
+ * statements of further shapes only show up in the totals, which bounds memory when something builds SQL from
+ * user input.
+ */
+@Component
+public class QueryStatistics implements StatementListener {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryStatistics.class);
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final int MAX_PARAMETER_LENGTH = 100;
+
+    private static final ThreadLocal<RequestScope> CURRENT = new ThreadLocal<>();
+
+    private final long slowThresholdNanos;
+    private final double slowLogSampleRate;
+    private final int maxShapes;
+
+    // Raw SQL to shape, so that the regexes run once per distinct statement rather than per execution
+    private final Map<String, String> shapeBySql = new ConcurrentHashMap<>();
+    private final Map<String, ShapeStats> shapes = new ConcurrentHashMap<>();
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder slowStatements = new LongAdder();
+    private final LongAdder untrackedStatements = new LongAdder();
+
+    @Autowired
+    public QueryStatistics(QueryProperties properties) {
+        this.slowThresholdNanos = properties.getSlowThreshold().toNanos();
+        this.slowLogSampleRate = properties.getSlowLogSampleRate();
+        this.maxShapes = properties.getMaxShapes();
+    }
+
+    @Override
+    public void statementExecuted(String sql, List<Object> parameters, int batchSize, long elapsedNanos) {
+        statements.add(batchSize);
+        RequestScope scope = CURRENT.get();
+        if (scope != null) {
+            scope.statements += batchSize;
+            scope.nanos += elapsedNanos;
+        }
+
+        boolean slow = elapsedNanos >= slowThresholdNanos;
+        if (slow) {
+            slowStatements.increment();
+            if (slowLogSampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < slowLogSampleRate)
+                log.warn("Slow statement took {} ms (batch of {}): {} with parameters {}",
+                        elapsedNanos / 1_000_000, batchSize, sql, formatParameters(parameters));
+        }
+
+        ShapeStats stats = shapeStats(sql);
+        if (stats == null) {
+            untrackedStatements.add(batchSize);
+            return;
+        }
+        stats.count.add(batchSize);
+        stats.totalNanos.add(elapsedNanos);
+        stats.maxNanos.accumulate(elapsedNanos);
+        if (slow)
+            stats.slowCount.increment();
+    }
+
+    /**
+     * Starts counting the statements of the current thread until the returned scope is closed.
+     */
+    public RequestScope openRequest() {
+        RequestScope scope = new RequestScope(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * Shapes ordered by {@code total}, {@code mean} or {@code max} time, slowest first.
+     */
+    public List<QueryShapeStatsDto> top(int limit, String orderBy) {
+        Comparator<QueryShapeStatsDto> order = switch (orderBy) {
+            case "total" -> Comparator.comparingDouble(QueryShapeStatsDto::getTotalMillis);
+            case "mean" -> Comparator.comparingDouble(QueryShapeStatsDto::getMeanMillis);
+            case "max" -> Comparator.comparingDouble(QueryShapeStatsDto::getMaxMillis);
+            default -> throw new IllegalArgumentException("orderBy must be one of total, mean, max");
+        };
+        List<QueryShapeStatsDto> result = new ArrayList<>();
+        for (Map.Entry<String, ShapeStats> entry : shapes.entrySet())
+            result.add(entry.getValue().toDto(entry.getKey()));
+        result.sort(order.reversed());
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    public long getStatements() {
+        return statements.sum();
+    }
+
+    public long getSlowStatements() {
+        return slowStatements.sum();
+    }
+
+    public long getUntrackedStatements() {
+        return untrackedStatements.sum();
+    }
+
+    public void reset() {
+        shapes.clear();
+        shapeBySql.clear();
+        statements.reset();
+        slowStatements.reset();
+        untrackedStatements.reset();
+    }
+
+    static String shapeOf(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = IN_LIST.matcher(shape).replaceAll("(?...)");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+
+    private ShapeStats shapeStats(String sql) {
+        String shape = shapeBySql.get(sql);
+        if (shape == null) {
+            shape = shapeOf(sql);
+            if (shapeBySql.size() < maxShapes * 4)
+                shapeBySql.put(sql, shape);
+        }
+        ShapeStats stats = shapes.get(shape);
+        if (stats == null && shapes.size() < maxShapes)
+            stats = shapes.computeIfAbsent(shape, key -> new ShapeStats());
+        return stats;
+    }
+
+    private static String formatParameters(List<Object> parameters) {
+        List<String> formatted = new ArrayList<>(parameters.size());
+        for (Object parameter : parameters) {
+            String value = String.valueOf(parameter);
+            formatted.add(value.length() > MAX_PARAMETER_LENGTH ? value.substring(0, MAX_PARAMETER_LENGTH) + "..." : value);
+        }
+        return formatted.toString();
+    }
+
+    /**
+     * Statements executed by one request; scopes nest so that a forwarded or included request counts for both.
+     */
+    public static final class RequestScope implements AutoCloseable {
+
+        private final RequestScope parent;
+        private int statements;
+        private long nanos;
+
+        private RequestScope(RequestScope parent) {
+            this.parent = parent;
+        }
+
+        public int getStatements() {
+            return statements;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        @Override
+        public void close() {
+            if (parent != null) {
+                parent.statements += statements;
+                parent.nanos += nanos;
+                CURRENT.set(parent);
+            } else {
+                CURRENT.remove();
+            }
+        }
+
+    }
+
+    private static final class ShapeStats {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder slowCount = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        private QueryShapeStatsDto toDto(String shape) {
+            long count = this.count.sum();
+            double totalMillis = totalNanos.sum() / 1_000_000.0;
+            return new QueryShapeStatsDto(shape, count, slowCount.sum(), totalMillis,
+                    count == 0 ? 0 : totalMillis / count, maxNanos.get() / 1_000_000.0);
+        }
+
+    }
+
+}
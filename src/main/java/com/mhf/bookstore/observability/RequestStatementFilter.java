@@ -0,0 +1,71 @@
+package com.mhf.bookstore.observability;
+
+import com.mhf.bookstore.config.QueryProperties;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts the JDBC statements of every request, records them per endpoint and warns about requests above
+ * {@code bookstore.query.request-statement-threshold}, which is usually an N+1 select.
+ * <p>
+ * Only statements executed on the request thread are seen; exports that stream from an async executor are not.
+ */
+public class RequestStatementFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(RequestStatementFilter.class);
+
+    private final QueryStatistics queryStatistics;
+    private final MeterRegistry meterRegistry;
+    private final int statementThreshold;
+
+    public RequestStatementFilter(QueryStatistics queryStatistics, MeterRegistry meterRegistry,
+                                  QueryProperties queryProperties) {
+        this.queryStatistics = queryStatistics;
+        this.meterRegistry = meterRegistry;
+        this.statementThreshold = queryProperties.getRequestStatementThreshold();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryStatistics.RequestScope scope = queryStatistics.openRequest();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            scope.close();
+            record(request, scope);
+        }
+    }
+
+    private void record(HttpServletRequest request, QueryStatistics.RequestScope scope) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        DistributionSummary.builder("bookstore.request.statements")
+                .description("JDBC statements executed per request")
+                .baseUnit("statements")
+                .tags("method", request.getMethod(), "uri", uri)
+                .register(meterRegistry)
+                .record(scope.getStatements());
+        Timer.builder("bookstore.request.statement.time")
+                .description("Time spent in JDBC statements per request")
+                .tags("method", request.getMethod(), "uri", uri)
+                .register(meterRegistry)
+                .record(scope.getNanos(), TimeUnit.NANOSECONDS);
+        if (scope.getStatements() > statementThreshold)
+            log.warn("{} {} executed {} statements in {} ms, likely an N+1 select", request.getMethod(),
+                    request.getRequestURI(), scope.getStatements(), scope.getNanos() / 1_000_000);
+    }
+
+}
@@ -0,0 +1,125 @@
+package com.mhf.bookstore.search.book;
+
+import com.mhf.bookstore.dao.book.IBookRepository;
+import com.mhf.bookstore.dto.book.BookDto;
+import com.mhf.bookstore.event.book.BookChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-process full-text index over book titles and authors.
+ * <p>
+ * Built from the table once the application is ready and kept current from committed
+ * {@link BookChangedEvent}s. Changes that commit while a rebuild is scanning the table are
+ * replayed on top of the fresh index before it is swapped in.
+ */
+@Component
+public class BookSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(BookSearchIndex.class);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private IBookRepository iBookRepository;
+    private TransactionTemplate transactionTemplate;
+
+    private InvertedIndex index = new InvertedIndex();
+    private List<BookChangedEvent> changesDuringRebuild;
+
+    @Autowired
+    public BookSearchIndex(IBookRepository iBookRepository, PlatformTransactionManager transactionManager) {
+        this.iBookRepository = iBookRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        InvertedIndex fresh = new InvertedIndex();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // Projected rows: nothing enters the persistence context, however large the table
+                try (Stream<BookDto> books = iBookRepository.streamAllDtos()) {
+                    books.forEach(book -> fresh.put(book.getId(), book.getTitle(), book.getAuthor()));
+                }
+            });
+        } finally {
+            lock.writeLock().lock();
+            try {
+                for (BookChangedEvent event : changesDuringRebuild)
+                    apply(fresh, event);
+                index = fresh;
+                changesDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.info("Search index built with {} books in {} ms", fresh.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            apply(index, event);
+            if (changesDuringRebuild != null)
+                changesDuringRebuild.add(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the books matching every term of {@code query}, best match first.
+     */
+    public long[] search(String query, int limit) {
+        lock.readLock().lock();
+        try {
+            return index.search(query, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void apply(InvertedIndex target, BookChangedEvent event) {
+        if (event.getType() == BookChangedEvent.Type.DELETED) {
+            target.remove(event.getId());
+            return;
+        }
+        // Updates without a snapshot only touch status or price, which are not indexed
+        BookDto book = event.getBook();
+        if (book != null)
+            target.put(book.getId(), book.getTitle(), book.getAuthor());
+    }
+
+}
@@ -0,0 +1,240 @@
+package com.mhf.bookstore.search.book;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Term → posting list index over book titles and authors.
+ * <p>
+ * Every posting list is a pair of parallel primitive arrays sorted by book id, so AND queries are merge
+ * intersections without boxing. Scores are a weighted term frequency (a title hit counts more than an
+ * author hit) times the inverse document frequency of the term.
+ * <p>
+ * Not thread-safe, see {@link BookSearchIndex} for the concurrent wrapper.
+ */
+public final class InvertedIndex {
+
+    static final int TITLE_WEIGHT = 2;
+    static final int AUTHOR_WEIGHT = 1;
+
+    private static final long[] NO_HITS = new long[0];
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final Map<String, PostingList> postings = new HashMap<>();
+
+    // Terms of every indexed book, needed to unlink it on update/delete
+    private final Map<Long, String[]> documentTerms = new HashMap<>();
+
+    public void put(long id, String title, String author) {
+        remove(id);
+
+        Map<String, Integer> weights = new HashMap<>();
+        for (String term : tokenize(title))
+            weights.merge(term, TITLE_WEIGHT, Integer::sum);
+        for (String term : tokenize(author))
+            weights.merge(term, AUTHOR_WEIGHT, Integer::sum);
+        if (weights.isEmpty())
+            return;
+
+        for (Map.Entry<String, Integer> entry : weights.entrySet())
+            postings.computeIfAbsent(entry.getKey(), term -> new PostingList()).put(id, entry.getValue());
+        documentTerms.put(id, weights.keySet().toArray(new String[0]));
+    }
+
+    public void remove(long id) {
+        String[] terms = documentTerms.remove(id);
+        if (terms == null)
+            return;
+        for (String term : terms) {
+            PostingList list = postings.get(term);
+            list.remove(id);
+            if (list.size == 0)
+                postings.remove(term);
+        }
+    }
+
+    public int size() {
+        return documentTerms.size();
+    }
+
+    /**
+     * Returns the ids of the books containing every term of {@code query}, best match first.
+     */
+    public long[] search(String query, int limit) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty() || limit < 1)
+            return NO_HITS;
+
+        PostingList[] lists = new PostingList[terms.size()];
+        for (int t = 0; t < lists.length; t++) {
+            lists[t] = postings.get(terms.get(t));
+            if (lists[t] == null)
+                return NO_HITS;
+        }
+        // Intersect starting from the rarest term so the candidate set only shrinks
+        Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+
+        int count = lists[0].size;
+        long[] candidates = Arrays.copyOf(lists[0].ids, count);
+        double[] scores = new double[count];
+        double idf = idf(lists[0]);
+        for (int i = 0; i < count; i++)
+            scores[i] = lists[0].weights[i] * idf;
+
+        for (int t = 1; t < lists.length && count > 0; t++) {
+            PostingList list = lists[t];
+            idf = idf(list);
+            int kept = 0;
+            int from = 0;
+            for (int i = 0; i < count && from < list.size; i++) {
+                int pos = Arrays.binarySearch(list.ids, from, list.size, candidates[i]);
+                if (pos >= 0) {
+                    candidates[kept] = candidates[i];
+                    scores[kept] = scores[i] + list.weights[pos] * idf;
+                    kept++;
+                    from = pos + 1;
+                } else {
+                    from = -pos - 1;
+                }
+            }
+            count = kept;
+        }
+        return topK(candidates, scores, count, limit);
+    }
+
+    private double idf(PostingList list) {
+        return Math.log(1.0 + (double) documentTerms.size() / list.size);
+    }
+
+    /**
+     * Selects the {@code limit} best candidates with a bounded min-heap of candidate positions.
+     */
+    private static long[] topK(long[] ids, double[] scores, int count, int limit) {
+        int k = Math.min(limit, count);
+        if (k == 0)
+            return NO_HITS;
+
+        int[] heap = new int[k];
+        int heapSize = 0;
+        for (int i = 0; i < count; i++) {
+            if (heapSize < k) {
+                heap[heapSize] = i;
+                siftUp(heap, heapSize++, ids, scores);
+            } else if (better(i, heap[0], ids, scores)) {
+                heap[0] = i;
+                siftDown(heap, heapSize, ids, scores);
+            }
+        }
+
+        long[] result = new long[heapSize];
+        for (int n = heapSize - 1; n >= 0; n--) {
+            result[n] = ids[heap[0]];
+            heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize, ids, scores);
+        }
+        return result;
+    }
+
+    // Higher score wins, ties go to the older (lower) id
+    private static boolean better(int a, int b, long[] ids, double[] scores) {
+        if (scores[a] != scores[b])
+            return scores[a] > scores[b];
+        return ids[a] < ids[b];
+    }
+
+    private static void siftUp(int[] heap, int pos, long[] ids, double[] scores) {
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            if (!better(heap[parent], heap[pos], ids, scores))
+                break;
+            swap(heap, parent, pos);
+            pos = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, int size, long[] ids, double[] scores) {
+        int pos = 0;
+        while (true) {
+            int worst = pos;
+            int left = 2 * pos + 1;
+            int right = left + 1;
+            if (left < size && better(heap[worst], heap[left], ids, scores))
+                worst = left;
+            if (right < size && better(heap[worst], heap[right], ids, scores))
+                worst = right;
+            if (worst == pos)
+                return;
+            swap(heap, pos, worst);
+            pos = worst;
+        }
+    }
+
+    private static void swap(int[] heap, int a, int b) {
+        int tmp = heap[a];
+        heap[a] = heap[b];
+        heap[b] = tmp;
+    }
+
+    /**
+     * Splits on anything that is not a letter or digit, case-folds and strips accents.
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty())
+            return new ArrayList<>();
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFKD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        Set<String> terms = new LinkedHashSet<>();
+        for (String term : SEPARATORS.split(folded)) {
+            if (!term.isEmpty())
+                terms.add(term);
+        }
+        return new ArrayList<>(terms);
+    }
+
+    private static final class PostingList {
+
+        private long[] ids = new long[4];
+        private int[] weights = new int[4];
+        private int size;
+
+        void put(long id, int weight) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0) {
+                weights[pos] = weight;
+                return;
+            }
+            pos = -pos - 1;
+            if (size == ids.length) {
+                int capacity = size + (size >> 1) + 1;
+                ids = Arrays.copyOf(ids, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+            }
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            System.arraycopy(weights, pos, weights, pos + 1, size - pos);
+            ids[pos] = id;
+            weights[pos] = weight;
+            size++;
+        }
+
+        void remove(long id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos < 0)
+                return;
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            System.arraycopy(weights, pos + 1, weights, pos, size - pos - 1);
+            size--;
+        }
+
+    }
+
+}
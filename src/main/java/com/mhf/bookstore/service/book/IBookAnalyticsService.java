@@ -0,0 +1,18 @@
+package com.mhf.bookstore.service.book;
+
+import com.mhf.bookstore.dto.analytics.PriceHistogramDto;
+import com.mhf.bookstore.dto.analytics.PricePercentilesDto;
+import com.mhf.bookstore.dto.analytics.PriceRangeCountDto;
+import com.mhf.bookstore.model.book.Status;
+
+import java.util.List;
+
+public interface IBookAnalyticsService {
+
+    PriceHistogramDto priceHistogram(Status status, String author, Double minPrice, Double maxPrice, Integer buckets);
+
+    PricePercentilesDto pricePercentiles(Status status, String author, List<Double> percentiles);
+
+    PriceRangeCountDto countPriceRange(Status status, String author, Double minPrice, Double maxPrice);
+
+}
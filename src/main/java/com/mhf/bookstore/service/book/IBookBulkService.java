@@ -0,0 +1,22 @@
+package com.mhf.bookstore.service.book;
+
+import com.mhf.bookstore.dto.bulk.BookBulkOperationDto;
+import com.mhf.bookstore.dto.bulk.BookBulkResponseDto;
+import com.mhf.bookstore.dto.bulk.BookCriteriaDto;
+import com.mhf.bookstore.dto.bulk.BookCriteriaResultDto;
+import com.mhf.bookstore.dto.bulk.BookRepriceDto;
+
+import java.util.List;
+
+public interface IBookBulkService {
+
+    BookBulkResponseDto execute(List<BookBulkOperationDto> operations);
+
+    // Unchunked, in the caller's transaction: a failure rolls back the caller's work along with every operation
+    BookBulkResponseDto executeInTransaction(List<BookBulkOperationDto> operations);
+
+    BookCriteriaResultDto discontinueMatching(BookCriteriaDto criteria);
+
+    BookCriteriaResultDto repriceMatching(BookRepriceDto reprice);
+
+}
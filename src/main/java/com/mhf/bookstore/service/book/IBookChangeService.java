@@ -0,0 +1,12 @@
+package com.mhf.bookstore.service.book;
+
+import com.mhf.bookstore.dto.change.BookChangesDto;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface IBookChangeService {
+
+    BookChangesDto getChanges(Long since, Integer limit);
+
+    SseEmitter streamChanges(Long since);
+
+}
@@ -0,0 +1,32 @@
+package com.mhf.bookstore.service.book;
+
+import com.mhf.bookstore.dto.book.BookDto;
+import com.mhf.bookstore.dto.book.BookPatchDto;
+import com.mhf.bookstore.model.book.Status;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface IBookReactiveService {
+
+    Mono<BookDto> createBook(BookDto bookDto);
+
+    Mono<BookDto> getBookById(Long id);
+
+    // Books with an id greater than afterId, in id order
+    Flux<BookDto> listBooks(Long afterId, Integer size);
+
+    Flux<BookDto> exportBooks();
+
+    Mono<BookDto> updateBook(Long id, BookDto bookDto);
+
+    Mono<BookDto> patchBook(Long id, BookPatchDto patch, Long expectedVersion);
+
+    Mono<Void> deleteBook(Long id);
+
+    Mono<BookDto> markAsDiscontinued(Long id);
+
+    Flux<BookDto> getBooksByStatus(Status status, Long afterId, Integer size);
+
+    Flux<BookDto> searchBooks(String query, Integer limit);
+
+}
@@ -1,9 +1,17 @@
 package com.mhf.bookstore.service.book;
 
+import com.mhf.bookstore.dto.book.BookAuthorStatsDto;
+import com.mhf.bookstore.dto.book.BookCacheStatsDto;
+import com.mhf.bookstore.dto.book.BookCatalogStatsDto;
 import com.mhf.bookstore.dto.book.BookDto;
+import com.mhf.bookstore.dto.book.BookFilterDto;
+import com.mhf.bookstore.dto.book.BookPatchDto;
+import com.mhf.bookstore.dto.page.CursorPage;
+import com.mhf.bookstore.dto.page.CursorPageRequest;
 import com.mhf.bookstore.model.book.Status;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface IBookService {
 
@@ -11,13 +19,35 @@ public interface IBookService {
 
     BookDto getBookById(Long id);
 
-    List<BookDto> listAllBooks();
+    // Current version of the book, null if it does not exist
+    Long getBookVersion(Long id);
+
+    CursorPage<BookDto> listBooks(CursorPageRequest pageRequest);
+
+    void exportBooks(Consumer<BookDto> consumer);
 
     BookDto updateBook(Long id, BookDto bookDto);
 
+    BookDto patchBook(Long id, BookPatchDto patch, Long expectedVersion);
+
     void deleteBook(Long id);
 
     BookDto markAsDiscontinued(Long id);
 
-    List<BookDto> getBooksByStatus(Status status);
+    // Like markAsDiscontinued, without reading the book back
+    void discontinueBook(Long id);
+
+    CursorPage<BookDto> getBooksByStatus(Status status, CursorPageRequest pageRequest);
+
+    CursorPage<BookDto> filterBooks(BookFilterDto filter, CursorPageRequest pageRequest);
+
+    List<BookDto> searchBooks(String query, Integer limit);
+
+    long getCatalogVersion();
+
+    BookCacheStatsDto getCacheStats();
+
+    BookCatalogStatsDto getCatalogStats();
+
+    BookAuthorStatsDto getAuthorStats(String author);
 }
@@ -0,0 +1,17 @@
+package com.mhf.bookstore.service.book;
+
+import com.mhf.bookstore.dto.book.BookDto;
+import com.mhf.bookstore.dto.bulk.WriteBehindReceiptDto;
+import com.mhf.bookstore.dto.bulk.WriteBehindStatusDto;
+
+public interface IBookWriteBehindService {
+
+    boolean isEnabled();
+
+    WriteBehindReceiptDto createBook(BookDto bookDto);
+
+    WriteBehindReceiptDto updateBook(Long id, BookDto bookDto);
+
+    WriteBehindStatusDto getStatus();
+
+}
@@ -0,0 +1,122 @@
+package com.mhf.bookstore.service.impl.book;
+
+import com.mhf.bookstore.analytics.book.BookCatalogSnapshot;
+import com.mhf.bookstore.dto.analytics.PriceBucketDto;
+import com.mhf.bookstore.dto.analytics.PriceHistogramDto;
+import com.mhf.bookstore.dto.analytics.PricePercentilesDto;
+import com.mhf.bookstore.dto.analytics.PriceRangeCountDto;
+import com.mhf.bookstore.exception.BadRequestException;
+import com.mhf.bookstore.model.book.Status;
+import com.mhf.bookstore.service.book.IBookAnalyticsService;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.DoubleSummaryStatistics;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Price analytics answered by scanning the columnar {@link BookCatalogSnapshot}; the database is not queried.
+ * {@code status} and {@code author} (case-insensitive) narrow every query when given.
+ */
+@Service
+@Timed(value = "bookstore.service", histogram = true)
+public class BookAnalyticsServiceImpl implements IBookAnalyticsService {
+
+    private static final int DEFAULT_BUCKETS = 10;
+    private static final int MAX_BUCKETS = 1000;
+    private static final List<Double> DEFAULT_PERCENTILES = List.of(50.0, 90.0, 99.0);
+
+    private BookCatalogSnapshot bookCatalogSnapshot;
+
+    @Autowired
+    public BookAnalyticsServiceImpl(BookCatalogSnapshot bookCatalogSnapshot) {
+        this.bookCatalogSnapshot = bookCatalogSnapshot;
+    }
+
+    // Without bounds the histogram spans the matching prices, which costs one more scan
+    @Override
+    public PriceHistogramDto priceHistogram(Status status, String author, Double minPrice, Double maxPrice, Integer buckets) {
+        int bucketCount = buckets == null ? DEFAULT_BUCKETS : buckets;
+        if (bucketCount < 1 || bucketCount > MAX_BUCKETS)
+            throw new BadRequestException("buckets must be between 1 and " + MAX_BUCKETS);
+        checkRange(minPrice, maxPrice);
+        author = normalize(author);
+
+        double min;
+        double max;
+        if (minPrice == null || maxPrice == null) {
+            DoubleSummaryStatistics summary = bookCatalogSnapshot.priceSummary(status, author);
+            if (summary.getCount() == 0)
+                return new PriceHistogramDto(0, minPrice, maxPrice, List.of());
+            min = minPrice == null ? summary.getMin() : minPrice;
+            max = maxPrice == null ? summary.getMax() : maxPrice;
+            if (min > max)
+                return new PriceHistogramDto(0, minPrice, maxPrice, List.of());
+        } else {
+            min = minPrice;
+            max = maxPrice;
+        }
+
+        long[] counts = bookCatalogSnapshot.histogram(status, author, min, max, bucketCount);
+        double width = (max - min) / bucketCount;
+        List<PriceBucketDto> result = new ArrayList<>(bucketCount);
+        long books = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            double to = i == bucketCount - 1 ? max : min + width * (i + 1);
+            result.add(new PriceBucketDto(min + width * i, to, counts[i]));
+            books += counts[i];
+        }
+        return new PriceHistogramDto(books, min, max, result);
+    }
+
+    @Override
+    public PricePercentilesDto pricePercentiles(Status status, String author, List<Double> percentiles) {
+        List<Double> requested = percentiles == null || percentiles.isEmpty() ? DEFAULT_PERCENTILES : percentiles;
+        double[] ranks = new double[requested.size()];
+        for (int i = 0; i < ranks.length; i++) {
+            Double percentile = requested.get(i);
+            if (percentile == null || !(percentile > 0 && percentile <= 100))
+                throw new BadRequestException("Percentiles must be greater than 0 and at most 100");
+            ranks[i] = percentile;
+        }
+        author = normalize(author);
+
+        // Sorted outside the snapshot's lock, writers only wait for the copy
+        double[] prices = bookCatalogSnapshot.prices(status, author);
+        Arrays.parallelSort(prices);
+        Map<String, Double> result = new LinkedHashMap<>();
+        if (prices.length == 0)
+            return new PricePercentilesDto(0, result);
+        // Nearest rank: the smallest price that at least the given share of books does not exceed
+        for (double rank : ranks) {
+            int index = Math.max((int) Math.ceil(rank / 100 * prices.length), 1) - 1;
+            result.put(BigDecimal.valueOf(rank).stripTrailingZeros().toPlainString(), prices[index]);
+        }
+        return new PricePercentilesDto(prices.length, result);
+    }
+
+    @Override
+    public PriceRangeCountDto countPriceRange(Status status, String author, Double minPrice, Double maxPrice) {
+        checkRange(minPrice, maxPrice);
+        long books = bookCatalogSnapshot.countInRange(status, normalize(author),
+                minPrice == null ? Double.NEGATIVE_INFINITY : minPrice,
+                maxPrice == null ? Double.POSITIVE_INFINITY : maxPrice);
+        return new PriceRangeCountDto(minPrice, maxPrice, books);
+    }
+
+    private static void checkRange(Double minPrice, Double maxPrice) {
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice)
+            throw new BadRequestException("minPrice must not be greater than maxPrice");
+    }
+
+    private static String normalize(String author) {
+        return author == null || author.isBlank() ? null : author.trim();
+    }
+
+}
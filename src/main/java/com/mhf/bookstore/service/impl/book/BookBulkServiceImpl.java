@@ -0,0 +1,274 @@
+package com.mhf.bookstore.service.impl.book;
+
+import com.mhf.bookstore.config.BulkProperties;
+import com.mhf.bookstore.dao.book.IBookRepository;
+import com.mhf.bookstore.dto.book.BookDto;
+import com.mhf.bookstore.dto.bulk.BookBulkOperationDto;
+import com.mhf.bookstore.dto.bulk.BookBulkResponseDto;
+import com.mhf.bookstore.dto.bulk.BookBulkResultDto;
+import com.mhf.bookstore.dto.bulk.BookCriteriaDto;
+import com.mhf.bookstore.dto.bulk.BookCriteriaResultDto;
+import com.mhf.bookstore.dto.bulk.BookRepriceDto;
+import com.mhf.bookstore.event.book.BookChangedEvent;
+import com.mhf.bookstore.exception.BadRequestException;
+import com.mhf.bookstore.mapper.book.BookMapper;
+import com.mhf.bookstore.model.book.Book;
+import com.mhf.bookstore.model.book.Status;
+import com.mhf.bookstore.service.book.IBookBulkService;
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Applies create/update/delete operations in chunks, one transaction per chunk.
+ * <p>
+ * Within a chunk the rows to update or delete are loaded with a single {@code IN} query and all
+ * statements are flushed once at the end of the chunk, where Hibernate groups them into JDBC batches
+ * ({@code hibernate.jdbc.batch_size}). Change events are published after that flush, in operation order, so that
+ * they carry the incremented versions. A failing chunk is rolled back on its own and reported per item;
+ * chunks before and after it are unaffected.
+ * <p>
+ * {@link #executeInTransaction} applies all operations as one chunk in the caller's transaction instead, for
+ * callers that commit more work together with them.
+ * <p>
+ * Criteria-based mutations are a single {@code UPDATE ... WHERE} each, whatever the number of matching rows.
+ */
+@Service
+@Timed(value = "bookstore.service", histogram = true)
+public class BookBulkServiceImpl implements IBookBulkService {
+
+    private IBookRepository iBookRepository;
+    private BookMapper bookMapper;
+    private Validator validator;
+    private TransactionTemplate transactionTemplate;
+    private BulkProperties bulkProperties;
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public BookBulkServiceImpl(IBookRepository iBookRepository, BookMapper bookMapper, Validator validator,
+                               PlatformTransactionManager transactionManager, BulkProperties bulkProperties,
+                               ApplicationEventPublisher eventPublisher) {
+        this.iBookRepository = iBookRepository;
+        this.bookMapper = bookMapper;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.bulkProperties = bulkProperties;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public BookBulkResponseDto execute(List<BookBulkOperationDto> operations) {
+        if (operations == null || operations.isEmpty())
+            throw new BadRequestException("At least one operation is required");
+        if (operations.size() > bulkProperties.getMaxOperations())
+            throw new BadRequestException("At most " + bulkProperties.getMaxOperations() + " operations are allowed per request");
+
+        BookBulkResultDto[] results = new BookBulkResultDto[operations.size()];
+        for (int from = 0; from < operations.size(); from += bulkProperties.getChunkSize()) {
+            int to = Math.min(from + bulkProperties.getChunkSize(), operations.size());
+            executeChunk(operations, from, to, results);
+        }
+        return new BookBulkResponseDto(Arrays.asList(results));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public BookBulkResponseDto executeInTransaction(List<BookBulkOperationDto> operations) {
+        BookBulkResultDto[] results = new BookBulkResultDto[operations.size()];
+        List<Integer> pending = validate(operations, 0, operations.size(), results);
+        if (!pending.isEmpty())
+            applyChunk(operations, pending, results);
+        return new BookBulkResponseDto(Arrays.asList(results));
+    }
+
+    @Override
+    public BookCriteriaResultDto discontinueMatching(BookCriteriaDto criteria) {
+        requireCriteria(criteria);
+        Integer affected = transactionTemplate.execute(status -> publishIfChanged(iBookRepository.updateStatusWhere(
+                Status.DISCONTINUED, criteria.getAuthor(), criteria.getStatus(), criteria.getMinPrice(), criteria.getMaxPrice())));
+        return new BookCriteriaResultDto(affected);
+    }
+
+    @Override
+    public BookCriteriaResultDto repriceMatching(BookRepriceDto reprice) {
+        BookCriteriaDto criteria = reprice.getCriteria();
+        requireCriteria(criteria);
+        if (reprice.getPercent() == null || reprice.getPercent() <= -100)
+            throw new BadRequestException("Percent must be greater than -100");
+        double factor = 1 + reprice.getPercent() / 100;
+        Integer affected = transactionTemplate.execute(status -> publishIfChanged(iBookRepository.scalePriceWhere(
+                factor, criteria.getAuthor(), criteria.getStatus(), criteria.getMinPrice(), criteria.getMaxPrice())));
+        return new BookCriteriaResultDto(affected);
+    }
+
+    // Guards against an empty body rewriting the whole catalog
+    private void requireCriteria(BookCriteriaDto criteria) {
+        if (criteria == null || (criteria.getAuthor() == null && criteria.getStatus() == null
+                && criteria.getMinPrice() == null && criteria.getMaxPrice() == null))
+            throw new BadRequestException("At least one criterion is required");
+        if (criteria.getMinPrice() != null && criteria.getMaxPrice() != null && criteria.getMinPrice() > criteria.getMaxPrice())
+            throw new BadRequestException("minPrice must not be greater than maxPrice");
+    }
+
+    private int publishIfChanged(int affected) {
+        if (affected > 0)
+            eventPublisher.publishEvent(BookChangedEvent.updatedMatching());
+        return affected;
+    }
+
+    private void executeChunk(List<BookBulkOperationDto> operations, int from, int to, BookBulkResultDto[] results) {
+        List<Integer> pending = validate(operations, from, to, results);
+        if (pending.isEmpty())
+            return;
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> applyChunk(operations, pending, results));
+        } catch (RuntimeException ex) {
+            // Nothing in the chunk was committed, so every operation that looked successful has failed
+            for (int i : pending) {
+                if (results[i] == null || results[i].getStatus() < 400)
+                    results[i] = failure(i, operations.get(i), HttpStatus.CONFLICT, "Chunk rolled back: " + ex.getMessage());
+            }
+        }
+    }
+
+    private void applyChunk(List<BookBulkOperationDto> operations, List<Integer> pending, BookBulkResultDto[] results) {
+        Set<Long> targetIds = new HashSet<>();
+        for (int i : pending) {
+            if (operations.get(i).getId() != null)
+                targetIds.add(operations.get(i).getId());
+        }
+        Map<Long, Book> existing = new HashMap<>();
+        for (Book book : iBookRepository.findAllById(targetIds))
+            existing.put(book.getId(), book);
+
+        List<Book> created = new ArrayList<>();
+        List<Integer> createdIndexes = new ArrayList<>();
+        List<Supplier<BookChangedEvent>> events = new ArrayList<>();
+        for (int i : pending) {
+            BookBulkOperationDto operation = operations.get(i);
+            switch (operation.getOp()) {
+                case CREATE:
+                    Book book = bookMapper.toEntity(operation.getBook());
+                    book.setId(null);
+                    book.setVersion(null);
+                    if (book.getStatus() == null)
+                        book.setStatus(Status.AVAILABLE);
+                    created.add(book);
+                    createdIndexes.add(i);
+                    events.add(() -> BookChangedEvent.created(bookMapper.toDto(book)));
+                    break;
+                case UPDATE:
+                    Book target = existing.get(operation.getId());
+                    if (target == null) {
+                        results[i] = notFound(i, operation);
+                        break;
+                    }
+                    BookDto changes = operation.getBook();
+                    target.setTitle(changes.getTitle());
+                    target.setAuthor(changes.getAuthor());
+                    target.setPrice(changes.getPrice());
+                    target.setStatus(changes.getStatus());
+                    events.add(() -> BookChangedEvent.updated(bookMapper.toDto(target)));
+                    results[i] = success(i, operation, target.getId(), HttpStatus.OK);
+                    break;
+                case DELETE:
+                    Book removed = existing.remove(operation.getId());
+                    if (removed == null) {
+                        results[i] = notFound(i, operation);
+                        break;
+                    }
+                    iBookRepository.delete(removed);
+                    events.add(() -> BookChangedEvent.deleted(removed.getId()));
+                    results[i] = success(i, operation, removed.getId(), HttpStatus.NO_CONTENT);
+                    break;
+            }
+        }
+
+        // Sequence ids are assigned here without touching the table, the INSERTs are batched at flush
+        List<Book> saved = iBookRepository.saveAll(created);
+        for (int n = 0; n < saved.size(); n++) {
+            int i = createdIndexes.get(n);
+            results[i] = success(i, operations.get(i), saved.get(n).getId(), HttpStatus.CREATED);
+        }
+
+        // The UPDATEs increment the versions, so the events are built only after the flush
+        iBookRepository.flush();
+        for (Supplier<BookChangedEvent> event : events)
+            eventPublisher.publishEvent(event.get());
+    }
+
+    // Reports the invalid operations of [from, to) and returns the indexes of the others
+    private List<Integer> validate(List<BookBulkOperationDto> operations, int from, int to, BookBulkResultDto[] results) {
+        List<Integer> valid = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            String error = validate(operations.get(i));
+            if (error != null)
+                results[i] = failure(i, operations.get(i), HttpStatus.BAD_REQUEST, error);
+            else
+                valid.add(i);
+        }
+        return valid;
+    }
+
+    private String validate(BookBulkOperationDto operation) {
+        if (operation == null || operation.getOp() == null)
+            return "op is required";
+        switch (operation.getOp()) {
+            case CREATE:
+                if (operation.getId() != null)
+                    return "id must not be set for CREATE";
+                return validateBook(operation.getBook());
+            case UPDATE:
+                if (operation.getId() == null)
+                    return "id is required for UPDATE";
+                return validateBook(operation.getBook());
+            default:
+                return operation.getId() == null ? "id is required for DELETE" : null;
+        }
+    }
+
+    private String validateBook(BookDto book) {
+        if (book == null)
+            return "book is required";
+        Set<ConstraintViolation<BookDto>> violations = validator.validate(book);
+        if (violations.isEmpty())
+            return null;
+        return violations.stream()
+                .map(v -> v.getPropertyPath() + ":" + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private BookBulkResultDto success(int index, BookBulkOperationDto operation, Long id, HttpStatus status) {
+        return new BookBulkResultDto(index, operation.getOp(), id, status.value(), null);
+    }
+
+    private BookBulkResultDto notFound(int index, BookBulkOperationDto operation) {
+        return failure(index, operation, HttpStatus.NOT_FOUND, "Book not found with id " + operation.getId());
+    }
+
+    private BookBulkResultDto failure(int index, BookBulkOperationDto operation, HttpStatus status, String error) {
+        return new BookBulkResultDto(index, operation == null ? null : operation.getOp(),
+                operation == null ? null : operation.getId(), status.value(), error);
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.mhf.bookstore.service.impl.book;
+
+import com.mhf.bookstore.changes.book.BookChangeFeed;
+import com.mhf.bookstore.changes.book.BookChangeLog;
+import com.mhf.bookstore.dto.change.BookChangeDto;
+import com.mhf.bookstore.dto.change.BookChangesDto;
+import com.mhf.bookstore.exception.BadRequestException;
+import com.mhf.bookstore.exception.GoneException;
+import com.mhf.bookstore.service.book.IBookChangeService;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+/**
+ * Delta sync from the {@link BookChangeLog}. A consumer loads the catalog once, then asks for the changes after the
+ * last sequence it has seen. Without {@code since} it only learns the current sequence to start from.
+ */
+@Service
+@Timed(value = "bookstore.service", histogram = true)
+public class BookChangeServiceImpl implements IBookChangeService {
+
+    private static final int DEFAULT_LIMIT = 1000;
+    private static final int MAX_LIMIT = 10000;
+
+    private BookChangeLog bookChangeLog;
+    private BookChangeFeed bookChangeFeed;
+
+    @Autowired
+    public BookChangeServiceImpl(BookChangeLog bookChangeLog, BookChangeFeed bookChangeFeed) {
+        this.bookChangeLog = bookChangeLog;
+        this.bookChangeFeed = bookChangeFeed;
+    }
+
+    @Override
+    public BookChangesDto getChanges(Long since, Integer limit) {
+        int size = limit == null ? DEFAULT_LIMIT : limit;
+        if (size < 1 || size > MAX_LIMIT)
+            throw new BadRequestException("limit must be between 1 and " + MAX_LIMIT);
+        long last = bookChangeLog.getLastSequence();
+        if (since == null)
+            return new BookChangesDto(List.of(), last, false);
+        checkCovered(since);
+        List<BookChangeDto> changes = bookChangeLog.since(since, size);
+        long next = changes.isEmpty() ? since : changes.get(changes.size() - 1).getSequence();
+        return new BookChangesDto(changes, next, changes.size() == size && next < bookChangeLog.getLastSequence());
+    }
+
+    // An error body cannot be written as text/event-stream, so a stale cursor is answered with a reset event
+    @Override
+    public SseEmitter streamChanges(Long since) {
+        long from = since == null ? bookChangeLog.getLastSequence() : since;
+        if (!bookChangeLog.covers(from))
+            return bookChangeFeed.reset();
+        return bookChangeFeed.subscribe(from);
+    }
+
+    private void checkCovered(long since) {
+        if (!bookChangeLog.covers(since))
+            throw new GoneException("Changes after " + since + " are no longer available, reload the books from /api/books");
+    }
+
+}
@@ -0,0 +1,155 @@
+package com.mhf.bookstore.service.impl.book;
+
+import com.mhf.bookstore.exception.BadRequestException;
+import com.mhf.bookstore.dto.book.BookDto;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keyset position over the book table, encoded as an opaque URL-safe token.
+ * <p>
+ * The token carries the sort order together with the sort key and id of the last row served,
+ * so the next page is a seek ({@code WHERE (key, id) > (?, ?)}) instead of an OFFSET scan.
+ */
+final class BookCursor {
+
+    private static final byte FORMAT_VERSION = 1;
+
+    enum SortKey {
+        ID("id"),
+        TITLE("title"),
+        PRICE("price");
+
+        private final String property;
+
+        SortKey(String property) {
+            this.property = property;
+        }
+
+        static SortKey of(String property) {
+            for (SortKey key : values()) {
+                if (key.property.equalsIgnoreCase(property))
+                    return key;
+            }
+            throw new BadRequestException("Unsupported sort property '" + property + "', expected one of id, title, price");
+        }
+    }
+
+    private final SortKey sortKey;
+    private final Sort.Direction direction;
+    private final Object lastValue;
+    private final Long lastId;
+
+    private BookCursor(SortKey sortKey, Sort.Direction direction, Object lastValue, Long lastId) {
+        this.sortKey = sortKey;
+        this.direction = direction;
+        this.lastValue = lastValue;
+        this.lastId = lastId;
+    }
+
+    /**
+     * Parses a {@code property[,asc|desc]} sort expression into a cursor positioned before the first row.
+     */
+    static BookCursor first(String sort) {
+        if (sort == null || sort.isBlank())
+            return new BookCursor(SortKey.ID, Sort.Direction.ASC, null, null);
+
+        String[] parts = sort.split(",");
+        if (parts.length > 2)
+            throw new BadRequestException("Invalid sort '" + sort + "', expected property[,asc|desc]");
+        Sort.Direction direction = parts.length == 2
+                ? Sort.Direction.fromOptionalString(parts[1].trim())
+                .orElseThrow(() -> new BadRequestException("Invalid sort direction '" + parts[1] + "'"))
+                : Sort.Direction.ASC;
+        return new BookCursor(SortKey.of(parts[0].trim()), direction, null, null);
+    }
+
+    static BookCursor decode(String token) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(token)))) {
+            if (in.readByte() != FORMAT_VERSION)
+                throw new BadRequestException("Invalid cursor");
+            SortKey sortKey = SortKey.values()[in.readUnsignedByte()];
+            Sort.Direction direction = in.readBoolean() ? Sort.Direction.DESC : Sort.Direction.ASC;
+            Object lastValue = null;
+            if (sortKey == SortKey.TITLE)
+                lastValue = in.readUTF();
+            else if (sortKey == SortKey.PRICE)
+                lastValue = in.readDouble();
+            return new BookCursor(sortKey, direction, lastValue, in.readLong());
+        } catch (IOException | IllegalArgumentException | IndexOutOfBoundsException ex) {
+            throw new BadRequestException("Invalid cursor", ex);
+        }
+    }
+
+    /**
+     * Decodes {@code token} if present, otherwise starts from the beginning of {@code sort}.
+     * A cursor always wins over the sort parameter; mixing a cursor with a different sort is rejected.
+     */
+    static BookCursor resolve(String token, String sort) {
+        if (token == null || token.isBlank())
+            return first(sort);
+        BookCursor cursor = decode(token);
+        if (sort != null && !sort.isBlank() && !cursor.sameOrderAs(first(sort)))
+            throw new BadRequestException("Cursor was issued for a different sort order");
+        return cursor;
+    }
+
+    BookCursor after(BookDto last) {
+        Object value = null;
+        if (sortKey == SortKey.TITLE)
+            value = last.getTitle();
+        else if (sortKey == SortKey.PRICE)
+            value = last.getPrice();
+        return new BookCursor(sortKey, direction, value, last.getId());
+    }
+
+    /**
+     * Sort order including the id tie-breaker, which keeps the keyset unique.
+     */
+    Sort sort() {
+        if (sortKey == SortKey.ID)
+            return Sort.by(direction, "id");
+        return Sort.by(direction, sortKey.property).and(Sort.by(direction, "id"));
+    }
+
+    ScrollPosition position() {
+        if (lastId == null)
+            return ScrollPosition.keyset();
+        Map<String, Object> keys = new LinkedHashMap<>();
+        if (sortKey != SortKey.ID)
+            keys.put(sortKey.property, lastValue);
+        keys.put("id", lastId);
+        return ScrollPosition.forward(keys);
+    }
+
+    String encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeByte(sortKey.ordinal());
+            out.writeBoolean(direction.isDescending());
+            if (sortKey == SortKey.TITLE)
+                out.writeUTF((String) lastValue);
+            else if (sortKey == SortKey.PRICE)
+                out.writeDouble((Double) lastValue);
+            out.writeLong(lastId);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    private boolean sameOrderAs(BookCursor other) {
+        return sortKey == other.sortKey && direction == other.direction;
+    }
+
+}
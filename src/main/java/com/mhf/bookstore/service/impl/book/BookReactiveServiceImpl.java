@@ -0,0 +1,196 @@
+package com.mhf.bookstore.service.impl.book;
+
+import com.mhf.bookstore.cache.book.BookCache;
+import com.mhf.bookstore.config.PaginationProperties;
+import com.mhf.bookstore.dao.book.IBookReactiveRepository;
+import com.mhf.bookstore.dto.book.BookDto;
+import com.mhf.bookstore.dto.book.BookPatchDto;
+import com.mhf.bookstore.event.book.BookChangedEvent;
+import com.mhf.bookstore.exception.BadRequestException;
+import com.mhf.bookstore.exception.ConflictException;
+import com.mhf.bookstore.exception.ResourceNotFoundException;
+import com.mhf.bookstore.mapper.book.BookMapper;
+import com.mhf.bookstore.model.book.BookRow;
+import com.mhf.bookstore.model.book.Status;
+import com.mhf.bookstore.search.book.BookSearchIndex;
+import com.mhf.bookstore.service.book.IBookReactiveService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * R2DBC implementation of the book operations for the {@code reactive} profile.
+ * <p>
+ * Writes run through the R2DBC {@link TransactionalOperator} and publish the same {@link BookChangedEvent}s as
+ * the JPA service once they committed, so the cache, the search index and the catalog version stay current.
+ */
+@Service
+@Profile("reactive")
+public class BookReactiveServiceImpl implements IBookReactiveService {
+
+    // Rows requested from the database at a time while a full export streams to a slow client
+    private static final int EXPORT_PREFETCH = 256;
+
+    private IBookReactiveRepository iBookReactiveRepository;
+    private BookMapper bookMapper;
+    private PaginationProperties paginationProperties;
+    private TransactionalOperator transactionalOperator;
+    private ApplicationEventPublisher eventPublisher;
+    private BookSearchIndex bookSearchIndex;
+    private BookCache bookCache;
+
+    @Autowired
+    public BookReactiveServiceImpl(IBookReactiveRepository iBookReactiveRepository, BookMapper bookMapper,
+                                   PaginationProperties paginationProperties, TransactionalOperator transactionalOperator,
+                                   ApplicationEventPublisher eventPublisher, BookSearchIndex bookSearchIndex,
+                                   BookCache bookCache) {
+        this.iBookReactiveRepository = iBookReactiveRepository;
+        this.bookMapper = bookMapper;
+        this.paginationProperties = paginationProperties;
+        this.transactionalOperator = transactionalOperator;
+        this.eventPublisher = eventPublisher;
+        this.bookSearchIndex = bookSearchIndex;
+        this.bookCache = bookCache;
+    }
+
+    @Override
+    public Mono<BookDto> createBook(BookDto bookDto) {
+        // Default status if not provided
+        Status status = bookDto.getStatus() == null ? Status.AVAILABLE : bookDto.getStatus();
+        return iBookReactiveRepository.nextId()
+                .flatMap(id -> iBookReactiveRepository.insert(id, bookDto.getTitle(), bookDto.getAuthor(),
+                                bookDto.getPrice(), status.name())
+                        .then(iBookReactiveRepository.findBookById(id)))
+                .as(transactionalOperator::transactional)
+                .map(bookMapper::toDto)
+                .doOnNext(created -> eventPublisher.publishEvent(BookChangedEvent.created(created)));
+    }
+
+    @Override
+    public Mono<BookDto> getBookById(Long id) {
+        // The cached future is shared with other readers, a cancelled request must not cancel it
+        return Mono.fromFuture(() -> bookCache.getAsync(id, key -> iBookReactiveRepository.findBookById(key)
+                        .map(bookMapper::toDto)
+                        .toFuture()), true)
+                .switchIfEmpty(Mono.error(() -> notFound(id)));
+    }
+
+    @Override
+    public Flux<BookDto> listBooks(Long afterId, Integer size) {
+        int pageSize = resolvePageSize(size);
+        return iBookReactiveRepository.findPage(afterId == null ? 0L : afterId, pageSize)
+                .map(bookMapper::toDto);
+    }
+
+    @Override
+    public Flux<BookDto> exportBooks() {
+        // Demand from the HTTP response travels up to the driver, rows are only fetched as fast as they are written
+        return iBookReactiveRepository.streamAll()
+                .limitRate(EXPORT_PREFETCH)
+                .map(bookMapper::toDto);
+    }
+
+    @Override
+    public Mono<BookDto> updateBook(Long id, BookDto bookDto) {
+        // A PUT replaces the status as given, like the servlet API
+        String status = bookDto.getStatus() == null ? null : bookDto.getStatus().name();
+        return iBookReactiveRepository.update(id, bookDto.getVersion(), bookDto.getTitle(), bookDto.getAuthor(),
+                        bookDto.getPrice(), status)
+                .flatMap(updated -> readBackUpdated(id, updated, bookDto.getVersion()))
+                .as(transactionalOperator::transactional)
+                .doOnNext(updated -> eventPublisher.publishEvent(BookChangedEvent.updated(updated)));
+    }
+
+    @Override
+    public Mono<BookDto> patchBook(Long id, BookPatchDto patch, Long expectedVersion) {
+        String status = patch.getStatus() == null ? null : patch.getStatus().name();
+        return iBookReactiveRepository.patch(id, expectedVersion, patch.getTitle(), patch.getAuthor(),
+                        patch.getPrice(), status)
+                .flatMap(updated -> readBackUpdated(id, updated, expectedVersion))
+                .as(transactionalOperator::transactional)
+                .doOnNext(patched -> eventPublisher.publishEvent(BookChangedEvent.updated(patched)));
+    }
+
+    @Override
+    public Mono<Void> deleteBook(Long id) {
+        return iBookReactiveRepository.deleteBookById(id)
+                .as(transactionalOperator::transactional)
+                .flatMap(deleted -> deleted == 0 ? Mono.error(notFound(id)) : Mono.just(deleted))
+                .doOnNext(deleted -> eventPublisher.publishEvent(BookChangedEvent.deleted(id)))
+                .then();
+    }
+
+    @Override
+    public Mono<BookDto> markAsDiscontinued(Long id) {
+        return iBookReactiveRepository.discontinue(id)
+                .flatMap(updated -> readBackUpdated(id, updated, null))
+                .as(transactionalOperator::transactional)
+                .doOnNext(updated -> eventPublisher.publishEvent(BookChangedEvent.updated(updated)));
+    }
+
+    @Override
+    public Flux<BookDto> getBooksByStatus(Status status, Long afterId, Integer size) {
+        int pageSize = resolvePageSize(size);
+        return iBookReactiveRepository.findPageByStatus(status.name(), afterId == null ? 0L : afterId, pageSize)
+                .map(bookMapper::toDto);
+    }
+
+    @Override
+    public Flux<BookDto> searchBooks(String query, Integer limit) {
+        if (query == null || query.isBlank())
+            return Flux.error(new BadRequestException("Search query must not be empty"));
+
+        // The index is in memory, only the rows themselves come from the database
+        long[] ids = bookSearchIndex.search(query, resolvePageSize(limit));
+        if (ids.length == 0)
+            return Flux.empty();
+        List<Long> idList = new ArrayList<>(ids.length);
+        for (long id : ids)
+            idList.add(id);
+
+        // Keep the ranking of the index, skipping rows deleted since they were scored
+        return iBookReactiveRepository.findBooksById(idList)
+                .collectMap(BookRow::getId)
+                .flatMapIterable(books -> {
+                    List<BookDto> result = new ArrayList<>(ids.length);
+                    for (long id : ids) {
+                        BookRow book = books.get(id);
+                        if (book != null)
+                            result.add(bookMapper.toDto(book));
+                    }
+                    return result;
+                });
+    }
+
+    // An UPDATE that matched nothing is told apart into missing and stale only off the happy path
+    private Mono<BookDto> readBackUpdated(Long id, int updated, Long expectedVersion) {
+        if (updated > 0)
+            return iBookReactiveRepository.findBookById(id).map(bookMapper::toDto);
+        if (expectedVersion == null)
+            return Mono.error(notFound(id));
+        return iBookReactiveRepository.countById(id)
+                .flatMap(count -> Mono.error(count > 0
+                        ? new ConflictException("Book " + id + " was modified concurrently, expected version " + expectedVersion)
+                        : notFound(id)));
+    }
+
+    private ResourceNotFoundException notFound(Long id) {
+        return new ResourceNotFoundException("Book not found with id " + id);
+    }
+
+    private int resolvePageSize(Integer requested) {
+        if (requested == null)
+            return paginationProperties.getDefaultPageSize();
+        if (requested < 1 || requested > paginationProperties.getMaxPageSize())
+            throw new BadRequestException("Page size must be between 1 and " + paginationProperties.getMaxPageSize());
+        return requested;
+    }
+
+}
@@ -1,90 +1,315 @@
 package com.mhf.bookstore.service.impl.book;
 
+import com.mhf.bookstore.cache.book.BookCache;
+import com.mhf.bookstore.cache.book.CatalogVersion;
+import com.mhf.bookstore.coalesce.book.BookReadFlights;
+import com.mhf.bookstore.config.PaginationProperties;
+import com.mhf.bookstore.dao.book.BookSpecifications;
 import com.mhf.bookstore.dao.book.IBookRepository;
+import com.mhf.bookstore.dto.book.BookAuthorStatsDto;
+import com.mhf.bookstore.dto.book.BookCacheStatsDto;
+import com.mhf.bookstore.dto.book.BookCatalogStatsDto;
 import com.mhf.bookstore.dto.book.BookDto;
+import com.mhf.bookstore.dto.book.BookFilterDto;
+import com.mhf.bookstore.dto.book.BookPatchDto;
+import com.mhf.bookstore.dto.page.CursorPage;
+import com.mhf.bookstore.dto.page.CursorPageRequest;
+import com.mhf.bookstore.event.book.BookChangedEvent;
+import com.mhf.bookstore.exception.BadRequestException;
+import com.mhf.bookstore.exception.ConflictException;
 import com.mhf.bookstore.exception.ResourceNotFoundException;
 import com.mhf.bookstore.mapper.book.BookMapper;
 import com.mhf.bookstore.model.book.Book;
 import com.mhf.bookstore.model.book.Status;
+import com.mhf.bookstore.search.book.BookSearchIndex;
 import com.mhf.bookstore.service.book.IBookService;
-import jakarta.transaction.Transactional;
+import com.mhf.bookstore.stats.book.BookStatistics;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
+@Timed(value = "bookstore.service", histogram = true)
 @Transactional
 public class BookServiceImpl implements IBookService {
 
     private IBookRepository iBookRepository;
     private BookMapper bookMapper;
+    private PaginationProperties paginationProperties;
+    private ApplicationEventPublisher eventPublisher;
+    private BookSearchIndex bookSearchIndex;
+    private BookCache bookCache;
+    private CatalogVersion catalogVersion;
+    private BookStatistics bookStatistics;
+    private BookReadFlights bookReadFlights;
+    private TransactionTemplate readOnlyTransaction;
 
     @Autowired
-    public BookServiceImpl(IBookRepository iBookRepository, BookMapper bookMapper) {
+    public BookServiceImpl(IBookRepository iBookRepository, BookMapper bookMapper, PaginationProperties paginationProperties,
+                           ApplicationEventPublisher eventPublisher, BookSearchIndex bookSearchIndex, BookCache bookCache,
+                           CatalogVersion catalogVersion, BookStatistics bookStatistics, BookReadFlights bookReadFlights,
+                           PlatformTransactionManager transactionManager) {
         this.iBookRepository = iBookRepository;
         this.bookMapper = bookMapper;
+        this.paginationProperties = paginationProperties;
+        this.eventPublisher = eventPublisher;
+        this.bookSearchIndex = bookSearchIndex;
+        this.bookCache = bookCache;
+        this.catalogVersion = catalogVersion;
+        this.bookStatistics = bookStatistics;
+        this.bookReadFlights = bookReadFlights;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
     }
 
     @Override
     public BookDto createBook(BookDto bookDto) {
         Book book = bookMapper.toEntity(bookDto);
+        // The version is owned by Hibernate, a client supplied one would turn the insert into a merge
+        book.setVersion(null);
         // Default status if not provided
         if (book.getStatus() == null)
             book.setStatus(Status.AVAILABLE);
         Book savedEntity = iBookRepository.save(book);
-        return bookMapper.toDto(savedEntity);
+        BookDto created = bookMapper.toDto(savedEntity);
+        eventPublisher.publishEvent(BookChangedEvent.created(created));
+        return created;
     }
 
+    // No transaction of its own: cache hits must not take a connection from the pool
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public BookDto getBookById(Long id) {
-        Book book = iBookRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Book not found with id " + id));
-        return bookMapper.toDto(book);
+        BookDto book = bookCache.get(id, key -> iBookRepository.findDtoById(key).orElse(null));
+        if (book == null)
+            throw new ResourceNotFoundException("Book not found with id " + id);
+        return book;
+    }
+
+    // A cached book answers without a connection, otherwise only the version column is read
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Long getBookVersion(Long id) {
+        BookDto cached = bookCache.getIfPresent(id);
+        if (cached != null)
+            return cached.getVersion();
+        return iBookRepository.findVersionById(id).orElse(null);
+    }
+
+    // Reads select into BookDto and run read-only: Hibernate skips flushing and dirty checking altogether
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<BookDto> listBooks(CursorPageRequest pageRequest) {
+        BookCursor cursor = BookCursor.resolve(pageRequest.getCursor(), pageRequest.getSort());
+        int pageSize = resolvePageSize(pageRequest.getSize());
+
+        Window<BookDto> window = iBookRepository.findDtoBy(cursor.position(), cursor.sort(), Limit.of(pageSize));
+        Long total = pageRequest.isIncludeTotal() ? iBookRepository.count() : null;
+
+        return toPage(window, cursor, total);
     }
 
+    // Nothing enters the persistence context, so memory stays flat for any catalog size
     @Override
-    public List<BookDto> listAllBooks() {
-        return bookMapper.toDtoList(iBookRepository.findAll());
+    @Transactional(readOnly = true)
+    public void exportBooks(Consumer<BookDto> consumer) {
+        try (Stream<BookDto> books = iBookRepository.streamAllDtos()) {
+            books.forEach(consumer);
+        }
     }
 
     @Override
     public BookDto updateBook(Long id, BookDto bookDto) {
         Book existingBook = iBookRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Book not found with id " + id));
+        // A stale version means the client edited a representation someone else has changed since
+        if (bookDto.getVersion() != null && !bookDto.getVersion().equals(existingBook.getVersion()))
+            throw new ConflictException("Book " + id + " was modified concurrently, expected version "
+                    + bookDto.getVersion() + " but found " + existingBook.getVersion());
 
         existingBook.setTitle(bookDto.getTitle());
         existingBook.setAuthor(bookDto.getAuthor());
         existingBook.setPrice(bookDto.getPrice());
         existingBook.setStatus(bookDto.getStatus());
 
-        Book updated = iBookRepository.save(existingBook);
-        return bookMapper.toDto(updated);
+        // Flush now so the returned representation carries the incremented version
+        Book updated = iBookRepository.saveAndFlush(existingBook);
+        BookDto updatedDto = bookMapper.toDto(updated);
+        eventPublisher.publishEvent(BookChangedEvent.updated(updatedDto));
+        return updatedDto;
+    }
+
+    @Override
+    public BookDto patchBook(Long id, BookPatchDto patch, Long expectedVersion) {
+        int updated = iBookRepository.patch(id, expectedVersion, patch.getTitle(), patch.getAuthor(),
+                patch.getPrice(), patch.getStatus());
+        if (updated == 0)
+            throw notFoundOrConflict(id, expectedVersion);
+
+        BookDto patched = bookMapper.toDto(iBookRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Book not found with id " + id)));
+        eventPublisher.publishEvent(BookChangedEvent.updated(patched));
+        return patched;
     }
 
     @Override
     public void deleteBook(Long id) {
-        Book existingBook = iBookRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Book not found with id " + id));
-        iBookRepository.delete(existingBook);
+        if (iBookRepository.deleteBookById(id) == 0)
+            throw new ResourceNotFoundException("Book not found with id " + id);
+        eventPublisher.publishEvent(BookChangedEvent.deleted(id));
     }
 
     @Override
     public BookDto markAsDiscontinued(Long id) {
-        Book existingBook = iBookRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Book not found with id " + id));
-        existingBook.setStatus(Status.DISCONTINUED);
-        Book update = iBookRepository.save(existingBook);
-        return bookMapper.toDto(update);
+        discontinue(id);
+        BookDto updatedDto = bookMapper.toDto(iBookRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Book not found with id " + id)));
+        eventPublisher.publishEvent(BookChangedEvent.updated(updatedDto));
+        return updatedDto;
+    }
+
+    @Override
+    public void discontinueBook(Long id) {
+        discontinue(id);
+        eventPublisher.publishEvent(BookChangedEvent.updated(id, Status.DISCONTINUED));
     }
 
+    // Identical concurrent requests share one load; only the caller running it opens a transaction
     @Override
-    public List<BookDto> getBooksByStatus(Status status) {
-        return this.listAllBooks()
-                .stream()
-                .filter(b -> b.getStatus() == status)
-                .collect(Collectors.toList());
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public CursorPage<BookDto> getBooksByStatus(Status status, CursorPageRequest pageRequest) {
+        BookCursor cursor = BookCursor.resolve(pageRequest.getCursor(), pageRequest.getSort());
+        int pageSize = resolvePageSize(pageRequest.getSize());
+
+        BookReadFlights.StatusPageKey key = new BookReadFlights.StatusPageKey(status, pageRequest.getCursor(),
+                pageRequest.getSort(), pageSize, pageRequest.isIncludeTotal(), catalogVersion.current());
+        return bookReadFlights.statusPages().execute(key, () -> readOnlyTransaction.execute(tx -> {
+            Window<BookDto> window = iBookRepository.findDtoByStatus(status, cursor.position(), cursor.sort(), Limit.of(pageSize));
+            Long total = pageRequest.isIncludeTotal() ? iBookRepository.countByStatus(status) : null;
+            return toPage(window, cursor, total);
+        }));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<BookDto> filterBooks(BookFilterDto filter, CursorPageRequest pageRequest) {
+        if (filter.getMinPrice() != null && filter.getMaxPrice() != null && filter.getMinPrice() > filter.getMaxPrice())
+            throw new BadRequestException("Minimum price must not exceed maximum price");
+        BookCursor cursor = BookCursor.resolve(pageRequest.getCursor(), pageRequest.getSort());
+        int pageSize = resolvePageSize(pageRequest.getSize());
+
+        Specification<Book> specification = BookSpecifications.matching(filter);
+        Window<BookDto> window = iBookRepository.findBy(specification, query -> query.as(BookDto.class)
+                .sortBy(cursor.sort())
+                .limit(pageSize)
+                .scroll(cursor.position()));
+        Long total = pageRequest.isIncludeTotal() ? iBookRepository.count(specification) : null;
+
+        return toPage(window, cursor, total);
+    }
+
+    // A single query, run outside a transaction by the one caller of a group of identical searches
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<BookDto> searchBooks(String query, Integer limit) {
+        if (query == null || query.isBlank())
+            throw new BadRequestException("Search query must not be empty");
+
+        int pageSize = resolvePageSize(limit);
+        BookReadFlights.SearchKey key = new BookReadFlights.SearchKey(query, pageSize, catalogVersion.current());
+        return bookReadFlights.searches().execute(key, () -> search(query, pageSize));
+    }
+
+    private List<BookDto> search(String query, int limit) {
+        long[] ids = bookSearchIndex.search(query, limit);
+        if (ids.length == 0)
+            return new ArrayList<>();
+
+        List<Long> idList = new ArrayList<>(ids.length);
+        for (long id : ids)
+            idList.add(id);
+        Map<Long, BookDto> books = new HashMap<>();
+        for (BookDto book : iBookRepository.findDtoByIdIn(idList))
+            books.put(book.getId(), book);
+
+        // Keep the ranking of the index, skipping rows deleted since they were scored
+        List<BookDto> result = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            BookDto book = books.get(id);
+            if (book != null)
+                result.add(book);
+        }
+        return result;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public long getCatalogVersion() {
+        return catalogVersion.current();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public BookCacheStatsDto getCacheStats() {
+        return bookCache.stats();
+    }
+
+    // Served from memory, the table is only read by the periodic reconciliation
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public BookCatalogStatsDto getCatalogStats() {
+        return bookStatistics.getStats();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public BookAuthorStatsDto getAuthorStats(String author) {
+        if (author == null || author.isBlank())
+            throw new BadRequestException("Author name must not be blank");
+        return bookStatistics.getAuthorStats(author.trim());
+    }
+
+    private void discontinue(Long id) {
+        if (iBookRepository.updateStatus(id, Status.DISCONTINUED) == 0)
+            throw new ResourceNotFoundException("Book not found with id " + id);
+    }
+
+    // Only called once an UPDATE matched nothing, so the extra query stays off the happy path
+    private RuntimeException notFoundOrConflict(Long id, Long expectedVersion) {
+        if (expectedVersion != null && iBookRepository.existsById(id))
+            return new ConflictException("Book " + id + " was modified concurrently, expected version " + expectedVersion);
+        return new ResourceNotFoundException("Book not found with id " + id);
+    }
+
+    private CursorPage<BookDto> toPage(Window<BookDto> window, BookCursor cursor, Long total) {
+        String nextCursor = null;
+        if (window.hasNext())
+            nextCursor = cursor.after(window.getContent().get(window.size() - 1)).encode();
+        return new CursorPage<>(window.getContent(), window.hasNext(), nextCursor, total);
+    }
+
+    private int resolvePageSize(Integer requested) {
+        if (requested == null)
+            return paginationProperties.getDefaultPageSize();
+        if (requested < 1 || requested > paginationProperties.getMaxPageSize())
+            throw new BadRequestException("Page size must be between 1 and " + paginationProperties.getMaxPageSize());
+        return requested;
     }
 
 }
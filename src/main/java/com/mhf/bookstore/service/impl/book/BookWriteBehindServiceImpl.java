@@ -0,0 +1,51 @@
+package com.mhf.bookstore.service.impl.book;
+
+import com.mhf.bookstore.dto.book.BookDto;
+import com.mhf.bookstore.dto.bulk.BookBulkOperationDto;
+import com.mhf.bookstore.dto.bulk.BulkOperationType;
+import com.mhf.bookstore.dto.bulk.WriteBehindReceiptDto;
+import com.mhf.bookstore.dto.bulk.WriteBehindStatusDto;
+import com.mhf.bookstore.journal.book.BookWriteBehind;
+import com.mhf.bookstore.service.book.IBookWriteBehindService;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Creates and updates acknowledged once journaled by {@link BookWriteBehind} and applied later like bulk
+ * operations. Updates are last-writer-wins: a version sent with the book is not checked.
+ */
+@Service
+@Timed(value = "bookstore.service", histogram = true)
+public class BookWriteBehindServiceImpl implements IBookWriteBehindService {
+
+    private BookWriteBehind bookWriteBehind;
+
+    @Autowired
+    public BookWriteBehindServiceImpl(BookWriteBehind bookWriteBehind) {
+        this.bookWriteBehind = bookWriteBehind;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return bookWriteBehind.isEnabled();
+    }
+
+    @Override
+    public WriteBehindReceiptDto createBook(BookDto bookDto) {
+        BookDto book = new BookDto(bookDto.getTitle(), bookDto.getAuthor(), bookDto.getPrice(), bookDto.getStatus());
+        return new WriteBehindReceiptDto(bookWriteBehind.accept(new BookBulkOperationDto(BulkOperationType.CREATE, null, book)));
+    }
+
+    @Override
+    public WriteBehindReceiptDto updateBook(Long id, BookDto bookDto) {
+        BookDto book = new BookDto(id, bookDto.getTitle(), bookDto.getAuthor(), bookDto.getPrice(), bookDto.getStatus());
+        return new WriteBehindReceiptDto(bookWriteBehind.accept(new BookBulkOperationDto(BulkOperationType.UPDATE, id, book)));
+    }
+
+    @Override
+    public WriteBehindStatusDto getStatus() {
+        return bookWriteBehind.getStatus();
+    }
+
+}
@@ -0,0 +1,234 @@
+package com.mhf.bookstore.stats.book;
+
+import com.mhf.bookstore.config.StatsProperties;
+import com.mhf.bookstore.dao.book.BookStatusAggregate;
+import com.mhf.bookstore.dao.book.IBookRepository;
+import com.mhf.bookstore.dto.book.BookAuthorStatsDto;
+import com.mhf.bookstore.dto.book.BookCatalogStatsDto;
+import com.mhf.bookstore.dto.book.BookDto;
+import com.mhf.bookstore.event.book.BookChangedEvent;
+import com.mhf.bookstore.model.book.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Catalog statistics kept in memory, so that reading them never touches the table.
+ * <p>
+ * Built from the table once the application is ready and kept current from committed {@link BookChangedEvent}s,
+ * like the search index. Set-based updates do not say which books changed and trigger a rebuild in the
+ * background instead, delayed by {@code bookstore.stats.rebuild-delay} so that a burst of them shares one scan.
+ * A scheduled reconciliation compares the numbers with a {@code GROUP BY} over the table and rebuilds when they
+ * drifted apart.
+ */
+@Component
+public class BookStatistics {
+
+    private static final Logger log = LoggerFactory.getLogger(BookStatistics.class);
+
+    // Sums are accumulated in a different order than the database adds them up
+    private static final double AVERAGE_PRICE_TOLERANCE = 1e-6;
+
+    private final Lock lock = new ReentrantLock();
+    private final Lock rebuildLock = new ReentrantLock();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+
+    private IBookRepository iBookRepository;
+    private TransactionTemplate transactionTemplate;
+    private TaskScheduler taskScheduler;
+    private Duration rebuildDelay;
+    private Counter reconciledCounter;
+    private Counter driftCounter;
+
+    private CatalogAggregates aggregates = new CatalogAggregates();
+    private List<BookChangedEvent> changesDuringRebuild;
+    private volatile BookCatalogStatsDto current = aggregates.snapshot();
+
+    @Autowired
+    public BookStatistics(IBookRepository iBookRepository, PlatformTransactionManager transactionManager,
+                          TaskScheduler taskScheduler, StatsProperties properties, MeterRegistry meterRegistry) {
+        this.iBookRepository = iBookRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.taskScheduler = taskScheduler;
+        this.rebuildDelay = properties.getRebuildDelay();
+        this.reconciledCounter = Counter.builder("bookstore.stats.reconciliations")
+                .description("Reconciliations of the catalog statistics against the table")
+                .tag("result", "consistent")
+                .register(meterRegistry);
+        this.driftCounter = Counter.builder("bookstore.stats.reconciliations")
+                .description("Reconciliations of the catalog statistics against the table")
+                .tag("result", "drift")
+                .register(meterRegistry);
+    }
+
+    public BookCatalogStatsDto getStats() {
+        return current;
+    }
+
+    public BookAuthorStatsDto getAuthorStats(String author) {
+        CatalogAggregates target;
+        lock.lock();
+        try {
+            target = aggregates;
+        } finally {
+            lock.unlock();
+        }
+        return new BookAuthorStatsDto(author, target.authorBooks(author));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            long start = System.nanoTime();
+            lock.lock();
+            try {
+                changesDuringRebuild = new ArrayList<>();
+            } finally {
+                lock.unlock();
+            }
+
+            CatalogAggregates fresh = new CatalogAggregates();
+            boolean replayedBulkChange = false;
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    try (Stream<BookDto> books = iBookRepository.streamAllDtos()) {
+                        books.forEach(book -> fresh.put(book.getId(), book.getAuthor(), book.getStatus(), book.getPrice()));
+                    }
+                });
+            } finally {
+                lock.lock();
+                try {
+                    for (BookChangedEvent event : changesDuringRebuild)
+                        replayedBulkChange |= !apply(fresh, event);
+                    aggregates = fresh;
+                    current = fresh.snapshot();
+                    changesDuringRebuild = null;
+                } finally {
+                    lock.unlock();
+                }
+            }
+            // The scan may or may not have seen a set-based update that committed meanwhile
+            if (replayedBulkChange)
+                scheduleRebuild();
+            log.info("Catalog statistics built over {} books in {} ms", fresh.size(), (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        boolean applied;
+        lock.lock();
+        try {
+            applied = apply(aggregates, event);
+            current = aggregates.snapshot();
+            if (changesDuringRebuild != null)
+                changesDuringRebuild.add(event);
+        } finally {
+            lock.unlock();
+        }
+        if (!applied)
+            scheduleRebuild();
+    }
+
+    /**
+     * Compares the in-memory numbers with the table and rebuilds them if they differ. Writes committing while
+     * the query runs can make both sides differ for a moment; that only costs an unnecessary rebuild.
+     */
+    @Scheduled(initialDelayString = "${bookstore.stats.reconcile-interval}",
+            fixedDelayString = "${bookstore.stats.reconcile-interval}")
+    public void reconcile() {
+        List<BookStatusAggregate> rows = transactionTemplate.execute(status -> iBookRepository.aggregateByStatus());
+        String drift = compare(current, rows);
+        if (drift == null) {
+            reconciledCounter.increment();
+            return;
+        }
+        driftCounter.increment();
+        log.warn("Catalog statistics drifted from the table ({}), rebuilding", drift);
+        rebuild();
+    }
+
+    private void scheduleRebuild() {
+        if (rebuildScheduled.compareAndSet(false, true))
+            taskScheduler.schedule(() -> {
+                rebuildScheduled.set(false);
+                rebuild();
+            }, Instant.now().plus(rebuildDelay));
+    }
+
+    // Returns false for set-based updates, which cannot be applied per book
+    private static boolean apply(CatalogAggregates target, BookChangedEvent event) {
+        if (event.getId() == null)
+            return false;
+        if (event.getType() == BookChangedEvent.Type.DELETED) {
+            target.remove(event.getId());
+        } else if (event.getBook() != null) {
+            BookDto book = event.getBook();
+            target.put(book.getId(), book.getAuthor(), book.getStatus(), book.getPrice());
+        } else if (event.getStatus() != null) {
+            target.setStatus(event.getId(), event.getStatus());
+        }
+        return true;
+    }
+
+    private static String compare(BookCatalogStatsDto stats, List<BookStatusAggregate> rows) {
+        long books = 0;
+        long pricedBooks = 0;
+        double priceSum = 0;
+        Double minPrice = null;
+        Double maxPrice = null;
+        Map<Status, Long> byStatus = new EnumMap<>(Status.class);
+        for (Status status : Status.values())
+            byStatus.put(status, 0L);
+        for (BookStatusAggregate row : rows) {
+            books += row.getBooks();
+            if (row.getStatus() != null)
+                byStatus.put(row.getStatus(), row.getBooks());
+            if (row.getPricedBooks() > 0) {
+                pricedBooks += row.getPricedBooks();
+                priceSum += row.getPriceSum();
+                minPrice = minPrice == null ? row.getMinPrice() : Math.min(minPrice, row.getMinPrice());
+                maxPrice = maxPrice == null ? row.getMaxPrice() : Math.max(maxPrice, row.getMaxPrice());
+            }
+        }
+
+        if (books != stats.getBooks())
+            return "books " + stats.getBooks() + " vs " + books;
+        if (!byStatus.equals(stats.getBooksByStatus()))
+            return "statuses " + stats.getBooksByStatus() + " vs " + byStatus;
+        if (pricedBooks == 0)
+            return stats.getMinPrice() == null ? null : "prices present vs none";
+        if (!maxPrice.equals(stats.getMaxPrice()) || !minPrice.equals(stats.getMinPrice()))
+            return "price range " + stats.getMinPrice() + ".." + stats.getMaxPrice() + " vs " + minPrice + ".." + maxPrice;
+        double averagePrice = priceSum / pricedBooks;
+        if (Math.abs(averagePrice - stats.getAveragePrice()) > AVERAGE_PRICE_TOLERANCE * Math.max(1, Math.abs(averagePrice)))
+            return "average price " + stats.getAveragePrice() + " vs " + averagePrice;
+        return null;
+    }
+
+}
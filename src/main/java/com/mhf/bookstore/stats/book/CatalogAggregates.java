@@ -0,0 +1,107 @@
+package com.mhf.bookstore.stats.book;
+
+import com.mhf.bookstore.dto.book.BookCatalogStatsDto;
+import com.mhf.bookstore.model.book.Status;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counts per status and author plus price aggregates over a set of books, maintained per change.
+ * <p>
+ * Keeps the author, status and price of every book so that an update or delete can take back exactly what the
+ * book contributed before. Prices are held as a multiset, so the minimum and maximum stay correct when the
+ * cheapest or most expensive book goes away. Not thread-safe for writers; {@link #authorBooks} may be called
+ * concurrently with them.
+ */
+public class CatalogAggregates {
+
+    private record Entry(String author, Status status, Double price) {
+    }
+
+    private final Map<Long, Entry> books = new HashMap<>();
+    private final EnumMap<Status, Long> booksByStatus = new EnumMap<>(Status.class);
+    private final Map<String, Long> booksByAuthor = new ConcurrentHashMap<>();
+    private final TreeMap<Double, Integer> prices = new TreeMap<>();
+    private int pricedBooks;
+    private double priceSum;
+
+    public void put(long id, String author, Status status, Double price) {
+        remove(id);
+        Entry entry = new Entry(author == null ? null : author.toLowerCase(Locale.ROOT), status, price);
+        books.put(id, entry);
+        add(entry);
+    }
+
+    /**
+     * Changes the status of a known book, the other values stay; unknown ids are ignored.
+     */
+    public void setStatus(long id, Status status) {
+        Entry entry = books.get(id);
+        if (entry != null)
+            put(id, entry.author(), status, entry.price());
+    }
+
+    public void remove(long id) {
+        Entry entry = books.remove(id);
+        if (entry == null)
+            return;
+        if (entry.status() != null)
+            booksByStatus.merge(entry.status(), -1L, Long::sum);
+        if (entry.author() != null)
+            booksByAuthor.computeIfPresent(entry.author(), (author, count) -> count == 1 ? null : count - 1);
+        if (entry.price() != null) {
+            prices.computeIfPresent(entry.price(), (price, count) -> count == 1 ? null : count - 1);
+            priceSum -= entry.price();
+            pricedBooks--;
+        }
+    }
+
+    public int size() {
+        return books.size();
+    }
+
+    // Case-insensitive, like the author criteria of the filter and bulk APIs
+    public long authorBooks(String author) {
+        return booksByAuthor.getOrDefault(author.toLowerCase(Locale.ROOT), 0L);
+    }
+
+    public long statusBooks(Status status) {
+        return booksByStatus.getOrDefault(status, 0L);
+    }
+
+    public int pricedBooks() {
+        return pricedBooks;
+    }
+
+    public double priceSum() {
+        return priceSum;
+    }
+
+    public BookCatalogStatsDto snapshot() {
+        Map<Status, Long> byStatus = new EnumMap<>(Status.class);
+        for (Status status : Status.values())
+            byStatus.put(status, statusBooks(status));
+        if (pricedBooks == 0)
+            return new BookCatalogStatsDto(books.size(), byStatus, booksByAuthor.size(), null, null, null);
+        return new BookCatalogStatsDto(books.size(), byStatus, booksByAuthor.size(), priceSum / pricedBooks,
+                prices.firstKey(), prices.lastKey());
+    }
+
+    private void add(Entry entry) {
+        if (entry.status() != null)
+            booksByStatus.merge(entry.status(), 1L, Long::sum);
+        if (entry.author() != null)
+            booksByAuthor.merge(entry.author(), 1L, Long::sum);
+        if (entry.price() != null) {
+            prices.merge(entry.price(), 1, Integer::sum);
+            priceSum += entry.price();
+            pricedBooks++;
+        }
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.mhf.bookstore.analytics;
+
+import com.mhf.bookstore.analytics.book.CatalogColumns;
+import com.mhf.bookstore.model.book.Status;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogColumnsTest {
+
+    private CatalogColumns columns;
+
+    @BeforeEach
+    public void setUp() {
+        columns = new CatalogColumns();
+        columns.put(1L, "Joshua Bloch", Status.AVAILABLE, 10.0);
+        columns.put(2L, "Brian Goetz", Status.AVAILABLE, 20.0);
+        columns.put(3L, "joshua bloch", Status.OUT_OF_STOCK, 30.0);
+        columns.put(4L, "Robert Martin", Status.AVAILABLE, 40.0);
+        columns.put(5L, "Robert Martin", Status.AVAILABLE, null);
+    }
+
+    @Test
+    public void testHistogram_lastBucketIncludesMax() {
+        assertArrayEquals(new long[]{1, 1, 2}, columns.histogram(null, null, 10, 40, 3));
+        assertArrayEquals(new long[]{1, 1, 1}, columns.histogram(Status.AVAILABLE, null, 10, 40, 3));
+    }
+
+    @Test
+    public void testCountInRange_filtersByStatusAndAuthor() {
+        assertEquals(4, columns.countInRange(null, null, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY));
+        assertEquals(2, columns.countInRange(null, null, 15, 35));
+        assertEquals(2, columns.countInRange(null, "JOSHUA BLOCH", 0, 100));
+        assertEquals(1, columns.countInRange(Status.AVAILABLE, "joshua bloch", 0, 100));
+        assertEquals(0, columns.countInRange(null, "Unknown", 0, 100));
+    }
+
+    @Test
+    public void testWrites_areVisibleToScans() {
+        columns.put(2L, "Brian Goetz", Status.AVAILABLE, 35.0);
+        columns.setStatus(4L, Status.DISCONTINUED);
+        columns.remove(1L);
+
+        assertEquals(4, columns.size());
+        assertEquals(1, columns.countInRange(Status.AVAILABLE, null, 0, 100));
+        double[] prices = columns.prices(null, null);
+        Arrays.sort(prices);
+        assertArrayEquals(new double[]{30.0, 35.0, 40.0}, prices);
+    }
+
+    @Test
+    public void testPut_outOfOrderIdsAndReinsert() {
+        columns.put(10L, "A", Status.AVAILABLE, 1.0);
+        columns.put(7L, "B", Status.AVAILABLE, 2.0);
+        columns.remove(3L);
+        columns.put(3L, "C", Status.AVAILABLE, 3.0);
+
+        assertEquals(7, columns.size());
+        assertEquals(1, columns.countInRange(null, "b", 0, 100));
+        assertEquals(3, columns.countInRange(null, null, 0, 3));
+    }
+
+    @Test
+    public void testParallelScans_matchSequentialResultAfterCompaction() {
+        columns = new CatalogColumns();
+        int books = 100_000;
+        long expected = 0;
+        for (int id = 1; id <= books; id++)
+            columns.put(id, "Author " + id % 100, id % 3 == 0 ? Status.OUT_OF_STOCK : Status.AVAILABLE, (double) (id % 50));
+        for (int id = 1; id <= books; id++) {
+            if (id % 4 != 0)
+                columns.remove(id);
+            else if (id % 3 != 0 && id % 50 < 25)
+                expected++;
+        }
+
+        assertEquals(books / 4, columns.size());
+        assertEquals(expected, columns.countInRange(Status.AVAILABLE, null, 0, 24));
+        assertEquals(books / 4, Arrays.stream(columns.histogram(null, null, 0, 49, 7)).sum());
+        assertEquals(books / 4, columns.prices(null, null).length);
+    }
+
+}
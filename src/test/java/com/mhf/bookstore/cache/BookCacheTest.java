@@ -0,0 +1,105 @@
+package com.mhf.bookstore.cache;
+
+import com.mhf.bookstore.cache.book.BookCache;
+import com.mhf.bookstore.config.BookCacheProperties;
+import com.mhf.bookstore.dto.book.BookCacheStatsDto;
+import com.mhf.bookstore.dto.book.BookDto;
+import com.mhf.bookstore.event.book.BookChangedEvent;
+import com.mhf.bookstore.model.book.Status;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookCacheTest {
+
+    private BookCache bookCache;
+    private BookDto bookDto;
+
+    @BeforeEach
+    public void setUp() {
+        bookCache = new BookCache(new BookCacheProperties());
+        bookDto = new BookDto(1L, "The Best Book", "Mammad", 24.0, Status.AVAILABLE);
+    }
+
+    @Test
+    public void testGet_loadsOnceThenHits() {
+        AtomicInteger loads = new AtomicInteger();
+
+        bookCache.get(1L, id -> {
+            loads.incrementAndGet();
+            return bookDto;
+        });
+        BookDto cached = bookCache.get(1L, id -> {
+            loads.incrementAndGet();
+            return bookDto;
+        });
+
+        assertSame(bookDto, cached);
+        assertEquals(1, loads.get());
+        BookCacheStatsDto stats = bookCache.stats();
+        assertEquals(1, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+        assertEquals(1, stats.getSize());
+    }
+
+    @Test
+    public void testGet_doesNotCacheMissingBooks() {
+        assertNull(bookCache.get(99L, id -> null));
+        assertEquals(0, bookCache.stats().getSize());
+    }
+
+    @Test
+    public void testOnBookChanged_invalidates() {
+        bookCache.get(1L, id -> bookDto);
+
+        bookCache.onBookChanged(BookChangedEvent.updated(new BookDto(1L, "New", "Mammad", 24.0, Status.AVAILABLE)));
+
+        assertEquals("Reloaded", bookCache.get(1L, id -> new BookDto(1L, "Reloaded", "Mammad", 24.0, Status.AVAILABLE)).getTitle());
+    }
+
+    @Test
+    public void testInvalidate_duringLoadDoesNotLeaveStaleEntry() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // A reader that read the row before the writer committed
+        CompletableFuture<BookDto> staleRead = CompletableFuture.supplyAsync(() -> bookCache.get(1L, id -> {
+            loading.countDown();
+            await(release);
+            return bookDto;
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        // The writer's after-commit invalidation must not wait for the load, it may hold the connection the load needs
+        CompletableFuture.runAsync(() -> bookCache.invalidate(1L)).get(5, TimeUnit.SECONDS);
+        release.countDown();
+        assertSame(bookDto, staleRead.get(5, TimeUnit.SECONDS));
+
+        BookDto fresh = new BookDto(1L, "Updated", "Mammad", 24.0, Status.AVAILABLE);
+        assertSame(fresh, bookCache.get(1L, id -> fresh));
+    }
+
+    @Test
+    public void testGet_failedLoadIsNotCached() {
+        assertThrows(IllegalStateException.class, () -> bookCache.get(1L, id -> {
+            throw new IllegalStateException("database down");
+        }));
+
+        assertSame(bookDto, bookCache.get(1L, id -> bookDto));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
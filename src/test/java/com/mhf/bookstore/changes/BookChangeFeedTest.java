@@ -0,0 +1,143 @@
+package com.mhf.bookstore.changes;
+
+import com.mhf.bookstore.changes.book.BookChangeFeed;
+import com.mhf.bookstore.changes.book.BookChangeLog;
+import com.mhf.bookstore.changes.book.ChangeBuffer;
+import com.mhf.bookstore.config.ChangeLogProperties;
+import com.mhf.bookstore.dto.change.BookChangeOp;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class BookChangeFeedTest {
+
+    private final ChangeBuffer buffer = new ChangeBuffer(0, 1000, Duration.ofHours(1));
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private final CountDownLatch stalled = new CountDownLatch(1);
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    private volatile boolean blockNext;
+    private BookChangeFeed feed;
+
+    // Records the events each emitter was asked to send; a blocking one waits until released
+    private class RecordingEmitter extends SseEmitter {
+
+        private final boolean blocking;
+        private final List<String> events = new CopyOnWriteArrayList<>();
+
+        private RecordingEmitter(boolean blocking) {
+            this.blocking = blocking;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (blocking) {
+                try {
+                    stalled.await();
+                } catch (InterruptedException ex) {
+                    throw new IOException(ex);
+                }
+            }
+            events.add(builder.build().iterator().next().getData().toString());
+        }
+
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        stalled.countDown();
+        feed.destroy();
+    }
+
+    @Test
+    public void testSubscribe_stalledClientIsResetWithoutHoldingUpOthers() {
+        feed = newFeed(10);
+        blockNext = true;
+        feed.subscribe(0);
+        feed.subscribe(0);
+        RecordingEmitter stalledClient = (RecordingEmitter) emitters.get(0);
+        RecordingEmitter client = (RecordingEmitter) emitters.get(1);
+
+        // A burst larger than the queue reaches a client that keeps up
+        for (long id = 1; id <= 30; id++)
+            append(id);
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                assertEquals(30, client.events.stream().filter(event -> event.startsWith("id:")).count()));
+
+        // Once the stalled client has not taken a change for a heartbeat interval, the next change drops it
+        long[] next = {31};
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+            append(next[0]++);
+            assertEquals(1, feed.getSubscribers());
+        });
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                assertEquals(next[0] - 1, client.events.stream().filter(event -> event.startsWith("id:")).count()));
+
+        stalled.countDown();
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                assertTrue(stalledClient.events.stream().anyMatch(event -> event.startsWith("event:reset"))));
+    }
+
+    @Test
+    public void testSubscribe_belowTheFloorIsReset() {
+        feed = newFeed(10);
+        append(1);
+        feed.subscribe(-5);
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                assertTrue(((RecordingEmitter) emitters.get(0)).events.stream().anyMatch(event -> event.startsWith("event:reset"))));
+        assertEquals(0, feed.getSubscribers());
+    }
+
+    private BookChangeFeed newFeed(int subscriberBuffer) {
+        BookChangeLog changeLog = mock(BookChangeLog.class);
+        doAnswer(invocation -> listeners.add(invocation.getArgument(0))).when(changeLog).addListener(any());
+        when(changeLog.covers(anyLong())).thenAnswer(invocation -> {
+            synchronized (buffer) {
+                return buffer.covers(invocation.getArgument(0));
+            }
+        });
+        when(changeLog.since(anyLong(), anyInt())).thenAnswer(invocation -> {
+            synchronized (buffer) {
+                return buffer.since(invocation.getArgument(0), invocation.getArgument(1));
+            }
+        });
+        when(changeLog.getLastSequence()).thenAnswer(invocation -> {
+            synchronized (buffer) {
+                return buffer.getLastSequence();
+            }
+        });
+        ChangeLogProperties properties = new ChangeLogProperties();
+        properties.setSubscriberBuffer(subscriberBuffer);
+        properties.setHeartbeatInterval(Duration.ofMillis(200));
+        return new BookChangeFeed(changeLog, properties) {
+            @Override
+            protected SseEmitter newEmitter() {
+                SseEmitter emitter = new RecordingEmitter(blockNext);
+                blockNext = false;
+                emitters.add(emitter);
+                return emitter;
+            }
+        };
+    }
+
+    private void append(long id) {
+        synchronized (buffer) {
+            buffer.append(BookChangeOp.CREATE, id, null, null, Instant.now());
+        }
+        for (Runnable listener : listeners)
+            listener.run();
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.mhf.bookstore.changes;
+
+import com.mhf.bookstore.changes.book.BookChangeLog;
+import com.mhf.bookstore.config.ChangeLogProperties;
+import com.mhf.bookstore.dao.book.IBookRepository;
+import com.mhf.bookstore.dto.book.BookDto;
+import com.mhf.bookstore.dto.change.BookChangeDto;
+import com.mhf.bookstore.event.book.BookChangedEvent;
+import com.mhf.bookstore.model.book.Status;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class BookChangeLogTest {
+
+    private final TaskScheduler taskScheduler = mock(TaskScheduler.class);
+    private final BookChangeLog changeLog = new BookChangeLog(mock(IBookRepository.class),
+            mock(PlatformTransactionManager.class), taskScheduler, new ChangeLogProperties());
+
+    @Test
+    public void testOnBookChanged_snapshotOvertakenByANewerOneIsLeftOut() {
+        long start = changeLog.getLastSequence();
+
+        changeLog.onBookChanged(BookChangedEvent.created(book("First", 0L)));
+        // Committed in this order, but the listener of the later commit ran first
+        changeLog.onBookChanged(BookChangedEvent.updated(book("Third", 2L)));
+        changeLog.onBookChanged(BookChangedEvent.updated(book("Second", 1L)));
+
+        List<BookChangeDto> changes = changeLog.since(start, 10);
+        assertEquals(List.of("First", "Third"), changes.stream().map(change -> change.getBook().getTitle()).toList());
+        verify(taskScheduler).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    @Test
+    public void testOnBookChanged_newerSnapshotsAreLogged() {
+        long start = changeLog.getLastSequence();
+
+        changeLog.onBookChanged(BookChangedEvent.created(book("First", 0L)));
+        changeLog.onBookChanged(BookChangedEvent.updated(book("Second", 1L)));
+
+        assertEquals(2, changeLog.since(start, 10).size());
+        verifyNoInteractions(taskScheduler);
+    }
+
+    private static BookDto book(String title, Long version) {
+        return new BookDto(1L, title, "Author", 10.0, Status.AVAILABLE, version);
+    }
+
+}
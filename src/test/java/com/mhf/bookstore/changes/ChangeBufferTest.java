@@ -0,0 +1,110 @@
+package com.mhf.bookstore.changes;
+
+import com.mhf.bookstore.changes.book.ChangeBuffer;
+import com.mhf.bookstore.dto.book.BookDto;
+import com.mhf.bookstore.dto.change.BookChangeDto;
+import com.mhf.bookstore.dto.change.BookChangeOp;
+import com.mhf.bookstore.model.book.Status;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChangeBufferTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-01T00:00:00Z");
+
+    @Test
+    public void testSince_returnsLaterChangesInOrder() {
+        ChangeBuffer buffer = new ChangeBuffer(100, 10, Duration.ofHours(1));
+        buffer.append(BookChangeOp.CREATE, 1L, null, null, NOW);
+        buffer.append(BookChangeOp.DISCONTINUE, 1L, null, Status.DISCONTINUED, NOW);
+        buffer.append(BookChangeOp.DELETE, 2L, null, null, NOW);
+
+        List<BookChangeDto> changes = buffer.since(101, 10);
+
+        assertEquals(List.of(102L, 103L), changes.stream().map(BookChangeDto::getSequence).toList());
+        assertEquals(BookChangeOp.DISCONTINUE, changes.get(0).getOp());
+        assertEquals(Status.DISCONTINUED, changes.get(0).getStatus());
+        assertEquals(1, buffer.since(100, 1).size());
+        assertTrue(buffer.since(103, 10).isEmpty());
+        assertEquals(103, buffer.getLastSequence());
+    }
+
+    @Test
+    public void testCovers_onlySequencesBetweenFloorAndLast() {
+        ChangeBuffer buffer = new ChangeBuffer(100, 10, Duration.ofHours(1));
+        buffer.append(BookChangeOp.CREATE, 1L, null, null, NOW);
+
+        assertTrue(buffer.covers(100));
+        assertTrue(buffer.covers(101));
+        assertFalse(buffer.covers(99));
+        assertFalse(buffer.covers(102));
+    }
+
+    @Test
+    public void testAppend_compactsToTheNewestChangePerBook() {
+        ChangeBuffer buffer = new ChangeBuffer(0, 4, Duration.ofHours(1));
+        buffer.append(BookChangeOp.CREATE, 1L, null, null, NOW);
+        buffer.append(BookChangeOp.UPDATE, 1L, null, null, NOW);
+        buffer.append(BookChangeOp.CREATE, 2L, null, null, NOW);
+        buffer.append(BookChangeOp.UPDATE, 1L, null, null, NOW);
+        buffer.append(BookChangeOp.DELETE, 2L, null, null, NOW);
+
+        List<BookChangeDto> changes = buffer.since(0, 10);
+
+        assertEquals(List.of(4L, 5L), changes.stream().map(BookChangeDto::getSequence).toList());
+        assertEquals(BookChangeOp.DELETE, changes.get(1).getOp());
+        // Every consumer still reaches the same state
+        assertTrue(buffer.covers(0));
+    }
+
+    @Test
+    public void testAppend_compactionKeepsTheSnapshotOfAStatusOnlyChange() {
+        ChangeBuffer buffer = new ChangeBuffer(0, 3, Duration.ofHours(1));
+        buffer.append(BookChangeOp.CREATE, 1L, new BookDto(1L, "Kept", "Author", 10.0, Status.AVAILABLE, 0L), null, NOW);
+        buffer.append(BookChangeOp.DISCONTINUE, 1L, null, Status.DISCONTINUED, NOW);
+        buffer.append(BookChangeOp.CREATE, 2L, null, null, NOW);
+        buffer.append(BookChangeOp.DELETE, 2L, null, null, NOW);
+
+        List<BookChangeDto> changes = buffer.since(0, 10);
+
+        assertTrue(buffer.covers(0));
+        BookChangeDto discontinued = changes.get(0);
+        assertEquals(2, discontinued.getSequence());
+        assertEquals(BookChangeOp.DISCONTINUE, discontinued.getOp());
+        assertEquals(Status.DISCONTINUED, discontinued.getStatus());
+        assertEquals("Kept", discontinued.getBook().getTitle());
+        assertEquals(Status.DISCONTINUED, discontinued.getBook().getStatus());
+        assertEquals(1L, discontinued.getBook().getVersion());
+    }
+
+    @Test
+    public void testAppend_dropsTheOldestWhenCompactionIsNotEnough() {
+        ChangeBuffer buffer = new ChangeBuffer(0, 4, Duration.ofHours(1));
+        for (long id = 1; id <= 5; id++)
+            buffer.append(BookChangeOp.CREATE, id, null, null, NOW);
+
+        assertEquals(3, buffer.size());
+        assertEquals(2, buffer.getFloor());
+        assertFalse(buffer.covers(1));
+        assertEquals(3, buffer.since(2, 10).get(0).getSequence());
+    }
+
+    @Test
+    public void testAppend_dropsChangesPastRetention() {
+        ChangeBuffer buffer = new ChangeBuffer(0, 10, Duration.ofMinutes(1));
+        buffer.append(BookChangeOp.CREATE, 1L, null, null, NOW);
+        buffer.append(BookChangeOp.CREATE, 2L, null, null, NOW.plusSeconds(30));
+        buffer.append(BookChangeOp.CREATE, 3L, null, null, NOW.plusSeconds(90));
+
+        assertEquals(2, buffer.size());
+        assertFalse(buffer.covers(0));
+        assertTrue(buffer.covers(1));
+        assertEquals(List.of(2L, 3L), buffer.since(1, 10).stream().map(BookChangeDto::getSequence).toList());
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.mhf.bookstore.changes;
+
+import com.mhf.bookstore.changes.book.VersionIndex;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VersionIndexTest {
+
+    @Test
+    public void testPutMax_keepsTheNewestVersion() {
+        VersionIndex index = new VersionIndex();
+        index.putMax(5, 2);
+        index.putMax(1, 0);
+        index.putMax(5, 1);
+
+        assertEquals(2, index.get(5));
+        assertEquals(0, index.get(1));
+        assertEquals(VersionIndex.UNKNOWN, index.get(3));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    public void testRemove_forgetsTheBookUntilItIsPutAgain() {
+        VersionIndex index = new VersionIndex();
+        index.putMax(1, 3);
+        index.remove(1);
+        index.increment(1);
+
+        assertEquals(VersionIndex.UNKNOWN, index.get(1));
+        assertEquals(0, index.size());
+
+        index.putMax(1, 0);
+        index.increment(1);
+        assertEquals(1, index.get(1));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void testRemove_compactsOnceHalfIsRemoved() {
+        VersionIndex index = new VersionIndex();
+        for (long id = 0; id < 5000; id++)
+            index.putMax(id, id);
+        for (long id = 0; id < 5000; id += 2)
+            index.remove(id);
+        for (long id = 1; id < 5000; id += 4)
+            index.remove(id);
+
+        assertEquals(1250, index.size());
+        assertEquals(3, index.get(3));
+        assertEquals(VersionIndex.UNKNOWN, index.get(4));
+        index.putMax(4, 9);
+        assertEquals(9, index.get(4));
+    }
+
+}
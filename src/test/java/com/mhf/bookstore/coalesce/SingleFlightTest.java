@@ -0,0 +1,119 @@
+package com.mhf.bookstore.coalesce;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    private SingleFlight<String, String> flight;
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void setUp() {
+        flight = new SingleFlight<>("test");
+        executor = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testExecute_concurrentCallersShareOneLoad() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        List<Future<String>> results = startCallers("key", () -> {
+            loads.incrementAndGet();
+            block(release);
+            return "value";
+        });
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> flight.getCoalesced() == CALLERS - 1);
+        release.countDown();
+
+        for (Future<String> result : results)
+            assertEquals("value", result.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+        assertEquals(1, flight.getLoads());
+    }
+
+    @Test
+    public void testExecute_failureReachesEveryWaitingCaller() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<String>> results = startCallers("key", () -> {
+            block(release);
+            throw new IllegalStateException("boom");
+        });
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> flight.getCoalesced() == CALLERS - 1);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            ExecutionException ex = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, ex.getCause());
+        }
+    }
+
+    @Test
+    public void testExecute_nothingIsKeptOnceTheLoadFinished() {
+        AtomicInteger loads = new AtomicInteger();
+        assertNull(flight.execute("key", () -> {
+            loads.incrementAndGet();
+            return null;
+        }));
+        assertThrows(IllegalStateException.class, () -> flight.execute("key", () -> {
+            throw new IllegalStateException("boom");
+        }));
+        assertEquals("value", flight.execute("key", () -> "value"));
+
+        assertEquals(3, flight.getLoads());
+        assertEquals(0, flight.getCoalesced());
+    }
+
+    @Test
+    public void testExecute_differentKeysDoNotWait() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<String>> blocked = startCallers("slow", () -> {
+            block(release);
+            return "slow";
+        });
+
+        assertEquals("fast", flight.execute("fast", () -> "fast"));
+        release.countDown();
+        assertEquals("slow", blocked.get(0).get(5, TimeUnit.SECONDS));
+    }
+
+    private List<Future<String>> startCallers(String key, Supplier<String> loader) {
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++)
+            results.add(executor.submit(() -> flight.execute(key, loader)));
+        return results;
+    }
+
+    private static void block(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,31 @@
+package com.mhf.bookstore.config;
+
+import com.mhf.bookstore.dto.book.BookDto;
+import com.mhf.bookstore.dto.bulk.BookBulkOperationDto;
+import com.mhf.bookstore.dto.change.BookChangeDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NativeHintsConfigTest {
+
+    @Test
+    public void testRegisterHints_coversJacksonTypesAndJdbcProxies() throws Exception {
+        RuntimeHints hints = new RuntimeHints();
+        new NativeHintsConfig.BookStoreRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        assertTrue(RuntimeHintsPredicates.reflection().onType(BookChangeDto.class).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(BookBulkOperationDto.class.getMethod("getBook")).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(BookDto.class)
+                .withMemberCategory(MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS).test(hints));
+        assertTrue(RuntimeHintsPredicates.proxies().forInterfaces(Connection.class).test(hints));
+        assertTrue(RuntimeHintsPredicates.proxies().forInterfaces(PreparedStatement.class).test(hints));
+    }
+
+}
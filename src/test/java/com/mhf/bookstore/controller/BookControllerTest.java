@@ -2,19 +2,53 @@ package com.mhf.bookstore.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mhf.bookstore.controller.book.BookController;
+import com.mhf.bookstore.dto.analytics.PriceBucketDto;
+import com.mhf.bookstore.dto.analytics.PriceHistogramDto;
+import com.mhf.bookstore.dto.analytics.PricePercentilesDto;
+import com.mhf.bookstore.dto.book.BookAuthorStatsDto;
+import com.mhf.bookstore.dto.book.BookCacheStatsDto;
+import com.mhf.bookstore.dto.book.BookCatalogStatsDto;
 import com.mhf.bookstore.dto.book.BookDto;
+import com.mhf.bookstore.dto.book.BookFilterDto;
+import com.mhf.bookstore.dto.book.BookPatchDto;
+import com.mhf.bookstore.dto.bulk.BookBulkOperationDto;
+import com.mhf.bookstore.dto.bulk.BookBulkResponseDto;
+import com.mhf.bookstore.dto.bulk.BookBulkResultDto;
+import com.mhf.bookstore.dto.bulk.BookCriteriaDto;
+import com.mhf.bookstore.dto.bulk.BookCriteriaResultDto;
+import com.mhf.bookstore.dto.bulk.BookRepriceDto;
+import com.mhf.bookstore.dto.bulk.BulkOperationType;
+import com.mhf.bookstore.dto.bulk.WriteBehindReceiptDto;
+import com.mhf.bookstore.dto.page.CursorPage;
+import com.mhf.bookstore.dto.page.CursorPageRequest;
+import com.mhf.bookstore.exception.BadRequestException;
+import com.mhf.bookstore.exception.ConflictException;
+import com.mhf.bookstore.exception.GoneException;
 import com.mhf.bookstore.exception.ResourceNotFoundException;
+import com.mhf.bookstore.exception.ServiceUnavailableException;
 import com.mhf.bookstore.model.book.Status;
+import com.mhf.bookstore.service.book.IBookAnalyticsService;
+import com.mhf.bookstore.service.book.IBookBulkService;
+import com.mhf.bookstore.service.book.IBookChangeService;
 import com.mhf.bookstore.service.book.IBookService;
+import com.mhf.bookstore.service.book.IBookWriteBehindService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -24,14 +58,30 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
 @WebMvcTest(BookController.class)
+@Import(SimpleMeterRegistry.class)
 public class BookControllerTest {
 
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @MockitoBean
     private IBookService iBookService;
 
+    @MockitoBean
+    private IBookBulkService iBookBulkService;
+
+    @MockitoBean
+    private IBookAnalyticsService iBookAnalyticsService;
+
+    @MockitoBean
+    private IBookWriteBehindService iBookWriteBehindService;
+
+    @MockitoBean
+    private IBookChangeService iBookChangeService;
+
     @Test
     public void testCreateBook_ValidDTO() throws Exception {
 
@@ -49,6 +99,45 @@ public class BookControllerTest {
 
     }
 
+    @Test
+    public void testCreateBook_respondAsyncIsJournaled() throws Exception {
+
+        BookDto bookDto = new BookDto("New Book", "Author", 29.99, Status.AVAILABLE);
+        when(iBookWriteBehindService.isEnabled()).thenReturn(true);
+        when(iBookWriteBehindService.createBook(any(BookDto.class))).thenReturn(new WriteBehindReceiptDto(7));
+
+        mockMvc.perform(post("/api/books")
+                .header("Prefer", "respond-async")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(bookDto)))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Preference-Applied", "respond-async"))
+                .andExpect(header().string("Location", "/api/books/_write-behind"))
+                .andExpect(jsonPath("$.sequence").value(7));
+
+        verify(iBookService, never()).createBook(any());
+
+    }
+
+    @Test
+    public void testUpdateBook_respondAsyncIgnoredForConditionalUpdates() throws Exception {
+
+        BookDto bookDto = new BookDto("Updated", "Author", 29.99, Status.AVAILABLE);
+        when(iBookWriteBehindService.isEnabled()).thenReturn(true);
+        when(iBookService.updateBook(eq(1L), any(BookDto.class))).thenReturn(new BookDto(1L, "Updated", "Author", 29.99, Status.AVAILABLE, 4L));
+
+        mockMvc.perform(put("/api/books/{id}", 1L)
+                .header("Prefer", "respond-async")
+                .header("If-Match", "\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(bookDto)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"4\""));
+
+        verify(iBookWriteBehindService, never()).updateBook(any(), any());
+
+    }
+
     @Test
     public void testCreateBook_InvalidDTO() throws Exception {
 
@@ -76,14 +165,100 @@ public class BookControllerTest {
     }
 
 
+    @Test
+    public void testGetBookById_ETag() throws Exception {
+
+        BookDto bookDto = new BookDto(1L, "Book Title", "Author", 19.99, Status.AVAILABLE);
+        bookDto.setVersion(3L);
+
+        when(iBookService.getBookById(1L)).thenReturn(bookDto);
+
+        mockMvc.perform(get("/api/books/{id}", 1L))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"3\""))
+                .andExpect(header().string("Vary", "Accept"));
+
+        // A matching revalidation is answered from the version alone, a stale one gets the book
+        when(iBookService.getBookVersion(1L)).thenReturn(3L);
+        mockMvc.perform(get("/api/books/{id}", 1L).header("If-None-Match", "W/\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "W/\"3\""))
+                .andExpect(header().string("Vary", "Accept"))
+                .andExpect(content().string(""));
+        verify(iBookService, times(1)).getBookById(1L);
+
+        mockMvc.perform(get("/api/books/{id}", 1L).header("If-None-Match", "W/\"2\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"3\""))
+                .andExpect(jsonPath("$.title").value("Book Title"));
+
+        // Every format of a version carries the same weak tag, caches tell them apart by Accept
+        mockMvc.perform(get("/api/books/{id}", 1L).accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"))
+                .andExpect(header().string("ETag", "W/\"3\""))
+                .andExpect(header().string("Vary", "Accept"));
+
+    }
+
+    @Test
+    public void testGetAllBooks_NotModified() throws Exception {
+
+        when(iBookService.getCatalogVersion()).thenReturn(42L);
+
+        mockMvc.perform(get("/api/books").header("If-None-Match", "\"42\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "W/\"42\""));
+        mockMvc.perform(get("/api/books/status/{status}", Status.AVAILABLE).header("If-None-Match", "\"42\""))
+                .andExpect(status().isNotModified());
+
+        verify(iBookService, never()).listBooks(any());
+        verify(iBookService, never()).getBooksByStatus(any(), any());
+
+    }
+
     @Test
     public void testGetBookById_InvalidID() throws Exception {
 
         when(iBookService.getBookById(99L)).thenThrow(new ResourceNotFoundException("Book not found"));
+        double before = meterRegistry.counter("bookstore.api.errors", "type", "not_found").count();
 
         mockMvc.perform(get("/api/books/{id}", 99L))
                 .andExpect(status().isNotFound());
 
+        assertEquals(before + 1, meterRegistry.counter("bookstore.api.errors", "type", "not_found").count());
+
+    }
+
+    @Test
+    public void testServiceUnavailable_rendersRetryAfter() throws Exception {
+
+        when(iBookService.getBookById(1L)).thenThrow(new ServiceUnavailableException("Too many concurrent reads", Duration.ofMillis(1500)));
+        double before = meterRegistry.counter("bookstore.api.errors", "type", "unavailable").count();
+
+        mockMvc.perform(get("/api/books/{id}", 1L))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "2"))
+                .andExpect(jsonPath("$.status").value(503))
+                .andExpect(jsonPath("$.message").value("Too many concurrent reads"));
+
+        assertEquals(before + 1, meterRegistry.counter("bookstore.api.errors", "type", "unavailable").count());
+
+    }
+
+    @Test
+    public void testGetChanges_staleSinceIsGone() throws Exception {
+
+        when(iBookChangeService.getChanges(5L, null)).thenThrow(new GoneException("Changes after 5 are no longer available"));
+        double before = meterRegistry.counter("bookstore.api.errors", "type", "gone").count();
+
+        mockMvc.perform(get("/api/books/changes").param("since", "5"))
+                .andExpect(status().isGone())
+                .andExpect(jsonPath("$.status").value(410))
+                .andExpect(jsonPath("$.message").value("Changes after 5 are no longer available"));
+
+        assertEquals(before + 1, meterRegistry.counter("bookstore.api.errors", "type", "gone").count());
+
     }
 
     @Test
@@ -94,14 +269,47 @@ public class BookControllerTest {
                 new BookDto(2L, "Book Two", "Author", 29.99, Status.AVAILABLE)
         );
 
-        when(iBookService.listAllBooks()).thenReturn(books);
+        when(iBookService.listBooks(any(CursorPageRequest.class))).thenReturn(new CursorPage<>(books, true, "next", null));
 
         mockMvc.perform(get("/api/books"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.size()").value(2));
+                .andExpect(jsonPath("$.content.size()").value(2))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andExpect(jsonPath("$.nextCursor").value("next"))
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
         
     }
 
+    @Test
+    public void testGetAllBooks_WithCursorParams() throws Exception {
+
+        when(iBookService.listBooks(argThat(r -> "abc".equals(r.getCursor()) && r.getSize() == 5
+                && "price,desc".equals(r.getSort()) && r.isIncludeTotal())))
+                .thenReturn(new CursorPage<>(List.of(), false, null, 0L));
+
+        mockMvc.perform(get("/api/books")
+                        .param("cursor", "abc")
+                        .param("size", "5")
+                        .param("sort", "price,desc")
+                        .param("includeTotal", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hasNext").value(false))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist())
+                .andExpect(jsonPath("$.totalElements").value(0));
+
+    }
+
+    @Test
+    public void testGetAllBooks_InvalidCursor() throws Exception {
+
+        when(iBookService.listBooks(any(CursorPageRequest.class))).thenThrow(new BadRequestException("Invalid cursor"));
+
+        mockMvc.perform(get("/api/books").param("cursor", "garbage"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid cursor"));
+
+    }
+
     @Test
     public void testUpdateBook_ValidID() throws Exception {
 
@@ -133,6 +341,52 @@ public class BookControllerTest {
 
     }
 
+    @Test
+    public void testUpdateBook_IfMatchSetsExpectedVersion() throws Exception {
+
+        BookDto updatedBookDto = new BookDto(1L, "Updated Title", "Updated Author", 25.99, Status.AVAILABLE);
+
+        when(iBookService.updateBook(eq(1L), argThat(b -> Long.valueOf(7L).equals(b.getVersion()))))
+                .thenThrow(new ConflictException("Book 1 was modified concurrently"));
+
+        mockMvc.perform(put("/api/books/{id}", 1L)
+                        .header("If-Match", "\"7\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(updatedBookDto)))
+                .andExpect(status().isConflict());
+
+    }
+
+    @Test
+    public void testPatchBook_ValidPatch() throws Exception {
+
+        BookDto patched = new BookDto(1L, "Book Title", "Author", 9.99, Status.AVAILABLE);
+        patched.setVersion(2L);
+
+        when(iBookService.patchBook(eq(1L), argThat(p -> p.getPrice() == 9.99 && p.getTitle() == null), eq(1L))).thenReturn(patched);
+
+        mockMvc.perform(patch("/api/books/{id}", 1L)
+                        .header("If-Match", "\"1\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"price\": 9.99}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"2\""))
+                .andExpect(jsonPath("$.price").value(9.99));
+
+    }
+
+    @Test
+    public void testPatchBook_InvalidPatch() throws Exception {
+
+        mockMvc.perform(patch("/api/books/{id}", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(new BookPatchDto(" ", null, -1.0, null))))
+                .andExpect(status().isBadRequest());
+
+        verify(iBookService, never()).patchBook(any(), any(), any());
+
+    }
+
     @Test
     public void testDeleteBook_ValidId() throws Exception {
 
@@ -164,6 +418,18 @@ public class BookControllerTest {
 
     }
 
+    @Test
+    public void testDiscontinueBook_ReturnMinimal() throws Exception {
+
+        mockMvc.perform(patch("/api/books/{id}/discontinue", 1L).header("Prefer", "return=minimal"))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string("Preference-Applied", "return=minimal"));
+
+        verify(iBookService).discontinueBook(1L);
+        verify(iBookService, never()).markAsDiscontinued(any());
+
+    }
+
     @Test
     public void testDiscontinueBook_InvalidID() throws Exception {
 
@@ -182,13 +448,198 @@ public class BookControllerTest {
                 new BookDto(2L, "Book Two", "Author", 29.99, Status.AVAILABLE)
         );
 
-        when(iBookService.getBooksByStatus(Status.AVAILABLE)).thenReturn(bookDtos);
+        when(iBookService.getBooksByStatus(eq(Status.AVAILABLE), any(CursorPageRequest.class)))
+                .thenReturn(new CursorPage<>(bookDtos, false, null, null));
 
         mockMvc.perform(get("/api/books/status/{status}", Status.AVAILABLE))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.size()").value(2))
-                .andExpect(jsonPath("$.[0].status").value("AVAILABLE"));
+                .andExpect(jsonPath("$.content.size()").value(2))
+                .andExpect(jsonPath("$.content[0].status").value("AVAILABLE"));
+
+    }
+
+    @Test
+    public void testFilterBooks_bindsCriteria() throws Exception {
+
+        when(iBookService.filterBooks(any(BookFilterDto.class), any(CursorPageRequest.class)))
+                .thenReturn(new CursorPage<>(List.of(new BookDto(1L, "Book One", "Jane Doe", 19.99, Status.AVAILABLE)), false, null, null));
+
+        mockMvc.perform(get("/api/books/filter")
+                        .param("author", "jane doe")
+                        .param("status", "AVAILABLE")
+                        .param("minPrice", "10")
+                        .param("title", "book")
+                        .param("sort", "price,desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].author").value("Jane Doe"));
+
+        verify(iBookService).filterBooks(
+                argThat(filter -> filter.getAuthor().equals("jane doe") && filter.getStatus() == Status.AVAILABLE
+                        && filter.getMinPrice() == 10.0 && filter.getMaxPrice() == null && filter.getTitle().equals("book")),
+                argThat(page -> "price,desc".equals(page.getSort())));
+
+        mockMvc.perform(get("/api/books/filter").param("minPrice", "-1"))
+                .andExpect(status().isBadRequest());
+
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testExportBooks_writesNdjson() throws Exception {
+
+        doAnswer(invocation -> {
+            Consumer<BookDto> consumer = invocation.getArgument(0);
+            consumer.accept(new BookDto(1L, "Book One", "Author", 19.99, Status.AVAILABLE));
+            consumer.accept(new BookDto(2L, "Book Two", "Author", 29.99, Status.DISCONTINUED));
+            return null;
+        }).when(iBookService).exportBooks(any(Consumer.class));
+
+        MvcResult result = mockMvc.perform(get("/api/books/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(body.endsWith("\n"));
+        assertEquals("Book Two", new ObjectMapper().readValue(lines[1], BookDto.class).getTitle());
+
+    }
+
+    @Test
+    public void testSearchBooks() throws Exception {
+
+        List<BookDto> books = Arrays.asList(new BookDto(3L, "Java Concurrency", "Brian Goetz", 39.99, Status.AVAILABLE));
+
+        when(iBookService.searchBooks("java goetz", 5)).thenReturn(books);
+
+        mockMvc.perform(get("/api/books/search").param("q", "java goetz").param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()").value(1))
+                .andExpect(jsonPath("$[0].id").value(3));
+
+    }
+
+    @Test
+    public void testGetCacheStats() throws Exception {
+
+        when(iBookService.getCacheStats()).thenReturn(new BookCacheStatsDto(10, 90, 10, 0.9, 2, 0.5));
+
+        mockMvc.perform(get("/api/books/cache/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hitRate").value(0.9))
+                .andExpect(jsonPath("$.evictionCount").value(2));
+
+    }
+
+    @Test
+    public void testGetCatalogStats() throws Exception {
+
+        Map<Status, Long> byStatus = new EnumMap<>(Status.class);
+        byStatus.put(Status.AVAILABLE, 3L);
+        when(iBookService.getCatalogStats()).thenReturn(new BookCatalogStatsDto(3, byStatus, 2, 20.0, 10.0, 30.0));
+
+        mockMvc.perform(get("/api/books/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.books").value(3))
+                .andExpect(jsonPath("$.booksByStatus.AVAILABLE").value(3))
+                .andExpect(jsonPath("$.averagePrice").value(20.0));
+
+    }
+
+    @Test
+    public void testGetAuthorStats() throws Exception {
+
+        when(iBookService.getAuthorStats("Brian Goetz")).thenReturn(new BookAuthorStatsDto("Brian Goetz", 4));
+
+        mockMvc.perform(get("/api/books/stats/authors").param("name", "Brian Goetz"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.books").value(4));
+
+    }
+
+    @Test
+    public void testPriceHistogram() throws Exception {
+
+        when(iBookAnalyticsService.priceHistogram(Status.AVAILABLE, null, 0.0, 20.0, 2)).thenReturn(new PriceHistogramDto(3, 0.0, 20.0,
+                List.of(new PriceBucketDto(0.0, 10.0, 1), new PriceBucketDto(10.0, 20.0, 2))));
+
+        mockMvc.perform(get("/api/books/analytics/prices/histogram")
+                        .param("status", "AVAILABLE").param("minPrice", "0").param("maxPrice", "20").param("buckets", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.books").value(3))
+                .andExpect(jsonPath("$.buckets[1].from").value(10.0))
+                .andExpect(jsonPath("$.buckets[1].books").value(2));
+
+    }
+
+    @Test
+    public void testPricePercentiles_bindsCommaSeparatedList() throws Exception {
+
+        when(iBookAnalyticsService.pricePercentiles(isNull(), eq("Goetz"), eq(List.of(50.0, 99.9))))
+                .thenReturn(new PricePercentilesDto(4, Map.of("50", 20.0, "99.9", 40.0)));
+
+        mockMvc.perform(get("/api/books/analytics/prices/percentiles").param("author", "Goetz").param("p", "50,99.9"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.percentiles['99.9']").value(40.0));
+
+    }
+
+    @Test
+    public void testBulk() throws Exception {
+
+        List<BookBulkOperationDto> operations = Arrays.asList(
+                new BookBulkOperationDto(BulkOperationType.CREATE, null, new BookDto("New Book", "Author", 9.99, null)),
+                new BookBulkOperationDto(BulkOperationType.DELETE, 99L, null)
+        );
+        BookBulkResponseDto response = new BookBulkResponseDto(Arrays.asList(
+                new BookBulkResultDto(0, BulkOperationType.CREATE, 1L, 201, null),
+                new BookBulkResultDto(1, BulkOperationType.DELETE, 99L, 404, "Book not found with id 99")
+        ));
+
+        when(iBookBulkService.execute(argThat(ops -> ops.size() == 2))).thenReturn(response);
+
+        mockMvc.perform(post("/api/books/_bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(operations)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.results[0].id").value(1))
+                .andExpect(jsonPath("$.results[1].status").value(404));
+
+    }
+
+    @Test
+    public void testRepriceMatching_invalidPercent() throws Exception {
+
+        BookRepriceDto reprice = new BookRepriceDto(new BookCriteriaDto(null, Status.AVAILABLE, null, null), -100.0);
+
+        mockMvc.perform(post("/api/books/_reprice")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(reprice)))
+                .andExpect(status().isBadRequest());
+
+        verify(iBookBulkService, never()).repriceMatching(any());
+
+    }
+
+    @Test
+    public void testDiscontinueMatching() throws Exception {
+
+        when(iBookBulkService.discontinueMatching(argThat(c -> "Author".equals(c.getAuthor()))))
+                .thenReturn(new BookCriteriaResultDto(3));
+
+        mockMvc.perform(post("/api/books/_discontinue")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"author\":\"Author\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(3));
 
     }
 
-}
\ No newline at end of file
+}
@@ -1,24 +1,50 @@
 package com.mhf.bookstore.dao;
 
+import com.mhf.bookstore.dao.book.BookSpecifications;
 import com.mhf.bookstore.dao.book.IBookRepository;
+import com.mhf.bookstore.dto.book.BookDto;
+import com.mhf.bookstore.dto.book.BookFilterDto;
 import com.mhf.bookstore.model.book.Book;
 import com.mhf.bookstore.model.book.Status;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static org.junit.jupiter.api.Assertions.*;
 
-@DataJpaTest
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // Literals rendered into the SQL so that captured statements can be EXPLAINed as they are
+        "spring.jpa.properties.hibernate.criteria.value_handling_mode=inline",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.mhf.bookstore.dao.BookRepositoryTest$CapturingInspector"
+})
 public class BookRepositoryTest {
 
     @Autowired
     private IBookRepository iBookRepository;
 
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     private Book book1;
     private Book book2;
 
@@ -61,17 +87,145 @@ public class BookRepositoryTest {
     }
 
     @Test
-    public void testFindByTitleContainingIgnoreCase() {
-        List<Book> books = iBookRepository.findByTitleContainingIgnoreCase("java");
-        assertEquals(1, books.size());
-        assertEquals("Java Programming 101", books.get(0).getTitle());
+    public void testFindDtoByStatus_fetchesOnlyMatchingRows() {
+        for (int i = 0; i < 50; i++)
+            iBookRepository.save(new Book(null, "Old Book " + i, "Someone", 10.0, Status.DISCONTINUED));
+        testEntityManager.flush();
+        testEntityManager.clear();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Window<BookDto> window = iBookRepository.findDtoByStatus(Status.AVAILABLE, ScrollPosition.keyset(), Sort.by("id"), Limit.of(10));
+
+        assertEquals(1, window.size());
+        assertEquals(book1.getId(), window.getContent().get(0).getId());
+        assertEquals(1, statistics.getQueryExecutionCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    public void testFindDtoBy_keysetWindowWithoutEntities() {
+        iBookRepository.save(new Book(null, "Another Book", "Jane Smith", 24.0, Status.AVAILABLE));
+        testEntityManager.flush();
+        testEntityManager.clear();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        Sort sort = Sort.by("price", "id");
+
+        Window<BookDto> first = iBookRepository.findDtoBy(ScrollPosition.keyset(), sort, Limit.of(2));
+        assertEquals(2, first.size());
+        assertTrue(first.hasNext());
+        assertEquals(book1.getId(), first.getContent().get(0).getId());
+        assertEquals("Jane Smith", first.getContent().get(1).getAuthor());
+        assertEquals(0L, first.getContent().get(1).getVersion());
+
+        Window<BookDto> second = iBookRepository.findDtoBy(first.positionAt(1), sort, Limit.of(2));
+        assertEquals(1, second.size());
+        assertFalse(second.hasNext());
+        assertEquals(book2.getId(), second.getContent().get(0).getId());
+
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(2, statistics.getQueryExecutionCount());
     }
 
     @Test
-    public void testFindByStatus() {
-        List<Book> books = iBookRepository.findByStatus(Status.AVAILABLE);
-        assertEquals(1, books.size());
-        assertEquals(Status.AVAILABLE, books.get(0).getStatus());
+    public void testFindDtoByStatusAndIds() {
+        Window<BookDto> window = iBookRepository.findDtoByStatus(Status.DISCONTINUED, ScrollPosition.keyset(), Sort.by("id"), Limit.of(10));
+        assertEquals(1, window.size());
+        assertEquals("Java Programming 101", window.getContent().get(0).getTitle());
+
+        assertEquals(2, iBookRepository.findDtoByIdIn(List.of(book1.getId(), book2.getId(), -1L)).size());
+        assertEquals(Status.AVAILABLE, iBookRepository.findDtoById(book1.getId()).orElseThrow().getStatus());
+        assertTrue(iBookRepository.findDtoById(-1L).isEmpty());
+        assertEquals(book1.getVersion(), iBookRepository.findVersionById(book1.getId()).orElseThrow());
+        assertTrue(iBookRepository.findVersionById(-1L).isEmpty());
+    }
+
+    @Test
+    public void testFindBySpecification_projectsFilteredKeysetWindow() {
+        iBookRepository.save(new Book(null, "Java Concurrency", "john doe", 45.0, Status.AVAILABLE));
+        testEntityManager.flush();
+        testEntityManager.clear();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Window<BookDto> window = iBookRepository.findBy(
+                BookSpecifications.matching(new BookFilterDto("John DOE", null, 20.0, null, "java")),
+                query -> query.as(BookDto.class).sortBy(Sort.by(Sort.Direction.DESC, "price", "id")).limit(1)
+                        .scroll(ScrollPosition.keyset()));
+
+        assertEquals(1, window.size());
+        assertTrue(window.hasNext());
+        assertEquals("Java Concurrency", window.getContent().get(0).getTitle());
+        assertEquals(0, statistics.getEntityLoadCount());
+
+        // LIKE wildcards in the title are matched literally
+        assertEquals(2, iBookRepository.count(BookSpecifications.matching(new BookFilterDto(null, null, null, null, "JAVA "))));
+        assertEquals(0, iBookRepository.count(BookSpecifications.matching(new BookFilterDto(null, null, null, null, "java_"))));
+    }
+
+    @Test
+    public void testFindBySpecification_everyFilterCombinationUsesAnIndex() {
+        String[] authors = {null, "John Doe"};
+        Status[] statuses = {null, Status.AVAILABLE};
+        Double[][] priceRanges = {{null, null}, {10.0, null}, {null, 40.0}, {10.0, 40.0}};
+        String[] titles = {null, "java"};
+        String[] sorts = {"id", "price", "title"};
+
+        // The first page and a later one, whose seek predicate on (sort, id) must not cost the index
+        Map<String, List<ScrollPosition>> positions = new HashMap<>();
+        for (String sort : sorts) {
+            Window<BookDto> first = iBookRepository.findBy(BookSpecifications.matching(new BookFilterDto()),
+                    query -> query.as(BookDto.class).sortBy(Sort.by(sort, "id")).limit(1).scroll(ScrollPosition.keyset()));
+            positions.put(sort, List.of(ScrollPosition.keyset(), first.positionAt(0)));
+        }
+
+        for (String author : authors)
+            for (Status status : statuses)
+                for (Double[] prices : priceRanges)
+                    for (String title : titles) {
+                        BookFilterDto filter = new BookFilterDto(author, status, prices[0], prices[1], title);
+                        if (author == null && status == null && prices[0] == null && prices[1] == null && title == null)
+                            continue;
+                        for (String sort : sorts)
+                            for (ScrollPosition position : positions.get(sort)) {
+                                String plan = explain(() -> iBookRepository.findBy(BookSpecifications.matching(filter),
+                                        query -> query.as(BookDto.class).sortBy(Sort.by(sort, "id")).limit(20)
+                                                .scroll(position)));
+                                String description = "author=" + author + " status=" + status + " price=" + prices[0]
+                                        + ".." + prices[1] + " title=" + title + " sort=" + sort + " position=" + position
+                                        + "\n" + plan;
+                                assertTrue(plan.contains("PUBLIC.IDX_BOOK_"), description);
+                                assertFalse(plan.contains("tableScan"), description);
+                                assertEquals(!position.isInitial(), plan.contains("\"ID\" > "), description);
+                            }
+                    }
+    }
+
+    // Runs the query, then EXPLAINs the single select it issued
+    private String explain(Runnable query) {
+        CapturingInspector.STATEMENTS.clear();
+        query.run();
+        List<String> selects = CapturingInspector.STATEMENTS.stream().filter(sql -> sql.startsWith("select")).toList();
+        assertEquals(1, selects.size(), selects.toString());
+        // Only the row limit is still a parameter
+        String sql = selects.get(0).replace("?", "21");
+        return String.valueOf(testEntityManager.getEntityManager().createNativeQuery("explain " + sql).getSingleResult());
+    }
+
+    public static class CapturingInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+
     }
 
 }
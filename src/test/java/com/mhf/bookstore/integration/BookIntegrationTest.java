@@ -1,23 +1,70 @@
 package com.mhf.bookstore.integration;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.mhf.bookstore.analytics.book.BookCatalogSnapshot;
 import com.mhf.bookstore.dao.book.IBookRepository;
+import com.mhf.bookstore.dto.analytics.PriceHistogramDto;
+import com.mhf.bookstore.dto.analytics.PricePercentilesDto;
+import com.mhf.bookstore.dto.analytics.PriceRangeCountDto;
+import com.mhf.bookstore.dto.book.BookAuthorStatsDto;
+import com.mhf.bookstore.dto.book.BookCacheStatsDto;
+import com.mhf.bookstore.dto.book.BookCatalogStatsDto;
 import com.mhf.bookstore.dto.book.BookDto;
+import com.mhf.bookstore.dto.bulk.BookBulkOperationDto;
+import com.mhf.bookstore.dto.bulk.BookBulkResponseDto;
+import com.mhf.bookstore.dto.bulk.BookCriteriaDto;
+import com.mhf.bookstore.dto.bulk.BookCriteriaResultDto;
+import com.mhf.bookstore.dto.bulk.BookRepriceDto;
+import com.mhf.bookstore.dto.bulk.BulkOperationType;
+import com.mhf.bookstore.dto.change.BookChangeDto;
+import com.mhf.bookstore.dto.change.BookChangeOp;
+import com.mhf.bookstore.dto.change.BookChangesDto;
+import com.mhf.bookstore.dto.page.CursorPage;
+import com.mhf.bookstore.dto.query.QueryReportDto;
+import com.mhf.bookstore.limit.AdaptiveConcurrencyLimit;
+import com.mhf.bookstore.limit.ConcurrencyLimitInterceptor;
 import com.mhf.bookstore.model.book.Status;
+import com.mhf.bookstore.stats.book.BookStatistics;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.*;
 
-import java.util.Arrays;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureObservability(tracing = false)
 public class BookIntegrationTest {
 
     @LocalServerPort
@@ -32,6 +79,18 @@ public class BookIntegrationTest {
     @Autowired
     private IBookRepository iBookRepository;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private BookStatistics bookStatistics;
+
+    @Autowired
+    private BookCatalogSnapshot bookCatalogSnapshot;
+
+    @Autowired
+    private ConcurrencyLimitInterceptor concurrencyLimitInterceptor;
+
     private String baseUrl;
 
     @BeforeEach
@@ -86,6 +145,53 @@ public class BookIntegrationTest {
 
     }
 
+    @Test
+    public void testGetBookById_cachedUntilWritten() {
+
+        BookDto book = createBookInDb("Cached Book", Status.AVAILABLE);
+        String url = baseUrl + "/" + book.getId();
+
+        long hitsBefore = testRestTemplate.getForObject(baseUrl + "/cache/stats", BookCacheStatsDto.class).getHitCount();
+        testRestTemplate.getForObject(url, BookDto.class);
+        testRestTemplate.getForObject(url, BookDto.class);
+        long hitsAfter = testRestTemplate.getForObject(baseUrl + "/cache/stats", BookCacheStatsDto.class).getHitCount();
+        assertThat(hitsAfter - hitsBefore).isEqualTo(1);
+
+        testRestTemplate.patchForObject(url + "/discontinue", null, BookDto.class);
+        assertThat(testRestTemplate.getForObject(url, BookDto.class).getStatus()).isEqualTo(Status.DISCONTINUED);
+
+        testRestTemplate.delete(url);
+        assertThat(testRestTemplate.getForEntity(url, String.class).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+
+    }
+
+    @Test
+    public void testConditionalGet() throws Exception {
+
+        BookDto book = createBookInDb("ETag Book", Status.AVAILABLE);
+        String url = baseUrl + "/" + book.getId();
+
+        ResponseEntity<BookDto> first = testRestTemplate.getForEntity(url, BookDto.class);
+        String bookETag = first.getHeaders().getETag();
+        assertThat(bookETag).isEqualTo("W/\"" + first.getBody().getVersion() + "\"");
+        assertThat(conditionalGet(url, bookETag).getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+
+        String listETag = testRestTemplate.getForEntity(baseUrl, String.class).getHeaders().getETag();
+        assertThat(listETag).startsWith("W/");
+        assertThat(conditionalGet(baseUrl, listETag).getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        BookDto changed = new BookDto(null, "ETag Book 2", "Author", 21.0, Status.AVAILABLE);
+        testRestTemplate.exchange(url, HttpMethod.PUT, new HttpEntity<>(objectMapper.writeValueAsString(changed), headers), BookDto.class);
+
+        ResponseEntity<String> changedBook = conditionalGet(url, bookETag);
+        assertThat(changedBook.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(changedBook.getHeaders().getETag()).isNotEqualTo(bookETag);
+        assertThat(conditionalGet(baseUrl, listETag).getStatusCode()).isEqualTo(HttpStatus.OK);
+
+    }
+
     @Test
     public void testPathStatus() {
 
@@ -122,17 +228,599 @@ public class BookIntegrationTest {
         createBookInDb("Book 1", Status.AVAILABLE);
         createBookInDb("Book 2", Status.DISCONTINUED);
 
-        ResponseEntity<BookDto[]> response = testRestTemplate.getForEntity(baseUrl, BookDto[].class);
+        ResponseEntity<CursorPage<BookDto>> response = getPage(baseUrl + "?includeTotal=true");
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        CursorPage<BookDto> page = response.getBody();
+        assertThat(page.getContent().size()).isEqualTo(2);
+        assertThat(page.isHasNext()).isFalse();
+        assertThat(page.getTotalElements()).isEqualTo(2);
+
+    }
+
+    @Test
+    public void testListBooks_followsCursorUntilExhausted() {
+
+        for (int i = 1; i <= 5; i++)
+            createBookInDb("Book " + i, Status.AVAILABLE, 10.0 * (i % 3 + 1));
+
+        List<Double> prices = new ArrayList<>();
+        String url = baseUrl + "?size=2&sort=price,desc";
+        int pages = 0;
+        while (url != null) {
+            CursorPage<BookDto> page = getPage(url).getBody();
+            page.getContent().forEach(b -> prices.add(b.getPrice()));
+            assertThat(page.getTotalElements()).isNull();
+            url = page.isHasNext() ? baseUrl + "?size=2&cursor=" + page.getNextCursor() : null;
+            pages++;
+        }
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(prices).containsExactly(30.0, 30.0, 20.0, 20.0, 10.0);
+
+    }
+
+    @Test
+    public void testFilterBooks_combinesCriteriaAndFollowsCursor() {
+
+        createBookInDb("Java Basics", Status.AVAILABLE, 15.0);
+        createBookInDb("Java Streams", Status.AVAILABLE, 35.0);
+        createBookInDb("Java Legacy", Status.DISCONTINUED, 25.0);
+        createBookInDb("Kotlin Basics", Status.AVAILABLE, 25.0);
+        createBookInDb("Java Advanced", Status.AVAILABLE, 45.0);
+
+        String filter = baseUrl + "/filter?author=AUTHOR&status=AVAILABLE&minPrice=10&maxPrice=40&title=java";
+        CursorPage<BookDto> first = getPage(filter + "&size=1&sort=price,desc&includeTotal=true").getBody();
+        assertThat(first.getContent()).extracting(BookDto::getTitle).containsExactly("Java Streams");
+        assertThat(first.getTotalElements()).isEqualTo(2);
+
+        CursorPage<BookDto> second = getPage(filter + "&size=1&cursor=" + first.getNextCursor()).getBody();
+        assertThat(second.getContent()).extracting(BookDto::getTitle).containsExactly("Java Basics");
+        assertThat(second.isHasNext()).isFalse();
+
+        ResponseEntity<String> inverted = testRestTemplate.getForEntity(baseUrl + "/filter?minPrice=20&maxPrice=10", String.class);
+        assertThat(inverted.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+
+    }
+
+    @Test
+    public void testListBooks_rejectsOversizedPage() {
+
+        ResponseEntity<String> response = testRestTemplate.getForEntity(baseUrl + "?size=100000", String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+
+    }
+
+    @Test
+    public void testExportBooks() throws Exception {
+
+        createBookInDb("Export 1", Status.AVAILABLE);
+        createBookInDb("Export 2", Status.DISCONTINUED);
+        createBookInDb("Export 3", Status.OUT_OF_STOCK);
+
+        ResponseEntity<String> response = testRestTemplate.getForEntity(baseUrl + "/export", String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_NDJSON);
+
+        List<String> titles = new ArrayList<>();
+        for (String line : response.getBody().split("\n"))
+            titles.add(objectMapper.readValue(line, BookDto.class).getTitle());
+        assertThat(titles).containsExactly("Export 1", "Export 2", "Export 3");
+
+    }
+
+    @Test
+    public void testBulk_mixedOperations() {
+
+        BookDto toUpdate = createBookInDb("Bulk Update", Status.AVAILABLE);
+        BookDto toDelete = createBookInDb("Bulk Delete", Status.AVAILABLE);
+
+        List<BookBulkOperationDto> operations = List.of(
+                new BookBulkOperationDto(BulkOperationType.CREATE, null, new BookDto("Bulk Create", "Author", 12.0, null)),
+                new BookBulkOperationDto(BulkOperationType.UPDATE, toUpdate.getId(), new BookDto("Bulk Updated", "Author", 13.0, Status.OUT_OF_STOCK)),
+                new BookBulkOperationDto(BulkOperationType.DELETE, toDelete.getId(), null),
+                new BookBulkOperationDto(BulkOperationType.DELETE, -1L, null),
+                new BookBulkOperationDto(BulkOperationType.CREATE, null, new BookDto("", "Author", -1.0, null))
+        );
+
+        ResponseEntity<BookBulkResponseDto> response = testRestTemplate.postForEntity(baseUrl + "/_bulk", operations, BookBulkResponseDto.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        BookBulkResponseDto body = response.getBody();
+        assertThat(body.getSucceeded()).isEqualTo(3);
+        assertThat(body.getFailed()).isEqualTo(2);
+        assertThat(body.getResults()).extracting("status").containsExactly(201, 200, 204, 404, 400);
+
+        Long createdId = body.getResults().get(0).getId();
+        assertThat(iBookRepository.findById(createdId)).get().extracting("status").isEqualTo(Status.AVAILABLE);
+        assertThat(iBookRepository.findById(toUpdate.getId())).get().extracting("title").isEqualTo("Bulk Updated");
+        assertThat(iBookRepository.findById(toDelete.getId())).isEmpty();
+
+    }
+
+    @Test
+    public void testBulk_insertsAreBatched() {
+
+        List<BookBulkOperationDto> operations = new ArrayList<>();
+        for (int i = 0; i < 120; i++)
+            operations.add(new BookBulkOperationDto(BulkOperationType.CREATE, null, new BookDto("Batch " + i, "Author", 5.0, null)));
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        BookBulkResponseDto body = testRestTemplate.postForEntity(baseUrl + "/_bulk", operations, BookBulkResponseDto.class).getBody();
+
+        assertThat(body.getSucceeded()).isEqualTo(120);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(120);
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(10);
+
+    }
+
+    @Test
+    public void testBulk_changesCarryTheRowVersion() {
+
+        BookDto toUpdate = createBookInDb("Bulk Versioned", Status.AVAILABLE);
+        long start = getChanges(null).getNextSince();
+
+        List<BookBulkOperationDto> operations = List.of(
+                new BookBulkOperationDto(BulkOperationType.UPDATE, toUpdate.getId(), new BookDto("Bulk Versioned 2", "Author", 14.0, Status.AVAILABLE)),
+                new BookBulkOperationDto(BulkOperationType.CREATE, null, new BookDto("Bulk Versioned New", "Author", 15.0, null))
+        );
+        BookBulkResponseDto body = testRestTemplate.postForEntity(baseUrl + "/_bulk", operations, BookBulkResponseDto.class).getBody();
+        Long createdId = body.getResults().get(1).getId();
+
+        List<BookChangeDto> changes = getChanges(start).getChanges().stream()
+                .filter(change -> change.getId().equals(toUpdate.getId()) || change.getId().equals(createdId)).toList();
+        assertThat(changes).extracting(BookChangeDto::getId).containsExactly(toUpdate.getId(), createdId);
+        assertThat(changes.get(0).getBook().getVersion())
+                .isEqualTo(iBookRepository.findById(toUpdate.getId()).get().getVersion())
+                .isGreaterThan(toUpdate.getVersion());
+        assertThat(changes.get(1).getBook().getVersion()).isEqualTo(iBookRepository.findById(createdId).get().getVersion());
+
+    }
+
+    @Test
+    public void testDiscontinueMatching_singleStatementAndCacheCoherent() {
+
+        BookDto first = testRestTemplate.postForObject(baseUrl, new BookDto(null, "Pulled One", "Pulled Author", 10.0, Status.AVAILABLE), BookDto.class);
+        testRestTemplate.postForObject(baseUrl, new BookDto(null, "Pulled Two", "pulled author", 11.0, Status.OUT_OF_STOCK), BookDto.class);
+        BookDto other = createBookInDb("Kept", Status.AVAILABLE);
+
+        // Warm the cache so a stale entry would show up below
+        testRestTemplate.getForObject(baseUrl + "/" + first.getId(), BookDto.class);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        BookCriteriaResultDto result = testRestTemplate.postForObject(baseUrl + "/_discontinue",
+                new BookCriteriaDto("Pulled Author", null, null, null), BookCriteriaResultDto.class);
+
+        assertThat(result.getAffected()).isEqualTo(2);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(testRestTemplate.getForObject(baseUrl + "/" + first.getId(), BookDto.class).getStatus()).isEqualTo(Status.DISCONTINUED);
+        assertThat(testRestTemplate.getForObject(baseUrl + "/" + other.getId(), BookDto.class).getStatus()).isEqualTo(Status.AVAILABLE);
+
+        // Already discontinued rows are not touched again
+        result = testRestTemplate.postForObject(baseUrl + "/_discontinue",
+                new BookCriteriaDto("Pulled Author", null, null, null), BookCriteriaResultDto.class);
+        assertThat(result.getAffected()).isZero();
+
+    }
+
+    @Test
+    public void testRepriceMatching() {
+
+        BookDto available = createBookInDb("Available", Status.AVAILABLE, 19.99);
+        BookDto cheap = createBookInDb("Cheap", Status.AVAILABLE, 5.0);
+        BookDto outOfStock = createBookInDb("Out Of Stock", Status.OUT_OF_STOCK, 19.99);
+
+        BookRepriceDto reprice = new BookRepriceDto(new BookCriteriaDto(null, Status.AVAILABLE, 10.0, null), -15.0);
+        BookCriteriaResultDto result = testRestTemplate.postForObject(baseUrl + "/_reprice", reprice, BookCriteriaResultDto.class);
+
+        assertThat(result.getAffected()).isEqualTo(1);
+        BookDto repriced = testRestTemplate.getForObject(baseUrl + "/" + available.getId(), BookDto.class);
+        assertThat(repriced.getPrice()).isEqualTo(16.99);
+        assertThat(repriced.getVersion()).isGreaterThan(available.getVersion());
+        assertThat(testRestTemplate.getForObject(baseUrl + "/" + cheap.getId(), BookDto.class).getPrice()).isEqualTo(5.0);
+        assertThat(testRestTemplate.getForObject(baseUrl + "/" + outOfStock.getId(), BookDto.class).getPrice()).isEqualTo(19.99);
+
+        ResponseEntity<String> rejected = testRestTemplate.postForEntity(baseUrl + "/_reprice",
+                new BookRepriceDto(new BookCriteriaDto(), -10.0), String.class);
+        assertThat(rejected.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+
+    }
+
+    @Test
+    public void testPrometheusScrape() {
+
+        BookDto book = createBookInDb("Metered", Status.AVAILABLE);
+        testRestTemplate.getForObject(baseUrl + "/" + book.getId(), BookDto.class);
+        testRestTemplate.getForEntity(baseUrl + "/-1", String.class);
+
+        String scrape = testRestTemplate.getForObject("http://localhost:" + port + "/actuator/prometheus", String.class);
+
+        assertThat(scrape).contains("http_server_requests_seconds_bucket{");
+        assertThat(scrape).containsPattern("http_server_requests_seconds_count\\{.*uri=\"/api/books/\\{id}\"");
+        assertThat(scrape).containsPattern("bookstore_service_seconds_bucket\\{.*method=\"getBookById\"");
+        assertThat(scrape).containsPattern("bookstore_api_errors_total\\{.*type=\"not_found\".*} [1-9]");
+        assertThat(scrape).contains("hikaricp_connections_active");
+        assertThat(scrape).contains("hibernate_sessions_open_total");
+        assertThat(scrape).containsPattern("bookstore_request_statements_count\\{.*uri=\"/api/books/\\{id}\"");
+        assertThat(scrape).contains("bookstore_db_statements_total");
+        assertThat(scrape).containsPattern("bookstore_singleflight_loads_total\\{.*flight=\"book\".*} [1-9]");
+        assertThat(scrape).containsPattern("bookstore_singleflight_coalesced_total\\{.*flight=\"search\"");
+
+    }
+
+    @Test
+    public void testConcurrencyLimit_shedsListsBeforeSingleBookReads() {
+
+        BookDto book = createBookInDb("Critical", Status.AVAILABLE);
+        AdaptiveConcurrencyLimit reads = concurrencyLimitInterceptor.getReads();
+        // Occupy every slot open to ordinary reads, as a burst of list requests would
+        int held = 0;
+        while (reads.tryAcquire(false))
+            held++;
+        try {
+            ResponseEntity<String> list = testRestTemplate.getForEntity(baseUrl, String.class);
+            assertThat(list.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+            assertThat(list.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+
+            assertThat(testRestTemplate.getForEntity(baseUrl + "/" + book.getId(), BookDto.class).getStatusCode())
+                    .isEqualTo(HttpStatus.OK);
+            assertThat(testRestTemplate.postForEntity(baseUrl, new BookDto("Write", "Author", 10.0, Status.AVAILABLE),
+                    BookDto.class).getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        } finally {
+            for (int i = 0; i < held; i++)
+                reads.cancel();
+        }
+        assertThat(reads.getInFlight()).isZero();
+        assertThat(testRestTemplate.getForEntity(baseUrl, String.class).getStatusCode()).isEqualTo(HttpStatus.OK);
+
+    }
+
+    @Test
+    public void testQueriesEndpoint_reportsStatementShapes() {
+
+        String queriesUrl = "http://localhost:" + port + "/actuator/queries";
+        testRestTemplate.delete(queriesUrl);
+
+        BookDto book = createBookInDb("Observed", Status.AVAILABLE);
+        testRestTemplate.getForObject(baseUrl + "?size=5", String.class);
+        testRestTemplate.getForObject(baseUrl + "/" + book.getId(), BookDto.class);
+
+        QueryReportDto report = testRestTemplate.getForObject(queriesUrl + "?limit=50", QueryReportDto.class);
+        assertThat(report.getStatements()).isPositive();
+        assertThat(report.getShapes()).isNotEmpty();
+        assertThat(report.getShapes()).anyMatch(shape -> shape.getSql().startsWith("insert into book"));
+        assertThat(report.getShapes()).allMatch(shape -> shape.getCount() > 0 && shape.getMaxMillis() >= 0);
+        assertThat(report.getHibernate()).containsKey("entityLoads");
+
+        ResponseEntity<String> invalid = testRestTemplate.getForEntity(queriesUrl + "?orderBy=name", String.class);
+        assertThat(invalid.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+
+    }
+
+    @Test
+    public void testSearchBooks_followsWrites() throws Exception {
+
+        BookDto book = createBookInDb("Quixotic Searching", Status.AVAILABLE);
+        createBookInDb("Quixotic Sorting", Status.AVAILABLE);
+
+        BookDto[] hits = testRestTemplate.getForObject(baseUrl + "/search?q=quixotic searching", BookDto[].class);
+        assertThat(hits).extracting("id").containsExactly(book.getId());
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        BookDto renamed = new BookDto(null, "Plain Title", "Author", 20.0, Status.AVAILABLE);
+        testRestTemplate.exchange(baseUrl + "/" + book.getId(), HttpMethod.PUT,
+                new HttpEntity<>(objectMapper.writeValueAsString(renamed), headers), BookDto.class);
+
+        hits = testRestTemplate.getForObject(baseUrl + "/search?q=quixotic", BookDto[].class);
+        assertThat(hits).extracting("title").containsExactly("Quixotic Sorting");
+
+    }
+
+    @Test
+    public void testCatalogStats_followWritesAndReconcile() throws Exception {
+
+        // setUp removed rows behind the statistics' back, which reconciliation notices
+        bookStatistics.reconcile();
+        assertThat(getCatalogStats().getBooks()).isZero();
+
+        BookDto cheap = testRestTemplate.postForObject(baseUrl, new BookDto(null, "Cheap", "Stats Author", 10.0, Status.AVAILABLE), BookDto.class);
+        BookDto dear = testRestTemplate.postForObject(baseUrl, new BookDto(null, "Dear", "stats author", 50.0, Status.AVAILABLE), BookDto.class);
+        BookDto other = testRestTemplate.postForObject(baseUrl, new BookDto(null, "Other", "Someone Else", 30.0, Status.OUT_OF_STOCK), BookDto.class);
+
+        BookCatalogStatsDto stats = getCatalogStats();
+        assertThat(stats.getBooks()).isEqualTo(3);
+        assertThat(stats.getBooksByStatus().get(Status.AVAILABLE)).isEqualTo(2);
+        assertThat(stats.getAuthors()).isEqualTo(2);
+        assertThat(stats.getAveragePrice()).isEqualTo(30.0);
+        assertThat(stats.getMinPrice()).isEqualTo(10.0);
+        assertThat(stats.getMaxPrice()).isEqualTo(50.0);
+        assertThat(testRestTemplate.getForObject(baseUrl + "/stats/authors?name=STATS AUTHOR", BookAuthorStatsDto.class).getBooks()).isEqualTo(2);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        testRestTemplate.exchange(baseUrl + "/" + cheap.getId(), HttpMethod.PATCH,
+                new HttpEntity<>("{\"price\": 20.0}", headers), BookDto.class);
+        testRestTemplate.exchange(baseUrl + "/" + other.getId() + "/discontinue", HttpMethod.PATCH, null, BookDto.class);
+        testRestTemplate.delete(baseUrl + "/" + dear.getId());
+
+        stats = getCatalogStats();
+        assertThat(stats.getBooks()).isEqualTo(2);
+        assertThat(stats.getBooksByStatus().get(Status.DISCONTINUED)).isEqualTo(1);
+        assertThat(stats.getMaxPrice()).isEqualTo(30.0);
+        assertThat(stats.getAveragePrice()).isEqualTo(25.0);
+
+        // Set-based updates are picked up by a rebuild in the background
+        testRestTemplate.postForObject(baseUrl + "/_discontinue",
+                new BookCriteriaDto("Stats Author", null, null, null), BookCriteriaResultDto.class);
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                assertThat(getCatalogStats().getBooksByStatus().get(Status.DISCONTINUED)).isEqualTo(2));
+
+        bookStatistics.reconcile();
+        assertThat(getCatalogStats().getBooks()).isEqualTo(2);
+
+        assertThat(testRestTemplate.getForEntity(baseUrl + "/stats/authors?name= ", String.class).getStatusCode())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+
+    }
+
+    @Test
+    public void testPriceAnalytics_followWrites() {
+
+        // setUp removed rows without events
+        bookCatalogSnapshot.rebuild();
+        List<BookDto> books = new ArrayList<>();
+        for (int i = 1; i <= 10; i++)
+            books.add(createBookInDb("Analytics " + i, i % 2 == 0 ? Status.AVAILABLE : Status.OUT_OF_STOCK, i * 10.0));
+
+        PriceHistogramDto histogram = testRestTemplate.getForObject(baseUrl + "/analytics/prices/histogram?buckets=3&minPrice=10&maxPrice=100", PriceHistogramDto.class);
+        assertThat(histogram.getBooks()).isEqualTo(10);
+        assertThat(histogram.getBuckets()).extracting("books").containsExactly(3L, 3L, 4L);
+
+        PricePercentilesDto percentiles = testRestTemplate.getForObject(baseUrl + "/analytics/prices/percentiles?p=50,90,100&status=AVAILABLE", PricePercentilesDto.class);
+        assertThat(percentiles.getBooks()).isEqualTo(5);
+        assertThat(percentiles.getPercentiles()).containsEntry("50", 60.0).containsEntry("90", 100.0).containsEntry("100", 100.0);
+
+        testRestTemplate.delete(baseUrl + "/" + books.get(0).getId());
+        testRestTemplate.postForObject(baseUrl + "/_discontinue", new BookCriteriaDto(null, null, 0.0, 30.0), BookCriteriaResultDto.class);
+        bookCatalogSnapshot.rebuild();
+
+        PriceRangeCountDto count = testRestTemplate.getForObject(baseUrl + "/analytics/prices/count?status=DISCONTINUED&maxPrice=100", PriceRangeCountDto.class);
+        assertThat(count.getBooks()).isEqualTo(2);
+        assertThat(bookCatalogSnapshot.size()).isEqualTo(9);
+
+        ResponseEntity<String> invalid = testRestTemplate.getForEntity(baseUrl + "/analytics/prices/histogram?buckets=0", String.class);
+        assertThat(invalid.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+
+    }
+
+    @Test
+    public void testBinaryFormats_negotiatedAndSmallerThanJson() throws Exception {
+
+        for (int i = 0; i < 50; i++)
+            createBookInDb("Format Book " + i, Status.AVAILABLE, 10.0 + i);
+        String url = baseUrl + "?size=50";
+
+        byte[] json = getBytes(url, MediaType.APPLICATION_JSON);
+        byte[] cbor = getBytes(url, MediaType.APPLICATION_CBOR);
+        byte[] smile = getBytes(url, MediaType.parseMediaType("application/x-jackson-smile"));
+
+        CursorPage<BookDto> fromCbor = new CBORMapper().findAndRegisterModules().readValue(cbor, new TypeReference<>() {
+        });
+        CursorPage<BookDto> fromSmile = new SmileMapper().findAndRegisterModules().readValue(smile, new TypeReference<>() {
+        });
+        assertThat(fromCbor.getContent()).hasSize(50);
+        assertThat(fromSmile.getContent()).extracting("title").containsExactlyElementsOf(
+                fromCbor.getContent().stream().map(BookDto::getTitle).toList());
+        assertThat(cbor.length).isLessThan(json.length);
+        assertThat(smile.length).isLessThan(json.length);
+
+        // Binary request bodies are accepted as well
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_CBOR);
+        byte[] body = new CBORMapper().writeValueAsBytes(new BookDto(null, "Cbor Book", "Author", 12.0, Status.AVAILABLE));
+        ResponseEntity<BookDto> created = testRestTemplate.postForEntity(baseUrl, new HttpEntity<>(body, headers), BookDto.class);
+        assertThat(created.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(created.getBody().getTitle()).isEqualTo("Cbor Book");
+
+    }
+
+    @Test
+    public void testCompression_aboveThresholdOnly() throws Exception {
+
+        BookDto single = createBookInDb("Compressed Book", Status.AVAILABLE);
+        for (int i = 0; i < 50; i++)
+            createBookInDb("Compressed Book " + i, Status.AVAILABLE);
+
+        // Plain JDK client: the one behind TestRestTemplate handles content encodings itself
+        HttpClient client = HttpClient.newHttpClient();
+        HttpResponse<byte[]> page = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "?size=50"))
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip").build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertThat(page.headers().firstValue(HttpHeaders.CONTENT_ENCODING)).hasValue("gzip");
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(page.body()))) {
+            CursorPage<BookDto> decoded = objectMapper.readValue(in, new TypeReference<>() {
+            });
+            assertThat(decoded.getContent()).hasSize(50);
+        }
+
+        HttpResponse<byte[]> small = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/" + single.getId()))
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip").build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertThat(small.headers().firstValue(HttpHeaders.CONTENT_ENCODING)).isEmpty();
+
+    }
+
+    @Test
+    public void testChanges_recordEveryWriteInCommitOrder() throws Exception {
+
+        long start = getChanges(null).getNextSince();
+
+        BookDto book = createBookInDb("Changing Book", Status.AVAILABLE);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        BookDto update = new BookDto(null, "Changed Book", "Author", 21.0, Status.AVAILABLE);
+        testRestTemplate.exchange(baseUrl + "/" + book.getId(), HttpMethod.PUT,
+                new HttpEntity<>(objectMapper.writeValueAsString(update), headers), BookDto.class);
+        HttpHeaders minimal = new HttpHeaders();
+        minimal.add("Prefer", "return=minimal");
+        testRestTemplate.exchange(baseUrl + "/" + book.getId() + "/discontinue", HttpMethod.PATCH, new HttpEntity<>(minimal), Void.class);
+        testRestTemplate.delete(baseUrl + "/" + book.getId());
+
+        BookChangesDto changes = getChanges(start);
+        List<BookChangeDto> ofBook = changes.getChanges().stream().filter(change -> change.getId().equals(book.getId())).toList();
+        assertThat(ofBook).extracting(BookChangeDto::getOp)
+                .containsExactly(BookChangeOp.CREATE, BookChangeOp.UPDATE, BookChangeOp.DISCONTINUE, BookChangeOp.DELETE);
+        assertThat(ofBook.get(1).getBook().getTitle()).isEqualTo("Changed Book");
+        assertThat(ofBook.get(2).getStatus()).isEqualTo(Status.DISCONTINUED);
+        assertThat(changes.getChanges()).extracting(BookChangeDto::getSequence).isSorted();
+        assertThat(changes.getNextSince()).isEqualTo(changes.getChanges().get(changes.getChanges().size() - 1).getSequence());
+
+        // Paged by limit
+        BookChangesDto first = testRestTemplate.getForObject(baseUrl + "/changes?since=" + start + "&limit=1", BookChangesDto.class);
+        assertThat(first.getChanges()).hasSize(1);
+        assertThat(first.isHasMore()).isTrue();
+        assertThat(getChanges(changes.getNextSince()).getChanges()).isEmpty();
+
+    }
+
+    @Test
+    public void testChanges_setBasedUpdatesAreLoggedWithSnapshots() {
+
+        BookDto book = testRestTemplate.postForObject(baseUrl, new BookDto(null, "Bulk Changed", "Bulk Changed Author", 10.0, Status.AVAILABLE), BookDto.class);
+        long start = getChanges(null).getNextSince();
+
+        testRestTemplate.postForObject(baseUrl + "/_discontinue",
+                new BookCriteriaDto("Bulk Changed Author", null, null, null), BookCriteriaResultDto.class);
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+            List<BookChangeDto> changes = getChanges(start).getChanges();
+            assertThat(changes).anySatisfy(change -> {
+                assertThat(change.getId()).isEqualTo(book.getId());
+                assertThat(change.getOp()).isEqualTo(BookChangeOp.UPDATE);
+                assertThat(change.getBook().getStatus()).isEqualTo(Status.DISCONTINUED);
+            });
+        });
+
+    }
+
+    @Test
+    public void testChanges_staleOrInvalidCursorIsRejected() {
+
+        assertThat(testRestTemplate.getForEntity(baseUrl + "/changes?since=1", String.class).getStatusCode())
+                .isEqualTo(HttpStatus.GONE);
+        long last = getChanges(null).getNextSince();
+        assertThat(testRestTemplate.getForEntity(baseUrl + "/changes?since=" + last + "&limit=0", String.class).getStatusCode())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+
+    }
+
+    @Test
+    public void testChangeStream_staleCursorGetsReset() throws Exception {
+
+        long last = getChanges(null).getNextSince();
+        HttpClient client = HttpClient.newHttpClient();
+        for (String header : List.of("since", "Last-Event-ID")) {
+            HttpRequest.Builder request = header.equals("since")
+                    ? HttpRequest.newBuilder(URI.create(baseUrl + "/changes/stream?since=1"))
+                    : HttpRequest.newBuilder(URI.create(baseUrl + "/changes/stream")).header("Last-Event-ID", "1");
+            HttpResponse<String> response = client.send(request.header(HttpHeaders.ACCEPT, MediaType.TEXT_EVENT_STREAM_VALUE).build(),
+                    HttpResponse.BodyHandlers.ofString());
+
+            assertThat(response.statusCode()).isEqualTo(200);
+            assertThat(response.body()).contains("event:reset");
+            List<String> data = response.body().lines().filter(line -> line.startsWith("data:")).toList();
+            assertThat(data).hasSize(1);
+            assertThat(Long.parseLong(data.get(0).substring(5))).isGreaterThanOrEqualTo(last);
+        }
+
+    }
+
+    @Test
+    public void testChangeStream_catchesUpThenFollowsWrites() throws Exception {
+
+        long start = getChanges(null).getNextSince();
+        BookDto before = createBookInDb("Streamed Before", Status.AVAILABLE);
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpResponse<InputStream> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/changes/stream"))
+                .header("Last-Event-ID", Long.toString(start)).build(), HttpResponse.BodyHandlers.ofInputStream());
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue(HttpHeaders.CONTENT_TYPE).orElseThrow()).startsWith(MediaType.TEXT_EVENT_STREAM_VALUE);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+            BookChangeDto caughtUp = nextChange(reader);
+            assertThat(caughtUp.getId()).isEqualTo(before.getId());
+            assertThat(caughtUp.getOp()).isEqualTo(BookChangeOp.CREATE);
+
+            BookDto after = createBookInDb("Streamed After", Status.AVAILABLE);
+            BookChangeDto followed = nextChange(reader);
+            assertThat(followed.getId()).isEqualTo(after.getId());
+            assertThat(followed.getSequence()).isGreaterThan(caughtUp.getSequence());
+        }
+
+    }
+
+    private BookChangesDto getChanges(Long since) {
+        String url = since == null ? baseUrl + "/changes" : baseUrl + "/changes?since=" + since;
+        ResponseEntity<BookChangesDto> response = testRestTemplate.getForEntity(url, BookChangesDto.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return response.getBody();
+    }
+
+    // Reads up to the next "change" event, failing instead of blocking forever
+    private BookChangeDto nextChange(BufferedReader reader) throws Exception {
+        String data = CompletableFuture.supplyAsync(() -> {
+            try {
+                String event = null;
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.startsWith("event:"))
+                        event = line.substring(6).trim();
+                    else if (line.startsWith("data:") && "change".equals(event))
+                        return line.substring(5);
+                }
+                return null;
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }).get(10, TimeUnit.SECONDS);
+        assertThat(data).isNotNull();
+        return objectMapper.readValue(data, BookChangeDto.class);
+    }
+
+    private byte[] getBytes(String url, MediaType accept) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(accept));
+        ResponseEntity<byte[]> response = testRestTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentType().isCompatibleWith(accept)).isTrue();
+        return response.getBody();
+    }
 
-        List<BookDto> books = Arrays.asList(response.getBody());
-        assertThat(books.size()).isEqualTo(2);
+    private BookCatalogStatsDto getCatalogStats() {
+        return testRestTemplate.getForObject(baseUrl + "/stats", BookCatalogStatsDto.class);
+    }
+
+    private ResponseEntity<String> conditionalGet(String url, String eTag) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(eTag);
+        return testRestTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    }
 
+    private ResponseEntity<CursorPage<BookDto>> getPage(String url) {
+        return testRestTemplate.exchange(url, HttpMethod.GET, null, new ParameterizedTypeReference<CursorPage<BookDto>>() {
+        });
     }
 
     // Helper method to create a book directly in DB
     private BookDto createBookInDb(String title, Status status) {
-        BookDto book = new BookDto(null, title, "Author", 20.0, status);
+        return createBookInDb(title, status, 20.0);
+    }
+
+    private BookDto createBookInDb(String title, Status status, Double price) {
+        BookDto book = new BookDto(null, title, "Author", price, status);
         ResponseEntity<BookDto> response = testRestTemplate.postForEntity(baseUrl, book, BookDto.class);
         return response.getBody();
     }
@@ -0,0 +1,212 @@
+package com.mhf.bookstore.integration;
+
+import com.mhf.bookstore.cache.book.BookCache;
+import com.mhf.bookstore.dao.book.IBookRepository;
+import com.mhf.bookstore.dto.book.BookDto;
+import com.mhf.bookstore.dto.book.BookPatchDto;
+import com.mhf.bookstore.model.book.Status;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:reactivedb",
+        "bookstore.reactive.url=r2dbc:h2:mem:///reactivedb"
+})
+@ActiveProfiles("reactive")
+public class BookReactiveIntegrationTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private IBookRepository iBookRepository;
+
+    @Autowired
+    private BookCache bookCache;
+
+    @BeforeEach
+    public void setUp() {
+        iBookRepository.deleteAll();
+        bookCache.invalidateAll();
+    }
+
+    @Test
+    public void testCreateBook_visibleToJpaAndCached() {
+
+        BookDto created = createBook("Reactive Book", Status.AVAILABLE);
+
+        assertThat(created.getId()).isNotNull();
+        assertThat(created.getVersion()).isEqualTo(0L);
+        assertThat(iBookRepository.findById(created.getId())).isPresent();
+
+        long hitsBefore = bookCache.stats().getHitCount();
+        for (int i = 0; i < 2; i++)
+            webTestClient.get().uri("/api/books/{id}", created.getId())
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().valueEquals("ETag", "\"0\"")
+                    .expectBody(BookDto.class).value(book -> assertThat(book.getTitle()).isEqualTo("Reactive Book"));
+        assertThat(bookCache.stats().getHitCount()).isEqualTo(hitsBefore + 1);
+
+    }
+
+    @Test
+    public void testCreateBook_validatesBody() {
+
+        webTestClient.post().uri("/api/books")
+                .bodyValue(new BookDto(null, "", "Author", -1.0, Status.AVAILABLE))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.error").isEqualTo("Validation failed");
+
+    }
+
+    @Test
+    public void testListBooks_keysetPagesAndStatusFilter() {
+
+        for (int i = 0; i < 5; i++)
+            createBook("Book " + i, i % 2 == 0 ? Status.AVAILABLE : Status.OUT_OF_STOCK);
+
+        List<BookDto> first = list("/api/books?size=3");
+        List<BookDto> second = list("/api/books?size=3&after=" + first.get(2).getId());
+        assertThat(first).extracting(BookDto::getTitle).containsExactly("Book 0", "Book 1", "Book 2");
+        assertThat(second).extracting(BookDto::getTitle).containsExactly("Book 3", "Book 4");
+
+        assertThat(list("/api/books/status/OUT_OF_STOCK")).extracting(BookDto::getTitle).containsExactly("Book 1", "Book 3");
+
+        webTestClient.get().uri("/api/books?size=1000")
+                .exchange()
+                .expectStatus().isBadRequest();
+
+    }
+
+    @Test
+    public void testUpdateAndPatch_honourVersionAndInvalidateCache() {
+
+        BookDto book = createBook("Old Title", Status.AVAILABLE);
+        webTestClient.get().uri("/api/books/{id}", book.getId()).exchange().expectStatus().isOk();
+
+        webTestClient.put().uri("/api/books/{id}", book.getId())
+                .header("If-Match", "\"0\"")
+                .bodyValue(new BookDto(null, "New Title", "Author", 30.0, Status.AVAILABLE))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", "\"1\"");
+
+        BookPatchDto patch = new BookPatchDto();
+        patch.setPrice(12.5);
+        webTestClient.patch().uri("/api/books/{id}", book.getId())
+                .header("If-Match", "\"0\"")
+                .bodyValue(patch)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.CONFLICT);
+
+        patch.setStatus(Status.OUT_OF_STOCK);
+        webTestClient.patch().uri("/api/books/{id}", book.getId())
+                .header("If-Match", "\"1\"")
+                .bodyValue(patch)
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.get().uri("/api/books/{id}", book.getId())
+                .exchange()
+                .expectBody(BookDto.class).value(current -> {
+                    assertThat(current.getTitle()).isEqualTo("New Title");
+                    assertThat(current.getPrice()).isEqualTo(12.5);
+                    assertThat(current.getStatus()).isEqualTo(Status.OUT_OF_STOCK);
+                    assertThat(current.getVersion()).isEqualTo(2L);
+                });
+
+    }
+
+    @Test
+    public void testUpdateBook_withoutStatusClearsItLikeTheServletApi() {
+
+        BookDto book = createBook("Statusless", Status.OUT_OF_STOCK);
+
+        webTestClient.put().uri("/api/books/{id}", book.getId())
+                .bodyValue(new BookDto(null, "Statusless", "Author", 30.0, null))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(BookDto.class).value(updated -> assertThat(updated.getStatus()).isNull());
+
+        assertThat(iBookRepository.findById(book.getId())).get().extracting("status").isNull();
+
+    }
+
+    @Test
+    public void testDiscontinueAndDelete() {
+
+        BookDto book = createBook("Short Lived", Status.AVAILABLE);
+
+        webTestClient.patch().uri("/api/books/{id}/discontinue", book.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(BookDto.class).value(updated -> assertThat(updated.getStatus()).isEqualTo(Status.DISCONTINUED));
+
+        webTestClient.delete().uri("/api/books/{id}", book.getId()).exchange().expectStatus().isNoContent();
+        webTestClient.delete().uri("/api/books/{id}", book.getId()).exchange().expectStatus().isNotFound();
+        webTestClient.get().uri("/api/books/{id}", book.getId()).exchange().expectStatus().isNotFound();
+
+    }
+
+    @Test
+    public void testExportBooks_streamsNdjson() {
+
+        for (int i = 0; i < 3; i++)
+            createBook("Export " + i, Status.AVAILABLE);
+
+        List<BookDto> exported = webTestClient.get().uri("/api/books/export")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(BookDto.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertThat(exported).extracting(BookDto::getTitle).containsExactly("Export 0", "Export 1", "Export 2");
+
+    }
+
+    @Test
+    public void testSearchBooks_followsReactiveWrites() {
+
+        createBook("Reactive Streams In Depth", Status.AVAILABLE);
+
+        assertThat(list("/api/books/search?q=streams")).extracting(BookDto::getTitle)
+                .containsExactly("Reactive Streams In Depth");
+
+    }
+
+    private BookDto createBook(String title, Status status) {
+        return webTestClient.post().uri("/api/books")
+                .bodyValue(new BookDto(null, title, "Author", 20.0, status))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(BookDto.class)
+                .returnResult()
+                .getResponseBody();
+    }
+
+    private List<BookDto> list(String uri) {
+        return webTestClient.get().uri(uri)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(BookDto.class)
+                .returnResult()
+                .getResponseBody();
+    }
+
+}
@@ -0,0 +1,102 @@
+package com.mhf.bookstore.integration;
+
+import com.mhf.bookstore.dao.book.IBookRepository;
+import com.mhf.bookstore.dto.book.BookDto;
+import com.mhf.bookstore.dto.book.BookPatchDto;
+import com.mhf.bookstore.model.book.Book;
+import com.mhf.bookstore.model.book.Status;
+import com.mhf.bookstore.service.book.IBookService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Counts the JDBC statements each write path prepares, against the former load-then-save implementation.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class BookWritePathTest {
+
+    @Autowired
+    private IBookService iBookService;
+
+    @Autowired
+    private IBookRepository iBookRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        iBookRepository.deleteAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    public void testDeleteBook_singleStatement() {
+        Long id = createBook();
+        Long other = createBook();
+
+        long loadThenDelete = statementsFor(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                iBookRepository.delete(iBookRepository.findById(other).orElseThrow())));
+        long direct = statementsFor(() -> iBookService.deleteBook(id));
+
+        assertThat(loadThenDelete).isEqualTo(2);
+        assertThat(direct).isEqualTo(1);
+        assertThat(iBookRepository.existsById(id)).isFalse();
+    }
+
+    @Test
+    public void testDiscontinueBook_singleStatement() {
+        Long id = createBook();
+        Long other = createBook();
+
+        long loadThenSave = statementsFor(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Book book = iBookRepository.findById(other).orElseThrow();
+            book.setStatus(Status.DISCONTINUED);
+        }));
+        long direct = statementsFor(() -> iBookService.discontinueBook(id));
+
+        assertThat(loadThenSave).isEqualTo(2);
+        assertThat(direct).isEqualTo(1);
+        assertThat(iBookRepository.findById(id).orElseThrow().getStatus()).isEqualTo(Status.DISCONTINUED);
+    }
+
+    @Test
+    public void testPatchBook_updatesOnlyGivenFieldsAndBumpsVersion() {
+        Long id = createBook();
+        Long version = iBookRepository.findById(id).orElseThrow().getVersion();
+
+        long statements = statementsFor(() -> iBookService.patchBook(id, new BookPatchDto(null, null, 42.0, null), version));
+
+        Book patched = iBookRepository.findById(id).orElseThrow();
+        assertThat(statements).isEqualTo(2);
+        assertThat(patched.getPrice()).isEqualTo(42.0);
+        assertThat(patched.getTitle()).isEqualTo("Write Path");
+        assertThat(patched.getVersion()).isEqualTo(version + 1);
+    }
+
+    // Each statement is prepared once, so the prepared count is the number of round trips
+    private long statementsFor(Runnable action) {
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private Long createBook() {
+        return iBookService.createBook(new BookDto("Write Path", "Author", 10.0, Status.AVAILABLE)).getId();
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.mhf.bookstore.integration;
+
+import com.mhf.bookstore.dao.book.IBookRepository;
+import com.mhf.bookstore.datasource.BulkheadDataSource;
+import com.mhf.bookstore.dto.book.BookDto;
+import com.mhf.bookstore.model.book.Status;
+import com.mhf.bookstore.service.book.IBookService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.threads.virtual.enabled=true",
+        "spring.datasource.hikari.maximum-pool-size=4"
+})
+public class VirtualThreadModeTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private IBookService iBookService;
+
+    @Autowired
+    private IBookRepository iBookRepository;
+
+    @BeforeEach
+    public void setUp() {
+        iBookRepository.deleteAll();
+    }
+
+    @Test
+    public void testDataSourceIsBulkheadSizedLikeThePool() throws Exception {
+
+        assertThat(dataSource).isInstanceOf(BulkheadDataSource.class);
+        assertThat(((BulkheadDataSource) dataSource).getMaxPermits()).isEqualTo(4);
+        assertThat(dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize()).isEqualTo(4);
+
+    }
+
+    @Test
+    public void testBulkhead_releasesPermitOnceOnClose() throws Exception {
+
+        BulkheadDataSource bulkhead = (BulkheadDataSource) dataSource;
+        Connection connection = bulkhead.getConnection();
+        assertThat(bulkhead.getInUse()).isEqualTo(1);
+
+        connection.close();
+        connection.close();
+        assertThat(bulkhead.getInUse()).isZero();
+
+    }
+
+    @Test
+    public void testThousandsOfVirtualThreadsShareASmallPool() throws Exception {
+
+        int writers = 2000;
+        BulkheadDataSource bulkhead = (BulkheadDataSource) dataSource;
+        List<Future<BookDto>> results = new ArrayList<>();
+        int maxInUse = 0;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < writers; i++) {
+                int n = i;
+                results.add(executor.submit(() -> iBookService.createBook(new BookDto("Virtual " + n, "Author", 10.0, Status.AVAILABLE))));
+            }
+            while (results.stream().anyMatch(result -> !result.isDone())) {
+                maxInUse = Math.max(maxInUse, bulkhead.getInUse());
+                TimeUnit.MILLISECONDS.sleep(1);
+            }
+        }
+
+        for (Future<BookDto> result : results)
+            assertThat(result.get().getId()).isNotNull();
+        assertThat(iBookRepository.count()).isEqualTo(writers);
+        assertThat(maxInUse).isLessThanOrEqualTo(4);
+
+    }
+
+}
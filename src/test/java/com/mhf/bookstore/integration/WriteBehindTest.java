@@ -0,0 +1,177 @@
+package com.mhf.bookstore.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mhf.bookstore.config.WriteBehindProperties;
+import com.mhf.bookstore.dao.book.BookSpecifications;
+import com.mhf.bookstore.dao.book.IBookRepository;
+import com.mhf.bookstore.dto.book.BookDto;
+import com.mhf.bookstore.dto.book.BookFilterDto;
+import com.mhf.bookstore.dto.bulk.BookBulkOperationDto;
+import com.mhf.bookstore.dto.bulk.BulkOperationType;
+import com.mhf.bookstore.dto.bulk.WriteBehindReceiptDto;
+import com.mhf.bookstore.dto.bulk.WriteBehindStatusDto;
+import com.mhf.bookstore.journal.Journal;
+import com.mhf.bookstore.journal.book.BookWriteBehind;
+import com.mhf.bookstore.model.book.Book;
+import com.mhf.bookstore.model.book.Status;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "bookstore.write-behind.enabled=true",
+        "bookstore.write-behind.drain-interval=20ms"
+})
+public class WriteBehindTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate testRestTemplate;
+
+    @Autowired
+    private IBookRepository iBookRepository;
+
+    private String baseUrl;
+
+    private static final int REPLAYED = 3;
+
+    // A journal left behind by a run that acknowledged writes and died before applying them. They are replayed as
+    // one batch; the overlong title passes validation but not the column, which fails the batch at flush
+    @DynamicPropertySource
+    static void journal(DynamicPropertyRegistry registry) throws IOException {
+        Path directory = Files.createTempDirectory("book-journal");
+        Path journal = directory.resolve("books.journal");
+        List<BookBulkOperationDto> creates = List.of(
+                new BookBulkOperationDto(BulkOperationType.CREATE, null,
+                        new BookDto("Journaled Before Crash", "Author", 12.0, Status.AVAILABLE)),
+                new BookBulkOperationDto(BulkOperationType.CREATE, null,
+                        new BookDto("T".repeat(300), "Author", 12.0, Status.AVAILABLE)),
+                new BookBulkOperationDto(BulkOperationType.CREATE, null,
+                        new BookDto("Journaled After Failure", "Author", 12.0, Status.AVAILABLE)));
+        try (Journal previousRun = Journal.open(journal, 0, Duration.ofMillis(1), 1, (sequence, payload) -> {
+        })) {
+            long last = 0;
+            for (BookBulkOperationDto create : creates)
+                last = previousRun.append(new ObjectMapper().writeValueAsBytes(create));
+            previousRun.awaitDurable(last);
+        }
+        registry.add("bookstore.write-behind.journal", journal::toString);
+        // Write-behind needs a database that outlives the process, like the journal
+        registry.add("spring.datasource.url", () -> "jdbc:h2:file:" + directory.resolve("bookstore"));
+    }
+
+    @BeforeEach
+    public void setUp() {
+        baseUrl = "http://localhost:" + port + "/api/books";
+    }
+
+    @Test
+    public void testStartup_replaysTheJournal() {
+
+        WriteBehindStatusDto status = awaitApplied(REPLAYED);
+        assertThat(findByTitle("Journaled Before Crash")).hasSize(1);
+        assertThat(findByTitle("Journaled After Failure")).hasSize(1);
+        assertThat(status.getFailed()).isGreaterThanOrEqualTo(1);
+
+    }
+
+    @Test
+    public void testInMemoryDatasource_isRefused() {
+
+        WriteBehindProperties properties = new WriteBehindProperties();
+        properties.setEnabled(true);
+        JdbcDataSource inMemory = new JdbcDataSource();
+        inMemory.setURL("jdbc:h2:mem:write-behind-refused");
+
+        assertThatThrownBy(() -> new BookWriteBehind(properties, null, null, mock(PlatformTransactionManager.class),
+                new ObjectMapper(), inMemory))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("durable datasource");
+
+    }
+
+    @Test
+    public void testRespondAsync_acknowledgedThenApplied() {
+
+        ResponseEntity<WriteBehindReceiptDto> created = testRestTemplate.exchange(baseUrl, HttpMethod.POST,
+                respondAsync(new BookDto("Write Behind", "Author", 20.0, Status.AVAILABLE)), WriteBehindReceiptDto.class);
+        assertThat(created.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+        assertThat(created.getHeaders().getFirst("Preference-Applied")).isEqualTo("respond-async");
+        long sequence = created.getBody().getSequence();
+
+        awaitApplied(sequence);
+        List<Book> books = findByTitle("Write Behind");
+        assertThat(books).hasSize(1);
+
+        Long id = books.get(0).getId();
+        ResponseEntity<WriteBehindReceiptDto> updated = testRestTemplate.exchange(baseUrl + "/" + id, HttpMethod.PUT,
+                respondAsync(new BookDto("Write Behind", "Author", 25.0, Status.OUT_OF_STOCK)), WriteBehindReceiptDto.class);
+        assertThat(updated.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+        assertThat(updated.getBody().getSequence()).isGreaterThan(sequence);
+
+        WriteBehindStatusDto status = awaitApplied(updated.getBody().getSequence());
+        assertThat(iBookRepository.findById(id).orElseThrow().getPrice()).isEqualTo(25.0);
+        assertThat(status.isEnabled()).isTrue();
+        assertThat(status.getJournaledSequence()).isGreaterThanOrEqualTo(updated.getBody().getSequence());
+
+    }
+
+    @Test
+    public void testUpdateOfMissingBook_isCountedAsFailed() {
+
+        long failedBefore = awaitApplied(REPLAYED).getFailed();
+        ResponseEntity<WriteBehindReceiptDto> updated = testRestTemplate.exchange(baseUrl + "/-42", HttpMethod.PUT,
+                respondAsync(new BookDto("Gone", "Author", 25.0, Status.AVAILABLE)), WriteBehindReceiptDto.class);
+        assertThat(updated.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+
+        WriteBehindStatusDto status = awaitApplied(updated.getBody().getSequence());
+        assertThat(status.getFailed()).isEqualTo(failedBefore + 1);
+        assertThat(status.getLastError()).contains("Book not found with id -42");
+
+    }
+
+    private WriteBehindStatusDto awaitApplied(long sequence) {
+        await().atMost(Duration.ofSeconds(10)).until(() -> status().getAppliedSequence() >= sequence);
+        return status();
+    }
+
+    private WriteBehindStatusDto status() {
+        return testRestTemplate.getForObject(baseUrl + "/_write-behind", WriteBehindStatusDto.class);
+    }
+
+    private static HttpEntity<BookDto> respondAsync(BookDto book) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Prefer", "respond-async");
+        return new HttpEntity<>(book, headers);
+    }
+
+    private List<Book> findByTitle(String title) {
+        return iBookRepository.findAll(BookSpecifications.matching(new BookFilterDto(null, null, null, null, title)));
+    }
+
+}
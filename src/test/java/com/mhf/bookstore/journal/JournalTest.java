@@ -0,0 +1,126 @@
+package com.mhf.bookstore.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JournalTest {
+
+    private static final Duration FLUSH_INTERVAL = Duration.ofMillis(5);
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    public void testOpen_replaysRecordsAfterTheCheckpointInOrder() throws IOException {
+        Path path = directory.resolve("books.journal");
+        try (Journal journal = open(path, 0, new ArrayList<>())) {
+            for (String record : List.of("a", "b", "c"))
+                journal.awaitDurable(journal.append(bytes(record)));
+        }
+
+        List<String> replayed = new ArrayList<>();
+        try (Journal journal = open(path, 1, replayed)) {
+            assertEquals(List.of("2:b", "3:c"), replayed);
+            assertEquals(4, journal.append(bytes("d")));
+        }
+    }
+
+    @Test
+    public void testOpen_cutsOffATornRecord() throws IOException {
+        Path path = directory.resolve("books.journal");
+        try (Journal journal = open(path, 0, new ArrayList<>())) {
+            journal.awaitDurable(journal.append(bytes("kept")));
+            journal.awaitDurable(journal.append(bytes("torn")));
+        }
+        // A crash halfway through the second record
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 2);
+        }
+
+        List<String> replayed = new ArrayList<>();
+        try (Journal journal = open(path, 0, replayed)) {
+            assertEquals(List.of("1:kept"), replayed);
+            journal.awaitDurable(journal.append(bytes("next")));
+        }
+        replayed.clear();
+        open(path, 0, replayed).close();
+        assertEquals(List.of("1:kept", "2:next"), replayed);
+    }
+
+    @Test
+    public void testOpen_stopsAtACorruptRecord() throws IOException {
+        Path path = directory.resolve("books.journal");
+        try (Journal journal = open(path, 0, new ArrayList<>())) {
+            journal.awaitDurable(journal.append(bytes("first")));
+            journal.awaitDurable(journal.append(bytes("second")));
+        }
+        byte[] content = Files.readAllBytes(path);
+        content[content.length - 1] ^= 1;
+        Files.write(path, content);
+
+        List<String> replayed = new ArrayList<>();
+        open(path, 0, replayed).close();
+        assertEquals(List.of("1:first"), replayed);
+    }
+
+    @Test
+    public void testAwaitDurable_concurrentAppendsShareSyncs() throws Exception {
+        int writers = 16;
+        int recordsPerWriter = 50;
+        try (Journal journal = open(directory.resolve("books.journal"), 0, new ArrayList<>());
+             ExecutorService executor = Executors.newFixedThreadPool(writers)) {
+            List<Future<?>> results = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < recordsPerWriter; i++)
+                        journal.awaitDurable(journal.append(bytes("record")));
+                    return null;
+                }));
+            }
+            for (Future<?> result : results)
+                result.get();
+
+            assertEquals(writers * recordsPerWriter, journal.getDurableSequence());
+            assertTrue(journal.getSyncs() < writers * recordsPerWriter, "syncs " + journal.getSyncs());
+        }
+    }
+
+    @Test
+    public void testCompact_onlyOnceEverythingIsApplied() throws IOException {
+        Path path = directory.resolve("books.journal");
+        try (Journal journal = open(path, 0, new ArrayList<>())) {
+            journal.awaitDurable(journal.append(bytes("a")));
+            journal.awaitDurable(journal.append(bytes("b")));
+
+            assertFalse(journal.compact(1, 0));
+            assertTrue(journal.compact(2, 0));
+            assertEquals(0, journal.size());
+            assertEquals(3, journal.append(bytes("c")));
+        }
+    }
+
+    private static Journal open(Path path, long afterSequence, List<String> replayed) throws IOException {
+        return Journal.open(path, afterSequence, FLUSH_INTERVAL, 64,
+                (sequence, payload) -> replayed.add(sequence + ":" + new String(payload, StandardCharsets.UTF_8)));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.mhf.bookstore.limit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveConcurrencyLimitTest {
+
+    private static final long MILLI = 1_000_000;
+
+    @Test
+    public void testTryAcquire_rejectsAboveTheLimit() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 1, 10, 0);
+
+        assertTrue(limit.tryAcquire(false));
+        assertTrue(limit.tryAcquire(false));
+        assertFalse(limit.tryAcquire(true));
+        assertEquals(1, limit.getRejected());
+
+        limit.cancel();
+        assertTrue(limit.tryAcquire(false));
+        assertEquals(2, limit.getInFlight());
+    }
+
+    @Test
+    public void testTryAcquire_keepsTheReserveForCriticalRequests() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 10, 0.2);
+
+        for (int i = 0; i < 8; i++)
+            assertTrue(limit.tryAcquire(false));
+        assertFalse(limit.tryAcquire(false));
+        assertTrue(limit.tryAcquire(true));
+        assertTrue(limit.tryAcquire(true));
+        assertFalse(limit.tryAcquire(true));
+    }
+
+    @Test
+    public void testRelease_growsWhileLatencyHoldsUnderLoad() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 100, 0);
+
+        for (int i = 0; i < 50; i++)
+            saturatedSample(limit, 5 * MILLI);
+
+        assertTrue(limit.getLimit() > 20, "limit " + limit.getLimit());
+        assertTrue(limit.getLimit() <= 100);
+    }
+
+    @Test
+    public void testRelease_shrinksWhenLatencyRises() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(50, 1, 100, 0);
+        for (int i = 0; i < 200; i++)
+            saturatedSample(limit, 5 * MILLI);
+        int settled = limit.getLimit();
+
+        for (int i = 0; i < 50; i++)
+            saturatedSample(limit, 50 * MILLI);
+
+        assertTrue(limit.getLimit() < settled / 2, settled + " -> " + limit.getLimit());
+    }
+
+    @Test
+    public void testRelease_backsOffOnFailuresDownToTheMinimum() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 4, 100, 0);
+
+        limit.tryAcquire(false);
+        limit.release(MILLI, true);
+        assertEquals(18, limit.getLimit());
+
+        for (int i = 0; i < 100; i++) {
+            limit.tryAcquire(false);
+            limit.release(MILLI, true);
+        }
+        assertEquals(4, limit.getLimit());
+    }
+
+    @Test
+    public void testRelease_idleSamplesLeaveTheLimitAlone() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 1, 100, 0);
+
+        for (int i = 0; i < 100; i++) {
+            limit.tryAcquire(false);
+            limit.release(i % 2 == 0 ? MILLI : 100 * MILLI, false);
+        }
+
+        assertEquals(20, limit.getLimit());
+        assertEquals(0, limit.getInFlight());
+    }
+
+    // Fills the limit, then releases one request with the given latency
+    private static void saturatedSample(AdaptiveConcurrencyLimit limit, long latencyNanos) {
+        while (limit.tryAcquire(true)) {
+        }
+        limit.release(latencyNanos, false);
+        while (limit.getInFlight() > 0)
+            limit.cancel();
+    }
+
+}
@@ -0,0 +1,90 @@
+package com.mhf.bookstore.observability;
+
+import com.mhf.bookstore.config.QueryProperties;
+import com.mhf.bookstore.dto.query.QueryShapeStatsDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QueryStatisticsTest {
+
+    private static final long MILLI = 1_000_000;
+
+    private QueryProperties properties;
+    private QueryStatistics queryStatistics;
+
+    @BeforeEach
+    public void setUp() {
+        properties = new QueryProperties();
+        queryStatistics = new QueryStatistics(properties);
+    }
+
+    @Test
+    public void testShapeOf_normalizesLiteralsAndInLists() {
+        assertEquals("select * from book where id in (?...) and status = ?",
+                QueryStatistics.shapeOf("select *  from book\nwhere id in (?, ?,?) and status = 'AVAILABLE'"));
+        assertEquals("select b1_0.id from book b1_0 where b1_0.price > ? fetch first ? rows only",
+                QueryStatistics.shapeOf("select b1_0.id from book b1_0 where b1_0.price > 12.5 fetch first 20 rows only"));
+        assertEquals("select * from book where title = ?",
+                QueryStatistics.shapeOf("select * from book where title = 'It''s'"));
+    }
+
+    @Test
+    public void testTop_aggregatesByShapeAndOrders() {
+        queryStatistics.statementExecuted("select * from book where id in (?, ?)", List.of(1L, 2L), 1, 2 * MILLI);
+        queryStatistics.statementExecuted("select * from book where id in (?, ?, ?)", List.of(1L, 2L, 3L), 1, 4 * MILLI);
+        queryStatistics.statementExecuted("insert into book values (?)", List.of("x"), 10, 5 * MILLI);
+
+        List<QueryShapeStatsDto> byTotal = queryStatistics.top(10, "total");
+        assertEquals(2, byTotal.size());
+        assertEquals("select * from book where id in (?...)", byTotal.get(0).getSql());
+        assertEquals(2, byTotal.get(0).getCount());
+        assertEquals(6.0, byTotal.get(0).getTotalMillis(), 0.001);
+        assertEquals(4.0, byTotal.get(0).getMaxMillis(), 0.001);
+        assertEquals(10, byTotal.get(1).getCount());
+
+        List<QueryShapeStatsDto> byMax = queryStatistics.top(1, "max");
+        assertEquals(1, byMax.size());
+        assertEquals("insert into book values (?)", byMax.get(0).getSql());
+        assertEquals(12, queryStatistics.getStatements());
+    }
+
+    @Test
+    public void testStatementExecuted_countsSlowAndUntrackedShapes() {
+        properties.setMaxShapes(1);
+        properties.setSlowLogSampleRate(0);
+        queryStatistics = new QueryStatistics(properties);
+
+        queryStatistics.statementExecuted("select 1", List.of(), 1, 150 * MILLI);
+        queryStatistics.statementExecuted("select * from book", List.of(), 1, MILLI);
+
+        assertEquals(1, queryStatistics.getSlowStatements());
+        assertEquals(1, queryStatistics.getUntrackedStatements());
+        assertEquals(1, queryStatistics.top(10, "total").get(0).getSlowCount());
+
+        queryStatistics.reset();
+        assertEquals(0, queryStatistics.getStatements());
+        assertTrue(queryStatistics.top(10, "total").isEmpty());
+    }
+
+    @Test
+    public void testOpenRequest_countsOnlyStatementsInScope() {
+        queryStatistics.statementExecuted("select 1", List.of(), 1, MILLI);
+
+        QueryStatistics.RequestScope scope = queryStatistics.openRequest();
+        queryStatistics.statementExecuted("select 1", List.of(), 1, MILLI);
+        QueryStatistics.RequestScope nested = queryStatistics.openRequest();
+        queryStatistics.statementExecuted("insert into book values (?)", List.of("x"), 3, MILLI);
+        nested.close();
+        scope.close();
+        queryStatistics.statementExecuted("select 1", List.of(), 1, MILLI);
+
+        assertEquals(3, nested.getStatements());
+        assertEquals(4, scope.getStatements());
+        assertEquals(2 * MILLI, scope.getNanos());
+    }
+
+}
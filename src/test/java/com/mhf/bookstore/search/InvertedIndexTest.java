@@ -0,0 +1,77 @@
+package com.mhf.bookstore.search;
+
+import com.mhf.bookstore.search.book.InvertedIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InvertedIndexTest {
+
+    private InvertedIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new InvertedIndex();
+        index.put(1L, "Java Programming 101", "John Doe");
+        index.put(2L, "Effective Java", "Joshua Bloch");
+        index.put(3L, "Java Concurrency in Practice", "Brian Goetz");
+        index.put(4L, "Clean Code", "Robert Martin");
+    }
+
+    @Test
+    public void testSearch_singleTermIsCaseInsensitive() {
+        assertArrayEquals(new long[]{1L, 2L, 3L}, index.search("JAVA", 10));
+    }
+
+    @Test
+    public void testSearch_allTermsMustMatch() {
+        assertArrayEquals(new long[]{3L}, index.search("java practice", 10));
+        assertArrayEquals(new long[0], index.search("java martin", 10));
+    }
+
+    @Test
+    public void testSearch_matchesTitleAndAuthorTerms() {
+        assertArrayEquals(new long[]{2L}, index.search("bloch java", 10));
+    }
+
+    @Test
+    public void testSearch_titleHitsRankAboveAuthorHits() {
+        index.put(5L, "Biography", "Martin Code");
+        assertArrayEquals(new long[]{4L, 5L}, index.search("code", 10));
+    }
+
+    @Test
+    public void testSearch_foldsAccents() {
+        index.put(6L, "Les Misérables", "Victor Hugo");
+        assertArrayEquals(new long[]{6L}, index.search("miserables", 10));
+    }
+
+    @Test
+    public void testSearch_respectsLimit() {
+        assertArrayEquals(new long[]{1L, 2L}, index.search("java", 2));
+    }
+
+    @Test
+    public void testPut_replacesPreviousTerms() {
+        index.put(2L, "Effective Kotlin", "Marcin Moskala");
+        assertArrayEquals(new long[]{1L, 3L}, index.search("java", 10));
+        assertArrayEquals(new long[]{2L}, index.search("kotlin", 10));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    public void testRemove() {
+        index.remove(1L);
+        index.remove(42L);
+        assertArrayEquals(new long[]{2L, 3L}, index.search("java", 10));
+        assertArrayEquals(new long[0], index.search("doe", 10));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    public void testSearch_blankQueryHasNoHits() {
+        assertArrayEquals(new long[0], index.search("  ,. ", 10));
+    }
+
+}
@@ -1,26 +1,52 @@
 package com.mhf.bookstore.service;
 
+import com.mhf.bookstore.cache.book.BookCache;
+import com.mhf.bookstore.cache.book.CatalogVersion;
+import com.mhf.bookstore.coalesce.book.BookReadFlights;
+import com.mhf.bookstore.config.BookCacheProperties;
+import com.mhf.bookstore.config.PaginationProperties;
 import com.mhf.bookstore.dao.book.IBookRepository;
 import com.mhf.bookstore.dto.book.BookDto;
+import com.mhf.bookstore.dto.book.BookFilterDto;
+import com.mhf.bookstore.dto.book.BookPatchDto;
+import com.mhf.bookstore.dto.page.CursorPage;
+import com.mhf.bookstore.dto.page.CursorPageRequest;
+import com.mhf.bookstore.event.book.BookChangedEvent;
+import com.mhf.bookstore.exception.BadRequestException;
+import com.mhf.bookstore.exception.ConflictException;
 import com.mhf.bookstore.exception.ResourceNotFoundException;
 import com.mhf.bookstore.mapper.book.BookMapper;
 import com.mhf.bookstore.model.book.Book;
 import com.mhf.bookstore.model.book.Status;
+import com.mhf.bookstore.search.book.BookSearchIndex;
 import com.mhf.bookstore.service.impl.book.BookServiceImpl;
+import com.mhf.bookstore.stats.book.BookStatistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.verify;
 
@@ -33,6 +59,30 @@ public class BookServiceTest {
     @Mock
     private BookMapper bookMapper;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private BookSearchIndex bookSearchIndex;
+
+    @Mock
+    private BookStatistics bookStatistics;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private BookReadFlights bookReadFlights = new BookReadFlights();
+
+    @Spy
+    private PaginationProperties paginationProperties = new PaginationProperties();
+
+    @Spy
+    private BookCache bookCache = new BookCache(new BookCacheProperties());
+
+    @Spy
+    private CatalogVersion catalogVersion = new CatalogVersion();
+
     @InjectMocks
     private BookServiceImpl bookService;
 
@@ -62,14 +112,15 @@ public class BookServiceTest {
         assertNotNull(result);
         assertEquals(Status.AVAILABLE, result.getStatus());
         assertEquals("New Book", result.getTitle());
+        verify(eventPublisher).publishEvent(argThat((BookChangedEvent e) ->
+                e.getType() == BookChangedEvent.Type.CREATED && e.getId().equals(2L)));
 
     }
 
     @Test
     public void testGetBookById_bookExists() {
 
-        when(iBookRepository.findById(1L)).thenReturn(Optional.of(book));
-        when(bookMapper.toDto(book)).thenReturn(bookDto);
+        when(iBookRepository.findDtoById(1L)).thenReturn(Optional.of(bookDto));
 
         BookDto result = bookService.getBookById(1L);
 
@@ -78,29 +129,139 @@ public class BookServiceTest {
 
     }
 
+    @Test
+    public void testGetBookById_servedFromCacheOnSecondCall() {
+
+        when(iBookRepository.findDtoById(1L)).thenReturn(Optional.of(bookDto));
+
+        bookService.getBookById(1L);
+        BookDto result = bookService.getBookById(1L);
+
+        assertEquals("The Best Book", result.getTitle());
+        verify(iBookRepository, times(1)).findDtoById(1L);
+        assertEquals(1, bookService.getCacheStats().getHitCount());
+
+    }
+
     @Test
     public void testGetBookById_bookNotFound() {
 
-        when(iBookRepository.findById(99L)).thenReturn(Optional.empty());
+        when(iBookRepository.findDtoById(99L)).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () -> bookService.getBookById(99L));
 
     }
 
     @Test
-    public void testListAllBooks() {
+    public void testGetBookVersion_readsOnlyTheVersionUnlessCached() {
 
-        List<Book> books = Arrays.asList(book);
-        List<BookDto> bookDtos = Arrays.asList(bookDto);
+        when(iBookRepository.findVersionById(1L)).thenReturn(Optional.of(4L));
 
-        when(iBookRepository.findAll()).thenReturn(books);
-        when(bookMapper.toDtoList(books)).thenReturn(bookDtos);
+        assertEquals(4L, bookService.getBookVersion(1L));
+        verify(iBookRepository, never()).findDtoById(1L);
 
-        List<BookDto> result = bookService.listAllBooks();
+        bookDto.setVersion(5L);
+        when(iBookRepository.findDtoById(1L)).thenReturn(Optional.of(bookDto));
+        bookService.getBookById(1L);
 
-        assertNotNull(result);
-        assertEquals(1, result.size());
-        assertEquals("The Best Book", result.get(0).getTitle());
+        assertEquals(5L, bookService.getBookVersion(1L));
+        verify(iBookRepository, times(1)).findVersionById(1L);
+
+    }
+
+    @Test
+    public void testListBooks_returnsCursorWhenMoreRowsExist() {
+
+        Window<BookDto> window = Window.from(Arrays.asList(bookDto), i -> ScrollPosition.offset(i), true);
+
+        when(iBookRepository.findDtoBy(any(ScrollPosition.class), eq(Sort.by("id")), eq(Limit.of(1)))).thenReturn(window);
+
+        CursorPage<BookDto> page = bookService.listBooks(new CursorPageRequest(null, 1, null, false));
+
+        assertTrue(page.isHasNext());
+        assertNotNull(page.getNextCursor());
+        assertNull(page.getTotalElements());
+        assertEquals(1, page.getSize());
+        verify(iBookRepository, never()).count();
+
+    }
+
+    @Test
+    public void testListBooks_rejectsPageSizeAboveMaximum() {
+
+        CursorPageRequest pageRequest = new CursorPageRequest(null, paginationProperties.getMaxPageSize() + 1, null, false);
+
+        assertThrows(BadRequestException.class, () -> bookService.listBooks(pageRequest));
+
+    }
+
+    @Test
+    public void testListBooks_rejectsCursorIssuedForAnotherSort() {
+
+        Window<BookDto> window = Window.from(Arrays.asList(bookDto), i -> ScrollPosition.offset(i), true);
+        when(iBookRepository.findDtoBy(any(ScrollPosition.class), any(Sort.class), any(Limit.class))).thenReturn(window);
+        String cursor = bookService.listBooks(new CursorPageRequest(null, 1, "price,desc", false)).getNextCursor();
+
+        assertThrows(BadRequestException.class, () -> bookService.listBooks(new CursorPageRequest(cursor, 1, "title", false)));
+
+    }
+
+    @Test
+    public void testGetBooksByStatus_queriesDatabaseByStatus() {
+
+        Window<BookDto> window = Window.from(Arrays.asList(bookDto), i -> ScrollPosition.offset(i), false);
+
+        when(iBookRepository.findDtoByStatus(eq(Status.AVAILABLE), any(ScrollPosition.class), any(Sort.class), any(Limit.class))).thenReturn(window);
+
+        CursorPage<BookDto> page = bookService.getBooksByStatus(Status.AVAILABLE, new CursorPageRequest());
+
+        assertEquals(1, page.getSize());
+        assertFalse(page.isHasNext());
+        verify(iBookRepository, never()).findAll();
+
+    }
+
+    @Test
+    public void testExportBooks_streamsProjectedRows() {
+
+        BookDto otherDto = new BookDto(2L, "Other Book", "Author", 10.0, Status.AVAILABLE);
+
+        when(iBookRepository.streamAllDtos()).thenReturn(Stream.of(bookDto, otherDto));
+
+        List<BookDto> exported = new ArrayList<>();
+        bookService.exportBooks(exported::add);
+
+        assertEquals(Arrays.asList(bookDto, otherDto), exported);
+
+    }
+
+    @Test
+    public void testSearchBooks_keepsIndexRanking() {
+
+        BookDto otherDto = new BookDto(2L, "Other Book", "Author", 10.0, Status.AVAILABLE);
+
+        when(bookSearchIndex.search("book", paginationProperties.getDefaultPageSize())).thenReturn(new long[]{2L, 3L, 1L});
+        when(iBookRepository.findDtoByIdIn(Arrays.asList(2L, 3L, 1L))).thenReturn(Arrays.asList(bookDto, otherDto));
+
+        List<BookDto> result = bookService.searchBooks("book", null);
+
+        assertEquals(Arrays.asList(otherDto, bookDto), result);
+
+    }
+
+    @Test
+    public void testFilterBooks_rejectsInvertedPriceRange() {
+
+        BookFilterDto filter = new BookFilterDto(null, null, 30.0, 10.0, null);
+
+        assertThrows(BadRequestException.class, () -> bookService.filterBooks(filter, new CursorPageRequest()));
+
+    }
+
+    @Test
+    public void testSearchBooks_blankQuery() {
+
+        assertThrows(BadRequestException.class, () -> bookService.searchBooks(" ", null));
 
     }
 
@@ -111,7 +272,7 @@ public class BookServiceTest {
         BookDto updatedBookDto = new BookDto(1L, "Updated Book", "Author", 19.99, Status.AVAILABLE);
 
         when(iBookRepository.findById(1L)).thenReturn(Optional.of(book));
-        when(iBookRepository.save(argThat(b -> b.getId().equals(1L)))).thenReturn(updatedBook);
+        when(iBookRepository.saveAndFlush(argThat(b -> b.getId().equals(1L)))).thenReturn(updatedBook);
         when(bookMapper.toDto(updatedBook)).thenReturn(updatedBookDto);
 
         BookDto result = bookService.updateBook(1L, updatedBookDto);
@@ -122,6 +283,61 @@ public class BookServiceTest {
 
     }
 
+    @Test
+    public void testUpdateBook_staleVersion() {
+
+        book.setVersion(4L);
+        BookDto updatedBookDto = new BookDto(1L, "Updated Book", "Author", 19.99, Status.AVAILABLE);
+        updatedBookDto.setVersion(3L);
+
+        when(iBookRepository.findById(1L)).thenReturn(Optional.of(book));
+
+        assertThrows(ConflictException.class, () -> bookService.updateBook(1L, updatedBookDto));
+        verify(iBookRepository, never()).saveAndFlush(any(Book.class));
+
+    }
+
+    @Test
+    public void testPatchBook() {
+
+        BookPatchDto patch = new BookPatchDto(null, null, 30.0, null);
+        Book patchedBook = new Book(1L, "The Best Book", "Mammad", 30.0, Status.AVAILABLE);
+        BookDto patchedBookDto = new BookDto(1L, "The Best Book", "Mammad", 30.0, Status.AVAILABLE);
+
+        when(iBookRepository.patch(1L, null, null, null, 30.0, null)).thenReturn(1);
+        when(iBookRepository.findById(1L)).thenReturn(Optional.of(patchedBook));
+        when(bookMapper.toDto(patchedBook)).thenReturn(patchedBookDto);
+
+        BookDto result = bookService.patchBook(1L, patch, null);
+
+        assertEquals(30.0, result.getPrice());
+        verify(eventPublisher).publishEvent(argThat((BookChangedEvent e) -> e.getBook() == patchedBookDto));
+
+    }
+
+    @Test
+    public void testPatchBook_versionConflict() {
+
+        BookPatchDto patch = new BookPatchDto("New Title", null, null, null);
+
+        when(iBookRepository.patch(1L, 2L, "New Title", null, null, null)).thenReturn(0);
+        when(iBookRepository.existsById(1L)).thenReturn(true);
+
+        assertThrows(ConflictException.class, () -> bookService.patchBook(1L, patch, 2L));
+
+    }
+
+    @Test
+    public void testPatchBook_bookNotFound() {
+
+        BookPatchDto patch = new BookPatchDto("New Title", null, null, null);
+
+        when(iBookRepository.patch(99L, null, "New Title", null, null, null)).thenReturn(0);
+
+        assertThrows(ResourceNotFoundException.class, () -> bookService.patchBook(99L, patch, null));
+
+    }
+
     @Test
     public void testUpdateBook_bookNotFound() {
 
@@ -136,20 +352,23 @@ public class BookServiceTest {
     @Test
     public void testDeleteBook() {
 
-        when(iBookRepository.findById(1L)).thenReturn(Optional.of(book));
+        when(iBookRepository.deleteBookById(1L)).thenReturn(1);
 
         bookService.deleteBook(1L);
 
-        verify(iBookRepository).delete(book);
+        verify(iBookRepository, never()).findById(any());
+        verify(eventPublisher).publishEvent(argThat((BookChangedEvent e) ->
+                e.getType() == BookChangedEvent.Type.DELETED && e.getId().equals(1L)));
 
     }
 
     @Test
     public void testDeleteBook_bookNotFound() {
 
-        when (iBookRepository.findById(99L)).thenReturn(Optional.empty());
+        when (iBookRepository.deleteBookById(99L)).thenReturn(0);
 
         assertThrows(ResourceNotFoundException.class, () -> bookService.deleteBook(99L));
+        verify(eventPublisher, never()).publishEvent(any());
 
     }
 
@@ -159,21 +378,35 @@ public class BookServiceTest {
         Book updatedBook = new Book(1L, "The Best Book", "Mammad", 24.0, Status.DISCONTINUED);
         BookDto updatedBookDto = new BookDto(1L, "The Best Book", "Mammad", 24.0, Status.DISCONTINUED);
 
-        when(iBookRepository.findById(1L)).thenReturn(Optional.of(book));
-        when(iBookRepository.save(any(Book.class))).thenReturn(updatedBook);
+        when(iBookRepository.updateStatus(1L, Status.DISCONTINUED)).thenReturn(1);
+        when(iBookRepository.findById(1L)).thenReturn(Optional.of(updatedBook));
         when(bookMapper.toDto(updatedBook)).thenReturn(updatedBookDto);
 
         BookDto result = bookService.markAsDiscontinued(1L);
 
         assertNotNull(result);
         assertEquals(Status.DISCONTINUED, result.getStatus());
+        verify(iBookRepository, never()).save(any(Book.class));
+
+    }
+
+    @Test
+    public void testDiscontinueBook_withoutReadBack() {
+
+        when(iBookRepository.updateStatus(1L, Status.DISCONTINUED)).thenReturn(1);
+
+        bookService.discontinueBook(1L);
+
+        verify(iBookRepository, never()).findById(any());
+        verify(eventPublisher).publishEvent(argThat((BookChangedEvent e) ->
+                e.getType() == BookChangedEvent.Type.UPDATED && e.getId().equals(1L) && e.getBook() == null));
 
     }
 
     @Test
     public void testMarkAsDiscontinued_bookNotFound() {
 
-        when(iBookRepository.findById(99L)).thenReturn(Optional.empty());
+        when(iBookRepository.updateStatus(99L, Status.DISCONTINUED)).thenReturn(0);
 
         assertThrows(ResourceNotFoundException.class, () -> bookService.markAsDiscontinued(99L));
 
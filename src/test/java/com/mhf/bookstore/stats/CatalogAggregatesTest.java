@@ -0,0 +1,96 @@
+package com.mhf.bookstore.stats;
+
+import com.mhf.bookstore.dto.book.BookCatalogStatsDto;
+import com.mhf.bookstore.model.book.Status;
+import com.mhf.bookstore.stats.book.CatalogAggregates;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogAggregatesTest {
+
+    private CatalogAggregates aggregates;
+
+    @BeforeEach
+    public void setUp() {
+        aggregates = new CatalogAggregates();
+        aggregates.put(1L, "Joshua Bloch", Status.AVAILABLE, 40.0);
+        aggregates.put(2L, "Brian Goetz", Status.AVAILABLE, 30.0);
+        aggregates.put(3L, "joshua bloch", Status.OUT_OF_STOCK, 20.0);
+    }
+
+    @Test
+    public void testSnapshot_countsAndPrices() {
+        BookCatalogStatsDto stats = aggregates.snapshot();
+        assertEquals(3, stats.getBooks());
+        assertEquals(2L, stats.getBooksByStatus().get(Status.AVAILABLE));
+        assertEquals(1L, stats.getBooksByStatus().get(Status.OUT_OF_STOCK));
+        assertEquals(0L, stats.getBooksByStatus().get(Status.DISCONTINUED));
+        assertEquals(2, stats.getAuthors());
+        assertEquals(30.0, stats.getAveragePrice());
+        assertEquals(20.0, stats.getMinPrice());
+        assertEquals(40.0, stats.getMaxPrice());
+    }
+
+    @Test
+    public void testAuthorBooks_isCaseInsensitive() {
+        assertEquals(2, aggregates.authorBooks("JOSHUA BLOCH"));
+        assertEquals(0, aggregates.authorBooks("Robert Martin"));
+    }
+
+    @Test
+    public void testPut_replacesThePreviousContribution() {
+        aggregates.put(3L, "Robert Martin", Status.AVAILABLE, 50.0);
+
+        BookCatalogStatsDto stats = aggregates.snapshot();
+        assertEquals(3, stats.getBooks());
+        assertEquals(3L, stats.getBooksByStatus().get(Status.AVAILABLE));
+        assertEquals(0L, stats.getBooksByStatus().get(Status.OUT_OF_STOCK));
+        assertEquals(1, aggregates.authorBooks("Joshua Bloch"));
+        assertEquals(30.0, stats.getMinPrice());
+        assertEquals(40.0, stats.getAveragePrice());
+    }
+
+    @Test
+    public void testRemove_restoresMinAndMax() {
+        aggregates.put(4L, "Robert Martin", Status.AVAILABLE, 20.0);
+        aggregates.remove(3L);
+        assertEquals(20.0, aggregates.snapshot().getMinPrice());
+
+        aggregates.remove(4L);
+        aggregates.remove(1L);
+        BookCatalogStatsDto stats = aggregates.snapshot();
+        assertEquals(30.0, stats.getMinPrice());
+        assertEquals(30.0, stats.getMaxPrice());
+        assertEquals(1, stats.getAuthors());
+
+        aggregates.remove(1L);
+        assertEquals(1, aggregates.size());
+    }
+
+    @Test
+    public void testSetStatus_keepsAuthorAndPrice() {
+        aggregates.setStatus(1L, Status.DISCONTINUED);
+        aggregates.setStatus(99L, Status.DISCONTINUED);
+
+        BookCatalogStatsDto stats = aggregates.snapshot();
+        assertEquals(1L, stats.getBooksByStatus().get(Status.DISCONTINUED));
+        assertEquals(1L, stats.getBooksByStatus().get(Status.AVAILABLE));
+        assertEquals(2, aggregates.authorBooks("Joshua Bloch"));
+        assertEquals(40.0, stats.getMaxPrice());
+    }
+
+    @Test
+    public void testSnapshot_withoutPrices() {
+        aggregates = new CatalogAggregates();
+        aggregates.put(1L, "Anonymous", Status.AVAILABLE, null);
+
+        BookCatalogStatsDto stats = aggregates.snapshot();
+        assertEquals(1, stats.getBooks());
+        assertNull(stats.getAveragePrice());
+        assertNull(stats.getMinPrice());
+        assertNull(stats.getMaxPrice());
+    }
+
+}